@@ -0,0 +1,84 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModelDefinition;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.network.ComputationResult;
+import it.unicam.quasylab.sibilla.core.network.serialization.ComputationResultSerializer;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serialization and deserialization of the results of a computation, that are the trajectories
+ * exchanged between master and slave servers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ComputationResultSerializerBenchmark {
+
+    public final static double DEADLINE = 10.0;
+
+    @Param({"1", "10"})
+    public int trajectories;
+
+    private PopulationModel model;
+    private ComputationResult<PopulationState> result;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        PopulationModelDefinition definition = PopulationModels.getDefinition("seir");
+        model = definition.createModel();
+        RandomGenerator rg = new MersenneTwister(1);
+        SimulationEnvironment environment = new SimulationEnvironment();
+        List<Trajectory<PopulationState>> list = new LinkedList<>();
+        for (int i = 0; i < trajectories; i++) {
+            list.add(environment.sampleTrajectory(rg, model, definition.state().apply(rg), DEADLINE));
+        }
+        result = new ComputationResult<>(list);
+        serialized = ComputationResultSerializer.serialize(result, model);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return ComputationResultSerializer.serialize(result, model);
+    }
+
+    @Benchmark
+    public ComputationResult<PopulationState> deserialize() throws IOException {
+        return ComputationResultSerializer.deserialize(serialized, model);
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.models.lio.*;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares the cost of a step of the counting and of the individual representations of the state of
+ * a LIO model. The red-blue model is used, where each agent changes colour when meeting an agent of
+ * the other colour.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LIOStateBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private RandomGenerator rg;
+    private LIOCountingState countingState;
+    private LIOIndividualState individualState;
+    private double[][] matrix;
+    private AgentsDefinition definition;
+    private LIOModel<LIOState> model;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rg = new MersenneTwister(1);
+        definition = new AgentsDefinition();
+        Agent agentR = definition.addAgent("R");
+        Agent agentB = definition.addAgent("B");
+        AgentAction redAction = definition.addAction("red", s -> s.fractionOf(agentR) * 0.5);
+        AgentAction blueAction = definition.addAction("blue", s -> s.fractionOf(agentB) * 0.5);
+        agentR.addAction(blueAction, agentB);
+        agentB.addAction(redAction, agentR);
+        int red = size / 2;
+        int[] occupancy = new int[definition.numberOfAgents()];
+        occupancy[agentR.getIndex()] = red;
+        occupancy[agentB.getIndex()] = size - red;
+        countingState = new LIOCountingState(occupancy);
+        individualState = new LIOIndividualState(definition,
+                IntStream.range(0, size).map(i -> (i < red ? agentR.getIndex() : agentB.getIndex())).toArray());
+        matrix = definition.getAgentProbabilityMatrix(countingState);
+        model = new LIOModel<>(definition);
+    }
+
+    @Benchmark
+    public LIOState countingStep() {
+        return countingState.step(rg, matrix);
+    }
+
+    @Benchmark
+    public LIOState individualStep() {
+        return individualState.step(rg, matrix);
+    }
+
+    @Benchmark
+    public double[][] probabilityMatrix() {
+        return definition.computeAgentProbabilityMatrix(countingState);
+    }
+
+    @Benchmark
+    public LIOState countingModelStep() {
+        return model.sampleNextState(rg, 0.0, countingState);
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.models.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModelDefinition;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of simulation steps per millisecond performed on population models with the
+ * available simulation modes. When a run terminates, the simulation restarts from the initial state.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PopulationModelBenchmark {
+
+    @Param({"seir", "crowds", "covid"})
+    public String model;
+
+    @Param({"EXACT", "INCREMENTAL", "TAU_LEAPING"})
+    public String mode;
+
+    private SimulatorCursor<PopulationState> cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PopulationModelDefinition definition = PopulationModels.getDefinition(model);
+        definition.setSimulationMode(PopulationModel.SimulationMode.valueOf(mode));
+        cursor = definition.createModel().createSimulationCursor(new MersenneTwister(1), definition.state());
+        cursor.start();
+    }
+
+    @Benchmark
+    public double step() {
+        if (!cursor.step()) {
+            cursor.restart();
+            cursor.start();
+        }
+        return cursor.time();
+    }
+
+}
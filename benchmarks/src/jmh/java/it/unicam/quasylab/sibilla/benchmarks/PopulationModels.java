@@ -0,0 +1,173 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.models.CachedValues;
+import it.unicam.quasylab.sibilla.core.models.EvaluationEnvironment;
+import it.unicam.quasylab.sibilla.core.models.ParametricDataSet;
+import it.unicam.quasylab.sibilla.core.models.ParametricValue;
+import it.unicam.quasylab.sibilla.core.models.pm.*;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.examples.lio.seir.CovidDefinition;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Population models used in benchmarks. Models <code>seir</code> and <code>crowds</code> correspond to the ones
+ * in the <code>examples:populations</code> projects, while <code>covid</code> is built from {@link CovidDefinition}.
+ */
+public final class PopulationModels {
+
+    public final static int SEIR_SCALE = 100;
+    public final static double LAMBDA_E = 1;
+    public final static double LAMBDA_I = 1 / 3.0;
+    public final static double LAMBDA_R = 1 / 7.0;
+    public final static double LAMBDA_DECAY = 1 / 30.0;
+
+    public final static int CROWDS_N = 10;
+    public final static double LAMBDA_S = 1.0;
+    public final static double P_F = 0.9;
+
+    public final static double COVID_LAMBDA_MEET = 4.0;
+
+    private PopulationModels() {}
+
+    /**
+     * Returns the definition of the model with the given name.
+     *
+     * @param name model name.
+     * @return the definition of the model with the given name.
+     */
+    public static PopulationModelDefinition getDefinition(String name) {
+        switch (name) {
+            case "seir":
+                return new PopulationModelDefinition(PopulationModels::seirRegistry, PopulationModels::seirRules, PopulationModels::seirStates);
+            case "crowds":
+                return new PopulationModelDefinition(PopulationModels::crowdsRegistry, PopulationModels::crowdsRules, PopulationModels::crowdsStates);
+            case "covid":
+                return new PopulationModelDefinition(
+                        new EvaluationEnvironment(Map.of("lambdaMeet", COVID_LAMBDA_MEET), new CachedValues()),
+                        CovidDefinition::generatePopulationRegistry,
+                        CovidDefinition::getRules,
+                        null,
+                        null,
+                        CovidDefinition::states);
+            default:
+                throw new IllegalArgumentException("Unknown model " + name);
+        }
+    }
+
+    private static PopulationRegistry seirRegistry(EvaluationEnvironment environment) {
+        return PopulationRegistry.createRegistry("S", "E", "I", "R");
+    }
+
+    private static List<PopulationRule> seirRules(EvaluationEnvironment environment, PopulationRegistry registry) {
+        int S = registry.indexOf("S");
+        int E = registry.indexOf("E");
+        int I = registry.indexOf("I");
+        int R = registry.indexOf("R");
+        LinkedList<PopulationRule> rules = new LinkedList<>();
+        rules.add(new ReactionRule("S->E",
+                new Population[] { new Population(S), new Population(I) },
+                new Population[] { new Population(E), new Population(I) },
+                (t, s) -> s.getOccupancy(S) * LAMBDA_E * s.getFraction(I)));
+        rules.add(new ReactionRule("E->I",
+                new Population[] { new Population(E) },
+                new Population[] { new Population(I) },
+                (t, s) -> s.getOccupancy(E) * LAMBDA_I));
+        rules.add(new ReactionRule("I->R",
+                new Population[] { new Population(I) },
+                new Population[] { new Population(R) },
+                (t, s) -> s.getOccupancy(I) * LAMBDA_R));
+        rules.add(new ReactionRule("R->S",
+                new Population[] { new Population(R) },
+                new Population[] { new Population(S) },
+                (t, s) -> s.getOccupancy(R) * LAMBDA_DECAY));
+        return rules;
+    }
+
+    private static ParametricDataSet<Function<RandomGenerator, PopulationState>> seirStates(EvaluationEnvironment environment, PopulationRegistry registry) {
+        ParametricDataSet<Function<RandomGenerator, PopulationState>> states = new ParametricDataSet<>();
+        PopulationState state = new PopulationState(new int[] { 99 * SEIR_SCALE, 0, SEIR_SCALE, 0 });
+        states.setDefaultState(new ParametricValue<>(rg -> state));
+        return states;
+    }
+
+    private static PopulationRegistry crowdsRegistry(EvaluationEnvironment environment) {
+        PopulationRegistry registry = new PopulationRegistry();
+        for (int i = 0; i < CROWDS_N; i++) {
+            registry.register("A", i);
+        }
+        for (int i = 0; i < CROWDS_N; i++) {
+            registry.register("AM", i);
+        }
+        registry.register("M1");
+        registry.register("M2");
+        return registry;
+    }
+
+    private static List<PopulationRule> crowdsRules(EvaluationEnvironment environment, PopulationRegistry r) {
+        List<PopulationRule> rules = new LinkedList<>();
+        for (int i = 0; i < CROWDS_N; i++) {
+            rules.add(new ReactionRule("M1->A" + i,
+                    new Population[] { new Population(r.indexOf("A", i)), new Population(r.indexOf("M1")) },
+                    new Population[] { new Population(r.indexOf("AM", i)) }, (t, s) -> LAMBDA_S / CROWDS_N));
+            rules.add(new ReactionRule("M2->A" + i,
+                    new Population[] { new Population(r.indexOf("A", i)), new Population(r.indexOf("M2")) },
+                    new Population[] { new Population(r.indexOf("AM", i)) }, (t, s) -> LAMBDA_S / CROWDS_N));
+        }
+        for (int i = 0; i < CROWDS_N; i++) {
+            for (int j = 0; j < CROWDS_N; j++) {
+                if (i != j) {
+                    rules.add(new ReactionRule("A" + i + "->A" + j,
+                            new Population[] { new Population(r.indexOf("AM", i)), new Population(r.indexOf("A", j)) },
+                            new Population[] { new Population(r.indexOf("A", i)), new Population(r.indexOf("AM", j)) },
+                            (t, s) -> P_F * LAMBDA_S / CROWDS_N));
+                }
+            }
+            rules.add(new ReactionRule("A" + i + "->D",
+                    new Population[] { new Population(r.indexOf("AM", i)) },
+                    new Population[] { new Population(r.indexOf("A", i)) }, (t, s) -> (1 - P_F) * LAMBDA_S));
+        }
+        return rules;
+    }
+
+    private static ParametricDataSet<Function<RandomGenerator, PopulationState>> crowdsStates(EvaluationEnvironment environment, PopulationRegistry registry) {
+        ParametricDataSet<Function<RandomGenerator, PopulationState>> states = new ParametricDataSet<>();
+        Population[] pop = new Population[CROWDS_N + 2];
+        pop[0] = new Population(registry.indexOf("M1"), 1);
+        pop[1] = new Population(registry.indexOf("M2"), 1);
+        for (int i = 0; i < CROWDS_N; i++) {
+            pop[i + 2] = new Population(registry.indexOf("A", i), 1);
+        }
+        PopulationState state = new PopulationState(registry.size(), pop);
+        states.setDefaultState(new ParametricValue<>(rg -> state));
+        return states;
+    }
+
+}
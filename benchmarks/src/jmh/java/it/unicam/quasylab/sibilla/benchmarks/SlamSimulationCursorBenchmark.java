@@ -0,0 +1,89 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.models.slam.*;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the number of steps per millisecond performed by a {@link SlamSimulationCursor}. In the simulated
+ * system each agent periodically sends a message to another agent, selected at random. The receiver of
+ * a message reschedules its next step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SlamSimulationCursorBenchmark {
+
+    public final static double STEP_RATE = 1.0;
+    public final static double DELIVERY_RATE = 10.0;
+
+    private final static MessageTag PING = new MessageTag(0, "ping", new SlamType[0]);
+    private final static SlamValue[] NO_ITEMS = new SlamValue[0];
+
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    private SlamSimulationCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        cursor = new SlamSimulationCursor(new MersenneTwister(1), rg -> createState());
+        cursor.start();
+    }
+
+    private SlamState createState() {
+        AgentBehaviouralState active = new AgentBehaviouralState(0, "active");
+        active.setSoujournTimeFunction((rg, m) -> m.now() - Math.log(rg.nextDouble()) / STEP_RATE);
+        active.setStep(AgentStepFunction.step(active, AgentCommand.send((rg, m) -> {
+            int target = rg.nextInt(size);
+            return new AgentMessage(PING, NO_ITEMS, a -> a.agentId() == target,
+                    (r, a) -> m.now() - Math.log(r.nextDouble()) / DELIVERY_RATE);
+        })));
+        active.addMessageHandler(new MessageHandler((m, msg) -> true, msg -> AgentStepFunction.step(active, AgentCommand.SKIP)));
+        SlamState state = new SlamState();
+        state.setLazyTimeAdvancement(lazy);
+        for (int i = 0; i < size; i++) {
+            state.addAgent(id -> new Agent(id, 0, new AgentStore(), active, (rg, dt, m) -> {}, (rg, s, m) -> {}));
+        }
+        state.stream().forEach(a -> state.recordActivity(new Activity.AgentStepActivity(a)));
+        return state;
+    }
+
+    @Benchmark
+    public double step() {
+        if (!cursor.step()) {
+            cursor.restart();
+            cursor.start();
+        }
+        return cursor.time();
+    }
+
+}
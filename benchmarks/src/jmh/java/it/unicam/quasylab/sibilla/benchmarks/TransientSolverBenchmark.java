@@ -0,0 +1,74 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.markov.ContinuousTimeMarkovChain;
+import it.unicam.quasylab.sibilla.core.markov.TransientProbabilityContinuousSolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the computation of transient probabilities of a birth-death chain with the given number of states.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TransientSolverBenchmark {
+
+    public final static double BIRTH_RATE = 2.0;
+    public final static double DEATH_RATE = 3.0;
+    public final static double EPSILON = 1.0E-6;
+
+    @Param({"50", "200"})
+    public int size;
+
+    @Param({"1.0", "10.0"})
+    public double time;
+
+    private ContinuousTimeMarkovChain<Integer> chain;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        chain = new ContinuousTimeMarkovChain<>();
+        for (int i = 0; i < size; i++) {
+            Map<Integer, Double> row = new HashMap<>();
+            if (i < size - 1) {
+                row.put(i + 1, BIRTH_RATE);
+            }
+            if (i > 0) {
+                row.put(i - 1, DEATH_RATE);
+            }
+            chain.add(i, row);
+        }
+    }
+
+    @Benchmark
+    public Map<Integer, Double> compute() {
+        return new TransientProbabilityContinuousSolver<>(chain, EPSILON, 0).compute(time);
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.benchmarks;
+
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedElement;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructureFactory;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of selecting an element from the available implementations of {@link WeightedStructure}.
+ * Since models collect the enabled transitions at each step, the cost of building a structure and selecting
+ * one of its elements is also measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WeightedStructureBenchmark {
+
+    @Param({"LINKED_LIST", "FENWICK_TREE", "ALIAS_TABLE"})
+    public String factory;
+
+    @Param({"16", "256", "4096"})
+    public int size;
+
+    private RandomGenerator rg;
+    private WeightedStructureFactory structureFactory;
+    private double[] weights;
+    private WeightedStructure<Integer> structure;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        rg = new MersenneTwister(1);
+        structureFactory = WeightedStructureFactory.valueOf(factory);
+        weights = new double[size];
+        for (int i = 0; i < size; i++) {
+            weights[i] = rg.nextDouble();
+        }
+        structure = build();
+        structure.select(0.0);
+    }
+
+    private WeightedStructure<Integer> build() {
+        WeightedStructure<Integer> result = structureFactory.createWeightedStructure();
+        for (int i = 0; i < size; i++) {
+            result = result.add(weights[i], i);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public WeightedElement<Integer> select() {
+        return structure.select(rg.nextDouble() * structure.getTotalWeight());
+    }
+
+    @Benchmark
+    public WeightedElement<Integer> buildAndSelect() {
+        WeightedStructure<Integer> current = build();
+        return current.select(rg.nextDouble() * current.getTotalWeight());
+    }
+
+}
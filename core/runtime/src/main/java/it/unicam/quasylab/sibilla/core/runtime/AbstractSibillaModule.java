@@ -25,6 +25,7 @@ package it.unicam.quasylab.sibilla.core.runtime;
 
 import it.unicam.quasylab.sibilla.core.models.ModelDefinition;
 import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationBackend;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTime;
@@ -43,7 +44,9 @@ public abstract class AbstractSibillaModule implements SibillaModule {
     protected ModuleEngine<?> moduleEngine;
     private Set<String> enabledMeasures;
     private boolean summary = true;
-    private final SimulationEnvironment simulator = new SimulationEnvironment();
+    private double sketchRankError = Double.NaN;
+    private SimulationBackend backend = SimulationBackend.DEFAULT;
+    private SimulationEnvironment simulator = new SimulationEnvironment(backend);
 
 
     protected final void setModelDefinition(ModelDefinition<?> moduleEngine) {
@@ -106,9 +109,36 @@ public abstract class AbstractSibillaModule implements SibillaModule {
     @Override
     public Map<String, double[][]> simulate(SimulationMonitor monitor, RandomGenerator rg, long replica, double deadline, double dt) {
         checkForLoadedDefinition();
+        if (isSketchStatistics()) {
+            return moduleEngine.simulateWithSketches(this.simulator, monitor, rg, replica, deadline, dt, this.enabledMeasures.toArray(new String[0]), sketchRankError);
+        }
         return moduleEngine.simulate(this.simulator, monitor, rg, replica, deadline, dt, this.enabledMeasures.toArray(new String[0]),summary);
     }
 
+    @Override
+    public Map<String, double[][]> solveTransient(RandomGenerator rg, double deadline, double dt, double epsilon, int maxStates) {
+        checkForLoadedDefinition();
+        return moduleEngine.solveTransient(rg, deadline, dt, epsilon, maxStates, this.enabledMeasures.toArray(new String[0]));
+    }
+
+    @Override
+    public Map<String, double[][]> solveReachability(RandomGenerator rg, String transientCondition, String targetCondition, double deadline, double dt, double epsilon, int maxStates) {
+        checkForLoadedDefinition();
+        return moduleEngine.solveReachability(rg, transientCondition, targetCondition, deadline, dt, epsilon, maxStates);
+    }
+
+    @Override
+    public Map<String, double[][]> solveSteadyState(RandomGenerator rg, int maxStates) {
+        checkForLoadedDefinition();
+        return moduleEngine.solveSteadyState(rg, maxStates, this.enabledMeasures.toArray(new String[0]));
+    }
+
+    @Override
+    public int getStateSpaceSize(RandomGenerator rg, int maxStates) {
+        checkForLoadedDefinition();
+        return moduleEngine.getStateSpaceSize(rg, maxStates);
+    }
+
     @Override
     public FirstPassageTimeResults firstPassageTime(SimulationMonitor monitor, RandomGenerator rg, long replica, double deadline, double dt, String predicateName) {
         checkForLoadedDefinition();
@@ -127,6 +157,19 @@ public abstract class AbstractSibillaModule implements SibillaModule {
         return moduleEngine.estimateReachability(simulator, monitor, rg, transientCondition, targetCondition, time, pError, delta);
     }
 
+    @Override
+    public void setSimulationBackend(SimulationBackend backend) {
+        if (this.backend != backend) {
+            this.backend = backend;
+            this.simulator = new SimulationEnvironment(backend);
+        }
+    }
+
+    @Override
+    public SimulationBackend getSimulationBackend() {
+        return backend;
+    }
+
     @Override
     public boolean isEnabledMeasure(String name) {
         return this.enabledMeasures.contains(name);
@@ -192,11 +235,28 @@ public abstract class AbstractSibillaModule implements SibillaModule {
     @Override
     public void setSummaryStatistics(boolean summary) {
         this.summary = summary;
+        this.sketchRankError = Double.NaN;
     }
 
     @Override
     public boolean isSummaryStatistics() {
-        return summary;
+        return summary && !isSketchStatistics();
+    }
+
+    @Override
+    public void setSketchStatistics(double rankError) {
+        this.summary = false;
+        this.sketchRankError = rankError;
+    }
+
+    @Override
+    public boolean isSketchStatistics() {
+        return !Double.isNaN(sketchRankError);
+    }
+
+    @Override
+    public double getSketchRankError() {
+        return sketchRankError;
     }
 
 }
@@ -101,6 +101,9 @@ public class LIOModelModule extends AbstractSibillaModule {
     @Override
     public void setMode(String name) {
         this.mode = LIOModes.valueOf(name);
+        if (modelGenerator != null) {
+            generateDefinition();
+        }
     }
 
     @Override
@@ -110,8 +113,8 @@ public class LIOModelModule extends AbstractSibillaModule {
 
     private void generateDefinition() {
         switch (mode) {
-            case MASS: setModelDefinition(modelGenerator.getMassModelDefinition());
-            case INDIVIDUALS: setModelDefinition(modelGenerator.getIndividualModelDefinition());
+            case MASS: setModelDefinition(modelGenerator.getMassModelDefinition()); break;
+            default: setModelDefinition(modelGenerator.getIndividualModelDefinition());
         }
     }
 
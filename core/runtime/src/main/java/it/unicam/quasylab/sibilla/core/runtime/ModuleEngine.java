@@ -23,6 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.runtime;
 
+import it.unicam.quasylab.sibilla.core.markov.CTMCAnalysis;
+import it.unicam.quasylab.sibilla.core.markov.StateSpaceLimitException;
 import it.unicam.quasylab.sibilla.core.models.Model;
 import it.unicam.quasylab.sibilla.core.models.ModelDefinition;
 import it.unicam.quasylab.sibilla.core.models.ParametricDataSet;
@@ -31,12 +33,17 @@ import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTime;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingFunction;
 import org.apache.commons.math3.random.RandomGenerator;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 public class ModuleEngine<S extends State> {
 
@@ -44,6 +51,7 @@ public class ModuleEngine<S extends State> {
     private ParametricDataSet<Function<RandomGenerator,S>> states;
     private Model<S>                    currentModel;
     private Function<RandomGenerator,S> state;
+    private CTMCAnalysis<S>             exactAnalysis;
 
 
     public ModuleEngine(ModelDefinition<S> modelDefinition) {
@@ -54,6 +62,7 @@ public class ModuleEngine<S extends State> {
         this.currentModel = null;
         this.state = null;
         this.states = null;
+        this.exactAnalysis = null;
     }
 
     public void setParameter(String name, double value) {
@@ -114,6 +123,7 @@ public class ModuleEngine<S extends State> {
             throw new IllegalStateException(String.format("Wrong number of parameters for state %s (expected %d are %d)",name,states.arity(name),args.length));
         }
         state = states.state(name, args);
+        exactAnalysis = null;
         return true;
     }
 
@@ -132,8 +142,28 @@ public class ModuleEngine<S extends State> {
                                             String[] measures,
                                             boolean summary) {
         loadModel();
+        return simulate(simulationEnvironment, monitor, rg, replica, deadline, currentModel.selectSamplingFunction(summary, deadline, dt, measures));
+    }
+
+    public Map<String, double[][]> simulateWithSketches(SimulationEnvironment simulationEnvironment,
+                                            SimulationMonitor monitor,
+                                            RandomGenerator rg,
+                                            long replica,
+                                            double deadline,
+                                            double dt,
+                                            String[] measures,
+                                            double rankError) {
+        loadModel();
+        return simulate(simulationEnvironment, monitor, rg, replica, deadline, currentModel.selectSketchSamplingFunction(rankError, (int) (deadline/dt), dt, measures));
+    }
+
+    private Map<String, double[][]> simulate(SimulationEnvironment simulationEnvironment,
+                                            SimulationMonitor monitor,
+                                            RandomGenerator rg,
+                                            long replica,
+                                            double deadline,
+                                            SamplingFunction<S> samplingFunction) {
         loadState();
-        SamplingFunction<S> samplingFunction = currentModel.selectSamplingFunction(summary, deadline, dt, measures);
         try {
             simulationEnvironment.simulate(monitor, rg, currentModel, state, samplingFunction::getSamplingHandler, replica, deadline);
             return samplingFunction.getSimulationTimeSeries();
@@ -201,6 +231,61 @@ public class ModuleEngine<S extends State> {
     }
 
 
+    /**
+     * Returns the exact analysis of the chain generated by the current model from the current initial state. The
+     * chain is generated at the first invocation and reused until the model, its parameters or the initial
+     * configuration change. The initial state is sampled with the given random generator, hence it is expected not to
+     * depend on random values. An IllegalStateException is thrown when the chain has more than the given number of
+     * states.
+     */
+    private CTMCAnalysis<S> getExactAnalysis(RandomGenerator rg, int maxStates) {
+        loadModel();
+        loadState();
+        if ((exactAnalysis != null)&&(exactAnalysis.numberOfStates() > maxStates)) {
+            throw new IllegalStateException(new StateSpaceLimitException(maxStates).getMessage());
+        }
+        if (exactAnalysis == null) {
+            try {
+                exactAnalysis = CTMCAnalysis.of(currentModel, state.apply(rg), maxStates);
+            } catch (IllegalArgumentException | StateSpaceLimitException e) {
+                throw new IllegalStateException(e.getMessage());
+            }
+        }
+        return exactAnalysis;
+    }
+
+    private List<Measure<? super S>> getMeasures(String[] measures) {
+        return Arrays.stream(measures).map(currentModel::getMeasure).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    private Predicate<? super S> getPredicate(String name) {
+        Predicate<? super S> predicate = currentModel.getPredicate(name);
+        if (predicate == null) {
+            throw new IllegalStateException("Predicate "+name+" is unknown!");
+        }
+        return predicate;
+    }
+
+    public int getStateSpaceSize(RandomGenerator rg, int maxStates) {
+        return getExactAnalysis(rg, maxStates).numberOfStates();
+    }
+
+    public Map<String, double[][]> solveTransient(RandomGenerator rg, double deadline, double dt, double epsilon, int maxStates, String[] measures) {
+        CTMCAnalysis<S> analysis = getExactAnalysis(rg, maxStates);
+        return analysis.transientAnalysis(deadline, dt, epsilon, getMeasures(measures));
+    }
+
+    public Map<String, double[][]> solveReachability(RandomGenerator rg, String transientCondition, String targetCondition, double deadline, double dt, double epsilon, int maxStates) {
+        CTMCAnalysis<S> analysis = getExactAnalysis(rg, maxStates);
+        Predicate<? super S> condition = (transientCondition == null ? s -> true : getPredicate(transientCondition));
+        return analysis.reachability(targetCondition, condition, getPredicate(targetCondition), deadline, dt, epsilon);
+    }
+
+    public Map<String, double[][]> solveSteadyState(RandomGenerator rg, int maxStates, String[] measures) {
+        CTMCAnalysis<S> analysis = getExactAnalysis(rg, maxStates);
+        return analysis.steadyState(getMeasures(measures));
+    }
+
     public Map<String, Double> getEnvironment() {
         return modelDefinition.getEnvironment().getParameterMap();
     }
@@ -23,6 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.runtime;
 
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModelDefinition;
 import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
 import it.unicam.quasylab.sibilla.langs.pm.ModelBuildingError;
 import it.unicam.quasylab.sibilla.langs.pm.ModelGenerationException;
@@ -30,6 +32,7 @@ import it.unicam.quasylab.sibilla.langs.pm.PopulationModelGenerator;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 
@@ -37,6 +40,10 @@ public class PopulationModelModule extends AbstractSibillaModule {
 
     public final static String MODULE_NAME = "population";
 
+    private PopulationModelDefinition definition;
+
+    private PopulationModel.SimulationMode mode = PopulationModel.SimulationMode.EXACT;
+
     @Override
     public String getModuleName() {
         return MODULE_NAME;
@@ -63,7 +70,9 @@ public class PopulationModelModule extends AbstractSibillaModule {
     }
 
     private void generateDefinition(PopulationModelGenerator pmg) throws ModelGenerationException {
-        setModelDefinition(pmg.getPopulationModelDefinition());
+        this.definition = pmg.getPopulationModelDefinition();
+        this.definition.setSimulationMode(mode);
+        setModelDefinition(definition);
     }
 
     @Override
@@ -72,6 +81,24 @@ public class PopulationModelModule extends AbstractSibillaModule {
         return null;
     }
 
+    @Override
+    public String[] getModes() {
+        return Arrays.stream(PopulationModel.SimulationMode.values()).map(Enum::toString).toArray(String[]::new);
+    }
+
+    @Override
+    public void setMode(String name) {
+        this.mode = PopulationModel.SimulationMode.valueOf(name);
+        if (definition != null) {
+            definition.setSimulationMode(mode);
+        }
+    }
+
+    @Override
+    public String getMode() {
+        return this.mode.name();
+    }
+
 
 
 }
@@ -23,6 +23,7 @@
 
 package it.unicam.quasylab.sibilla.core.runtime;
 
+import it.unicam.quasylab.sibilla.core.simulator.SimulationBackend;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.SimulationTimeSeries;
@@ -237,6 +238,20 @@ public interface SibillaModule {
     }
 
 
+    /**
+     * Set the backend used to execute simulation replicas.
+     *
+     * @param backend the backend used to execute simulation replicas.
+     */
+    void setSimulationBackend(SimulationBackend backend);
+
+    /**
+     * Return the backend used to execute simulation replicas.
+     *
+     * @return the backend used to execute simulation replicas.
+     */
+    SimulationBackend getSimulationBackend();
+
     /**
      * Return true if the given measure is enabled.
      *
@@ -264,6 +279,80 @@ public interface SibillaModule {
      */
     boolean isSummaryStatistics();
 
+    /**
+     * Use quantile sketches to collect descriptive statistics. Reported values are the same of descriptive
+     * statistics, but quartiles are estimated with the given rank error. Memory needed to collect data does
+     * not grow with the number of replicas.
+     *
+     * @param rankError rank error of estimated quartiles.
+     */
+    void setSketchStatistics(double rankError);
+
+    /**
+     * Return true if quantile sketches are used to collect descriptive statistics.
+     *
+     * @return true if quantile sketches are used to collect descriptive statistics.
+     */
+    boolean isSketchStatistics();
+
+    /**
+     * Return the rank error of estimated quartiles, or NaN if quantile sketches are not used.
+     *
+     * @return the rank error of estimated quartiles.
+     */
+    double getSketchRankError();
+
+    /**
+     * Computes the expected values of enabled measures by exact numerical analysis of the continuous time Markov chain
+     * generated by the current model from the initial configuration. Results have the same format of the ones of
+     * {@link #simulate(SimulationMonitor, RandomGenerator, long, double, double)} with summary statistics, where
+     * standard deviations are exact and confidence intervals are 0.
+     *
+     * @param rg random generator used to build the initial state.
+     * @param deadline time horizon.
+     * @param dt sampling interval.
+     * @param epsilon the maximum probability mass neglected by the numerical solver.
+     * @param maxStates maximum number of states of the chain.
+     * @return the expected values of enabled measures over time.
+     */
+    Map<String, double[][]> solveTransient(RandomGenerator rg, double deadline, double dt, double epsilon, int maxStates);
+
+    /**
+     * Computes by exact numerical analysis the probability to reach a state satisfying the target condition within
+     * each sampled time, while only states satisfying the transient condition are traversed.
+     *
+     * @param rg random generator used to build the initial state.
+     * @param transientCondition name of the condition satisfied by traversed states, or null if any state can be
+     *                           traversed.
+     * @param targetCondition name of the condition representing the target state.
+     * @param deadline time horizon.
+     * @param dt sampling interval.
+     * @param epsilon the maximum probability mass neglected by the numerical solver.
+     * @param maxStates maximum number of states of the chain.
+     * @return a map associating the target condition with the reachability probability at each sampled time and at
+     * the deadline.
+     */
+    Map<String, double[][]> solveReachability(RandomGenerator rg, String transientCondition, String targetCondition, double deadline, double dt, double epsilon, int maxStates);
+
+    /**
+     * Computes by exact numerical analysis the expected values of enabled measures in the steady state. Each
+     * series consists of a single row whose time is infinite.
+     *
+     * @param rg random generator used to build the initial state.
+     * @param maxStates maximum number of states of the chain.
+     * @return the expected values of enabled measures in the steady state.
+     */
+    Map<String, double[][]> solveSteadyState(RandomGenerator rg, int maxStates);
+
+    /**
+     * Returns the number of states of the continuous time Markov chain used for exact numerical analysis.
+     *
+     * @param rg random generator used to build the initial state.
+     * @param maxStates maximum number of states of the chain.
+     * @return the number of states of the chain used for exact numerical analysis.
+     */
+    int getStateSpaceSize(RandomGenerator rg, int maxStates);
+
     /**
      * Estimate the probability to reach a state satisfying the target condition within time units. A statistical
      * model checking algorithm is used that guarantees that the difference between the obtained result and
@@ -23,7 +23,10 @@
 
 package it.unicam.quasylab.sibilla.core.runtime;
 
+import it.unicam.quasylab.sibilla.core.markov.CTMCAnalysis;
+import it.unicam.quasylab.sibilla.core.markov.IterativeSolverException;
 import it.unicam.quasylab.sibilla.core.simulator.DefaultRandomGenerator;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationBackend;
 import it.unicam.quasylab.sibilla.core.simulator.SimulationMonitor;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
 import org.apache.commons.math3.random.RandomGenerator;
@@ -34,12 +37,16 @@ import java.io.StringWriter;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public final class SibillaRuntime {
 
     private static final String UNKNOWN_MODULE_MESSAGE = "Module %s is unknown!";
     private static final String NO_MODULE_HAS_BEEN_LOADED =  "No module has been loaded!";
+    private static final String UNKNOWN_MODE_MESSAGE = "Mode %s is unknown!";
+    private static final String UNKNOWN_BACKEND_MESSAGE = "Backend %s is unknown!";
+    private static final String UNAVAILABLE_BACKEND_MESSAGE = "Backend %s is not available!";
     private final Map<String,SibillaModule> moduleIndex = new TreeMap<>();
     private SibillaModule currentModule;
     private final Map<String, Map<String,double[][]>> simulations = new TreeMap<>();
@@ -48,6 +55,9 @@ public final class SibillaRuntime {
     private long replica = 1;
     private double deadline = Double.NaN;
     private double dt = Double.NaN;
+    private SimulationBackend backend = SimulationBackend.DEFAULT;
+    private double exactAnalysisError = CTMCAnalysis.DEFAULT_EPSILON;
+    private int exactAnalysisStateLimit = CTMCAnalysis.DEFAULT_MAX_STATES;
 
     public SibillaRuntime() {
         initModules();
@@ -55,6 +65,7 @@ public final class SibillaRuntime {
 
     private void initModules() {
         for (SibillaModule m: SibillaModule.MODULES) {
+            m.setSimulationBackend(backend);
             moduleIndex.put(m.getModuleName(),m);
             if (currentModule == null) {
                 currentModule =  m;
@@ -302,13 +313,35 @@ public final class SibillaRuntime {
         this.currentModule.setSummaryStatistics(true);
     }
 
+    /**
+     * Use descriptive statistics estimated via quantile sketches with the given rank error.
+     *
+     * @param rankError rank error of estimated quartiles.
+     * @throws CommandExecutionException if the rank error is not in (0,1).
+     */
+    public void useSketchStatistics(double rankError) throws CommandExecutionException {
+        if ((rankError <= 0) || (rankError >= 1)) {
+            throw new CommandExecutionException("Rank error must be a value in (0,1)!");
+        }
+        this.currentModule.setSketchStatistics(rankError);
+    }
+
     /**
      * Return true if a descriptive statistics is used.
      *
      * @return true if a descriptive statistics is used.
      */
     public boolean isDescriptiveStatistics() {
-        return !this.currentModule.isSummaryStatistics();
+        return !this.currentModule.isSummaryStatistics() && !this.currentModule.isSketchStatistics();
+    }
+
+    /**
+     * Return true if descriptive statistics are estimated via quantile sketches.
+     *
+     * @return true if descriptive statistics are estimated via quantile sketches.
+     */
+    public boolean isSketchStatistics() {
+        return this.currentModule.isSketchStatistics();
     }
 
     /**
@@ -328,6 +361,8 @@ public final class SibillaRuntime {
     public String getStatistics() {
        if (this.currentModule.isSummaryStatistics()) {
            return "summary";
+       } else if (this.currentModule.isSketchStatistics()) {
+           return String.format("sketch (rank error %s)", this.currentModule.getSketchRankError());
        } else {
            return "descriptive";
        }
@@ -399,7 +434,8 @@ public final class SibillaRuntime {
      *
      * @return the module modes.
      */
-    public String[] getModes() {
+    public String[] getModes() throws CommandExecutionException {
+        checkLoadedModule();
         return currentModule.getModes();
     }
 
@@ -408,8 +444,13 @@ public final class SibillaRuntime {
      *
      * @param name mode name.
      */
-    public void setMode(String name) {
-        currentModule.setMode(name);
+    public void setMode(String name) throws CommandExecutionException {
+        checkLoadedModule();
+        try {
+            currentModule.setMode(name);
+        } catch (IllegalArgumentException e) {
+            throw new CommandExecutionException(String.format(UNKNOWN_MODE_MESSAGE, name));
+        }
     }
 
     /**
@@ -417,10 +458,51 @@ public final class SibillaRuntime {
      *
      * @return the current module mode.
      */
-    public String getMode() {
+    public String getMode() throws CommandExecutionException {
+        checkLoadedModule();
         return currentModule.getMode();
     }
 
+    /**
+     * Return the names of the backends that can be used to execute simulation replicas.
+     *
+     * @return the names of the backends that can be used to execute simulation replicas.
+     */
+    public String[] getBackends() {
+        return Arrays.stream(SimulationBackend.values()).filter(SimulationBackend::isAvailable).map(SimulationBackend::name).toArray(String[]::new);
+    }
+
+    /**
+     * Set the backend used to execute simulation replicas. Each replica uses its own random generator, whose
+     * seed is derived from the one of this runtime, hence results obtained with a given seed do not depend on
+     * the selected backend.
+     *
+     * @param name backend name.
+     * @throws CommandExecutionException if the given backend is unknown or if it is not available.
+     */
+    public void setBackend(String name) throws CommandExecutionException {
+        SimulationBackend backend;
+        try {
+            backend = SimulationBackend.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new CommandExecutionException(String.format(UNKNOWN_BACKEND_MESSAGE, name));
+        }
+        if (!backend.isAvailable()) {
+            throw new CommandExecutionException(String.format(UNAVAILABLE_BACKEND_MESSAGE, name));
+        }
+        this.backend = backend;
+        moduleIndex.values().forEach(m -> m.setSimulationBackend(backend));
+    }
+
+    /**
+     * Return the name of the backend used to execute simulation replicas.
+     *
+     * @return the name of the backend used to execute simulation replicas.
+     */
+    public String getBackend() {
+        return backend.name();
+    }
+
     /**
      * Set a seed for the rundom generator.
      *
@@ -530,6 +612,123 @@ public final class SibillaRuntime {
         return currentModule.firstPassageTime(monitor,rg,replica,deadline,dt,predicateName);
     }
 
+    /**
+     * Set the maximum probability mass that can be neglected by the numerical solvers used in exact analysis.
+     *
+     * @param epsilon the maximum probability mass neglected by numerical solvers.
+     * @throws CommandExecutionException if the given value is not in (0,1).
+     */
+    public void setExactAnalysisError(double epsilon) throws CommandExecutionException {
+        if ((epsilon <= 0) || (epsilon >= 1)) {
+            throw new CommandExecutionException("Error must be a value in (0,1)!");
+        }
+        this.exactAnalysisError = epsilon;
+    }
+
+    /**
+     * Return the maximum probability mass that can be neglected by the numerical solvers used in exact analysis.
+     *
+     * @return the maximum probability mass neglected by numerical solvers.
+     */
+    public double getExactAnalysisError() {
+        return exactAnalysisError;
+    }
+
+    /**
+     * Set the maximum number of states of the Markov chains generated for exact analysis.
+     *
+     * @param maxStates the maximum number of states of generated chains.
+     * @throws CommandExecutionException if the given value is not positive.
+     */
+    public void setExactAnalysisStateLimit(int maxStates) throws CommandExecutionException {
+        if (maxStates <= 0) {
+            throw new CommandExecutionException("State limit must be a positive integer!");
+        }
+        this.exactAnalysisStateLimit = maxStates;
+    }
+
+    /**
+     * Return the maximum number of states of the Markov chains generated for exact analysis.
+     *
+     * @return the maximum number of states of generated chains.
+     */
+    public int getExactAnalysisStateLimit() {
+        return exactAnalysisStateLimit;
+    }
+
+    /**
+     * Compute the expected values of enabled measures by exact numerical analysis of the Markov chain of the
+     * current model, and save results with the given label. Results can be saved and printed as the ones of
+     * simulations.
+     *
+     * @param label label used to save results.
+     * @return the expected values of enabled measures over time.
+     * @throws CommandExecutionException if deadline or dt are not set, if the current model cannot be analysed or if
+     * its chain has more states than the state limit.
+     */
+    public Map<String, double[][]> solveTransient(String label) throws CommandExecutionException {
+        checkDeadline();
+        checkDt();
+        return record(label, () -> currentModule.solveTransient(rg, deadline, dt, exactAnalysisError, exactAnalysisStateLimit));
+    }
+
+    /**
+     * Compute by exact numerical analysis the probability to reach the goal within each sampled time and within the
+     * deadline, while only states satisfying the given condition are traversed, and save results with the given label.
+     *
+     * @param condition name of the condition satisfied by traversed states, or null if any state can be traversed.
+     * @param goal name of the goal condition.
+     * @param label label used to save results.
+     * @return a map associating the goal with the reachability probability over time.
+     * @throws CommandExecutionException if deadline or dt are not set, if the current model cannot be analysed or if
+     * its chain has more states than the state limit.
+     */
+    public Map<String, double[][]> solveReachability(String condition, String goal, String label) throws CommandExecutionException {
+        checkDeadline();
+        checkDt();
+        return record(label, () -> currentModule.solveReachability(rg, condition, goal, deadline, dt, exactAnalysisError, exactAnalysisStateLimit));
+    }
+
+    /**
+     * Compute by exact numerical analysis the expected values of enabled measures in the steady state, and save
+     * results with the given label.
+     *
+     * @param label label used to save results.
+     * @return the expected values of enabled measures in the steady state.
+     * @throws CommandExecutionException if the current model cannot be analysed or if its chain has more states than
+     * the state limit.
+     */
+    public Map<String, double[][]> solveSteadyState(String label) throws CommandExecutionException {
+        return record(label, () -> currentModule.solveSteadyState(rg, exactAnalysisStateLimit));
+    }
+
+    /**
+     * Return the number of states of the Markov chain used for exact numerical analysis of the current model.
+     *
+     * @return the number of states of the Markov chain of the current model.
+     * @throws CommandExecutionException if the current model cannot be analysed or if its chain has more states than
+     * the state limit.
+     */
+    public int getStateSpaceSize() throws CommandExecutionException {
+        try {
+            return currentModule.getStateSpaceSize(rg, exactAnalysisStateLimit);
+        } catch (IllegalStateException | IterativeSolverException e) {
+            throw new CommandExecutionException(e.getMessage());
+        }
+    }
+
+    private Map<String, double[][]> record(String label, Supplier<Map<String, double[][]>> analysis) throws CommandExecutionException {
+        try {
+            lastSimulation = analysis.get();
+        } catch (IllegalStateException | IterativeSolverException e) {
+            throw new CommandExecutionException(e.getMessage());
+        }
+        if (label != null) {
+            simulations.put(label, lastSimulation);
+        }
+        return lastSimulation;
+    }
+
     public double computeProbReach(SimulationMonitor monitor, String goal, double alpha, double eps) throws CommandExecutionException {
         checkDeadline();
         return currentModule.estimateReachability(monitor, rg, goal, deadline, alpha, eps);
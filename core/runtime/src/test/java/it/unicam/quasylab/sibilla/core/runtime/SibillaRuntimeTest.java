@@ -27,6 +27,7 @@ import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResult
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -306,6 +307,156 @@ class SibillaRuntimeTest {
         assertEquals(1.0/3.0, res.getMean(),0.1);
     }
 
+    @Test
+    public void shouldComputeFirstPassageTimeWithIncrementalSimulation() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(TEST_PARAM);
+        sr.setMode("INCREMENTAL");
+        sr.setParameter("lambda", 2.0);
+        sr.setConfiguration("start");
+        sr.setDeadline(100.0);
+        sr.setReplica(500);
+        FirstPassageTimeResults res = sr.firstPassageTime(null, "done");
+        assertEquals(0.5, res.getMean(),0.1);
+    }
+
+    @Test
+    public void shouldReachConsensusWithIncrementalSimulation() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(CDOE_TSP);
+        sr.setMode("INCREMENTAL");
+        sr.setConfiguration("balanced");
+        sr.setDeadline(100.0);
+        assertEquals(1.0, sr.computeProbReach(null, "consensus", 0.1, 0.1));
+    }
+
+    @Test
+    public void shouldComputeFirstPassageTimeWithTauLeaping() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(TEST_PARAM);
+        sr.setMode("TAU_LEAPING");
+        sr.setParameter("lambda", 2.0);
+        sr.setConfiguration("start");
+        sr.setDeadline(100.0);
+        sr.setReplica(500);
+        FirstPassageTimeResults res = sr.firstPassageTime(null, "done");
+        assertEquals(0.5, res.getMean(),0.1);
+    }
+
+    @Test
+    public void shouldReachConsensusWithTauLeaping() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(CDOE_TSP);
+        sr.setMode("TAU_LEAPING");
+        sr.setConfiguration("balanced");
+        sr.setDeadline(100.0);
+        assertEquals(1.0, sr.computeProbReach(null, "consensus", 0.1, 0.1));
+    }
+
+    @Test
+    public void shouldRejectUnknownMode() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        assertThrows(CommandExecutionException.class, () -> sr.setMode("UNKNOWN"));
+    }
+
+    @Test
+    public void shouldRejectUnknownBackend() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        assertThrows(CommandExecutionException.class, () -> sr.setBackend("UNKNOWN"));
+    }
+
+    @Test
+    public void shouldComputeSameFirstPassageTimeWithAnyBackend() throws CommandExecutionException {
+        double[] means = Arrays.stream(new String[] { "SEQUENTIAL", "FIXED_POOL", "WORK_STEALING" }).mapToDouble(backend -> {
+            try {
+                SibillaRuntime sr = getRuntimeWithModule();
+                sr.setBackend(backend);
+                sr.setSeed(42);
+                sr.load(TEST_PARAM);
+                sr.setParameter("lambda", 2.0);
+                sr.setConfiguration("start");
+                sr.setDeadline(100.0);
+                sr.setReplica(200);
+                return sr.firstPassageTime(null, "done").getMean();
+            } catch (CommandExecutionException e) {
+                throw new IllegalStateException(e);
+            }
+        }).toArray();
+        assertEquals(0.5, means[0], 0.1);
+        assertEquals(means[0], means[1], 1.0E-10);
+        assertEquals(means[0], means[2], 1.0E-10);
+    }
+
+    @Test
+    public void shouldSimulateWithSketchStatistics() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(TEST_PARAM);
+        sr.setConfiguration("start");
+        sr.addAllMeasures();
+        sr.setDeadline(10.0);
+        sr.setDt(1.0);
+        sr.setReplica(100);
+        sr.setSeed(42);
+        sr.useDescriptiveStatistics();
+        Map<String, double[][]> descriptive = sr.simulate("descriptive");
+        sr.setSeed(42);
+        sr.useSketchStatistics(0.01);
+        assertTrue(sr.isSketchStatistics());
+        Map<String, double[][]> sketch = sr.simulate("sketch");
+        assertEquals(descriptive.keySet(), sketch.keySet());
+        for (String name : descriptive.keySet()) {
+            double[][] expected = descriptive.get(name);
+            double[][] actual = sketch.get(name);
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i].length, actual[i].length);
+                assertEquals(expected[i][1], actual[i][1], 1E-10);
+                assertEquals(expected[i][3], actual[i][3], 1E-10);
+                assertEquals(expected[i][6], actual[i][6], 1E-10);
+            }
+        }
+    }
+
+    @Test
+    public void shouldSolveTheModelExactly() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(TEST_PARAM);
+        sr.setConfiguration("start");
+        sr.addAllMeasures();
+        sr.setDeadline(3.0);
+        sr.setDt(1.0);
+        assertEquals(2, sr.getStateSpaceSize());
+        double[][] a = sr.solveTransient("exact").get("#A");
+        assertEquals(3, a.length);
+        for (double[] row : a) {
+            assertEquals(Math.exp(-row[0]), row[1], 1e-8);
+        }
+        for (double[] row : sr.solveReachability(null, "done", null).get("done")) {
+            assertEquals(1-Math.exp(-row[0]), row[1], 1e-8);
+        }
+        assertEquals(0.0, sr.solveSteadyState(null).get("#A")[0][1], 1e-8);
+        double[][] reach = sr.solveReachability(null, "done", null).get("done");
+        assertEquals(3.0, reach[reach.length-1][0]);
+    }
+
+    @Test
+    public void shouldRejectChainsExceedingTheStateLimit() throws CommandExecutionException {
+        SibillaRuntime sr = getRuntimeWithModule();
+        sr.load(TEST_PARAM);
+        sr.setConfiguration("start");
+        sr.addAllMeasures();
+        sr.setDeadline(3.0);
+        sr.setDt(1.0);
+        assertThrows(CommandExecutionException.class, () -> sr.setExactAnalysisStateLimit(0));
+        sr.setExactAnalysisStateLimit(1);
+        assertThrows(CommandExecutionException.class, sr::getStateSpaceSize);
+        assertThrows(CommandExecutionException.class, () -> sr.solveTransient(null));
+        sr.setExactAnalysisStateLimit(2);
+        assertEquals(2, sr.getStateSpaceSize());
+        sr.setExactAnalysisStateLimit(1);
+        assertThrows(CommandExecutionException.class, sr::getStateSpaceSize);
+    }
+
     @Test
     public void testShopManager() throws CommandExecutionException {
         SibillaRuntime sr = getRuntimeWithModule();
@@ -23,19 +23,13 @@
 
 package it.unicam.quasylab.sibilla.core.markov;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * @author loreti
@@ -47,9 +41,10 @@ public class BoundedReachabilityContinuousSolver<S> {
 	private Predicate<S> condition;
 	private Predicate<S> goal;
 	private ContinuousTimeMarkovChain<S> chain;
-	private RealMatrix matrix;
-	private RealVector p0;
-	private LinkedList<RealVector> vectorResults;
+	private SparseMatrixOperator matrix;
+	private double[] p0;
+	private ArrayList<double[]> vectorResults;
+	private int parallelThreshold = SparseMatrixOperator.DEFAULT_PARALLEL_THRESHOLD;
 	private Set<S> yesNodes;
 	private Set<S> computingNodes;
 	private Map<S, Integer> index;
@@ -74,12 +69,22 @@ public class BoundedReachabilityContinuousSolver<S> {
 	}
 
 
-	private RealVector buildRealVector() {
-		return MarkovChain.generateVector(ArrayRealVector::new, index, s -> (yesNodes.contains(s)?1.0:0.0));
+	/**
+	 * Sets the minimal number of states needed to compute matrix-vector products in parallel. The value is used
+	 * when the first probability is computed.
+	 *
+	 * @param parallelThreshold the minimal number of states needed to compute products in parallel.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	private double[] buildRealVector() {
+		return MarkovChain.generateVector(index, s -> (yesNodes.contains(s)?1.0:0.0));
 	}
 
-	private RealMatrix buidProbabilityMatrix(  ) {
-		return MarkovChain.generateMatrix(i -> MatrixUtils.createRealMatrix(i, i), 
+	private SparseMatrix buidProbabilityMatrix(  ) {
+		return SparseMatrix.generate(
 				s -> {			
 					if (yesNodes.contains(s)) {
 						HashMap<S,Double> unitRow = new HashMap<>();
@@ -99,9 +104,9 @@ public class BoundedReachabilityContinuousSolver<S> {
 		if (vectorResults == null) {
 			computeReachabilitySets();
 			computeStateIndex();
-			matrix = buidProbabilityMatrix( ).transpose();
+			matrix = new SparseMatrixOperator(buidProbabilityMatrix( ), parallelThreshold);
 			p0 = buildRealVector( );
-			vectorResults = new LinkedList<>();
+			vectorResults = new ArrayList<>();
 			vectorResults.add(p0);
 		}
 		FoxGlynn fg = (t>0?FoxGlynn.compute(chain.getMaxRate()*t, epsilon):null);
@@ -116,23 +121,29 @@ public class BoundedReachabilityContinuousSolver<S> {
 		HashMap<S,Double> toReturn = new HashMap<>();
 		yesNodes.forEach(s -> toReturn.put(s, 1.0));
 		if (fg!=null) {
-			RealVector v = sum(fg);
-			index.forEach((s,i) -> toReturn.put(s, v.getEntry(i)));
+			double[] v = sum(fg);
+			index.forEach((s,i) -> toReturn.put(s, v[i]));
 		}
 		return toReturn;
 	}
 
 
-	private RealVector sum(FoxGlynn fg ) {
-		return IntStream.range(fg.leftPoint(), fg.rightPoint()).boxed()
-				.map(i -> vectorResults.get(i).mapMultiply(fg.weight(i)/fg.totalWeight()))
-				.reduce(new ArrayRealVector(index.size()), (v1,v2) -> v1.add(v2));
+	private double[] sum(FoxGlynn fg ) {
+		double[] result = new double[index.size()];
+		for (int i = fg.leftPoint(); i < fg.rightPoint(); i++) {
+			double w = fg.weight(i)/fg.totalWeight();
+			double[] v = vectorResults.get(i);
+			for (int j = 0; j < result.length; j++) {
+				result[j] += w*v[j];
+			}
+		}
+		return result;
 	}
 
 
 	private void generateSteps(int k) {
 		while (vectorResults.size()<k) {
-			vectorResults.add(matrix.preMultiply(vectorResults.getLast()));
+			vectorResults.add(matrix.operate(vectorResults.get(vectorResults.size()-1)));
 		}
 	}
 
@@ -23,13 +23,8 @@
 
 package it.unicam.quasylab.sibilla.core.markov;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -46,9 +41,10 @@ public class BoundedReachabilityDiscreteSolver<S> {
 	private Predicate<S> condition;
 	private Predicate<S> goal;
 	private DiscreteTimeMarkovChain<S> chain;
-	private RealMatrix matrix;
-	private RealVector p0;
-	private LinkedList<RealVector> vectorResults;
+	private SparseMatrixOperator matrix;
+	private double[] p0;
+	private ArrayList<double[]> vectorResults;
+	private int parallelThreshold = SparseMatrixOperator.DEFAULT_PARALLEL_THRESHOLD;
 	private Set<S> yesNodes;
 	private Set<S> computingNodes;
 	private Map<S, Integer> index;
@@ -69,16 +65,26 @@ public class BoundedReachabilityDiscreteSolver<S> {
 	}
 
 
-	private RealVector buildRealVector() {
-		return MarkovChain.generateVector(ArrayRealVector::new, index, s -> 
+	/**
+	 * Sets the minimal number of states needed to compute matrix-vector products in parallel. The value is used
+	 * when the first probability is computed.
+	 *
+	 * @param parallelThreshold the minimal number of states needed to compute products in parallel.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	private double[] buildRealVector() {
+		return MarkovChain.generateVector(index, s -> 
 		chain.probabilityMatrixRow(s)
 		.entrySet().stream()
 		.filter(e2 -> yesNodes.contains(e2.getKey()))
 		.collect(Collectors.summingDouble(Map.Entry::getValue)));
 	}
 
-	private RealMatrix buidProbabilityMatrix(  ) {
-		return MarkovChain.generateMatrix(i -> MatrixUtils.createRealMatrix(i, i), s -> 
+	private SparseMatrix buidProbabilityMatrix(  ) {
+		return SparseMatrix.generate(s ->
 			chain.probabilityMatrixRow(s).entrySet().stream()
 				.filter(p -> computingNodes.contains(p.getKey()))
 				, index);
@@ -88,9 +94,9 @@ public class BoundedReachabilityDiscreteSolver<S> {
 		if (vectorResults == null) {
 			computeReachabilitySets();
 			computeStateIndex();
-			matrix = buidProbabilityMatrix( ).transpose();
+			matrix = new SparseMatrixOperator(buidProbabilityMatrix( ), parallelThreshold);
 			p0 = buildRealVector( );
-			vectorResults = new LinkedList<>();
+			vectorResults = new ArrayList<>();
 			vectorResults.add(p0);
 		}
 		generateSteps(k);
@@ -102,21 +108,28 @@ public class BoundedReachabilityDiscreteSolver<S> {
 		HashMap<S,Double> toReturn = new HashMap<>();
 		yesNodes.forEach(s -> toReturn.put(s, 1.0));
 		if (k>0) {
-			RealVector v = sum(k);
-			index.forEach((s,i) -> toReturn.put(s, v.getEntry(i)));
+			double[] v = sum(k);
+			index.forEach((s,i) -> toReturn.put(s, v[i]));
 		}
 		return toReturn;
 	}
 
 
-	private RealVector sum(int k) {
-		return vectorResults.stream().limit(k).reduce(new ArrayRealVector(index.size()), (v1,v2) -> v1.add(v2));
+	private double[] sum(int k) {
+		double[] result = new double[index.size()];
+		for (int i = 0; i < k; i++) {
+			double[] v = vectorResults.get(i);
+			for (int j = 0; j < result.length; j++) {
+				result[j] += v[j];
+			}
+		}
+		return result;
 	}
 
 
 	private void generateSteps(int k) {
 		while (vectorResults.size()<k) {
-			vectorResults.add(matrix.preMultiply(vectorResults.getLast()));
+			vectorResults.add(matrix.operate(vectorResults.get(vectorResults.size()-1)));
 		}
 	}
 
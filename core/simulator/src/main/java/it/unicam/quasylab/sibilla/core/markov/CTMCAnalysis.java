@@ -0,0 +1,230 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.Model;
+import it.unicam.quasylab.sibilla.core.models.State;
+import it.unicam.quasylab.sibilla.core.models.markov.CTMCModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.util.MappingState;
+import it.unicam.quasylab.sibilla.core.models.util.VariableTable;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Exact numerical analysis of a model whose semantics is a continuous time Markov chain with a finite number of
+ * states. The explicit chain is generated once from the initial state and then used to compute transient values of
+ * measures, bounded reachability probabilities and steady state values. Results are reported in the same format used
+ * for summary statistics of simulations: for each measure, a row <code>{ time, mean, standard deviation, 0.0 }</code>
+ * for each sampled time, where the last element, the width of the confidence interval, is always 0.
+ *
+ * @param <S> type of model states.
+ */
+public class CTMCAnalysis<S extends State> {
+
+	public static final double DEFAULT_EPSILON = 1.0E-10;
+
+	public static final int DEFAULT_MAX_STATES = 1000000;
+
+	private final CompactMarkovChain chain;
+	private final Function<int[],S> decoder;
+	private IterativeSolver solver = new IterativeSolver();
+
+	/**
+	 * Creates a new analysis for the given chain.
+	 *
+	 * @param chain a chain whose transition weights are rates and whose initial state has identifier 0.
+	 * @param decoder function used to obtain a model state from its encoding in the chain.
+	 */
+	public CTMCAnalysis(CompactMarkovChain chain, Function<int[],S> decoder) {
+		this.chain = chain;
+		this.decoder = decoder;
+	}
+
+	/**
+	 * Returns the analysis of the chain generated by the given model from the given state.
+	 *
+	 * @param model a model.
+	 * @param init initial state.
+	 * @param <S> type of model states.
+	 * @return the analysis of the chain generated by the given model from the given state.
+	 * @throws IllegalArgumentException if exact analysis is not supported for the given model.
+	 */
+	public static <S extends State> CTMCAnalysis<S> of(Model<S> model, S init) {
+		return of(model, init, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the analysis of the chain generated by the given model from the given state. States of the chain are
+	 * expanded in parallel.
+	 *
+	 * @param model a model.
+	 * @param init initial state.
+	 * @param maxStates maximum number of states of the chain.
+	 * @param <S> type of model states.
+	 * @return the analysis of the chain generated by the given model from the given state.
+	 * @throws IllegalArgumentException if exact analysis is not supported for the given model.
+	 * @throws StateSpaceLimitException if more than <code>maxStates</code> states are reachable.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <S extends State> CTMCAnalysis<S> of(Model<S> model, S init, int maxStates) {
+		if ((model instanceof PopulationModel)&&(init instanceof PopulationState)) {
+			CompactMarkovChain chain = CompactMarkovChain.generate((PopulationModel) model, (PopulationState) init, maxStates);
+			return (CTMCAnalysis<S>) new CTMCAnalysis<>(chain, PopulationState::new);
+		}
+		if ((model instanceof CTMCModel)&&(init instanceof MappingState)) {
+			CTMCModel ctmc = (CTMCModel) model;
+			VariableTable table = ctmc.getStateVariables();
+			CompactMarkovChain chain = CompactMarkovChain.generate(ctmc, (MappingState) init, maxStates);
+			return (CTMCAnalysis<S>) new CTMCAnalysis<>(chain, v -> new MappingState(table, v));
+		}
+		throw new IllegalArgumentException("Exact analysis is not supported for "+model.getClass().getSimpleName()+"!");
+	}
+
+	/**
+	 * Sets the solver used for the linear systems needed to compute steady state values.
+	 *
+	 * @param solver the solver used for linear systems.
+	 */
+	public void setSolver(IterativeSolver solver) {
+		this.solver = solver;
+	}
+
+	/**
+	 * Returns the number of states of the analysed chain.
+	 *
+	 * @return the number of states of the analysed chain.
+	 */
+	public int numberOfStates() {
+		return chain.numberOfStates();
+	}
+
+	/**
+	 * Returns the expected values of the given measures at times <code>0, dt, 2dt, ...</code> before the deadline.
+	 *
+	 * @param deadline time horizon.
+	 * @param dt sampling interval.
+	 * @param epsilon the maximum probability mass neglected by Fox-Glynn truncation.
+	 * @param measures measures to compute.
+	 * @return a map associating each measure name with its values over time.
+	 */
+	public Map<String,double[][]> transientAnalysis(double deadline, double dt, double epsilon, List<Measure<? super S>> measures) {
+		double[] times = samplingTimes(deadline, dt);
+		double[][] distributions = new UniformisationSolver(chain, epsilon).compute(initialDistribution(), times);
+		Map<String,double[][]> result = new TreeMap<>();
+		for (Measure<? super S> m : measures) {
+			double[] values = evaluate(s -> m.measure(s));
+			double[][] rows = new double[times.length][];
+			for (int i = 0; i < times.length; i++) {
+				rows[i] = row(times[i], distributions[i], values);
+			}
+			result.put(m.getName(), rows);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the probability of reaching, within times <code>0, dt, 2dt, ...</code> before the deadline and within
+	 * the deadline itself, a state satisfying the goal while only states satisfying the condition are traversed. The
+	 * last row always refers to the deadline.
+	 *
+	 * @param name name of the computed series.
+	 * @param condition condition satisfied by traversed states.
+	 * @param goal condition identifying target states.
+	 * @param deadline time horizon.
+	 * @param dt sampling interval.
+	 * @param epsilon the maximum probability mass neglected by Fox-Glynn truncation.
+	 * @return a map associating the given name with the reachability probability over time.
+	 */
+	public Map<String,double[][]> reachability(String name, Predicate<? super S> condition, Predicate<? super S> goal, double deadline, double dt, double epsilon) {
+		double[] target = evaluate(s -> (goal.test(s) ? 1.0 : 0.0));
+		double[] allowed = evaluate(s -> (condition.test(s) ? 1.0 : 0.0));
+		CompactMarkovChain absorbing = chain.makeAbsorbing(i -> (target[i] > 0)||(allowed[i] == 0));
+		double[] times = samplingTimes(deadline, dt);
+		if ((times.length == 0)||(times[times.length-1] < deadline)) {
+			times = Arrays.copyOf(times, times.length+1);
+			times[times.length-1] = deadline;
+		}
+		double[][] distributions = new UniformisationSolver(absorbing, epsilon).compute(initialDistribution(), times);
+		double[][] rows = new double[times.length][];
+		for (int i = 0; i < times.length; i++) {
+			rows[i] = row(times[i], distributions[i], target);
+		}
+		return Map.of(name, rows);
+	}
+
+	/**
+	 * Returns the expected values of the given measures in the steady state. Each series consists of a single row
+	 * whose time is {@link Double#POSITIVE_INFINITY}.
+	 *
+	 * @param measures measures to compute.
+	 * @return a map associating each measure name with its steady state value.
+	 */
+	public Map<String,double[][]> steadyState(List<Measure<? super S>> measures) {
+		double[] pi = chain.steadyState(0, solver);
+		Map<String,double[][]> result = new TreeMap<>();
+		for (Measure<? super S> m : measures) {
+			result.put(m.getName(), new double[][] { row(Double.POSITIVE_INFINITY, pi, evaluate(s -> m.measure(s))) });
+		}
+		return result;
+	}
+
+	private double[] samplingTimes(double deadline, double dt) {
+		double[] times = new double[(int) (deadline/dt)];
+		for (int i = 0; i < times.length; i++) {
+			times[i] = i*dt;
+		}
+		return times;
+	}
+
+	private double[] initialDistribution() {
+		return UniformisationSolver.pointDistribution(chain.numberOfStates(), 0);
+	}
+
+	private double[] evaluate(Function<S,Double> f) {
+		double[] values = new double[chain.numberOfStates()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = f.apply(decoder.apply(chain.getState(i)));
+		}
+		return values;
+	}
+
+	private static double[] row(double time, double[] distribution, double[] values) {
+		double mean = 0.0;
+		double squares = 0.0;
+		for (int i = 0; i < values.length; i++) {
+			mean += distribution[i]*values[i];
+			squares += distribution[i]*values[i]*values[i];
+		}
+		return new double[] { time, mean, Math.sqrt(Math.max(0.0, squares-mean*mean)), 0.0 };
+	}
+
+}
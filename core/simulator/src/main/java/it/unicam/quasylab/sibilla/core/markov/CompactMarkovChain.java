@@ -0,0 +1,682 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.markov.CTMCModel;
+import it.unicam.quasylab.sibilla.core.models.markov.DTMCModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.util.MappingState;
+import it.unicam.quasylab.sibilla.core.models.util.VariableTable;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A compact representation of an explicit Markov chain whose states are integer vectors, like
+ * {@link PopulationState} and {@link MappingState}. States are interned in a {@link StateArena} and identified by
+ * consecutive integers, while forward and backward transitions are stored as {@link SparseMatrix} instances. The
+ * memory needed is about 4 bytes per state component plus 24 bytes per transition, a fraction of the one needed by
+ * {@link MarkovChain}.
+ */
+public class CompactMarkovChain {
+
+	/**
+	 * Function used to generate the transitions of a state.
+	 */
+	@FunctionalInterface
+	public interface TransitionFunction {
+
+		/**
+		 * Passes to the given consumer all the transitions of the given state. The state array must not be modified.
+		 *
+		 * @param state a state.
+		 * @param consumer consumer of state transitions.
+		 */
+		void apply(int[] state, TransitionConsumer consumer);
+
+	}
+
+	/**
+	 * Consumer of the transitions of a state.
+	 */
+	@FunctionalInterface
+	public interface TransitionConsumer {
+
+		/**
+		 * Records a transition leading to the given state with the given weight. The target array is copied, hence it
+		 * can be reused by the caller.
+		 *
+		 * @param target target state.
+		 * @param weight transition weight.
+		 */
+		void accept(int[] target, double weight);
+
+	}
+
+	private final StateArena states;
+	private final SparseMatrix forward;
+	private final SparseMatrix backward;
+	private final double[] exitRates;
+
+	private CompactMarkovChain(StateArena states, SparseMatrix forward) {
+		this.states = states;
+		this.forward = forward;
+		this.backward = forward.transpose();
+		double[] ones = new double[states.size()];
+		Arrays.fill(ones, 1.0);
+		this.exitRates = forward.operate(ones);
+	}
+
+	/**
+	 * Returns the chain containing all the states reachable from the given one. States are explored in breadth-first
+	 * order, hence the identifier of a state is never smaller than the one of the states discovered before it.
+	 *
+	 * @param init initial state.
+	 * @param transitions function used to generate the transitions of a state.
+	 * @return the chain containing all the states reachable from the given one.
+	 */
+	public static CompactMarkovChain generate(int[] init, TransitionFunction transitions) {
+		return generate(init, transitions, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the chain containing all the states reachable from the given one. States are explored in breadth-first
+	 * order, hence the identifier of a state is never smaller than the one of the states discovered before it.
+	 *
+	 * @param init initial state.
+	 * @param transitions function used to generate the transitions of a state.
+	 * @param maxStates maximum number of states of the chain.
+	 * @return the chain containing all the states reachable from the given one.
+	 * @throws StateSpaceLimitException if more than <code>maxStates</code> states are reachable.
+	 */
+	public static CompactMarkovChain generate(int[] init, TransitionFunction transitions, int maxStates) {
+		StateArena states = new StateArena(init.length);
+		states.intern(init);
+		RowBuilder builder = new RowBuilder(states, maxStates);
+		for (int id = 0; id < states.size(); id++) {
+			transitions.apply(states.get(id), builder);
+			builder.endRow();
+		}
+		states.trim();
+		return new CompactMarkovChain(states, builder.build());
+	}
+
+	/**
+	 * Returns the chain containing all the states reachable from the given one, where the transitions of the states
+	 * at the same distance from the initial one are generated in parallel in the given pool. Transitions are then
+	 * added to the chain in the order of their source states, hence state identifiers are the same assigned by
+	 * {@link #generate(int[], TransitionFunction, int)}. The transition function must be safe to call concurrently.
+	 *
+	 * @param init initial state.
+	 * @param transitions function used to generate the transitions of a state.
+	 * @param maxStates maximum number of states of the chain.
+	 * @param pool pool used to generate transitions.
+	 * @return the chain containing all the states reachable from the given one.
+	 * @throws StateSpaceLimitException if more than <code>maxStates</code> states are reachable.
+	 */
+	public static CompactMarkovChain generate(int[] init, TransitionFunction transitions, int maxStates, ForkJoinPool pool) {
+		StateArena states = new StateArena(init.length);
+		states.intern(init);
+		RowBuilder builder = new RowBuilder(states, maxStates);
+		int levelStart = 0;
+		while (levelStart < states.size()) {
+			int from = levelStart;
+			int to = states.size();
+			List<TransitionList> rows = pool.submit(() -> IntStream.range(from, to).parallel().mapToObj(id -> {
+				TransitionList row = new TransitionList(init.length);
+				transitions.apply(states.get(id), row);
+				return row;
+			}).collect(Collectors.toList())).join();
+			for (TransitionList row : rows) {
+				row.forEach(builder);
+				builder.endRow();
+			}
+			levelStart = to;
+		}
+		states.trim();
+		return new CompactMarkovChain(states, builder.build());
+	}
+
+	/**
+	 * Returns the chain containing all the states reachable from the given one, where states of type <code>S</code>
+	 * are encoded as integer vectors.
+	 *
+	 * @param init initial state.
+	 * @param stepFunction function associating each state with the weights of its successors.
+	 * @param encoder function used to encode a state as an integer vector.
+	 * @param decoder function used to obtain a state from its encoding.
+	 * @param <S> type of states.
+	 * @return the chain containing all the states reachable from the given one.
+	 */
+	public static <S> CompactMarkovChain generate(S init, Function<S,Map<S,Double>> stepFunction, Function<S,int[]> encoder, Function<int[],S> decoder) {
+		return generate(encoder.apply(init), transitionFunction(stepFunction, encoder, decoder));
+	}
+
+	static <S> TransitionFunction transitionFunction(Function<S,Map<S,Double>> stepFunction, Function<S,int[]> encoder, Function<int[],S> decoder) {
+		return (state, consumer) ->
+				stepFunction.apply(decoder.apply(state)).forEach((s, w) -> consumer.accept(encoder.apply(s), w));
+	}
+
+	/**
+	 * Returns the CTMC of the given population model containing all the states reachable from the given one.
+	 *
+	 * @param model a population model.
+	 * @param init initial state.
+	 * @return the CTMC of the given population model containing all the states reachable from the given one.
+	 */
+	public static CompactMarkovChain generate(PopulationModel model, PopulationState init) {
+		return generate(model, init, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the CTMC of the given population model containing all the states reachable from the given one. States
+	 * are expanded in parallel by the explorer of the model.
+	 *
+	 * @param model a population model.
+	 * @param init initial state.
+	 * @param maxStates maximum number of states of the chain.
+	 * @return the CTMC of the given population model containing all the states reachable from the given one.
+	 * @throws StateSpaceLimitException if more than <code>maxStates</code> states are reachable.
+	 */
+	public static CompactMarkovChain generate(PopulationModel model, PopulationState init, int maxStates) {
+		return StateSpaceExplorer.of(model).exploreCompact(init, PopulationState::getPopulationVector, PopulationState::new, maxStates);
+	}
+
+	/**
+	 * Returns the CTMC of the given model containing all the states reachable from the given one.
+	 *
+	 * @param model a CTMC model.
+	 * @param init initial state.
+	 * @return the CTMC of the given model containing all the states reachable from the given one.
+	 */
+	public static CompactMarkovChain generate(CTMCModel model, MappingState init) {
+		return generate(model, init, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the CTMC of the given model containing all the states reachable from the given one. States are expanded
+	 * in parallel by the explorer of the model.
+	 *
+	 * @param model a CTMC model.
+	 * @param init initial state.
+	 * @param maxStates maximum number of states of the chain.
+	 * @return the CTMC of the given model containing all the states reachable from the given one.
+	 * @throws StateSpaceLimitException if more than <code>maxStates</code> states are reachable.
+	 */
+	public static CompactMarkovChain generate(CTMCModel model, MappingState init, int maxStates) {
+		VariableTable table = model.getStateVariables();
+		return StateSpaceExplorer.of(model).exploreCompact(init, CompactMarkovChain::encode, v -> new MappingState(table, v), maxStates);
+	}
+
+	/**
+	 * Returns the DTMC of the given model containing all the states reachable from the given one.
+	 *
+	 * @param model a DTMC model.
+	 * @param init initial state.
+	 * @return the DTMC of the given model containing all the states reachable from the given one.
+	 */
+	public static CompactMarkovChain generate(DTMCModel model, MappingState init) {
+		VariableTable table = model.getStateVariables();
+		return generate(init, StateSpaceExplorer.probabilities(model), CompactMarkovChain::encode, v -> new MappingState(table, v));
+	}
+
+	static int[] encode(MappingState state) {
+		int[] values = new int[state.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = state.getIntValue(i);
+		}
+		return values;
+	}
+
+	/**
+	 * Returns the number of states in this chain.
+	 *
+	 * @return the number of states in this chain.
+	 */
+	public int numberOfStates() {
+		return states.size();
+	}
+
+	/**
+	 * Returns the number of transitions in this chain.
+	 *
+	 * @return the number of transitions in this chain.
+	 */
+	public int numberOfTransitions() {
+		return forward.getNonZeros();
+	}
+
+	/**
+	 * Returns the identifier of the given state, or -1 if the state is not in this chain.
+	 *
+	 * @param state a state.
+	 * @return the identifier of the given state, or -1 if the state is not in this chain.
+	 */
+	public int indexOf(int[] state) {
+		return states.indexOf(state);
+	}
+
+	/**
+	 * Returns the state with the given identifier.
+	 *
+	 * @param id a state identifier.
+	 * @return the state with the given identifier.
+	 */
+	public int[] getState(int id) {
+		return states.get(id);
+	}
+
+	/**
+	 * Returns the arena where states of this chain are interned.
+	 *
+	 * @return the arena where states of this chain are interned.
+	 */
+	public StateArena getStates() {
+		return states;
+	}
+
+	/**
+	 * Returns the sum of the weights of the transitions leaving the given state.
+	 *
+	 * @param id a state identifier.
+	 * @return the sum of the weights of the transitions leaving the given state.
+	 */
+	public double sumOfRow(int id) {
+		return exitRates[id];
+	}
+
+	/**
+	 * Returns the weight of the transition from <code>i</code> to <code>j</code>.
+	 *
+	 * @param i source state identifier.
+	 * @param j target state identifier.
+	 * @return the weight of the transition from <code>i</code> to <code>j</code>.
+	 */
+	public double rate(int i, int j) {
+		return forward.getEntry(i, j);
+	}
+
+	/**
+	 * Returns the maximal sum of the weights of the transitions leaving a state.
+	 *
+	 * @return the maximal sum of the weights of the transitions leaving a state.
+	 */
+	public double getMaxExitRate() {
+		return Arrays.stream(exitRates).max().orElse(0.0);
+	}
+
+	/**
+	 * Returns the matrix of transition weights, where rows are indexed by source states.
+	 *
+	 * @return the matrix of transition weights.
+	 */
+	public SparseMatrix getMatrix() {
+		return forward;
+	}
+
+	/**
+	 * Returns the transpose of the matrix of transition weights, where rows are indexed by target states.
+	 *
+	 * @return the transpose of the matrix of transition weights.
+	 */
+	public SparseMatrix getBackwardMatrix() {
+		return backward;
+	}
+
+	/**
+	 * Returns the infinitesimal generator of this chain, when transition weights are rates.
+	 *
+	 * @return the infinitesimal generator of this chain.
+	 */
+	public SparseMatrix getGeneratorMatrix() {
+		double[] diagonal = new double[exitRates.length];
+		for (int i = 0; i < diagonal.length; i++) {
+			diagonal[i] = -exitRates[i];
+		}
+		return forward.scaleAndAddDiagonal(1.0, diagonal);
+	}
+
+	/**
+	 * Returns the probability matrix of the uniformised chain, when transition weights are rates.
+	 *
+	 * @return the probability matrix of the uniformised chain.
+	 */
+	public SparseMatrix getUniformisedMatrix() {
+		double maxExitRate = getMaxExitRate();
+		double[] diagonal = new double[exitRates.length];
+		if (maxExitRate == 0.0) {
+			Arrays.fill(diagonal, 1.0);
+			return forward.scaleAndAddDiagonal(0.0, diagonal);
+		}
+		for (int i = 0; i < diagonal.length; i++) {
+			diagonal[i] = 1.0-exitRates[i]/maxExitRate;
+		}
+		return forward.scaleAndAddDiagonal(1.0/maxExitRate, diagonal);
+	}
+
+	/**
+	 * Returns the chain obtained from this one by removing all the transitions leaving the states satisfying the given
+	 * predicate, that hence become absorbing.
+	 *
+	 * @param absorbing predicate identifying the states that become absorbing.
+	 * @return the chain obtained from this one by making absorbing the states satisfying the given predicate.
+	 */
+	public CompactMarkovChain makeAbsorbing(IntPredicate absorbing) {
+		return new CompactMarkovChain(states, forward.clearRows(absorbing));
+	}
+
+	/**
+	 * Returns the bottom strongly connected components (BSCCs) of this chain. Components are identified via an
+	 * iterative version of Tarjan's algorithm.
+	 *
+	 * @return the bottom strongly connected components of this chain.
+	 */
+	public List<int[]> computeBSCC() {
+		int n = numberOfStates();
+		int[] index = new int[n];
+		int[] low = new int[n];
+		int[] componentOf = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] stack = new int[n];
+		int[] callStates = new int[n];
+		int[] callEdges = new int[n];
+		Arrays.fill(index, -1);
+		Arrays.fill(componentOf, -1);
+		int counter = 0;
+		int components = 0;
+		int sp = 0;
+		List<int[]> result = new ArrayList<>();
+		for (int root = 0; root < n; root++) {
+			if (index[root] >= 0) {
+				continue;
+			}
+			int cp = 0;
+			index[root] = low[root] = counter++;
+			stack[sp++] = root;
+			onStack[root] = true;
+			callStates[cp] = root;
+			callEdges[cp++] = forward.rowStart(root);
+			while (cp > 0) {
+				int s = callStates[cp-1];
+				int k = callEdges[cp-1];
+				if (k < forward.rowEnd(s)) {
+					callEdges[cp-1]++;
+					int w = forward.columnAt(k);
+					if (index[w] < 0) {
+						index[w] = low[w] = counter++;
+						stack[sp++] = w;
+						onStack[w] = true;
+						callStates[cp] = w;
+						callEdges[cp++] = forward.rowStart(w);
+					} else if (onStack[w]) {
+						low[s] = Math.min(low[s], index[w]);
+					}
+				} else {
+					cp--;
+					if (cp > 0) {
+						int parent = callStates[cp-1];
+						low[parent] = Math.min(low[parent], low[s]);
+					}
+					if (low[s] == index[s]) {
+						int start = sp;
+						do {
+							start--;
+							onStack[stack[start]] = false;
+							componentOf[stack[start]] = components;
+						} while (stack[start] != s);
+						int[] component = Arrays.copyOfRange(stack, start, sp);
+						sp = start;
+						if (isClosed(component, componentOf, components)) {
+							result.add(component);
+						}
+						components++;
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private boolean isClosed(int[] component, int[] componentOf, int id) {
+		for (int s : component) {
+			for (int k = forward.rowStart(s); k < forward.rowEnd(s); k++) {
+				if (componentOf[forward.columnAt(k)] != id) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the steady state distribution of this chain, when transition weights are rates, starting from the
+	 * given state. The stationary distribution of each bottom strongly connected component is weighted by the
+	 * probability of reaching the component from the initial state.
+	 *
+	 * @param init initial state identifier.
+	 * @param solver solver used for the needed linear systems.
+	 * @return the steady state distribution of this chain starting from the given state.
+	 */
+	public double[] steadyState(int init, IterativeSolver solver) {
+		int n = numberOfStates();
+		List<int[]> bscc = computeBSCC();
+		int[] componentOf = new int[n];
+		Arrays.fill(componentOf, -1);
+		for (int c = 0; c < bscc.size(); c++) {
+			for (int s : bscc.get(c)) {
+				componentOf[s] = c;
+			}
+		}
+		double[] reach = reachProbabilities(init, bscc.size(), componentOf, solver);
+		double[] result = new double[n];
+		for (int c = 0; c < bscc.size(); c++) {
+			if (reach[c] > 0.0) {
+				int[] component = bscc.get(c);
+				double[] pi = stationaryDistribution(component, solver);
+				for (int i = 0; i < component.length; i++) {
+					result[component[i]] = reach[c]*pi[i];
+				}
+			}
+		}
+		return result;
+	}
+
+	private double[] reachProbabilities(int init, int components, int[] componentOf, IterativeSolver solver) {
+		double[] reach = new double[components];
+		if (componentOf[init] >= 0) {
+			reach[componentOf[init]] = 1.0;
+			return reach;
+		}
+		if (components == 1) {
+			reach[0] = 1.0;
+			return reach;
+		}
+		int[] local = new int[componentOf.length];
+		int size = 0;
+		for (int s = 0; s < local.length; s++) {
+			local[s] = (componentOf[s] < 0 ? size++ : -1);
+		}
+		RowBuilder builder = new RowBuilder(null, Integer.MAX_VALUE);
+		double[][] b = new double[components][size];
+		for (int s = 0; s < local.length; s++) {
+			if (local[s] >= 0) {
+				builder.add(local[s], 1.0);
+				for (int k = forward.rowStart(s); k < forward.rowEnd(s); k++) {
+					int w = forward.columnAt(k);
+					double p = forward.valueAt(k)/exitRates[s];
+					if (local[w] >= 0) {
+						builder.add(local[w], -p);
+					} else {
+						b[componentOf[w]][local[s]] += p;
+					}
+				}
+				builder.endRow();
+			}
+		}
+		SparseMatrix a = builder.build();
+		for (int c = 0; c < components; c++) {
+			reach[c] = solver.solve(a, b[c])[local[init]];
+		}
+		return reach;
+	}
+
+	private double[] stationaryDistribution(int[] component, IterativeSolver solver) {
+		if (component.length == 1) {
+			return new double[] { 1.0 };
+		}
+		int[] local = new int[numberOfStates()];
+		for (int i = 0; i < component.length; i++) {
+			local[component[i]] = i;
+		}
+		RowBuilder builder = new RowBuilder(null, Integer.MAX_VALUE);
+		for (int s : component) {
+			for (int k = forward.rowStart(s); k < forward.rowEnd(s); k++) {
+				builder.add(local[forward.columnAt(k)], forward.valueAt(k));
+			}
+			builder.add(local[s], -exitRates[s]);
+			builder.endRow();
+		}
+		return solver.solveStationary(builder.build());
+	}
+
+	/**
+	 * Accumulates the rows of a chain in CSR format.
+	 */
+	private static class RowBuilder implements TransitionConsumer {
+
+		private final StateArena states;
+		private final int maxStates;
+		private int[] rowPointers = new int[1024];
+		private int[] columns = new int[1024];
+		private double[] values = new double[1024];
+		private int rows = 0;
+		private int size = 0;
+
+		private RowBuilder(StateArena states, int maxStates) {
+			this.states = states;
+			this.maxStates = maxStates;
+		}
+
+		@Override
+		public void accept(int[] target, double weight) {
+			if (weight > 0.0) {
+				int column = states.intern(target);
+				if (column >= maxStates) {
+					throw new StateSpaceLimitException(maxStates);
+				}
+				add(column, weight);
+			}
+		}
+
+		private void add(int column, double value) {
+			if (size == columns.length) {
+				columns = Arrays.copyOf(columns, Math.addExact(size, size));
+				values = Arrays.copyOf(values, columns.length);
+			}
+			columns[size] = column;
+			values[size] = value;
+			size++;
+		}
+
+		private void endRow() {
+			int start = rowPointers[rows];
+			// Rows are short: entries are sorted by insertion and duplicates are merged in place.
+			for (int k = start+1; k < size; k++) {
+				int c = columns[k];
+				double v = values[k];
+				int h = k-1;
+				while ((h >= start)&&(columns[h] > c)) {
+					columns[h+1] = columns[h];
+					values[h+1] = values[h];
+					h--;
+				}
+				columns[h+1] = c;
+				values[h+1] = v;
+			}
+			int last = start-1;
+			for (int k = start; k < size; k++) {
+				if ((last >= start)&&(columns[last] == columns[k])) {
+					values[last] += values[k];
+				} else {
+					last++;
+					columns[last] = columns[k];
+					values[last] = values[k];
+				}
+			}
+			size = last+1;
+			if (rows+2 > rowPointers.length) {
+				rowPointers = Arrays.copyOf(rowPointers, Math.addExact(rowPointers.length, rowPointers.length));
+			}
+			rowPointers[++rows] = size;
+		}
+
+		private SparseMatrix build() {
+			return new SparseMatrix(rows, rows, Arrays.copyOf(rowPointers, rows+1), Arrays.copyOf(columns, size), Arrays.copyOf(values, size));
+		}
+
+	}
+
+	/**
+	 * Transitions of a state collected while states are expanded in parallel.
+	 */
+	private static class TransitionList implements TransitionConsumer {
+
+		private final int width;
+		private int[] targets;
+		private double[] weights = new double[4];
+		private int size = 0;
+
+		private TransitionList(int width) {
+			this.width = width;
+			this.targets = new int[4*width];
+		}
+
+		@Override
+		public void accept(int[] target, double weight) {
+			if (weight > 0.0) {
+				if (size == weights.length) {
+					weights = Arrays.copyOf(weights, 2*size);
+					targets = Arrays.copyOf(targets, 2*size*width);
+				}
+				System.arraycopy(target, 0, targets, size*width, width);
+				weights[size++] = weight;
+			}
+		}
+
+		private void forEach(TransitionConsumer consumer) {
+			int[] target = new int[width];
+			for (int k = 0; k < size; k++) {
+				System.arraycopy(targets, k*width, target, 0, width);
+				consumer.accept(target, weights[k]);
+			}
+		}
+
+	}
+
+}
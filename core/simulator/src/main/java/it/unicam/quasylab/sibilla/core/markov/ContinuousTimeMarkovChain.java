@@ -71,5 +71,17 @@ public class ContinuousTimeMarkovChain<S> extends MarkovChain<S> {
 		return maxExitRate;
 	}
 
+	/**
+	 * Returns the infinitesimal generator of this chain restricted to the states in the given index, in sparse
+	 * format. Each diagonal entry is the opposite of the exit rate of the corresponding state, so that rows of states
+	 * whose successors are all in the index sum to zero.
+	 *
+	 * @param index map associating each state with a row index.
+	 * @return the infinitesimal generator of this chain restricted to the states in the given index.
+	 */
+	public SparseMatrix generateSparseGeneratorMatrix(Map<S,Integer> index) {
+		return SparseMatrix.generate(s -> Stream.concat(getRow(s).entrySet().stream(), Stream.of(Map.entry(s, -sumOfRow(s)))), index);
+	}
+
 
 }
@@ -0,0 +1,51 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+/**
+ * Methods that can be used by an {@link IterativeSolver} to solve a linear system.
+ */
+public enum IterativeMethod {
+
+	/**
+	 * Jacobi method: each iteration computes the new vector only from the previous one.
+	 */
+	JACOBI,
+
+	/**
+	 * Gauss-Seidel method: each iteration uses the entries already updated in the same sweep.
+	 */
+	GAUSS_SEIDEL,
+
+	/**
+	 * Successive over-relaxation: Gauss-Seidel where each update is weighted by a relaxation factor.
+	 */
+	SOR,
+
+	/**
+	 * Biconjugate gradient stabilized method, a Krylov method for non-symmetric systems.
+	 */
+	BICGSTAB
+
+}
@@ -0,0 +1,261 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+/**
+ * Iterative solver for sparse linear systems. Iterations stop when the maximum absolute difference between two
+ * consecutive approximations (or, for {@link IterativeMethod#BICGSTAB}, the norm of the residual relative to the norm
+ * of the right hand side) is below the given tolerance. An {@link IterativeSolverException} is thrown when this
+ * does not happen within the given number of iterations.
+ */
+public class IterativeSolver {
+
+	public static final double DEFAULT_TOLERANCE = 1.0E-10;
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+	public static final double DEFAULT_RELAXATION = 1.2;
+	private static final double STATIONARY_JACOBI_DAMPING = 0.9;
+
+	private final IterativeMethod method;
+	private final double tolerance;
+	private final int maxIterations;
+	private final double relaxation;
+
+	public IterativeSolver(IterativeMethod method, double tolerance, int maxIterations, double relaxation) {
+		if ((tolerance <= 0.0)||(maxIterations <= 0)||(relaxation <= 0.0)||(relaxation >= 2.0)) {
+			throw new IllegalArgumentException();
+		}
+		this.method = method;
+		this.tolerance = tolerance;
+		this.maxIterations = maxIterations;
+		this.relaxation = relaxation;
+	}
+
+	public IterativeSolver(IterativeMethod method, double tolerance, int maxIterations) {
+		this(method, tolerance, maxIterations, DEFAULT_RELAXATION);
+	}
+
+	public IterativeSolver(IterativeMethod method) {
+		this(method, DEFAULT_TOLERANCE, DEFAULT_MAX_ITERATIONS);
+	}
+
+	public IterativeSolver() {
+		this(IterativeMethod.GAUSS_SEIDEL);
+	}
+
+	public IterativeMethod getMethod() {
+		return method;
+	}
+
+	public double getTolerance() {
+		return tolerance;
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	public double getRelaxation() {
+		return relaxation;
+	}
+
+	/**
+	 * Returns the solution of the linear system <code>A x = b</code>.
+	 *
+	 * @param a a square matrix.
+	 * @param b right hand side of the system.
+	 * @param x0 initial approximation of the solution.
+	 * @return the solution of the linear system <code>A x = b</code>.
+	 */
+	public double[] solve(SparseMatrix a, double[] b, double[] x0) {
+		if ((a.getRowDimension() != a.getColumnDimension())||(b.length != a.getRowDimension())||(x0.length != b.length)) {
+			throw new IllegalArgumentException();
+		}
+		if (method == IterativeMethod.BICGSTAB) {
+			return biCGStab(a::operate, b, x0);
+		}
+		return relaxation(a, b, x0, false);
+	}
+
+	/**
+	 * Returns the solution of the linear system <code>A x = b</code> starting from the null vector.
+	 *
+	 * @param a a square matrix.
+	 * @param b right hand side of the system.
+	 * @return the solution of the linear system <code>A x = b</code>.
+	 */
+	public double[] solve(SparseMatrix a, double[] b) {
+		return solve(a, b, new double[b.length]);
+	}
+
+	/**
+	 * Returns the probability distribution <code>&pi;</code> such that <code>&pi; Q = 0</code>, where <code>Q</code>
+	 * is the infinitesimal generator of an irreducible continuous time Markov chain.
+	 *
+	 * @param generator the infinitesimal generator of an irreducible chain.
+	 * @return the stationary distribution of the chain with the given generator.
+	 */
+	public double[] solveStationary(SparseMatrix generator) {
+		int n = generator.getRowDimension();
+		if (n != generator.getColumnDimension()) {
+			throw new IllegalArgumentException();
+		}
+		double[] x0 = new double[n];
+		Arrays.fill(x0, 1.0/n);
+		if (n == 1) {
+			return x0;
+		}
+		SparseMatrix a = generator.transpose();
+		if (method == IterativeMethod.BICGSTAB) {
+			// The system is singular: the last equation is replaced by the normalisation condition.
+			double[] b = new double[n];
+			b[n-1] = 1.0;
+			return biCGStab(x -> {
+				double[] y = a.operate(x);
+				y[n-1] = Arrays.stream(x).sum();
+				return y;
+			}, b, x0);
+		}
+		return relaxation(a, new double[n], x0, true);
+	}
+
+	private double[] relaxation(SparseMatrix a, double[] b, double[] x0, boolean normalise) {
+		double[] diagonal = a.getDiagonal();
+		for (double d : diagonal) {
+			if (d == 0.0) {
+				throw new IllegalArgumentException("Matrix has a zero diagonal entry!");
+			}
+		}
+		double omega = (method == IterativeMethod.SOR ? relaxation : 1.0);
+		if ((method == IterativeMethod.JACOBI)&&normalise) {
+			// Undamped Jacobi iterations oscillate on periodic chains.
+			omega = STATIONARY_JACOBI_DAMPING;
+		}
+		double[] x = x0.clone();
+		double[] next = (method == IterativeMethod.JACOBI ? new double[x.length] : x);
+		for (int k = 0; k < maxIterations; k++) {
+			double difference = 0.0;
+			for (int i = 0; i < x.length; i++) {
+				double old = x[i];
+				double sigma = a.multiplyRow(i, x) - diagonal[i]*old;
+				next[i] = (1-omega)*old + omega*(b[i] - sigma)/diagonal[i];
+				difference = Math.max(difference, Math.abs(next[i] - old));
+			}
+			if (normalise) {
+				normalise(next);
+			}
+			if (next != x) {
+				double[] tmp = x;
+				x = next;
+				next = tmp;
+			}
+			if (difference < tolerance) {
+				return x;
+			}
+		}
+		throw new IterativeSolverException(String.format("Solver %s did not converge in %d iterations!", method, maxIterations));
+	}
+
+	private static void normalise(double[] x) {
+		double sum = Arrays.stream(x).sum();
+		for (int i = 0; i < x.length; i++) {
+			x[i] = x[i]/sum;
+		}
+	}
+
+	private double[] biCGStab(UnaryOperator<double[]> a, double[] b, double[] x0) {
+		double bNorm = norm(b);
+		double[] x = x0.clone();
+		if (bNorm == 0.0) {
+			return new double[b.length];
+		}
+		double[] r = subtract(b, a.apply(x));
+		double[] rHat = r.clone();
+		double[] p = new double[b.length];
+		double[] v = new double[b.length];
+		double rho = 1.0;
+		double alpha = 1.0;
+		double omega = 1.0;
+		for (int k = 0; k < maxIterations; k++) {
+			if (norm(r)/bNorm < tolerance) {
+				return x;
+			}
+			double rhoNext = dot(rHat, r);
+			if (rhoNext == 0.0) {
+				break;
+			}
+			double beta = (rhoNext/rho)*(alpha/omega);
+			for (int i = 0; i < p.length; i++) {
+				p[i] = r[i] + beta*(p[i] - omega*v[i]);
+			}
+			v = a.apply(p);
+			alpha = rhoNext/dot(rHat, v);
+			double[] s = new double[b.length];
+			for (int i = 0; i < s.length; i++) {
+				s[i] = r[i] - alpha*v[i];
+			}
+			if (norm(s)/bNorm < tolerance) {
+				for (int i = 0; i < x.length; i++) {
+					x[i] += alpha*p[i];
+				}
+				return x;
+			}
+			double[] t = a.apply(s);
+			double tt = dot(t, t);
+			if (tt == 0.0) {
+				break;
+			}
+			omega = dot(t, s)/tt;
+			for (int i = 0; i < x.length; i++) {
+				x[i] += alpha*p[i] + omega*s[i];
+				r[i] = s[i] - omega*t[i];
+			}
+			rho = rhoNext;
+		}
+		throw new IterativeSolverException(String.format("Solver %s did not converge in %d iterations!", method, maxIterations));
+	}
+
+	private static double[] subtract(double[] x, double[] y) {
+		double[] result = new double[x.length];
+		for (int i = 0; i < x.length; i++) {
+			result[i] = x[i] - y[i];
+		}
+		return result;
+	}
+
+	private static double dot(double[] x, double[] y) {
+		double sum = 0.0;
+		for (int i = 0; i < x.length; i++) {
+			sum += x[i]*y[i];
+		}
+		return sum;
+	}
+
+	private static double norm(double[] x) {
+		return Math.sqrt(dot(x, x));
+	}
+
+}
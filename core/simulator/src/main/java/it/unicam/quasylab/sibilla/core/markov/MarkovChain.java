@@ -201,6 +201,22 @@ public  abstract class MarkovChain<S> {
 		return rm;
 	}
 	
+	/**
+	 * Returns the rate matrix of this chain restricted to the states in the given index, in sparse format.
+	 *
+	 * @param index map associating each state with a row index.
+	 * @return the rate matrix of this chain restricted to the states in the given index.
+	 */
+	public SparseMatrix generateSparseRateMatrix(Map<S,Integer> index) {
+		return SparseMatrix.generate(s -> matrixR.get(s).entrySet().stream(), index);
+	}
+
+	public static <S> double[] generateVector(Map<S,Integer> index, Function<S,Double> init) {
+		double[] v = new double[index.size()];
+		index.forEach((s,i) -> v[i] = init.apply(s));
+		return v;
+	}
+
 	public static <S> RealVector generateVector( IntFunction<RealVector> vectorBuilder, Map<S,Integer> index, Function<S,Double> init) {
 		RealVector rv = vectorBuilder.apply(index.size());
 		index.forEach((s,i) -> rv.setEntry(i, init.apply(s)));
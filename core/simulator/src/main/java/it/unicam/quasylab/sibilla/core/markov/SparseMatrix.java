@@ -0,0 +1,362 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A sparse matrix stored in compressed sparse row (CSR) format. Only non-zero entries are stored, and products
+ * with vectors are computed in time proportional to the number of non-zero entries. Instances are immutable.
+ */
+public class SparseMatrix {
+
+	private final int rows;
+	private final int columns;
+	private final int[] rowPointers;
+	private final int[] columnIndexes;
+	private final double[] values;
+
+	/**
+	 * Creates a new sparse matrix from its CSR representation. Column indexes in each row must be sorted in increasing
+	 * order.
+	 *
+	 * @param rows number of rows.
+	 * @param columns number of columns.
+	 * @param rowPointers array of size <code>rows+1</code>: entries of row <code>i</code> are stored in positions from
+	 *                    <code>rowPointers[i]</code> (included) to <code>rowPointers[i+1]</code> (excluded).
+	 * @param columnIndexes column index of each non-zero entry.
+	 * @param values value of each non-zero entry.
+	 */
+	public SparseMatrix(int rows, int columns, int[] rowPointers, int[] columnIndexes, double[] values) {
+		if ((rowPointers.length != rows+1)||(columnIndexes.length != values.length)||(rowPointers[rows] != values.length)) {
+			throw new IllegalArgumentException("Illegal CSR representation!");
+		}
+		this.rows = rows;
+		this.columns = columns;
+		this.rowPointers = rowPointers;
+		this.columnIndexes = columnIndexes;
+		this.values = values;
+	}
+
+	/**
+	 * Creates the square matrix whose rows are obtained by applying the given function to the elements of
+	 * the given index. Entries referring to elements that are not in the index are ignored, while entries in the same
+	 * row referring to the same element are summed.
+	 *
+	 * @param rowFunction function used to obtain the non-zero entries of the row associated with an element.
+	 * @param index map associating each element with a row index in the range <code>[0,index.size())</code>.
+	 * @param <S> type of indexed elements.
+	 * @return the matrix whose rows are obtained by applying the given function to the elements of the index.
+	 */
+	public static <S> SparseMatrix generate(Function<S, Stream<Map.Entry<S,Double>>> rowFunction, Map<S,Integer> index) {
+		int n = index.size();
+		int[][] rowColumns = new int[n][];
+		double[][] rowValues = new double[n][];
+		index.forEach((s, i) -> {
+			List<Map.Entry<S,Double>> entries = rowFunction.apply(s).filter(e -> index.containsKey(e.getKey())).collect(Collectors.toList());
+			rowColumns[i] = new int[entries.size()];
+			rowValues[i] = new double[entries.size()];
+			int j = 0;
+			for (Map.Entry<S,Double> e: entries) {
+				rowColumns[i][j] = index.get(e.getKey());
+				rowValues[i][j] = e.getValue();
+				j++;
+			}
+		});
+		int[] rowPointers = new int[n+1];
+		for (int i = 0; i < n; i++) {
+			rowPointers[i+1] = rowPointers[i]+rowColumns[i].length;
+		}
+		int[] columnIndexes = new int[rowPointers[n]];
+		double[] values = new double[rowPointers[n]];
+		int nnz = 0;
+		for (int i = 0; i < n; i++) {
+			nnz = compressRow(rowColumns[i], rowValues[i], columnIndexes, values, nnz);
+			rowColumns[i] = null;
+			rowValues[i] = null;
+			rowPointers[i+1] = nnz;
+		}
+		if (nnz < columnIndexes.length) {
+			columnIndexes = Arrays.copyOf(columnIndexes, nnz);
+			values = Arrays.copyOf(values, nnz);
+		}
+		return new SparseMatrix(n, n, rowPointers, columnIndexes, values);
+	}
+
+	/**
+	 * Copies the given entries in the destination arrays, starting from the given position, sorted by column. Entries
+	 * with the same column are summed.
+	 */
+	private static int compressRow(int[] rowColumns, double[] rowValues, int[] columnIndexes, double[] values, int start) {
+		Integer[] order = new Integer[rowColumns.length];
+		for (int j = 0; j < order.length; j++) {
+			order[j] = j;
+		}
+		Arrays.sort(order, (j1, j2) -> Integer.compare(rowColumns[j1], rowColumns[j2]));
+		int pos = start;
+		for (int j : order) {
+			if ((pos > start)&&(columnIndexes[pos-1] == rowColumns[j])) {
+				values[pos-1] += rowValues[j];
+			} else {
+				columnIndexes[pos] = rowColumns[j];
+				values[pos] = rowValues[j];
+				pos++;
+			}
+		}
+		return pos;
+	}
+
+	/**
+	 * Returns the number of rows.
+	 *
+	 * @return the number of rows.
+	 */
+	public int getRowDimension() {
+		return rows;
+	}
+
+	/**
+	 * Returns the number of columns.
+	 *
+	 * @return the number of columns.
+	 */
+	public int getColumnDimension() {
+		return columns;
+	}
+
+	/**
+	 * Returns the number of stored entries.
+	 *
+	 * @return the number of stored entries.
+	 */
+	public int getNonZeros() {
+		return values.length;
+	}
+
+	int rowStart(int i) {
+		return rowPointers[i];
+	}
+
+	int rowEnd(int i) {
+		return rowPointers[i+1];
+	}
+
+	int columnAt(int k) {
+		return columnIndexes[k];
+	}
+
+	double valueAt(int k) {
+		return values[k];
+	}
+
+	/**
+	 * Returns the entry at the given position.
+	 *
+	 * @param i row index.
+	 * @param j column index.
+	 * @return the entry at the given position.
+	 */
+	public double getEntry(int i, int j) {
+		int idx = Arrays.binarySearch(columnIndexes, rowPointers[i], rowPointers[i+1], j);
+		return (idx >= 0 ? values[idx] : 0.0);
+	}
+
+	/**
+	 * Returns the entries on the main diagonal of this matrix.
+	 *
+	 * @return the entries on the main diagonal of this matrix.
+	 */
+	public double[] getDiagonal() {
+		double[] diagonal = new double[Math.min(rows, columns)];
+		for (int i = 0; i < diagonal.length; i++) {
+			diagonal[i] = getEntry(i, i);
+		}
+		return diagonal;
+	}
+
+	/**
+	 * Returns the scalar product of the given row of this matrix with the given vector.
+	 *
+	 * @param i row index.
+	 * @param x a vector whose size is the number of columns.
+	 * @return the scalar product of the given row of this matrix with the given vector.
+	 */
+	public double multiplyRow(int i, double[] x) {
+		double sum = 0.0;
+		for (int k = rowPointers[i]; k < rowPointers[i+1]; k++) {
+			sum += values[k]*x[columnIndexes[k]];
+		}
+		return sum;
+	}
+
+	/**
+	 * Returns the result of postmultiplying this matrix by the given vector, namely <code>A x</code>.
+	 *
+	 * @param x a vector whose size is the number of columns.
+	 * @return the result of postmultiplying this matrix by the given vector.
+	 */
+	public double[] operate(double[] x) {
+		if (x.length != columns) {
+			throw new IllegalArgumentException();
+		}
+		double[] result = new double[rows];
+		operate(x, result, 0, rows);
+		return result;
+	}
+
+	/**
+	 * Stores in the given array the rows in the range <code>[from,to)</code> of the product <code>A x</code>.
+	 */
+	void operate(double[] x, double[] result, int from, int to) {
+		for (int i = from; i < to; i++) {
+			double sum = 0.0;
+			for (int k = rowPointers[i]; k < rowPointers[i+1]; k++) {
+				sum += values[k]*x[columnIndexes[k]];
+			}
+			result[i] = sum;
+		}
+	}
+
+	/**
+	 * Returns the result of premultiplying this matrix by the given vector, namely <code>x<sup>T</sup> A</code>.
+	 *
+	 * @param x a vector whose size is the number of rows.
+	 * @return the result of premultiplying this matrix by the given vector.
+	 */
+	public double[] preMultiply(double[] x) {
+		if (x.length != rows) {
+			throw new IllegalArgumentException();
+		}
+		double[] result = new double[columns];
+		for (int i = 0; i < rows; i++) {
+			double xi = x[i];
+			if (xi != 0.0) {
+				for (int k = rowPointers[i]; k < rowPointers[i+1]; k++) {
+					result[columnIndexes[k]] += xi*values[k];
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the square matrix <code>a A + D</code>, where <code>D</code> is the diagonal matrix with the given
+	 * entries. Entries that are zero in the result are not stored.
+	 *
+	 * @param a scale factor.
+	 * @param diagonal entries of the diagonal matrix.
+	 * @return the matrix <code>a A + D</code>.
+	 */
+	public SparseMatrix scaleAndAddDiagonal(double a, double[] diagonal) {
+		if ((rows != columns)||(diagonal.length != rows)) {
+			throw new IllegalArgumentException();
+		}
+		int[] pointers = new int[rows+1];
+		int[] resultColumns = new int[values.length+rows];
+		double[] resultValues = new double[values.length+rows];
+		int size = 0;
+		for (int i = 0; i < rows; i++) {
+			boolean diagonalAdded = false;
+			for (int k = rowPointers[i]; k <= rowPointers[i+1]; k++) {
+				int j = (k < rowPointers[i+1] ? columnIndexes[k] : rows);
+				double v = (k < rowPointers[i+1] ? a*values[k] : 0.0);
+				if ((!diagonalAdded)&&(j >= i)) {
+					if (j == i) {
+						v += diagonal[i];
+					} else if (diagonal[i] != 0.0) {
+						resultColumns[size] = i;
+						resultValues[size++] = diagonal[i];
+					}
+					diagonalAdded = true;
+				}
+				if ((k < rowPointers[i+1])&&(v != 0.0)) {
+					resultColumns[size] = j;
+					resultValues[size++] = v;
+				}
+			}
+			pointers[i+1] = size;
+		}
+		return new SparseMatrix(rows, columns, pointers, Arrays.copyOf(resultColumns, size), Arrays.copyOf(resultValues, size));
+	}
+
+	/**
+	 * Returns the matrix obtained from this one by removing all the entries in the rows satisfying the given
+	 * predicate.
+	 *
+	 * @param rowsToClear predicate identifying the rows to clear.
+	 * @return the matrix obtained from this one by clearing the rows satisfying the given predicate.
+	 */
+	public SparseMatrix clearRows(IntPredicate rowsToClear) {
+		int[] pointers = new int[rows+1];
+		int size = 0;
+		for (int i = 0; i < rows; i++) {
+			if (!rowsToClear.test(i)) {
+				size += rowPointers[i+1]-rowPointers[i];
+			}
+			pointers[i+1] = size;
+		}
+		int[] resultColumns = new int[size];
+		double[] resultValues = new double[size];
+		for (int i = 0; i < rows; i++) {
+			if (!rowsToClear.test(i)) {
+				System.arraycopy(columnIndexes, rowPointers[i], resultColumns, pointers[i], pointers[i+1]-pointers[i]);
+				System.arraycopy(values, rowPointers[i], resultValues, pointers[i], pointers[i+1]-pointers[i]);
+			}
+		}
+		return new SparseMatrix(rows, columns, pointers, resultColumns, resultValues);
+	}
+
+	/**
+	 * Returns the transpose of this matrix.
+	 *
+	 * @return the transpose of this matrix.
+	 */
+	public SparseMatrix transpose() {
+		int[] pointers = new int[columns+1];
+		for (int k = 0; k < values.length; k++) {
+			pointers[columnIndexes[k]+1]++;
+		}
+		for (int j = 0; j < columns; j++) {
+			pointers[j+1] += pointers[j];
+		}
+		int[] next = Arrays.copyOf(pointers, columns);
+		int[] transposedColumns = new int[values.length];
+		double[] transposedValues = new double[values.length];
+		for (int i = 0; i < rows; i++) {
+			for (int k = rowPointers[i]; k < rowPointers[i+1]; k++) {
+				int pos = next[columnIndexes[k]]++;
+				transposedColumns[pos] = i;
+				transposedValues[pos] = values[k];
+			}
+		}
+		return new SparseMatrix(columns, rows, pointers, transposedColumns, transposedValues);
+	}
+
+}
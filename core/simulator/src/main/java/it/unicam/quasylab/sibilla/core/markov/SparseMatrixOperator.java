@@ -0,0 +1,197 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the products of a sparse matrix with vectors, namely <code>A x</code>. When the matrix has at least a
+ * given number of rows, rows are partitioned once in contiguous blocks having approximately the same number of
+ * non-zero entries, and blocks are processed in parallel by a fork/join pool. Each task reads a contiguous slice of
+ * the matrix and writes a disjoint contiguous slice of the result: no synchronisation is needed besides the final
+ * join, and each slice tends to be served by the same worker, and hence by the same memory node, at every product.
+ * Products of the form <code>x<sup>T</sup> A</code> are obtained by using the operator of the transposed matrix.
+ */
+public class SparseMatrixOperator {
+
+	/**
+	 * Default number of rows from which products are computed in parallel.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 14;
+
+	/**
+	 * Approximate number of non-zero entries in each block of rows processed by a single task.
+	 */
+	public static final int BLOCK_SIZE = 1 << 13;
+
+	private final SparseMatrix matrix;
+	private final ForkJoinPool pool;
+	private final int[] blocks;
+
+	/**
+	 * Creates the operator of the given matrix that works in parallel when the matrix has at least
+	 * {@link #DEFAULT_PARALLEL_THRESHOLD} rows.
+	 *
+	 * @param matrix a sparse matrix.
+	 */
+	public SparseMatrixOperator(SparseMatrix matrix) {
+		this(matrix, DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Creates the operator of the given matrix that uses the common fork/join pool when the matrix has at least
+	 * the given number of rows.
+	 *
+	 * @param matrix a sparse matrix.
+	 * @param parallelThreshold minimal number of rows needed to compute products in parallel.
+	 */
+	public SparseMatrixOperator(SparseMatrix matrix, int parallelThreshold) {
+		this(matrix, parallelThreshold, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates the operator of the given matrix that uses the given pool when the matrix has at least the given
+	 * number of rows.
+	 *
+	 * @param matrix a sparse matrix.
+	 * @param parallelThreshold minimal number of rows needed to compute products in parallel.
+	 * @param pool pool used to compute products in parallel.
+	 */
+	public SparseMatrixOperator(SparseMatrix matrix, int parallelThreshold, ForkJoinPool pool) {
+		this.matrix = matrix;
+		if ((matrix.getRowDimension() >= parallelThreshold)&&(pool.getParallelism() > 1)) {
+			this.pool = pool;
+			this.blocks = partition(matrix);
+		} else {
+			this.pool = null;
+			this.blocks = new int[] { 0, matrix.getRowDimension() };
+		}
+	}
+
+	/**
+	 * Splits the rows of the given matrix in contiguous blocks. Each row counts as one entry more than its non-zero
+	 * entries, so that also long sequences of empty rows are split.
+	 */
+	private static int[] partition(SparseMatrix matrix) {
+		int rows = matrix.getRowDimension();
+		int[] blocks = new int[(matrix.getNonZeros()+rows)/BLOCK_SIZE+2];
+		int size = 1;
+		int load = 0;
+		for (int i = 0; i < rows; i++) {
+			load += matrix.rowEnd(i)-matrix.rowStart(i)+1;
+			if ((load >= BLOCK_SIZE)&&(i+1 < rows)) {
+				blocks[size++] = i+1;
+				load = 0;
+			}
+		}
+		blocks[size++] = rows;
+		return Arrays.copyOf(blocks, size);
+	}
+
+	/**
+	 * Returns the matrix of this operator.
+	 *
+	 * @return the matrix of this operator.
+	 */
+	public SparseMatrix getMatrix() {
+		return matrix;
+	}
+
+	/**
+	 * Returns true if products are computed in parallel.
+	 *
+	 * @return true if products are computed in parallel.
+	 */
+	public boolean isParallel() {
+		return pool != null;
+	}
+
+	/**
+	 * Returns the number of blocks in which rows are partitioned.
+	 *
+	 * @return the number of blocks in which rows are partitioned.
+	 */
+	public int getNumberOfBlocks() {
+		return blocks.length-1;
+	}
+
+	/**
+	 * Returns the result of postmultiplying the matrix by the given vector, namely <code>A x</code>.
+	 *
+	 * @param x a vector whose size is the number of columns.
+	 * @return the result of postmultiplying the matrix by the given vector.
+	 */
+	public double[] operate(double[] x) {
+		double[] result = new double[matrix.getRowDimension()];
+		operate(x, result);
+		return result;
+	}
+
+	/**
+	 * Stores in the given array the result of postmultiplying the matrix by the given vector. The two arrays must
+	 * be different.
+	 *
+	 * @param x a vector whose size is the number of columns.
+	 * @param result an array whose size is the number of rows.
+	 */
+	public void operate(double[] x, double[] result) {
+		if ((x.length != matrix.getColumnDimension())||(result.length != matrix.getRowDimension())||(x == result)) {
+			throw new IllegalArgumentException();
+		}
+		if (pool == null) {
+			matrix.operate(x, result, 0, result.length);
+		} else {
+			pool.invoke(new BlockProduct(x, result, 0, blocks.length-1));
+		}
+	}
+
+	private class BlockProduct extends RecursiveAction {
+
+		private final double[] x;
+		private final double[] result;
+		private final int from;
+		private final int to;
+
+		private BlockProduct(double[] x, double[] result, int from, int to) {
+			this.x = x;
+			this.result = result;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to-from == 1) {
+				matrix.operate(x, result, blocks[from], blocks[to]);
+			} else {
+				int middle = (from+to) >>> 1;
+				invokeAll(new BlockProduct(x, result, from, middle), new BlockProduct(x, result, middle, to));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import java.util.Arrays;
+
+/**
+ * An arena where integer vectors of fixed width are interned and associated with dense identifiers. Vectors are
+ * stored contiguously in a single <code>int[]</code>, and identifiers are retrieved via an open-addressing hash table
+ * with linear probing, so that no object is allocated for each interned vector. Identifiers are assigned
+ * consecutively starting from 0, following the order in which vectors are interned.
+ */
+public class StateArena {
+
+	private static final int EMPTY = -1;
+	private static final double MAX_LOAD = 0.7;
+
+	private final int width;
+	private int[] data;
+	private int[] table;
+	private int size;
+
+	/**
+	 * Creates an empty arena for vectors of the given width.
+	 *
+	 * @param width size of interned vectors.
+	 * @param expectedSize number of vectors that are expected to be interned.
+	 */
+	public StateArena(int width, int expectedSize) {
+		if ((width <= 0)||(expectedSize < 0)) {
+			throw new IllegalArgumentException();
+		}
+		this.width = width;
+		this.data = new int[width*Math.max(16, expectedSize)];
+		this.table = new int[tableSize(expectedSize)];
+		Arrays.fill(table, EMPTY);
+	}
+
+	public StateArena(int width) {
+		this(width, 1024);
+	}
+
+	private static int tableSize(int expectedSize) {
+		int size = 16;
+		while (size*MAX_LOAD <= expectedSize) {
+			size <<= 1;
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the identifier of the given vector. If the vector is not in the arena, it is added with identifier
+	 * {@link #size()}.
+	 *
+	 * @param vector a vector of the arena width.
+	 * @return the identifier of the given vector.
+	 */
+	public int intern(int[] vector) {
+		int pos = find(vector);
+		if (table[pos] != EMPTY) {
+			return table[pos];
+		}
+		if (size*width == data.length) {
+			data = Arrays.copyOf(data, Math.max(16*width, Math.addExact(data.length, data.length)));
+		}
+		System.arraycopy(vector, 0, data, size*width, width);
+		int id = size++;
+		table[pos] = id;
+		if (size > table.length*MAX_LOAD) {
+			rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the identifier of the given vector, or -1 if the vector is not in the arena.
+	 *
+	 * @param vector a vector of the arena width.
+	 * @return the identifier of the given vector, or -1 if the vector is not in the arena.
+	 */
+	public int indexOf(int[] vector) {
+		return table[find(vector)];
+	}
+
+	private int find(int[] vector) {
+		if (vector.length != width) {
+			throw new IllegalArgumentException("Vector of size "+vector.length+" in an arena of width "+width+"!");
+		}
+		int mask = table.length-1;
+		int pos = (int) StateSpaceExplorer.fingerprint(vector) & mask;
+		while ((table[pos] != EMPTY)&&(!matches(table[pos], vector))) {
+			pos = (pos+1) & mask;
+		}
+		return pos;
+	}
+
+	private boolean matches(int id, int[] vector) {
+		int offset = id*width;
+		for (int i = 0; i < width; i++) {
+			if (data[offset+i] != vector[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		table = new int[table.length << 1];
+		Arrays.fill(table, EMPTY);
+		int mask = table.length-1;
+		for (int id = 0; id < size; id++) {
+			int offset = id*width;
+			int pos = (int) StateSpaceExplorer.fingerprint(width, i -> data[offset+i]) & mask;
+			while (table[pos] != EMPTY) {
+				pos = (pos+1) & mask;
+			}
+			table[pos] = id;
+		}
+	}
+
+	/**
+	 * Returns a copy of the vector with the given identifier.
+	 *
+	 * @param id a vector identifier.
+	 * @return a copy of the vector with the given identifier.
+	 */
+	public int[] get(int id) {
+		checkId(id);
+		return Arrays.copyOfRange(data, id*width, (id+1)*width);
+	}
+
+	/**
+	 * Returns the given component of the vector with the given identifier.
+	 *
+	 * @param id a vector identifier.
+	 * @param i component index.
+	 * @return the given component of the vector with the given identifier.
+	 */
+	public int get(int id, int i) {
+		checkId(id);
+		return data[id*width+i];
+	}
+
+	private void checkId(int id) {
+		if ((id < 0)||(id >= size)) {
+			throw new IndexOutOfBoundsException(id);
+		}
+	}
+
+	/**
+	 * Returns the number of vectors in this arena.
+	 *
+	 * @return the number of vectors in this arena.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the size of the vectors in this arena.
+	 *
+	 * @return the size of the vectors in this arena.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Releases the memory reserved for vectors that have not been interned yet.
+	 */
+	public void trim() {
+		data = Arrays.copyOf(data, size*width);
+	}
+
+}
@@ -0,0 +1,368 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.models.DiscreteTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.models.ImmutableState;
+import it.unicam.quasylab.sibilla.core.models.StepFunction;
+import it.unicam.quasylab.sibilla.core.models.markov.CTMCModel;
+import it.unicam.quasylab.sibilla.core.models.markov.DTMCModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationModel;
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.models.util.MappingState;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedElement;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.*;
+import java.util.stream.Collectors;
+
+/**
+ * Generates the state space of a Markov chain in parallel. The frontier of states still to expand is processed level
+ * by level: all the states at the same distance from the initial one are expanded in a fork-join pool, while the
+ * resulting rows are added to the chain at the end of the level. Visited states are recorded in a concurrent map
+ * indexed by a key computed from each state. When a fingerprint function is used, each state is identified by a 64
+ * bit hash of its content: states need not implement <code>equals</code> and <code>hashCode</code>, but two distinct
+ * states with the same fingerprint are merged (for <code>n</code> states this happens with probability close to
+ * <code>n<sup>2</sup>/2<sup>65</sup></code>).
+ *
+ * @param <S> type of states.
+ */
+public class StateSpaceExplorer<S> {
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private static final ThreadLocal<RandomGenerator> RANDOM = ThreadLocal.withInitial(MersenneTwister::new);
+
+	private final Function<S,Map<S,Double>> stepFunction;
+	private final Function<S,Object> keyFunction;
+	private final ForkJoinPool pool;
+	private Consumer<Progress> monitor;
+
+	/**
+	 * Creates an explorer that identifies states by their fingerprint and expands states in the given pool.
+	 *
+	 * @param stepFunction function associating each state with the weights of its successors.
+	 * @param fingerprint function used to compute the fingerprint of a state.
+	 * @param pool pool used to expand states.
+	 */
+	public StateSpaceExplorer(Function<S,Map<S,Double>> stepFunction, ToLongFunction<S> fingerprint, ForkJoinPool pool) {
+		this(stepFunction, (Function<S,Object>) s -> fingerprint.applyAsLong(s), pool);
+	}
+
+	/**
+	 * Creates an explorer that identifies states by their fingerprint and expands states in the common pool.
+	 *
+	 * @param stepFunction function associating each state with the weights of its successors.
+	 * @param fingerprint function used to compute the fingerprint of a state.
+	 */
+	public StateSpaceExplorer(Function<S,Map<S,Double>> stepFunction, ToLongFunction<S> fingerprint) {
+		this(stepFunction, fingerprint, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates an explorer that identifies states via <code>equals</code> and expands states in the common pool.
+	 *
+	 * @param stepFunction function associating each state with the weights of its successors.
+	 */
+	public StateSpaceExplorer(Function<S,Map<S,Double>> stepFunction) {
+		this(stepFunction, (Function<S,Object>) s -> s, ForkJoinPool.commonPool());
+	}
+
+	private StateSpaceExplorer(Function<S,Map<S,Double>> stepFunction, Function<S,Object> keyFunction, ForkJoinPool pool) {
+		this.stepFunction = Objects.requireNonNull(stepFunction);
+		this.keyFunction = keyFunction;
+		this.pool = Objects.requireNonNull(pool);
+	}
+
+	/**
+	 * Sets the function notified with the progress of the exploration at the end of each level.
+	 *
+	 * @param monitor the function notified with the progress of the exploration.
+	 */
+	public void setMonitor(Consumer<Progress> monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Returns the chain containing all the states reachable from the given one.
+	 *
+	 * @param builder supplier used to create the chain.
+	 * @param init initial state.
+	 * @param <M> type of the generated chain.
+	 * @return the chain containing all the states reachable from the given one.
+	 */
+	public <M extends MarkovChain<S>> M explore(Supplier<M> builder, S init) {
+		long start = System.currentTimeMillis();
+		M chain = builder.get();
+		ConcurrentHashMap<Object,S> visited = new ConcurrentHashMap<>();
+		visited.put(keyFunction.apply(init), init);
+		List<S> frontier = List.of(init);
+		int level = 0;
+		long transitions = 0;
+		long peakMemory = usedMemory();
+		while (!frontier.isEmpty()) {
+			ConcurrentLinkedQueue<S> next = new ConcurrentLinkedQueue<>();
+			List<S> current = frontier;
+			List<Map.Entry<S,Map<S,Double>>> rows = pool.submit(() -> current.parallelStream()
+					.map(s -> Map.entry(s, expand(s, visited, next)))
+					.collect(Collectors.toList())).join();
+			for (Map.Entry<S,Map<S,Double>> row : rows) {
+				chain.add(row.getKey(), row.getValue());
+				transitions += row.getValue().size();
+			}
+			frontier = new ArrayList<>(next);
+			level++;
+			peakMemory = Math.max(peakMemory, usedMemory());
+			if (monitor != null) {
+				monitor.accept(new Progress(level, visited.size(), frontier.size(), transitions, peakMemory, System.currentTimeMillis()-start));
+			}
+		}
+		return chain;
+	}
+
+	/**
+	 * Returns the compact chain containing all the states reachable from the given one, where states are encoded as
+	 * integer vectors. States at the same distance from the initial one are expanded in the pool of this explorer,
+	 * while states are identified by their encoding.
+	 *
+	 * @param init initial state.
+	 * @param encoder function used to encode a state as an integer vector.
+	 * @param decoder function used to obtain a state from its encoding.
+	 * @param maxStates maximum number of states of the chain.
+	 * @return the compact chain containing all the states reachable from the given one.
+	 * @throws StateSpaceLimitException if more than <code>maxStates</code> states are reachable.
+	 */
+	public CompactMarkovChain exploreCompact(S init, Function<S,int[]> encoder, Function<int[],S> decoder, int maxStates) {
+		return CompactMarkovChain.generate(encoder.apply(init), CompactMarkovChain.transitionFunction(stepFunction, encoder, decoder), maxStates, pool);
+	}
+
+	private Map<S,Double> expand(S s, ConcurrentHashMap<Object,S> visited, Queue<S> next) {
+		Map<S,Double> row = new HashMap<>();
+		stepFunction.apply(s).forEach((t, w) -> {
+			if (w <= 0.0) {
+				return;
+			}
+			S canonical = visited.putIfAbsent(keyFunction.apply(t), t);
+			if (canonical == null) {
+				canonical = t;
+				next.add(t);
+			}
+			row.merge(canonical, w, Double::sum);
+		});
+		return row;
+	}
+
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.totalMemory()-runtime.freeMemory();
+	}
+
+	/**
+	 * Returns a 64 bit fingerprint of the given values.
+	 *
+	 * @param size number of values.
+	 * @param values function returning the value at a given position.
+	 * @return a 64 bit fingerprint of the given values.
+	 */
+	public static long fingerprint(int size, IntUnaryOperator values) {
+		long h = mix(size*GOLDEN_GAMMA);
+		for (int i = 0; i < size; i++) {
+			h = mix(h + values.applyAsInt(i)*GOLDEN_GAMMA);
+		}
+		return h;
+	}
+
+	/**
+	 * Returns a 64 bit fingerprint of the given array.
+	 *
+	 * @param values an array.
+	 * @return a 64 bit fingerprint of the given array.
+	 */
+	public static long fingerprint(int[] values) {
+		return fingerprint(values.length, i -> values[i]);
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Returns the step function associating each state with the rates of the transitions of the given model.
+	 * Transitions are assumed to lead to a single state, as it happens for reaction rules and Markov chain models.
+	 *
+	 * @param model a continuous time Markov process.
+	 * @param <S> type of states.
+	 * @return the step function associating each state with the rates of the transitions of the given model.
+	 */
+	public static <S extends ImmutableState> Function<S,Map<S,Double>> rates(ContinuousTimeMarkovProcess<S> model) {
+		return s -> successors(model.getTransitions(RANDOM.get(), 0.0, s), 1.0);
+	}
+
+	/**
+	 * Returns the step function associating each state with the probabilities of the transitions of the given model.
+	 * Transitions are assumed to lead to a single state.
+	 *
+	 * @param model a discrete time Markov process.
+	 * @param <S> type of states.
+	 * @return the step function associating each state with the probabilities of the transitions of the given model.
+	 */
+	public static <S extends ImmutableState> Function<S,Map<S,Double>> probabilities(DiscreteTimeMarkovProcess<S> model) {
+		return s -> {
+			WeightedStructure<? extends StepFunction<S>> transitions = model.getTransitions(RANDOM.get(), 0.0, s);
+			double total = transitions.getTotalWeight();
+			return (total > 0 ? successors(transitions, total) : Map.of(s, 1.0));
+		};
+	}
+
+	private static <S> Map<S,Double> successors(WeightedStructure<? extends StepFunction<S>> transitions, double total) {
+		RandomGenerator r = RANDOM.get();
+		Map<S,Double> row = new HashMap<>();
+		for (WeightedElement<? extends StepFunction<S>> e : transitions.getAll()) {
+			row.merge(e.getElement().step(r, 0.0, 0.0), e.getWeight()/total, Double::sum);
+		}
+		return row;
+	}
+
+	/**
+	 * Returns an explorer for the given population model.
+	 *
+	 * @param model a population model.
+	 * @return an explorer for the given population model.
+	 */
+	public static StateSpaceExplorer<PopulationState> of(PopulationModel model) {
+		return new StateSpaceExplorer<>(rates(model), s -> fingerprint(s.getPopulationVector()));
+	}
+
+	/**
+	 * Returns an explorer for the given CTMC model.
+	 *
+	 * @param model a CTMC model.
+	 * @return an explorer for the given CTMC model.
+	 */
+	public static StateSpaceExplorer<MappingState> of(CTMCModel model) {
+		return new StateSpaceExplorer<>(rates(model), s -> fingerprint(s.size(), s::getIntValue));
+	}
+
+	/**
+	 * Returns an explorer for the given DTMC model.
+	 *
+	 * @param model a DTMC model.
+	 * @return an explorer for the given DTMC model.
+	 */
+	public static StateSpaceExplorer<MappingState> of(DTMCModel model) {
+		return new StateSpaceExplorer<>(probabilities(model), s -> fingerprint(s.size(), s::getIntValue));
+	}
+
+	/**
+	 * Progress of an exploration at the end of a level.
+	 */
+	public static class Progress {
+
+		private final int level;
+		private final int states;
+		private final int frontier;
+		private final long transitions;
+		private final long peakMemory;
+		private final long elapsedTime;
+
+		public Progress(int level, int states, int frontier, long transitions, long peakMemory, long elapsedTime) {
+			this.level = level;
+			this.states = states;
+			this.frontier = frontier;
+			this.transitions = transitions;
+			this.peakMemory = peakMemory;
+			this.elapsedTime = elapsedTime;
+		}
+
+		/**
+		 * Returns the number of levels explored so far.
+		 *
+		 * @return the number of levels explored so far.
+		 */
+		public int getLevel() {
+			return level;
+		}
+
+		/**
+		 * Returns the number of states discovered so far.
+		 *
+		 * @return the number of states discovered so far.
+		 */
+		public int getStates() {
+			return states;
+		}
+
+		/**
+		 * Returns the number of states to expand in the next level.
+		 *
+		 * @return the number of states to expand in the next level.
+		 */
+		public int getFrontier() {
+			return frontier;
+		}
+
+		/**
+		 * Returns the number of transitions added to the chain so far.
+		 *
+		 * @return the number of transitions added to the chain so far.
+		 */
+		public long getTransitions() {
+			return transitions;
+		}
+
+		/**
+		 * Returns the peak of used heap memory, in bytes, sampled at the end of each level.
+		 *
+		 * @return the peak of used heap memory sampled at the end of each level.
+		 */
+		public long getPeakMemory() {
+			return peakMemory;
+		}
+
+		/**
+		 * Returns the time, in milliseconds, elapsed since the beginning of the exploration.
+		 *
+		 * @return the time elapsed since the beginning of the exploration.
+		 */
+		public long getElapsedTime() {
+			return elapsedTime;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("level %d: %d states, %d to expand, %d transitions, peak memory %d MB, %d ms",
+					level, states, frontier, transitions, peakMemory/(1024*1024), elapsedTime);
+		}
+	}
+
+}
@@ -24,8 +24,17 @@
 package it.unicam.quasylab.sibilla.core.markov;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
+ * Computes the steady state distribution of a continuous time Markov chain starting from a given state. The
+ * bottom strongly connected components (BSCCs) of the chain are identified via an iterative version of Tarjan's
+ * algorithm, so that chains with long paths do not exhaust the call stack. The stationary distribution of each BSCC is
+ * then computed with an {@link IterativeSolver} and weighted by the probability of reaching the BSCC from the initial
+ * state.
+ *
  * @author loreti
  * @param <S>
  *
@@ -33,41 +42,118 @@ import java.util.*;
 public class SteadyStateSolver<S> {
 
 	private ContinuousTimeMarkovChain<S> chain;
-	private LinkedList<Set<S>> bscc;
+	private List<Set<S>> bscc;
 	private S init;
-	private Map<S,Integer> bsccIndex = new HashMap<S,Integer>();
-	private Map<S,Integer> lowIndex = new HashMap<S,Integer>();
-	private List<S> bsccQueue = new LinkedList<>();
-	private Set<S> inQueue = new HashSet<S>();
-	private int indexCounter = 0;
+	private IterativeSolver solver;
 	
-	public SteadyStateSolver(ContinuousTimeMarkovChain<S> chain, S init) {
+	public SteadyStateSolver(ContinuousTimeMarkovChain<S> chain, S init, IterativeSolver solver) {
 		this.chain = chain;
 		this.init = init;
+		this.solver = solver;
 	}
-	
-	public void computeBSCC( ) {
-		for (S s : chain.getStates()) {
-			strongconnected(s);
+
+	public SteadyStateSolver(ContinuousTimeMarkovChain<S> chain, S init) {
+		this(chain, init, new IterativeSolver());
+	}
+
+	/**
+	 * Returns the bottom strongly connected components of the chain.
+	 *
+	 * @return the bottom strongly connected components of the chain.
+	 */
+	public List<Set<S>> computeBSCC( ) {
+		if (bscc == null) {
+			bscc = new LinkedList<>();
+			Map<S,Integer> bsccIndex = new HashMap<>();
+			Map<S,Integer> lowIndex = new HashMap<>();
+			Deque<S> bsccQueue = new ArrayDeque<>();
+			Set<S> inQueue = new HashSet<>();
+			for (S s : chain.getStates()) {
+				if (!bsccIndex.containsKey(s)) {
+					strongconnected(s, bsccIndex, lowIndex, bsccQueue, inQueue);
+				}
+			}
 		}
+		return bscc;
 	}
 
-	private void strongconnected(S s) {
-		bsccIndex.put(s, indexCounter);
-		lowIndex.put(s, indexCounter++);
-		bsccQueue.add(s);
-		inQueue.add(s);
-		for (S w : chain.next(s)) {
-			Integer wIndex = bsccIndex.get(s);
-			if (wIndex != null) {
-				strongconnected(w);
-				lowIndex.merge(s, lowIndex.get(w), Math::min);
-			} else {
-				if (inQueue.contains(w)) {
+	private void strongconnected(S root, Map<S,Integer> bsccIndex, Map<S,Integer> lowIndex, Deque<S> bsccQueue, Set<S> inQueue) {
+		Deque<Map.Entry<S,Iterator<S>>> callStack = new ArrayDeque<>();
+		visit(root, bsccIndex, lowIndex, bsccQueue, inQueue, callStack);
+		while (!callStack.isEmpty()) {
+			Map.Entry<S,Iterator<S>> frame = callStack.peek();
+			S s = frame.getKey();
+			Iterator<S> successors = frame.getValue();
+			if (successors.hasNext()) {
+				S w = successors.next();
+				if (!bsccIndex.containsKey(w)) {
+					visit(w, bsccIndex, lowIndex, bsccQueue, inQueue, callStack);
+				} else if (inQueue.contains(w)) {
 					lowIndex.merge(s, bsccIndex.get(w), Math::min);
 				}
+			} else {
+				callStack.pop();
+				if (!callStack.isEmpty()) {
+					lowIndex.merge(callStack.peek().getKey(), lowIndex.get(s), Math::min);
+				}
+				if (lowIndex.get(s).equals(bsccIndex.get(s))) {
+					Set<S> component = new HashSet<>();
+					S w;
+					do {
+						w = bsccQueue.pop();
+						inQueue.remove(w);
+						component.add(w);
+					} while (!w.equals(s));
+					if (component.stream().allMatch(c -> component.containsAll(chain.next(c)))) {
+						bscc.add(component);
+					}
+				}
 			}
 		}
 	}
 
+	private void visit(S s, Map<S,Integer> bsccIndex, Map<S,Integer> lowIndex, Deque<S> bsccQueue, Set<S> inQueue, Deque<Map.Entry<S,Iterator<S>>> callStack) {
+		int counter = bsccIndex.size();
+		bsccIndex.put(s, counter);
+		lowIndex.put(s, counter);
+		bsccQueue.push(s);
+		inQueue.add(s);
+		callStack.push(new AbstractMap.SimpleEntry<>(s, chain.next(s).iterator()));
+	}
+
+	/**
+	 * Returns the steady state distribution of the chain starting from the initial state. States that are not in a
+	 * bottom strongly connected component have probability zero and are not included in the result.
+	 *
+	 * @return the steady state distribution of the chain starting from the initial state.
+	 */
+	public Map<S,Double> compute() {
+		Map<S,Double> result = new HashMap<>();
+		List<Set<S>> components = computeBSCC();
+		for (Set<S> component : components) {
+			double reach = reachProbability(component, components.size());
+			if (reach > 0.0) {
+				stationaryDistribution(component).forEach((s,p) -> result.put(s, reach*p));
+			}
+		}
+		return result;
+	}
+
+	private double reachProbability(Set<S> component, int numberOfComponents) {
+		if (component.contains(init)) {
+			return 1.0;
+		}
+		if (numberOfComponents == 1) {
+			return 1.0;
+		}
+		return new UnboundedReachabilitySolver<>(chain, component::contains, solver).compute().getOrDefault(init, 0.0);
+	}
+
+	private Map<S,Double> stationaryDistribution(Set<S> component) {
+		AtomicInteger counter = new AtomicInteger(0);
+		Map<S,Integer> index = component.stream().collect(Collectors.toMap(Function.identity(), s -> counter.getAndIncrement()));
+		double[] pi = solver.solveStationary(chain.generateSparseGeneratorMatrix(index));
+		return index.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> pi[e.getValue()]));
+	}
+
 }
@@ -23,19 +23,18 @@
 
 package it.unicam.quasylab.sibilla.core.markov;
 
-import org.apache.commons.math3.linear.ArrayRealVector;
-import org.apache.commons.math3.linear.MatrixUtils;
-import org.apache.commons.math3.linear.RealMatrix;
-import org.apache.commons.math3.linear.RealVector;
-
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
+ * Computes the transient probabilities of a continuous time Markov chain by uniformisation. Probabilities at
+ * multiple time points are computed in a single pass by {@link #compute(double...)} (see
+ * {@link UniformisationSolver}).
+ *
  * @author loreti
  * @param <S>
  *
@@ -43,11 +42,12 @@ import java.util.stream.IntStream;
 public class TransientProbabilityContinuousSolver<S> {
 
 	private ContinuousTimeMarkovChain<S> chain;
-	private RealMatrix matrix;
 	private S init;
-	private LinkedList<RealVector> vectorResults;
 	private double epsilon;
+	private double steadyStateTolerance = 0.0;
+	private int parallelThreshold = SparseMatrixOperator.DEFAULT_PARALLEL_THRESHOLD;
 	private Map<S, Integer> index;
+	private UniformisationSolver solver;
 	
 	public TransientProbabilityContinuousSolver( 
 			ContinuousTimeMarkovChain<S> chain,
@@ -58,60 +58,83 @@ public class TransientProbabilityContinuousSolver<S> {
 		this.epsilon = epsilon;
 	}
 
-	private RealVector buildRealVector() {
-		RealVector rv = new ArrayRealVector(index.size());
-		rv.setEntry(index.get(init), 1.0);
+	/**
+	 * Sets the tolerance used to stop iterations when the steady state is reached. A value equal to 0 disables steady
+	 * state detection.
+	 *
+	 * @param steadyStateTolerance the tolerance used to detect the steady state.
+	 */
+	public void setSteadyStateTolerance(double steadyStateTolerance) {
+		this.steadyStateTolerance = steadyStateTolerance;
+		if (solver != null) {
+			solver.setSteadyStateTolerance(steadyStateTolerance);
+		}
+	}
+
+	/**
+	 * Sets the minimal number of states needed to compute matrix-vector products in parallel.
+	 *
+	 * @param parallelThreshold the minimal number of states needed to compute products in parallel.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+		if (solver != null) {
+			solver.setParallelThreshold(parallelThreshold);
+		}
+	}
+
+	/**
+	 * Returns the solver used to compute transient probabilities, or null if no probability has been computed yet.
+	 *
+	 * @return the solver used to compute transient probabilities.
+	 */
+	UniformisationSolver getSolver() {
+		return solver;
+	}
+
+	private double[] buildRealVector() {
+		double[] rv = new double[index.size()];
+		rv[index.get(init)] = 1.0;
 		return rv;
 	}
 
-	private RealMatrix buidProbabilityMatrix(  ) {
-		return MarkovChain.generateMatrix(i -> MatrixUtils.createRealMatrix(i, i), 
-				s -> chain.uniformisedMatrixRow(s).entrySet().stream(),
-				index);
+	private SparseMatrix buidProbabilityMatrix(  ) {
+		return SparseMatrix.generate(s -> chain.uniformisedMatrixRow(s).entrySet().stream(), index);
 	}
 	
 	public Map<S,Double> compute(double t) {
-		if (vectorResults == null) {
+		return compute(new double[] { t }).get(0);
+	}
+
+	/**
+	 * Returns the transient probabilities at the given time points.
+	 *
+	 * @param times time points.
+	 * @return the list containing the transient probabilities at each of the given time points.
+	 */
+	public List<Map<S,Double>> compute(double ... times) {
+		if (solver == null) {
 			computeStateIndex();
-			matrix = buidProbabilityMatrix( );
-			vectorResults = new LinkedList<>();
-			vectorResults.add(buildRealVector( ));
+			solver = new UniformisationSolver(buidProbabilityMatrix( ), chain.getMaxRate(), epsilon);
+			solver.setSteadyStateTolerance(steadyStateTolerance);
+			solver.setParallelThreshold(parallelThreshold);
 		}
-		FoxGlynn fg = (t>0?FoxGlynn.compute(chain.getMaxRate()*t, epsilon):null);
-		if (fg != null) {
-			generateSteps(fg.rightPoint());			
+		double[][] results = solver.compute(buildRealVector( ), times);
+		List<Map<S,Double>> toReturn = new ArrayList<>(results.length);
+		for (double[] v : results) {
+			toReturn.add(generateMap( v ));
 		}
-		return generateMap( fg );
+		return toReturn;
 	}
 
 
-	private Map<S, Double> generateMap( FoxGlynn fg ) {
+	private Map<S, Double> generateMap( double[] v ) {
 		HashMap<S,Double> toReturn = new HashMap<>();
-		RealVector v;
-		if (fg!=null) {
-			v = sum(fg);
-		} else {
-			v = this.vectorResults.getFirst();
-		}
-		index.forEach((s,i) -> toReturn.put(s, v.getEntry(i)));
+		index.forEach((s,i) -> toReturn.put(s, v[i]));
 		return toReturn;
 	}
 
 
-	private RealVector sum(FoxGlynn fg ) {
-		return IntStream.range(fg.leftPoint(), fg.rightPoint()).boxed()
-				.map(i -> vectorResults.get(i).mapMultiply(fg.weight(i)/fg.totalWeight()))
-				.reduce(new ArrayRealVector(index.size()), (v1,v2) -> v1.add(v2));
-	}
-
-
-	private void generateSteps(int k) {
-		while (vectorResults.size()<k) {
-			vectorResults.add(matrix.preMultiply(vectorResults.getLast()));
-		}
-	}
-
-
 	private void computeStateIndex() {
 		AtomicInteger counter = new AtomicInteger(0);
 		index = chain.getStates().stream().collect(Collectors.toConcurrentMap(s -> s,s -> counter.getAndIncrement()));
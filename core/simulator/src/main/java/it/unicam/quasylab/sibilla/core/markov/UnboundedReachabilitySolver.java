@@ -23,15 +23,13 @@
 
 package it.unicam.quasylab.sibilla.core.markov;
 
-import it.unicam.quasylab.sibilla.core.util.Pair;
-import org.apache.commons.math3.linear.*;
-
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author loreti
@@ -46,14 +44,24 @@ public class UnboundedReachabilitySolver<S> {
 	private Set<S> yesNodes;
 	private Set<S> computingNodes;
 	private Map<S,Integer> index;
+	private IterativeSolver solver;
 	
 	public UnboundedReachabilitySolver( 
 			MarkovChain<S> chain,
 			Predicate<S> condition,
-			Predicate<S> goal) {
+			Predicate<S> goal,
+			IterativeSolver solver) {
 		this.chain = chain;
 		this.condition = condition;
 		this.goal = goal;
+		this.solver = solver;
+	}
+	
+	public UnboundedReachabilitySolver( 
+			MarkovChain<S> chain,
+			Predicate<S> condition,
+			Predicate<S> goal) {
+		this(chain,condition,goal,new IterativeSolver());
 	}
 	
 	public UnboundedReachabilitySolver( 
@@ -62,31 +70,41 @@ public class UnboundedReachabilitySolver<S> {
 		this(chain,s -> true,goal);
 	}
 	
+	public UnboundedReachabilitySolver( 
+			MarkovChain<S> chain,
+			Predicate<S> goal,
+			IterativeSolver solver) {
+		this(chain,s -> true,goal,solver);
+	}
+	
 
-	private RealVector buildRealVector() {
-		return MarkovChain.generateVector(ArrayRealVector::new, index, s -> 
+	private double[] buildRealVector() {
+		return MarkovChain.generateVector(index, s -> 
 		chain.probabilityMatrixRow(s).entrySet().stream()
 		.filter(e2 -> yesNodes.contains(e2.getKey()))
 		.collect(Collectors.summingDouble(e -> e.getValue())));
 	}
 
-	private RealMatrix buidProbabilityMatrix(  ) {
-		return MarkovChain.generateMatrix(i -> MatrixUtils.createRealIdentityMatrix(i), s -> 
-			chain.probabilityMatrixRow(s).entrySet().stream()
-				.filter(p -> computingNodes.contains(p.getKey()))
+	/**
+	 * Returns the matrix <code>I-P</code> where <code>P</code> is the probability matrix restricted to computing nodes.
+	 */
+	private SparseMatrix buidProbabilityMatrix(  ) {
+		return SparseMatrix.generate(s -> 
+			Stream.concat(Stream.of(Map.entry(s, 1.0)),
+				chain.probabilityMatrixRow(s).entrySet().stream()
+					.filter(p -> computingNodes.contains(p.getKey()))
+					.map(p -> Map.entry(p.getKey(), -p.getValue())))
 				, index);
 	}
 	
 	public Map<S,Double> compute() {
 		computeReachabilitySets();
 		computeStateIndex();
-		RealMatrix m = buidProbabilityMatrix( );
-		DecompositionSolver solver = new LUDecomposition( m ).getSolver();
-		RealVector p0 = buildRealVector( );
-		RealVector result = solver.solve(p0);			
+		SparseMatrix m = buidProbabilityMatrix( );
+		double[] p0 = buildRealVector( );
+		double[] result = solver.solve(m, p0);
 		Map<S,Double> map = index.entrySet().stream()
-				.map(e -> Pair.apply(e, result::getEntry))
-				.collect(Collectors.toConcurrentMap(e -> e.getKey(), e -> e.getValue()))
+				.collect(Collectors.toConcurrentMap(e -> e.getKey(), e -> result[e.getValue()]))
 				;
 		for (S s : yesNodes) {
 			map.put(s, 1.0);
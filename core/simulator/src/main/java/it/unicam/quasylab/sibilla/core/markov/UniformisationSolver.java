@@ -0,0 +1,218 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+/**
+ * Computes transient probabilities of a continuous time Markov chain by uniformisation. The probabilities at all the
+ * requested time points are computed in a single pass: a single vector is advanced by multiplying it with the
+ * uniformised matrix, and each iterate is added, weighted by its Fox-Glynn Poisson probability, to the result of each
+ * time point whose truncation window contains it. Memory is hence proportional to the number of states times the
+ * number of time points, and does not depend on the number of iterations. When a steady state tolerance is set,
+ * iterations stop as soon as two consecutive iterates differ by less than the tolerance: the remaining Poisson
+ * probability mass of each time point is then assigned to the last iterate. Chains with at least a given number of
+ * states are advanced by the parallel {@link SparseMatrixOperator} of the transposed matrix.
+ */
+public class UniformisationSolver {
+
+	private final SparseMatrix matrix;
+	private final double rate;
+	private final double epsilon;
+	private double steadyStateTolerance = 0.0;
+	private int parallelThreshold = SparseMatrixOperator.DEFAULT_PARALLEL_THRESHOLD;
+	private SparseMatrixOperator operator;
+	private int iterations;
+
+	/**
+	 * Creates a solver for the chain with the given uniformised matrix.
+	 *
+	 * @param matrix probability matrix of the uniformised chain.
+	 * @param rate uniformisation rate.
+	 * @param epsilon the maximum probability mass neglected by Fox-Glynn truncation.
+	 */
+	public UniformisationSolver(SparseMatrix matrix, double rate, double epsilon) {
+		this.matrix = matrix;
+		this.rate = rate;
+		this.epsilon = epsilon;
+	}
+
+	/**
+	 * Creates a solver for the given chain.
+	 *
+	 * @param chain a compact Markov chain whose transition weights are rates.
+	 * @param epsilon the maximum probability mass neglected by Fox-Glynn truncation.
+	 */
+	public UniformisationSolver(CompactMarkovChain chain, double epsilon) {
+		this(chain.getUniformisedMatrix(), chain.getMaxExitRate(), epsilon);
+	}
+
+	/**
+	 * Sets the tolerance used to detect the steady state. A value equal to 0 disables steady state detection.
+	 *
+	 * @param steadyStateTolerance the tolerance used to detect the steady state.
+	 */
+	public void setSteadyStateTolerance(double steadyStateTolerance) {
+		if (steadyStateTolerance < 0.0) {
+			throw new IllegalArgumentException();
+		}
+		this.steadyStateTolerance = steadyStateTolerance;
+	}
+
+	public double getSteadyStateTolerance() {
+		return steadyStateTolerance;
+	}
+
+	/**
+	 * Sets the minimal number of states needed to compute matrix-vector products in parallel.
+	 *
+	 * @param parallelThreshold the minimal number of states needed to compute products in parallel.
+	 */
+	public void setParallelThreshold(int parallelThreshold) {
+		if (parallelThreshold < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.parallelThreshold = parallelThreshold;
+		this.operator = null;
+	}
+
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Returns the number of matrix-vector products performed by the last invocation of
+	 * {@link #compute(double[], double...)}.
+	 *
+	 * @return the number of matrix-vector products performed by the last computation.
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Returns the transient probabilities at the given time points starting from the given distribution.
+	 *
+	 * @param p0 initial probability distribution.
+	 * @param times time points.
+	 * @return an array whose <code>k</code>-th element is the probability distribution at time <code>times[k]</code>.
+	 */
+	public double[][] compute(double[] p0, double ... times) {
+		double[][] result = new double[times.length][];
+		FoxGlynn[] fg = new FoxGlynn[times.length];
+		int last = 0;
+		for (int k = 0; k < times.length; k++) {
+			if ((times[k] < 0.0)||(rate*times[k] > Double.MAX_VALUE)) {
+				throw new IllegalArgumentException("Illegal time "+times[k]+"!");
+			}
+			if ((times[k] == 0.0)||(rate == 0.0)) {
+				result[k] = p0.clone();
+			} else {
+				fg[k] = FoxGlynn.compute(rate*times[k], epsilon);
+				result[k] = new double[p0.length];
+				last = Math.max(last, fg[k].rightPoint());
+			}
+		}
+		iterations = 0;
+		double[] v = p0;
+		double[] buffer = null;
+		for (int i = 0; i <= last; i++) {
+			accumulate(result, fg, v, i);
+			if (i == last) {
+				break;
+			}
+			double[] next = step(v, buffer);
+			iterations++;
+			if ((steadyStateTolerance > 0.0)&&(distance(v, next) < steadyStateTolerance)) {
+				completeWithSteadyState(result, fg, next, i+1);
+				break;
+			}
+			buffer = (v == p0 ? null : v);
+			v = next;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns <code>v P</code>. When products are computed in parallel, the result is stored in the given buffer
+	 * (if not null) so that only two vectors are allocated for the whole computation.
+	 */
+	private double[] step(double[] v, double[] buffer) {
+		if (matrix.getRowDimension() < parallelThreshold) {
+			return matrix.preMultiply(v);
+		}
+		if (operator == null) {
+			operator = new SparseMatrixOperator(matrix.transpose(), parallelThreshold);
+		}
+		double[] next = (buffer == null ? new double[v.length] : buffer);
+		operator.operate(v, next);
+		return next;
+	}
+
+	private void accumulate(double[][] result, FoxGlynn[] fg, double[] v, int i) {
+		for (int k = 0; k < fg.length; k++) {
+			if ((fg[k] != null)&&(fg[k].leftPoint() <= i)&&(i <= fg[k].rightPoint())) {
+				add(result[k], fg[k].poissonProb(i), v);
+			}
+		}
+	}
+
+	private void completeWithSteadyState(double[][] result, FoxGlynn[] fg, double[] v, int from) {
+		for (int k = 0; k < fg.length; k++) {
+			if ((fg[k] != null)&&(fg[k].rightPoint() >= from)) {
+				double mass = 0.0;
+				for (int i = Math.max(from, fg[k].leftPoint()); i <= fg[k].rightPoint(); i++) {
+					mass += fg[k].poissonProb(i);
+				}
+				add(result[k], mass, v);
+			}
+		}
+	}
+
+	private static void add(double[] result, double w, double[] v) {
+		for (int j = 0; j < result.length; j++) {
+			result[j] += w*v[j];
+		}
+	}
+
+	private static double distance(double[] v1, double[] v2) {
+		double max = 0.0;
+		for (int j = 0; j < v1.length; j++) {
+			max = Math.max(max, Math.abs(v1[j]-v2[j]));
+		}
+		return max;
+	}
+
+	/**
+	 * Returns the distribution assigning probability 1 to the given state.
+	 *
+	 * @param size number of states.
+	 * @param state index of the initial state.
+	 * @return the distribution assigning probability 1 to the given state.
+	 */
+	public static double[] pointDistribution(int size, int state) {
+		double[] p0 = new double[size];
+		p0[state] = 1.0;
+		return p0;
+	}
+
+}
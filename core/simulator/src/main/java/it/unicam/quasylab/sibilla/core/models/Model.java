@@ -140,16 +140,44 @@ public interface Model<S extends State> extends Serializable {
      *         given measures.
      */
     default SamplingFunction<S> selectSamplingFunction(boolean summary, int samplings, double dt, String... measures) {
+        return selectSamplingFunction(m -> getSamplingStatistic(summary, samplings, dt, m), measures);
+    }
+
+    /**
+     * Returns the samplings that can be used to collect simulation data of the
+     * given measures, where statistics of quartiles are estimated via quantile sketches.
+     *
+     * @param rankError rank error of estimated quartiles.
+     * @param samplings number of samplings to collect.
+     * @param dt        time gap among two samplings.
+     * @param measures  neames of measures to collect.
+     * @return the samplings that can be used to collect simulation data of the
+     *         given measures.
+     */
+    default SamplingFunction<S> selectSketchSamplingFunction(double rankError, int samplings, double dt, String... measures) {
+        return selectSamplingFunction(m -> new QuantileSketchSampling<>(samplings, dt, m, rankError), measures);
+    }
+
+    /**
+     * Returns the samplings that can be used to collect simulation data of the
+     * given measures.
+     *
+     * @param statistic function used to build the sampling function of a measure.
+     * @param measures  neames of measures to collect.
+     * @return the samplings that can be used to collect simulation data of the
+     *         given measures.
+     */
+    default SamplingFunction<S> selectSamplingFunction(Function<Measure<? super S>, SamplingFunction<S>> statistic, String... measures) {
         if (measures.length == 0)
             return new SamplingCollection<>();
         if (measures.length == 1) {
             Measure<? super S> m = getMeasure(measures[0]);
             if (m != null)
-                return getSamplingStatistic(summary, samplings, dt, m);
+                return statistic.apply(m);
         } else {
             SamplingCollection<S> collection = new SamplingCollection<>();
             Arrays.stream(measures).map(this::getMeasure).filter(Objects::nonNull).sequential()
-                    .forEach(m -> collection.add(getSamplingStatistic(summary, samplings, dt, m)));
+                    .forEach(m -> collection.add(statistic.apply(m)));
             return collection;
         }
         return new SamplingCollection<>();
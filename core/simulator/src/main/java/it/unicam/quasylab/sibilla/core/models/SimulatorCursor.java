@@ -48,11 +48,24 @@ public interface SimulatorCursor<S extends State> {
     /**
      * Returns the current state. A null value is returned
      * if the simulation is not started (see {@link SimulatorCursor#start()}).
+     * The returned object can be updated in place by the next steps, states that
+     * have to be retained must be obtained via {@link SimulatorCursor#snapshot()}.
      *
      * @return the current state.
      */
     S currentState();
 
+    /**
+     * Returns a copy of the current state that is not affected by the next steps. By default
+     * this method returns the current state, cursors that update their state in place
+     * override it.
+     *
+     * @return a copy of the current state that is not affected by the next steps.
+     */
+    default S snapshot() {
+        return currentState();
+    }
+
     /**
      * Returns current time. A {@link Double#NaN} is returned
      * if the simulation is not started (see {@link SimulatorCursor#start()}).
@@ -40,6 +40,8 @@ public final class Agent {
 
     private final List<Pair<AgentAction,Agent>> actions;
 
+    private volatile int[][] compiled;
+
     /**
      * Create a new agent with the given name and given index.
      *
@@ -57,8 +59,52 @@ public final class Agent {
      * @param action action performed.
      * @param next next agent state.
      */
-    public void addAction(AgentAction action, Agent next) {
+    public synchronized void addAction(AgentAction action, Agent next) {
         actions.add(new Pair<>(action,next));
+        compiled = null;
+    }
+
+    /**
+     * Returns the indexes of the actions performed by this agent. The returned array is shared and must not be
+     * modified.
+     *
+     * @return the indexes of the actions performed by this agent.
+     */
+    int[] getActionIndexes() {
+        return getCompiled()[0];
+    }
+
+    /**
+     * Returns the indexes of the agents reached by the actions of this agent: the i-th element is reached by
+     * the action at index <code>getActionIndexes()[i]</code>. The returned array is shared and must not be modified.
+     *
+     * @return the indexes of the agents reached by the actions of this agent.
+     */
+    int[] getNextIndexes() {
+        return getCompiled()[1];
+    }
+
+    private int[][] getCompiled() {
+        int[][] result = compiled;
+        if (result == null) {
+            result = compile();
+        }
+        return result;
+    }
+
+    private synchronized int[][] compile() {
+        if (compiled == null) {
+            int[] actionIndexes = new int[actions.size()];
+            int[] nextIndexes = new int[actions.size()];
+            int counter = 0;
+            for (Pair<AgentAction,Agent> p : actions) {
+                actionIndexes[counter] = p.getKey().getIndex();
+                nextIndexes[counter] = p.getValue().getIndex();
+                counter++;
+            }
+            compiled = new int[][] { actionIndexes, nextIndexes };
+        }
+        return compiled;
     }
 
     /**
@@ -24,11 +24,11 @@
 package it.unicam.quasylab.sibilla.core.models.lio;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.function.ToDoubleFunction;
-import java.util.stream.IntStream;
 
 /**
  * This class contains the definitions of a set of Interactvie Objects.
@@ -41,6 +41,8 @@ public final class AgentsDefinition {
     private final Map<String,Agent> agents;
     private final Map<String,AgentAction> actions;
     private final ArrayList<ToDoubleFunction<LIOState>> probabilityFunctions;
+    private final ThreadLocal<double[]> probabilityBuffer = new ThreadLocal<>();
+    private final ThreadLocal<double[][]> matrixBuffer = new ThreadLocal<>();
 
 
     /**
@@ -135,14 +137,56 @@ public final class AgentsDefinition {
      * @return the agents probability matrix associated with the given state.
      */
     public double[][] getAgentProbabilityMatrix(LIOState state) {
-        ActionsProbability actionsProbability = getActionProbability(state);
         double[][] matrix = new double[agentCounter][agentCounter];
-        IntStream.range(0,agentCounter).forEach(i ->
-            getAgent(i).next(actionsProbability).forEach(p -> matrix[i][p.getValue().getIndex()] += p.getKey())
-        );
+        fillAgentProbabilityMatrix(state, new double[actionCounter], matrix, false);
         return matrix;
     }
 
+    /**
+     * Compute the agents probability matrix associated with the given state in a buffer owned by the calling thread.
+     * Rows of agents that do not occur in the state are left empty. The returned matrix is overwritten by the next
+     * invocation of this method in the same thread, hence it must be neither modified nor retained.
+     *
+     * @param state a state.
+     * @return the agents probability matrix associated with the given state.
+     */
+    public double[][] computeAgentProbabilityMatrix(LIOState state) {
+        double[] probabilities = probabilityBuffer.get();
+        if ((probabilities == null)||(probabilities.length != actionCounter)) {
+            probabilities = new double[actionCounter];
+            probabilityBuffer.set(probabilities);
+        }
+        double[][] matrix = matrixBuffer.get();
+        if ((matrix == null)||(matrix.length != agentCounter)) {
+            matrix = new double[agentCounter][agentCounter];
+            matrixBuffer.set(matrix);
+        }
+        fillAgentProbabilityMatrix(state, probabilities, matrix, true);
+        return matrix;
+    }
+
+    private void fillAgentProbabilityMatrix(LIOState state, double[] probabilities, double[][] matrix, boolean skipEmptyRows) {
+        for (int a = 0; a < actionCounter; a++) {
+            probabilities[a] = probabilityFunctions.get(a).applyAsDouble(state);
+        }
+        for (int i = 0; i < agentCounter; i++) {
+            double[] row = matrix[i];
+            Arrays.fill(row, 0.0);
+            if (skipEmptyRows && (state.numberOf(i) == 0)) {
+                continue;
+            }
+            Agent agent = agentIndex.get(i);
+            int[] actionIndexes = agent.getActionIndexes();
+            int[] nextIndexes = agent.getNextIndexes();
+            for (int j = 0; j < actionIndexes.length; j++) {
+                double p = probabilities[actionIndexes[j]];
+                if (p > 0.0) {
+                    row[nextIndexes[j]] += p;
+                }
+            }
+        }
+    }
+
     /**
      * Return the agent with the given index.
      *
@@ -23,6 +23,7 @@
 
 package it.unicam.quasylab.sibilla.core.models.lio;
 
+import it.unicam.quasylab.sibilla.core.util.BinomialSampler;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.Arrays;
@@ -74,12 +75,19 @@ public class LIOCountingState implements LIOState {
         return IntStream.range(0, occupancy.length).filter(predicate).sum();
     }
 
+    /**
+     * Samples the next state by distributing the agents in each state among their possible next states with a
+     * single multinomial sample. The cost of a step hence depends on the number of states and not on the number of
+     * agents.
+     */
     @Override
     public LIOState step(RandomGenerator randomGenerator, double[][] matrix) {
         int[] occupancy = new int[this.occupancy.length];
-        IntStream.range(0, occupancy.length).forEach(s ->
-            IntStream.range(0, this.occupancy[s]).forEach(i -> occupancy[LIOState.doSample(randomGenerator,matrix[s],s)]++)
-        );
+        for (int s = 0; s < occupancy.length; s++) {
+            if (this.occupancy[s] > 0) {
+                BinomialSampler.multinomial(randomGenerator, this.occupancy[s], matrix[s], s, occupancy);
+            }
+        }
         return new LIOCountingState(occupancy);
     }
 }
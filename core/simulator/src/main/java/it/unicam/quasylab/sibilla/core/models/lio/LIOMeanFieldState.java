@@ -0,0 +1,125 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.lio;
+
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * A state of a LIO model in the mean-field limit. The state records the expected fraction of agents in each local
+ * state, and a step deterministically maps the vector of fractions <code>x</code> to <code>x P</code>, where
+ * <code>P</code> is the agents probability matrix computed in the current state. Like in
+ * {@link LIOState#doSample(RandomGenerator, double[], int)}, the probability mass missing from a row of the matrix
+ * is assigned to the source state. The number of agents is only used to scale fractions when occupancies are
+ * requested.
+ */
+public class LIOMeanFieldState implements LIOState {
+
+    private final int size;
+    private final double[] fractions;
+
+    /**
+     * Creates a new state with the given number of agents and fractions.
+     *
+     * @param size number of agents.
+     * @param fractions fraction of agents in each local state.
+     */
+    public LIOMeanFieldState(int size, double[] fractions) {
+        this.size = size;
+        this.fractions = Arrays.copyOf(fractions, fractions.length);
+    }
+
+    /**
+     * Creates a new state whose fractions are the ones of the given occupancy.
+     *
+     * @param occupancy number of agents in each local state.
+     */
+    public LIOMeanFieldState(int[] occupancy) {
+        this.size = IntStream.of(occupancy).sum();
+        this.fractions = IntStream.of(occupancy).mapToDouble(n -> ((double) n)/size).toArray();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public double fractionOf(int stateIndex) {
+        return fractions[stateIndex];
+    }
+
+    @Override
+    public double fractionOf(IntPredicate predicate) {
+        return IntStream.range(0, fractions.length).filter(predicate).mapToDouble(i -> fractions[i]).sum();
+    }
+
+    @Override
+    public double numberOf(int stateIndex) {
+        return fractions[stateIndex]*size;
+    }
+
+    @Override
+    public double numberOf(IntPredicate predicate) {
+        return fractionOf(predicate)*size;
+    }
+
+    /**
+     * Returns the fraction of agents in each local state.
+     *
+     * @return the fraction of agents in each local state.
+     */
+    public double[] getFractions() {
+        return Arrays.copyOf(fractions, fractions.length);
+    }
+
+    /**
+     * Returns the state reached in one step of the mean-field map. The random generator is not used.
+     */
+    @Override
+    public LIOState step(RandomGenerator randomGenerator, double[][] matrix) {
+        double[] next = new double[fractions.length];
+        for (int s = 0; s < fractions.length; s++) {
+            if (fractions[s] > 0) {
+                double stay = 1.0;
+                for (int j = 0; j < matrix[s].length; j++) {
+                    if (j != s) {
+                        next[j] += fractions[s]*matrix[s][j];
+                        stay -= matrix[s][j];
+                    }
+                }
+                next[s] += fractions[s]*Math.max(0.0, stay);
+            }
+        }
+        return new LIOMeanFieldState(size, next);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(fractions);
+    }
+}
@@ -80,6 +80,6 @@ public class LIOModel<S extends LIOState> extends AbstractModel<S> implements Di
 
     @Override
     public LIOState sampleNextState(RandomGenerator r, double time, LIOState state) {
-        return state.step(r, definitions.getAgentProbabilityMatrix(state));
+        return state.step(r, definitions.computeAgentProbabilityMatrix(state));
     }
 }
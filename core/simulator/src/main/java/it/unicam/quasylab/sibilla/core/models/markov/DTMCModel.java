@@ -29,7 +29,6 @@ import it.unicam.quasylab.sibilla.core.models.TimeHomogeneousStepFunction;
 import it.unicam.quasylab.sibilla.core.models.util.MappingState;
 import it.unicam.quasylab.sibilla.core.models.util.VariableTable;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
-import it.unicam.quasylab.sibilla.core.simulator.util.WeightedLinkedList;
 import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
 import org.apache.commons.math3.random.RandomGenerator;
 
@@ -55,12 +54,12 @@ public class DTMCModel extends MarkovChainModel implements DiscreteTimeMarkovPro
 
     @Override
     public WeightedStructure<? extends StepFunction<MappingState>> getTransitions(RandomGenerator r, double time, MappingState state) {
-        WeightedLinkedList<StepFunction<MappingState>> result = new WeightedLinkedList<>();
+        WeightedStructure<StepFunction<MappingState>> result = getWeightedStructureFactory().createWeightedStructure();
         for (MappingStateUpdate update: this.rules) {
             if (update.isEnabled(state)) {
                 double weight = update.weightOf(state);
                 if (weight>0) {
-                    result.add(weight, ((r1, now, dt) -> update.apply(state)));
+                    result = result.add(weight, ((r1, now, dt) -> update.apply(state)));
                 }
             }
         }
@@ -28,13 +28,13 @@ import it.unicam.quasylab.sibilla.core.models.StepFunction;
 import it.unicam.quasylab.sibilla.core.models.util.MappingState;
 import it.unicam.quasylab.sibilla.core.models.util.VariableTable;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
-import it.unicam.quasylab.sibilla.core.simulator.util.WeightedLinkedList;
-import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructureFactory;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * A module representing a MarkovChain.
@@ -43,6 +43,7 @@ public abstract class MarkovChainModel extends AbstractModel<MappingState> {
 
     private final VariableTable stateVariables;
     protected final List<MappingStateUpdate> rules;
+    private WeightedStructureFactory weightedStructureFactory = WeightedStructureFactory.DEFAULT;
 
     protected MarkovChainModel(VariableTable stateVariables, List<MappingStateUpdate> rules, Map<String, Measure<? super MappingState>> measuresTable) {
         super(measuresTable);
@@ -50,6 +51,33 @@ public abstract class MarkovChainModel extends AbstractModel<MappingState> {
         this.stateVariables = stateVariables;
     }
 
+    /**
+     * Returns the table of variables of the states of this model.
+     *
+     * @return the table of variables of the states of this model.
+     */
+    public VariableTable getStateVariables() {
+        return stateVariables;
+    }
+
+    /**
+     * Returns the kind of structure used to collect the transitions enabled in a state.
+     *
+     * @return the kind of structure used to collect the transitions enabled in a state.
+     */
+    public WeightedStructureFactory getWeightedStructureFactory() {
+        return weightedStructureFactory;
+    }
+
+    /**
+     * Sets the kind of structure used to collect the transitions enabled in a state.
+     *
+     * @param weightedStructureFactory the kind of structure used to collect the transitions enabled in a state.
+     */
+    public void setWeightedStructureFactory(WeightedStructureFactory weightedStructureFactory) {
+        this.weightedStructureFactory = Objects.requireNonNull(weightedStructureFactory);
+    }
+
     @Override
     public int stateByteArraySize() {
         return Double.BYTES*stateVariables.size();
@@ -23,6 +23,7 @@
 
 package it.unicam.quasylab.sibilla.core.models.pm;
 
+import it.unicam.quasylab.sibilla.core.util.BinomialSampler;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.function.Function;
@@ -98,23 +99,27 @@ public class BroadcastRule implements PopulationRule {
 		return null;
 	}
 
+	/**
+	 * Computes the update of a broadcast. For each receiver, the number of elements receiving the message is sampled
+	 * from a binomial distribution, so that the cost does not depend on the size of the population. When the next
+	 * state of receivers is given by a probability distribution (see
+	 * {@link BroadcastReceiver#BroadcastReceiver(int, Function, int[], double[])}), the receiving elements are
+	 * distributed among their next states with a single multinomial sample. Otherwise, the step function of the
+	 * receiver is applied once for each receiving element.
+	 */
 	public static Update getDrift(String name, RandomGenerator r, int sender, PopulationState state,
 			Function<RandomGenerator, Integer> step, BroadcastReceiver[] receivers) {
 		Update result = new Update(name);
 		result.consume(sender, 1);
 		result.produce(step.apply(r), 1);
 		for (int i = 0; i < receivers.length; i++) {
-			double pop = state.getOccupancy(receivers[i].receiver);
+			int pop = (int) state.getOccupancy(receivers[i].receiver);
 			if (receivers[i].receiver == sender) {
 				pop = pop - 1;
 			}
-			int counter = 0;
-			double rp = receivers[i].receivingProbability.apply(state);
-			for (int j = 0; j < pop; j++) {
-				if (r.nextDouble() < rp) {
-					counter++;
-					result.produce(receivers[i].step.apply(r), 1);
-				}
+			int counter = BinomialSampler.sample(r, pop, receivers[i].receivingProbability.apply(state));
+			if (counter > 0) {
+				receivers[i].produce(r, counter, result);
 			}
 			result.consume(receivers[i].receiver, counter);
 			if (state.getOccupancy(receivers[i].receiver) + result.get(receivers[i].receiver) < 0) {
@@ -132,6 +137,10 @@ public class BroadcastRule implements PopulationRule {
 
 		private final Function<RandomGenerator, Integer> step;
 
+		private final int[] nextStates;
+
+		private final double[] nextProbabilities;
+
 		/**
 		 * @param receiver
 		 * @param receivingProbability
@@ -142,6 +151,61 @@ public class BroadcastRule implements PopulationRule {
 			this.receiver = receiver;
 			this.receivingProbability = receivingProbability;
 			this.step = step;
+			this.nextStates = null;
+			this.nextProbabilities = null;
+		}
+
+		/**
+		 * Creates a receiver that moves to the given state after receiving the message.
+		 *
+		 * @param receiver index of the receiving species.
+		 * @param receivingProbability probability that an element receives the message.
+		 * @param next index of the species reached after receiving the message.
+		 */
+		public BroadcastReceiver(int receiver, Function<PopulationState, Double> receivingProbability, int next) {
+			this(receiver, receivingProbability, new int[] { next }, new double[] { 1.0 });
+		}
+
+		/**
+		 * Creates a receiver whose next state, after receiving the message, is selected with a probability
+		 * distribution that does not depend on the current state.
+		 *
+		 * @param receiver index of the receiving species.
+		 * @param receivingProbability probability that an element receives the message.
+		 * @param nextStates indexes of the species that can be reached after receiving the message.
+		 * @param nextWeights weights, not necessarily normalised, of the species that can be reached.
+		 */
+		public BroadcastReceiver(int receiver, Function<PopulationState, Double> receivingProbability,
+				int[] nextStates, double[] nextWeights) {
+			if ((nextStates.length == 0)||(nextStates.length != nextWeights.length)) {
+				throw new IllegalArgumentException();
+			}
+			double total = 0.0;
+			for (double w : nextWeights) {
+				total += w;
+			}
+			this.receiver = receiver;
+			this.receivingProbability = receivingProbability;
+			this.nextStates = nextStates.clone();
+			this.nextProbabilities = new double[nextWeights.length];
+			for (int i = 0; i < nextWeights.length; i++) {
+				this.nextProbabilities[i] = nextWeights[i]/total;
+			}
+			this.step = rg -> this.nextStates[BinomialSampler.categorical(rg, nextProbabilities)];
+		}
+
+		private void produce(RandomGenerator r, int counter, Update update) {
+			if (nextStates == null) {
+				for (int j = 0; j < counter; j++) {
+					update.produce(step.apply(r), 1);
+				}
+			} else {
+				int[] counts = new int[nextStates.length];
+				BinomialSampler.multinomial(r, counter, nextProbabilities, nextStates.length-1, counts);
+				for (int j = 0; j < counts.length; j++) {
+					update.produce(nextStates[j], counts[j]);
+				}
+			}
 		}
 
 		/**
@@ -0,0 +1,160 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A population state where the occupancy of each species is a non-negative real value. These states are used in the
+ * fluid approximation of population models (see {@link FluidApproximation}), where occupancies evolve
+ * deterministically according to a system of ordinary differential equations. The population vector inherited from
+ * {@link PopulationState} contains the occupancies rounded to the nearest integer.
+ */
+public class ContinuousPopulationState extends PopulationState {
+
+    private static final long serialVersionUID = 2402713650957201870L;
+
+    private final double[] occupancies;
+
+    /**
+     * Creates a new state with the given occupancies. The array is not copied.
+     *
+     * @param occupancies occupancy of each species.
+     */
+    public ContinuousPopulationState(double[] occupancies) {
+        super(Arrays.stream(occupancies).sum(), round(occupancies));
+        this.occupancies = occupancies;
+    }
+
+    private static int[] round(double[] occupancies) {
+        int[] vector = new int[occupancies.length];
+        for (int i = 0; i < occupancies.length; i++) {
+            vector[i] = (int) Math.round(occupancies[i]);
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the occupancies of this state.
+     *
+     * @return the occupancies of this state.
+     */
+    public double[] getOccupancies() {
+        return occupancies.clone();
+    }
+
+    @Override
+    public double getOccupancy(int i) {
+        return ((i >= 0)&&(i < occupancies.length) ? occupancies[i] : 0.0);
+    }
+
+    @Override
+    public double getOccupancy(int... idx) {
+        double sum = 0.0;
+        for (int i : idx) {
+            sum += occupancies[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double getOccupancy(List<Integer> indexes) {
+        double sum = 0.0;
+        for (int i : indexes) {
+            sum += occupancies[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double getFraction(Predicate<Integer> p) {
+        double sum = 0.0;
+        for (int i = 0; i < occupancies.length; i++) {
+            if (p.test(i)) {
+                sum += occupancies[i];
+            }
+        }
+        return sum / population();
+    }
+
+    @Override
+    public ContinuousPopulationState apply(Update update) {
+        double[] result = occupancies.clone();
+        int[] indexes = update.getIndexes();
+        int[] deltas = update.getDeltas();
+        for (int i = 0; i < indexes.length; i++) {
+            result[indexes[i]] += deltas[i];
+        }
+        return new ContinuousPopulationState(result);
+    }
+
+    @Override
+    public double min(Predicate<Integer> p, Function<Integer, Double> f) {
+        double min = Double.MAX_VALUE;
+        for (int i = 0; i < occupancies.length; i++) {
+            if ((p.test(i)) && (occupancies[i] > 0)) {
+                min = Math.min(min, f.apply(i));
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public double max(Predicate<Integer> p, Function<Integer, Double> f) {
+        double max = Double.MIN_VALUE;
+        for (int i = 0; i < occupancies.length; i++) {
+            if ((p.test(i)) && (occupancies[i] > 0)) {
+                max = Math.max(max, f.apply(i));
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public double average(Predicate<Integer> p, Function<Integer, Double> f) {
+        double total = 0.0;
+        double counter = 0.0;
+        for (int i = 0; i < occupancies.length; i++) {
+            if (p.test(i) && (occupancies[i] > 0)) {
+                counter += occupancies[i];
+                total += occupancies[i] * f.apply(i);
+            }
+        }
+        return total / counter;
+    }
+
+    @Override
+    public ContinuousPopulationState copy() {
+        return new ContinuousPopulationState(occupancies.clone());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(occupancies);
+    }
+
+}
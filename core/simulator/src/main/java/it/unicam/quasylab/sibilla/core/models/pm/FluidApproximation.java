@@ -0,0 +1,215 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SamplingFunction;
+import it.unicam.quasylab.sibilla.core.util.RosenbrockIntegrator;
+import org.apache.commons.math3.exception.MaxCountExceededException;
+import org.apache.commons.math3.exception.NumberIsTooSmallException;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+import org.apache.commons.math3.ode.nonstiff.DormandPrince54Integrator;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fluid (mean-field) approximation of a population model. The occupancy of each species is a real value that evolves
+ * deterministically according to the system of ordinary differential equations <code>dx/dt = F(t,x)</code>, where
+ * the drift <code>F</code> is the sum, over all the rules, of the rate of the rule times its update. Equations are
+ * integrated with the adaptive Dormand-Prince method. When this exceeds the allowed number of evaluations in a
+ * sampling interval, or when its step size becomes too small, the system is considered stiff and the integration
+ * goes on with the {@link RosenbrockIntegrator}. The result is a single trajectory sampled at a fixed time step that
+ * can be passed to any {@link SamplingFunction}.
+ */
+public class FluidApproximation {
+
+    public static final double DEFAULT_ABSOLUTE_TOLERANCE = 1.0E-8;
+    public static final double DEFAULT_RELATIVE_TOLERANCE = 1.0E-8;
+    public static final int DEFAULT_MAX_EVALUATIONS = 20000;
+
+    private final int size;
+    private final List<PopulationRule> rules;
+    private final int[][] indexes;
+    private final int[][] deltas;
+    private double absoluteTolerance = DEFAULT_ABSOLUTE_TOLERANCE;
+    private double relativeTolerance = DEFAULT_RELATIVE_TOLERANCE;
+    private int maxEvaluations = DEFAULT_MAX_EVALUATIONS;
+    private boolean stiff;
+
+    /**
+     * Creates the fluid approximation of the given model.
+     *
+     * @param model a population model.
+     * @throws IllegalArgumentException if the model contains a rule whose update is not constant.
+     */
+    public FluidApproximation(PopulationModel model) {
+        this(model.numberOfSpecies(), model.getRules());
+    }
+
+    /**
+     * Creates the fluid approximation of the model with the given number of species and the given rules.
+     *
+     * @param size number of species.
+     * @param rules model rules.
+     * @throws IllegalArgumentException if a rule has an update that is not constant.
+     */
+    public FluidApproximation(int size, List<PopulationRule> rules) {
+        this.size = size;
+        this.rules = rules;
+        this.indexes = new int[rules.size()][];
+        this.deltas = new int[rules.size()][];
+        for (int i = 0; i < rules.size(); i++) {
+            Update update = rules.get(i).getUpdate();
+            if (update == null) {
+                throw new IllegalArgumentException("Fluid approximation is not supported for rules with random updates!");
+            }
+            this.indexes[i] = update.getIndexes();
+            this.deltas[i] = update.getDeltas();
+        }
+    }
+
+    /**
+     * Sets the absolute and relative errors allowed at each integration step.
+     *
+     * @param absoluteTolerance allowed absolute error.
+     * @param relativeTolerance allowed relative error.
+     */
+    public void setTolerances(double absoluteTolerance, double relativeTolerance) {
+        if ((absoluteTolerance <= 0)||(relativeTolerance <= 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.absoluteTolerance = absoluteTolerance;
+        this.relativeTolerance = relativeTolerance;
+    }
+
+    /**
+     * Sets the number of evaluations of the drift allowed to the non-stiff integrator in a sampling interval.
+     *
+     * @param maxEvaluations number of evaluations allowed to the non-stiff integrator in a sampling interval.
+     */
+    public void setMaxEvaluations(int maxEvaluations) {
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    /**
+     * Returns true if the last integration switched to the stiff integrator.
+     *
+     * @return true if the last integration switched to the stiff integrator.
+     */
+    public boolean isStiff() {
+        return stiff;
+    }
+
+    /**
+     * Stores in <code>drift</code> the drift of the model at the given time and in the given state.
+     *
+     * @param t time.
+     * @param x occupancy of each species.
+     * @param drift array where the drift is stored.
+     */
+    public void computeDrift(double t, double[] x, double[] drift) {
+        Arrays.fill(drift, 0.0);
+        PopulationState state = new ContinuousPopulationState(x);
+        for (int i = 0; i < indexes.length; i++) {
+            double rate = rules.get(i).getFluidRate(t, state);
+            if (rate > 0) {
+                for (int j = 0; j < indexes[i].length; j++) {
+                    drift[indexes[i][j]] += rate*deltas[i][j];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the solution of the fluid approximation starting from the given state, sampled at times
+     * <code>0, dt, 2dt, ...</code> until the deadline.
+     *
+     * @param init initial state.
+     * @param deadline time horizon.
+     * @param dt sampling interval.
+     * @return the trajectory of the fluid approximation.
+     */
+    public Trajectory<PopulationState> integrate(PopulationState init, double deadline, double dt) {
+        if ((deadline <= 0)||(dt <= 0)) {
+            throw new IllegalArgumentException();
+        }
+        FirstOrderDifferentialEquations equations = new FirstOrderDifferentialEquations() {
+            @Override
+            public int getDimension() {
+                return size;
+            }
+
+            @Override
+            public void computeDerivatives(double t, double[] y, double[] yDot) {
+                computeDrift(t, y, yDot);
+            }
+        };
+        DormandPrince54Integrator nonStiff = new DormandPrince54Integrator(dt*1.0E-12, dt, absoluteTolerance, relativeTolerance);
+        nonStiff.setMaxEvaluations(maxEvaluations);
+        RosenbrockIntegrator stiffIntegrator = new RosenbrockIntegrator(dt*1.0E-14, absoluteTolerance, relativeTolerance);
+        double[] x = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = init.getOccupancy(i);
+        }
+        stiff = false;
+        Trajectory<PopulationState> trajectory = new Trajectory<>();
+        double time = 0.0;
+        trajectory.add(time, new ContinuousPopulationState(x.clone()));
+        while (time + dt <= deadline) {
+            double next = time + dt;
+            double[] y = x.clone();
+            if (!stiff) {
+                try {
+                    nonStiff.integrate(equations, time, x, next, y);
+                } catch (MaxCountExceededException | NumberIsTooSmallException e) {
+                    stiff = true;
+                }
+            }
+            if (stiff) {
+                stiffIntegrator.integrate(equations, time, x, next, y);
+            }
+            x = y;
+            time = next;
+            trajectory.add(time, new ContinuousPopulationState(x.clone()));
+        }
+        trajectory.setEnd(deadline);
+        trajectory.setSuccessful(true);
+        return trajectory;
+    }
+
+    /**
+     * Samples the solution of the fluid approximation starting from the given state with the given sampling
+     * function.
+     *
+     * @param f sampling function.
+     * @param init initial state.
+     * @param deadline time horizon.
+     * @param dt sampling interval.
+     */
+    public void sample(SamplingFunction<PopulationState> f, PopulationState init, double deadline, double dt) {
+        f.sample(integrate(init, deadline, dt));
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.models.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.simulator.util.SumTree;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A simulator cursor for population models that implements Gillespie algorithm by using a dependency graph among
+ * species and rules. The transitions enabled by each rule are computed when the simulation starts. After each step,
+ * only the transitions of the rules affected by the applied update are recomputed (see
+ * {@link PopulationRuleDependencyGraph}). Rates are stored in a {@link SumTree} so that the next transition is
+ * selected in O(log R), where R is the number of rules. The current state is a {@link MutablePopulationState} that is
+ * updated in place, hence a step does not allocate a new state. Rules, measures and predicates are evaluated on this
+ * state, while an immutable copy is only created by {@link #snapshot()}, namely when a sample has to be retained.
+ */
+public class IncrementalSimulationCursor implements SimulatorCursor<PopulationState> {
+
+    private final List<PopulationRule> rules;
+    private final PopulationRuleDependencyGraph graph;
+    private final Function<RandomGenerator, PopulationState> initialStateBuilder;
+    private final PopulationTransition[] transitions;
+    private final SumTree rates;
+    private final int[] marks;
+    private final int[] affected;
+    private RandomGenerator rg;
+    private MutablePopulationState current;
+    private double now = 0.0;
+    private int stamp = 0;
+    private boolean terminated = false;
+    private boolean started = false;
+
+    /**
+     * Creates a new cursor for the given rules.
+     *
+     * @param rules rules of the simulated model.
+     * @param graph dependency graph of the given rules.
+     * @param rg random generator used in the simulation.
+     * @param initialStateBuilder function used to build the initial state.
+     */
+    public IncrementalSimulationCursor(List<PopulationRule> rules,
+                                       PopulationRuleDependencyGraph graph,
+                                       RandomGenerator rg,
+                                       Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        this.rules = List.copyOf(rules);
+        this.graph = graph;
+        this.rg = rg;
+        this.initialStateBuilder = initialStateBuilder;
+        this.transitions = new PopulationTransition[this.rules.size()];
+        this.rates = new SumTree(this.rules.size());
+        this.marks = new int[this.rules.size()];
+        this.affected = new int[this.rules.size()];
+    }
+
+    @Override
+    public void start() {
+        this.current = new MutablePopulationState(initialStateBuilder.apply(rg));
+        this.now = 0.0;
+        this.started = true;
+        this.terminated = false;
+        for (int i = 0; i < transitions.length; i++) {
+            evaluate(i);
+        }
+    }
+
+    private void evaluate(int i) {
+        PopulationTransition tra = rules.get(i).apply(rg, now, current);
+        transitions[i] = tra;
+        rates.set(i, (tra == null ? 0.0 : tra.getRate()));
+    }
+
+    @Override
+    public boolean step() {
+        if (!started) {
+            throw new IllegalStateException();
+        }
+        double totalRate = rates.getTotalWeight();
+        if (totalRate <= 0.0) {
+            terminated = true;
+            return false;
+        }
+        double dt = ContinuousTimeMarkovProcess.sampleExponentialDistribution(totalRate, rg);
+        int selected = rates.select(rg.nextDouble() * totalRate);
+        Update update = transitions[selected].apply(rg);
+        current.update(update);
+        now += dt;
+        int counter = graph.collectAffectedRules(update, marks, nextStamp(), affected);
+        for (int i = 0; i < counter; i++) {
+            evaluate(affected[i]);
+        }
+        return true;
+    }
+
+    private int nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            stamp = 0;
+        }
+        return ++stamp;
+    }
+
+    @Override
+    public PopulationState currentState() {
+        return current;
+    }
+
+    @Override
+    public PopulationState snapshot() {
+        return (current == null ? null : current.snapshot());
+    }
+
+    @Override
+    public double time() {
+        return now;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void restart(RandomGenerator rg) {
+        this.rg = rg;
+        this.current = null;
+        this.terminated = false;
+        this.started = false;
+    }
+
+    @Override
+    public void restart() {
+        restart(this.rg);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import java.util.Arrays;
+
+/**
+ * A population state whose population vector is updated in place. Instances of this class are used by
+ * {@link IncrementalSimulationCursor} to avoid the allocation of a new state at each simulation step.
+ *
+ * This class extends {@link PopulationState}, hence it is nominally an immutable state, only because population
+ * rules, measures and predicates are evaluated on population states. For this reason it is confined to this package
+ * and instances must only be observed while the cursor that owns them is not stepping: states that have to be
+ * retained are obtained via {@link #snapshot()}. Equality is the identity inherited from {@link PopulationState},
+ * hence it does not depend on the current populations.
+ */
+final class MutablePopulationState extends PopulationState {
+
+    private static final long serialVersionUID = 4529837640932145217L;
+
+    private final int[] populationVector;
+    private double population;
+
+    /**
+     * Creates a new mutable state with the same populations of the given one.
+     *
+     * @param state the initial state.
+     */
+    MutablePopulationState(PopulationState state) {
+        this(state.population(), Arrays.copyOf(state.getPopulationVector(), state.size()));
+    }
+
+    private MutablePopulationState(double population, int[] populationVector) {
+        super(population, populationVector);
+        this.populationVector = populationVector;
+        this.population = population;
+    }
+
+    /**
+     * Applies the given update to this state. When the update leads to a negative population, an
+     * {@link IllegalArgumentException} is thrown and this state is not changed.
+     *
+     * @param update the update to apply.
+     */
+    void update(Update update) {
+        int[] indexes = update.getIndexes();
+        int[] deltas = update.getDeltas();
+        for (int i = 0; i < indexes.length; i++) {
+            int newValue = populationVector[indexes[i]] + deltas[i];
+            if (newValue < 0) {
+                throw new IllegalArgumentException(
+                        "Population Vector: " + this + " Update: " + update
+                                + " idx: " + indexes[i] + " newValue: " + newValue);
+            }
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            populationVector[indexes[i]] += deltas[i];
+            population += deltas[i];
+        }
+    }
+
+    @Override
+    public double population() {
+        return population;
+    }
+
+    /**
+     * Returns an immutable copy of this state.
+     *
+     * @return an immutable copy of this state.
+     */
+    PopulationState snapshot() {
+        return new PopulationState(population, Arrays.copyOf(populationVector, populationVector.length));
+    }
+
+    @Override
+    public PopulationState copy() {
+        return snapshot();
+    }
+
+}
@@ -25,12 +25,12 @@ package it.unicam.quasylab.sibilla.core.models.pm;
 
 import it.unicam.quasylab.sibilla.core.models.AbstractModel;
 import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.models.SimulatorCursor;
 import it.unicam.quasylab.sibilla.core.models.StepFunction;
 import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
-import it.unicam.quasylab.sibilla.core.simulator.util.WeightedElement;
-import it.unicam.quasylab.sibilla.core.simulator.util.WeightedLinkedList;
 import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructureFactory;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.io.ByteArrayInputStream;
@@ -38,6 +38,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.IntStream;
 
@@ -57,6 +58,30 @@ public class PopulationModel extends AbstractModel<PopulationState> implements C
 
     private final List<PopulationRule> rules;
 
+    private SimulationMode simulationMode = SimulationMode.EXACT;
+    private WeightedStructureFactory weightedStructureFactory = WeightedStructureFactory.DEFAULT;
+
+    private transient PopulationRuleDependencyGraph dependencyGraph;
+
+    /**
+     * Identifies the algorithm used to generate the trajectories of a population model.
+     */
+    public enum SimulationMode {
+        /**
+         * All the rules are evaluated at each step.
+         */
+        EXACT,
+        /**
+         * Only the rules affected by the last applied update are evaluated at each step
+         * (see {@link IncrementalSimulationCursor}).
+         */
+        INCREMENTAL,
+        /**
+         * Approximate simulation where rules fire in batches (see {@link TauLeapingSimulationCursor}).
+         */
+        TAU_LEAPING
+    }
+
     public PopulationModel(PopulationRegistry registry,
                            List<PopulationRule> rules,
                            Map<String, Measure<? super PopulationState>> measuresTable,
@@ -66,14 +91,92 @@ public class PopulationModel extends AbstractModel<PopulationState> implements C
         this.rules = rules;
     }
 
+    /**
+     * Returns the algorithm used to generate the trajectories of this model.
+     *
+     * @return the algorithm used to generate the trajectories of this model.
+     */
+    public SimulationMode getSimulationMode() {
+        return simulationMode;
+    }
+
+    /**
+     * Sets the algorithm used to generate the trajectories of this model.
+     *
+     * @param simulationMode the algorithm used to generate the trajectories of this model.
+     */
+    public void setSimulationMode(SimulationMode simulationMode) {
+        this.simulationMode = Objects.requireNonNull(simulationMode);
+    }
+
+    /**
+     * Returns the kind of structure used to collect the transitions enabled in a state.
+     *
+     * @return the kind of structure used to collect the transitions enabled in a state.
+     */
+    public WeightedStructureFactory getWeightedStructureFactory() {
+        return weightedStructureFactory;
+    }
+
+    /**
+     * Sets the kind of structure used to collect the transitions enabled in a state.
+     *
+     * @param weightedStructureFactory the kind of structure used to collect the transitions enabled in a state.
+     */
+    public void setWeightedStructureFactory(WeightedStructureFactory weightedStructureFactory) {
+        this.weightedStructureFactory = Objects.requireNonNull(weightedStructureFactory);
+    }
+
+    @Override
+    public SimulatorCursor<PopulationState> createSimulationCursor(RandomGenerator r, Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        switch (simulationMode) {
+            case INCREMENTAL:
+                return new IncrementalSimulationCursor(rules, getDependencyGraph(), r, initialStateBuilder);
+            case TAU_LEAPING:
+                return new TauLeapingSimulationCursor(rules, r, initialStateBuilder);
+            default:
+                return ContinuousTimeMarkovProcess.super.createSimulationCursor(r, initialStateBuilder);
+        }
+    }
+
+    /**
+     * Returns the rules of this model.
+     *
+     * @return the rules of this model.
+     */
+    public List<PopulationRule> getRules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Returns the number of species of this model.
+     *
+     * @return the number of species of this model.
+     */
+    public int numberOfSpecies() {
+        return registry.size();
+    }
+
+    /**
+     * Returns the graph recording the dependencies among species and rules of this model.
+     *
+     * @return the graph recording the dependencies among species and rules of this model.
+     */
+    public synchronized PopulationRuleDependencyGraph getDependencyGraph() {
+        if (dependencyGraph == null) {
+            dependencyGraph = new PopulationRuleDependencyGraph(registry.size(), rules);
+        }
+        return dependencyGraph;
+    }
+
     @Override
     public WeightedStructure<StepFunction<PopulationState>> getTransitions(RandomGenerator r, double now,
                                                                            PopulationState state) {
-        WeightedLinkedList<StepFunction<PopulationState>> activities = new WeightedLinkedList<>();
+        WeightedStructure<StepFunction<PopulationState>> activities = weightedStructureFactory.createWeightedStructure();
         for (PopulationRule rule : rules) {
             PopulationTransition tra = rule.apply(r, now, state);
             if (tra != null) {
-                activities.add(new WeightedElement<>(tra.getRate(), (rnd, t, dt) -> state.apply(tra.apply(rnd))));
+                activities = activities.add(tra.getRate(), (rnd, t, dt) -> state.apply(tra.apply(rnd)));
             }
         }
         return activities;
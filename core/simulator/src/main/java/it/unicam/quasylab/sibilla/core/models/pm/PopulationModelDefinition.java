@@ -57,6 +57,7 @@ public class PopulationModelDefinition extends AbstractModelDefinition<Populatio
     private PopulationModel model;
     private ParametricDataSet<Function<RandomGenerator,PopulationState>> states;
     private Map<String, Predicate<? super PopulationState>> predicates;
+    private PopulationModel.SimulationMode simulationMode = PopulationModel.SimulationMode.EXACT;
 
     /**
      * Create a new PopulationModelDefinition with the given functions used to build the elements of a definition.
@@ -114,10 +115,32 @@ public class PopulationModelDefinition extends AbstractModelDefinition<Populatio
             Map<String,Measure<? super PopulationState>> measures = getMeasures();
             Map<String,Predicate<? super PopulationState>> predicates = getPredicates();
             model = new PopulationModel(registry,rules,measures, predicates);
+            model.setSimulationMode(simulationMode);
         }
         return model;
     }
 
+    /**
+     * Returns the algorithm used to simulate the models generated by this definition.
+     *
+     * @return the algorithm used to simulate the models generated by this definition.
+     */
+    public synchronized PopulationModel.SimulationMode getSimulationMode() {
+        return simulationMode;
+    }
+
+    /**
+     * Sets the algorithm used to simulate the models generated by this definition.
+     *
+     * @param simulationMode the algorithm used to simulate the models generated by this definition.
+     */
+    public synchronized void setSimulationMode(PopulationModel.SimulationMode simulationMode) {
+        this.simulationMode = simulationMode;
+        if (model != null) {
+            model.setSimulationMode(simulationMode);
+        }
+    }
+
     /**
      * Generate the measures used in the model generated by using the current environment.
      *
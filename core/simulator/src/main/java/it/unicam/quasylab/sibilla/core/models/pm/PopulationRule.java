@@ -45,6 +45,53 @@ public interface PopulationRule extends Serializable {
 	 */
 	PopulationTransition apply( RandomGenerator r , double now, PopulationState state );
 
+	/**
+	 * Returns the indexes of the species whose occupancy can affect the result of
+	 * {@link #apply(RandomGenerator, double, PopulationState)}. A <code>null</code> value is returned
+	 * when these indexes are not known. In this case the rule is assumed to depend on the whole state and on time.
+	 *
+	 * @return the indexes of the species whose occupancy can affect the result of this rule, or <code>null</code>
+	 * if this information is not available.
+	 */
+	default int[] getDependencies() {
+		return null;
+	}
+
+	/**
+	 * Returns true if the result of {@link #apply(RandomGenerator, double, PopulationState)} can be affected by
+	 * the total size of the population.
+	 *
+	 * @return true if this rule depends on the total size of the population.
+	 */
+	default boolean dependsOnPopulationSize() {
+		return true;
+	}
+
+	/**
+	 * Returns the update performed by this rule when it depends neither on the current state nor on
+	 * random choices. A <code>null</code> value is returned otherwise.
+	 *
+	 * @return the update performed by this rule, or <code>null</code> if it is not constant.
+	 */
+	default Update getUpdate() {
+		return null;
+	}
+
+
+	/**
+	 * Returns the rate of this rule in the fluid approximation of a model, where the occupancy of each species is a
+	 * real value (see {@link ContinuousPopulationState}). This method is only used for rules whose update is
+	 * constant (see {@link #getUpdate()}). The default implementation returns the rate of the transition
+	 * computed by {@link #apply(RandomGenerator, double, PopulationState)}, or 0 if the rule cannot be applied.
+	 *
+	 * @param now current time.
+	 * @param state a state whose occupancies can be real values.
+	 * @return the rate of this rule in the fluid approximation of a model.
+	 */
+	default double getFluidRate(double now, PopulationState state) {
+		PopulationTransition transition = apply(null, now, state);
+		return (transition == null ? 0.0 : transition.getRate());
+	}
 
 	static Function<PopulationState,Double> fractionOf(int idx) {
 		return s -> s.getFraction(idx);
@@ -0,0 +1,156 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import java.io.Serializable;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * This class records, for each species of a population model, the indexes of the rules whose rate can be
+ * affected by a change of the occupancy of that species. The graph is built from the dependencies declared by
+ * each rule (see {@link PopulationRule#getDependencies()}). Rules that do not declare their dependencies are
+ * considered affected by any change.
+ */
+public class PopulationRuleDependencyGraph implements Serializable {
+
+    private static final long serialVersionUID = -1553788154106924547L;
+
+    private final int numberOfRules;
+    private final int[][] speciesToRules;
+    private final int[] populationSizeDependent;
+    private final int[] alwaysAffected;
+
+    /**
+     * Creates the dependency graph of the given rules for a population with the given number of species.
+     *
+     * @param numberOfSpecies number of species.
+     * @param rules population rules.
+     */
+    public PopulationRuleDependencyGraph(int numberOfSpecies, List<PopulationRule> rules) {
+        this.numberOfRules = rules.size();
+        List<List<Integer>> dependents = new LinkedList<>();
+        for (int i = 0; i < numberOfSpecies; i++) {
+            dependents.add(new LinkedList<>());
+        }
+        List<Integer> sizeDependent = new LinkedList<>();
+        List<Integer> always = new LinkedList<>();
+        int counter = 0;
+        for (PopulationRule rule : rules) {
+            int[] dependencies = rule.getDependencies();
+            if (dependencies == null) {
+                always.add(counter);
+            } else {
+                for (int s : dependencies) {
+                    dependents.get(s).add(counter);
+                }
+                if (rule.dependsOnPopulationSize()) {
+                    sizeDependent.add(counter);
+                }
+            }
+            counter++;
+        }
+        this.speciesToRules = dependents.stream().map(PopulationRuleDependencyGraph::toArray).toArray(int[][]::new);
+        this.populationSizeDependent = toArray(sizeDependent);
+        this.alwaysAffected = toArray(always);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(i -> i).toArray();
+    }
+
+    /**
+     * Returns the number of rules in the graph.
+     *
+     * @return the number of rules in the graph.
+     */
+    public int numberOfRules() {
+        return numberOfRules;
+    }
+
+    /**
+     * Returns the indexes of the rules depending on the occupancy of the given species.
+     *
+     * @param species species index.
+     * @return the indexes of the rules depending on the occupancy of the given species.
+     */
+    public int[] getDependentRules(int species) {
+        return speciesToRules[species];
+    }
+
+    /**
+     * Returns the indexes of the rules depending on the total size of the population.
+     *
+     * @return the indexes of the rules depending on the total size of the population.
+     */
+    public int[] getPopulationSizeDependentRules() {
+        return populationSizeDependent;
+    }
+
+    /**
+     * Returns the indexes of the rules that must be reevaluated after any step.
+     *
+     * @return the indexes of the rules that must be reevaluated after any step.
+     */
+    public int[] getAlwaysAffectedRules() {
+        return alwaysAffected;
+    }
+
+    /**
+     * Marks in the given array the rules affected by the given update. An element <code>marks[i]</code> is set to
+     * <code>stamp</code> when rule <code>i</code> is affected. The indexes of the rules marked by this invocation
+     * are stored in <code>affected</code>, and their number is returned.
+     *
+     * @param update the applied update.
+     * @param marks array used to record marked rules.
+     * @param stamp value identifying the current marking.
+     * @param affected array where the indexes of affected rules are stored.
+     * @return the number of affected rules.
+     */
+    public int collectAffectedRules(Update update, int[] marks, int stamp, int[] affected) {
+        int counter = mark(alwaysAffected, marks, stamp, affected, 0);
+        int drift = 0;
+        int[] indexes = update.getIndexes();
+        int[] deltas = update.getDeltas();
+        for (int i = 0; i < indexes.length; i++) {
+            counter = mark(speciesToRules[indexes[i]], marks, stamp, affected, counter);
+            drift += deltas[i];
+        }
+        if (drift != 0) {
+            counter = mark(populationSizeDependent, marks, stamp, affected, counter);
+        }
+        return counter;
+    }
+
+    private static int mark(int[] rules, int[] marks, int stamp, int[] affected, int counter) {
+        for (int r : rules) {
+            if (marks[r] != stamp) {
+                marks[r] = stamp;
+                affected[counter++] = r;
+            }
+        }
+        return counter;
+    }
+
+}
@@ -30,7 +30,6 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.IntFunction;
@@ -86,7 +85,7 @@ public class PopulationState implements ImmutableState {
         this(IntStream.range(0, state.length).map(i -> state[i]).sum(), state);
     }
 
-    private PopulationState(double population, int[] state) {
+    PopulationState(double population, int[] state) {
         this.populationVector = state;
         this.population = population;
     }
@@ -138,18 +137,18 @@ public class PopulationState implements ImmutableState {
     // applies one update function
     public PopulationState apply(Update update) {
         int[] newState = Arrays.copyOf(populationVector, populationVector.length);
-        double population = this.population;
-        for (Entry<Integer, Integer> u : update.getUpdate()) {
-            int idx = u.getKey();
-            int newValue = newState[idx] + u.getValue();
-            if (newValue >= 0) {
-                newState[idx] = newValue;
-                population += u.getValue();
-            } else {
+        double population = population();
+        int[] indexes = update.getIndexes();
+        int[] deltas = update.getDeltas();
+        for (int i = 0; i < indexes.length; i++) {
+            int newValue = newState[indexes[i]] + deltas[i];
+            if (newValue < 0) {
                 throw new IllegalArgumentException(
-                        "Population Vector: " + this + " newState: " + Arrays.toString(newState) + " Update: " + update
-                                + " idx: " + idx + " newValue: " + newValue + " u: " + u);
+                        "Population Vector: " + this + " Update: " + update
+                                + " idx: " + indexes[i] + " newValue: " + newValue);
             }
+            newState[indexes[i]] = newValue;
+            population += deltas[i];
         }
         return new PopulationState(population, newState);
     }
@@ -31,6 +31,7 @@ import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 /**
  * @author loreti
@@ -49,6 +50,10 @@ public class ReactionRule implements PopulationRule, Serializable {
 	private final String name;
 
 	private final Update update;
+
+	private final int[] dependencies;
+
+	private final boolean populationSizeDependent;
 	
 	/**
 	 * @param reactants
@@ -60,14 +65,40 @@ public class ReactionRule implements PopulationRule, Serializable {
 	}
 
 	public ReactionRule(String name, Predicate<PopulationState> guard, Population[] reactants, Population[] products, RatePopulationFunction rateFunction) {
+		this(name, guard, reactants, products, rateFunction, null, true);
+	}
+
+	/**
+	 * Creates a new rule whose guard and rate only depend on the occupancy of the given species. Rules created
+	 * with this constructor are assumed to be time homogeneous.
+	 *
+	 * @param name rule name.
+	 * @param guard rule guard (can be null).
+	 * @param reactants rule reactants.
+	 * @param products rule products.
+	 * @param rateFunction rule rate.
+	 * @param dependencies indexes of species occurring in guard and rate, or null if they are unknown.
+	 * @param populationSizeDependent true if guard or rate depend on the total size of the population.
+	 */
+	public ReactionRule(String name, Predicate<PopulationState> guard, Population[] reactants, Population[] products, RatePopulationFunction rateFunction, int[] dependencies, boolean populationSizeDependent) {
 		super();
 		this.guard = guard;
 		this.reactants = new HashMap<>();
 		this.rateFunction = rateFunction;
 		this.name = name;
 		this.update = new Update(name);
+		this.populationSizeDependent = populationSizeDependent;
 		initReactants(reactants);
 		initDrift(reactants, products);
+		this.dependencies = initDependencies(dependencies);
+	}
+
+	private int[] initDependencies(int[] dependencies) {
+		if (dependencies == null) {
+			return null;
+		}
+		return IntStream.concat(IntStream.of(dependencies), this.reactants.keySet().stream().mapToInt(i -> i))
+				.distinct().sorted().toArray();
 	}
 
 	private void initReactants(Population[] reactants) {
@@ -102,6 +133,35 @@ public class ReactionRule implements PopulationRule, Serializable {
 		return null;
 	}
 	
+	/**
+	 * Returns the value of the rate function when the guard is satisfied. The availability of reactants is not
+	 * checked: in the fluid approximation occupancies are real values and the rate of a well-formed rule vanishes
+	 * when its reactants are exhausted. Negative or non-finite rates are treated as 0.
+	 */
+	@Override
+	public double getFluidRate(double now, PopulationState state) {
+		if ((guard != null)&&(!guard.test(state))) {
+			return 0.0;
+		}
+		double rate = rateFunction.apply(now, state);
+		return (Double.isFinite(rate) ? Math.max(0.0, rate) : 0.0);
+	}
+
+	@Override
+	public int[] getDependencies() {
+		return dependencies;
+	}
+
+	@Override
+	public boolean dependsOnPopulationSize() {
+		return populationSizeDependent;
+	}
+
+	@Override
+	public Update getUpdate() {
+		return update;
+	}
+
 	private boolean isEnabled(PopulationState state) {
 		if ((guard != null)&&(!guard.test(state))) {
 			return false;
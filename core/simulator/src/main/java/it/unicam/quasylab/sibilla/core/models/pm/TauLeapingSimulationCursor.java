@@ -0,0 +1,364 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.ContinuousTimeMarkovProcess;
+import it.unicam.quasylab.sibilla.core.models.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.util.PoissonSampler;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.function.Function;
+
+/**
+ * A simulator cursor for population models implementing the adaptive tau-leaping algorithm of
+ * Cao, Gillespie and Petzold. At each step, the leap size is selected so that the expected relative change of
+ * the species the rates depend on is bounded by <code>epsilon</code>. When no such species changes (e.g. for
+ * constant-rate productions), the leap is capped so that about <code>1/epsilon</code> firings are expected. Within a leap each non-critical
+ * rule fires a number of times sampled from a Poisson distribution. Critical rules, namely the ones that could
+ * exhaust one of their reactants in a few firings or whose update is not constant, fire at most once per leap
+ * and are selected as in the exact algorithm. When the selected leap is too small to be convenient, a step
+ * of the exact algorithm is performed.
+ */
+public class TauLeapingSimulationCursor implements SimulatorCursor<PopulationState> {
+
+    /**
+     * Default bound on the expected relative change of each reactant species in a leap.
+     */
+    public static final double DEFAULT_EPSILON = 0.03;
+
+    /**
+     * Default number of firings below which a rule is considered critical.
+     */
+    public static final int DEFAULT_CRITICAL_THRESHOLD = 10;
+
+    /**
+     * Default number of expected exact steps below which a leap is replaced by an exact step.
+     */
+    public static final double DEFAULT_SSA_THRESHOLD = 10.0;
+
+    /**
+     * Rates are arbitrary expressions, hence the order of each reaction is not known. A second order is assumed
+     * for all the reactant species.
+     */
+    private static final double REACTION_ORDER = 2.0;
+
+    private final PopulationRule[] rules;
+    private final int[][] updateIndexes;
+    private final int[][] updateDeltas;
+    private final int[][] rateDependencies;
+    private final double epsilon;
+    private final int criticalThreshold;
+    private final double ssaThreshold;
+    private final Function<RandomGenerator, PopulationState> initialStateBuilder;
+    private final PopulationTransition[] transitions;
+    private final double[] rates;
+    private final boolean[] critical;
+    private double[] mu;
+    private double[] sigma;
+    private boolean[] reactants;
+    private RandomGenerator rg;
+    private PopulationState current;
+    private double now = 0.0;
+    private boolean terminated = false;
+    private boolean started = false;
+
+    /**
+     * Creates a new cursor for the given rules with default parameters.
+     *
+     * @param rules rules of the simulated model.
+     * @param rg random generator used in the simulation.
+     * @param initialStateBuilder function used to build the initial state.
+     */
+    public TauLeapingSimulationCursor(List<PopulationRule> rules,
+                                      RandomGenerator rg,
+                                      Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        this(rules, DEFAULT_EPSILON, DEFAULT_CRITICAL_THRESHOLD, DEFAULT_SSA_THRESHOLD, rg, initialStateBuilder);
+    }
+
+    /**
+     * Creates a new cursor for the given rules.
+     *
+     * @param rules rules of the simulated model.
+     * @param epsilon bound on the expected relative change of each reactant species in a leap.
+     * @param criticalThreshold number of firings below which a rule is considered critical.
+     * @param ssaThreshold number of expected exact steps below which a leap is replaced by an exact step.
+     * @param rg random generator used in the simulation.
+     * @param initialStateBuilder function used to build the initial state.
+     */
+    public TauLeapingSimulationCursor(List<PopulationRule> rules,
+                                      double epsilon,
+                                      int criticalThreshold,
+                                      double ssaThreshold,
+                                      RandomGenerator rg,
+                                      Function<RandomGenerator, PopulationState> initialStateBuilder) {
+        if ((epsilon <= 0) || (criticalThreshold < 0) || (ssaThreshold < 0)) {
+            throw new IllegalArgumentException();
+        }
+        this.rules = rules.toArray(new PopulationRule[0]);
+        this.epsilon = epsilon;
+        this.criticalThreshold = criticalThreshold;
+        this.ssaThreshold = ssaThreshold;
+        this.rg = rg;
+        this.initialStateBuilder = initialStateBuilder;
+        this.transitions = new PopulationTransition[this.rules.length];
+        this.rates = new double[this.rules.length];
+        this.critical = new boolean[this.rules.length];
+        this.updateIndexes = new int[this.rules.length][];
+        this.updateDeltas = new int[this.rules.length][];
+        this.rateDependencies = new int[this.rules.length][];
+        for (int i = 0; i < this.rules.length; i++) {
+            Update update = this.rules[i].getUpdate();
+            if (update != null) {
+                this.updateIndexes[i] = update.getIndexes();
+                this.updateDeltas[i] = update.getDeltas();
+                this.rateDependencies[i] = rateDependencies(this.rules[i], update);
+            }
+        }
+    }
+
+    /**
+     * Returns the species whose change can affect the rate of the given rule: the declared dependencies and the
+     * species consumed by the rule. When dependencies are not declared, all the species modified by the rule are
+     * considered.
+     */
+    private static int[] rateDependencies(PopulationRule rule, Update update) {
+        int[] dependencies = rule.getDependencies();
+        if (dependencies == null) {
+            return update.getIndexes();
+        }
+        int[] indexes = update.getIndexes();
+        int[] deltas = update.getDeltas();
+        IntStream consumed = IntStream.range(0, indexes.length).filter(k -> deltas[k] < 0).map(k -> indexes[k]);
+        return IntStream.concat(Arrays.stream(dependencies), consumed).distinct().toArray();
+    }
+
+    @Override
+    public void start() {
+        this.current = initialStateBuilder.apply(rg);
+        this.now = 0.0;
+        this.started = true;
+        this.terminated = false;
+        this.mu = new double[current.size()];
+        this.sigma = new double[current.size()];
+        this.reactants = new boolean[current.size()];
+    }
+
+    @Override
+    public boolean step() {
+        if (!started) {
+            throw new IllegalStateException();
+        }
+        double totalRate = evaluateRates();
+        if (totalRate <= 0.0) {
+            terminated = true;
+            return false;
+        }
+        double criticalRate = selectCriticalRules();
+        double leap = selectLeap(totalRate);
+        if (leap < ssaThreshold / totalRate) {
+            exactStep(totalRate);
+        } else {
+            leapStep(leap, criticalRate);
+        }
+        return true;
+    }
+
+    private double evaluateRates() {
+        double totalRate = 0.0;
+        for (int i = 0; i < rules.length; i++) {
+            PopulationTransition tra = rules[i].apply(rg, now, current);
+            transitions[i] = tra;
+            rates[i] = (tra == null ? 0.0 : tra.getRate());
+            totalRate += rates[i];
+        }
+        return totalRate;
+    }
+
+    private double selectCriticalRules() {
+        double criticalRate = 0.0;
+        for (int i = 0; i < rules.length; i++) {
+            critical[i] = (rates[i] > 0) && ((updateIndexes[i] == null) || (maxFirings(i) < criticalThreshold));
+            if (critical[i]) {
+                criticalRate += rates[i];
+            }
+        }
+        return criticalRate;
+    }
+
+    private int maxFirings(int rule) {
+        int firings = Integer.MAX_VALUE;
+        int[] population = current.getPopulationVector();
+        for (int k = 0; k < updateIndexes[rule].length; k++) {
+            if (updateDeltas[rule][k] < 0) {
+                firings = Math.min(firings, population[updateIndexes[rule][k]] / (-updateDeltas[rule][k]));
+            }
+        }
+        return firings;
+    }
+
+    private double selectLeap(double totalRate) {
+        Arrays.fill(mu, 0.0);
+        Arrays.fill(sigma, 0.0);
+        Arrays.fill(reactants, false);
+        for (int i = 0; i < rules.length; i++) {
+            if ((rates[i] > 0) && (!critical[i])) {
+                for (int k = 0; k < updateIndexes[i].length; k++) {
+                    int idx = updateIndexes[i][k];
+                    int delta = updateDeltas[i][k];
+                    mu[idx] += delta * rates[i];
+                    sigma[idx] += delta * delta * rates[i];
+                }
+                for (int idx : rateDependencies[i]) {
+                    reactants[idx] = true;
+                }
+            }
+        }
+        double leap = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < reactants.length; i++) {
+            if (reactants[i]) {
+                double bound = Math.max(epsilon * current.getOccupancy(i) / REACTION_ORDER, 1.0);
+                if (mu[i] != 0.0) {
+                    leap = Math.min(leap, bound / Math.abs(mu[i]));
+                }
+                if (sigma[i] != 0.0) {
+                    leap = Math.min(leap, bound * bound / sigma[i]);
+                }
+            }
+        }
+        if (!Double.isFinite(leap)) {
+            leap = 1.0 / (epsilon * totalRate);
+        }
+        return leap;
+    }
+
+    private void exactStep(double totalRate) {
+        double dt = ContinuousTimeMarkovProcess.sampleExponentialDistribution(totalRate, rg);
+        PopulationTransition selected = select(rg.nextDouble() * totalRate, false);
+        current = current.apply(selected.apply(rg));
+        now += dt;
+    }
+
+    private PopulationTransition select(double w, boolean onlyCritical) {
+        int last = -1;
+        for (int i = 0; i < rules.length; i++) {
+            if ((rates[i] > 0) && (!onlyCritical || critical[i])) {
+                last = i;
+                if (w < rates[i]) {
+                    return transitions[i];
+                }
+                w -= rates[i];
+            }
+        }
+        return transitions[last];
+    }
+
+    private void leapStep(double leap, double criticalRate) {
+        while (true) {
+            double criticalLeap = (criticalRate > 0 ?
+                    ContinuousTimeMarkovProcess.sampleExponentialDistribution(criticalRate, rg) :
+                    Double.POSITIVE_INFINITY);
+            double tau = Math.min(leap, criticalLeap);
+            int[] next = Arrays.copyOf(current.getPopulationVector(), current.size());
+            boolean fits = true;
+            for (int i = 0; i < rules.length; i++) {
+                if ((rates[i] > 0) && (!critical[i])) {
+                    fits &= fire(next, i, samplePoisson(rates[i] * tau));
+                }
+            }
+            if (criticalLeap <= leap) {
+                Update update = select(rg.nextDouble() * criticalRate, true).apply(rg);
+                int[] indexes = update.getIndexes();
+                int[] deltas = update.getDeltas();
+                for (int k = 0; k < indexes.length; k++) {
+                    next[indexes[k]] += deltas[k];
+                }
+            }
+            if (fits && Arrays.stream(next).allMatch(v -> v >= 0)) {
+                current = new PopulationState(next);
+                now += tau;
+                return;
+            }
+            leap = leap / 2;
+        }
+    }
+
+    /**
+     * Applies the given number of firings of a rule to the given population. The number of firings is first clamped
+     * to one more than the firings allowed by the reactants of the rule, so that a leap consuming too many reactants
+     * is still rejected. False is returned if the resulting population cannot be represented.
+     */
+    private boolean fire(int[] population, int rule, long firings) {
+        if (firings > 0) {
+            firings = Math.min(firings, (long) maxFirings(rule) + 1);
+            for (int k = 0; k < updateIndexes[rule].length; k++) {
+                long value = population[updateIndexes[rule][k]] + firings * updateDeltas[rule][k];
+                if ((value > Integer.MAX_VALUE) || (value < Integer.MIN_VALUE)) {
+                    return false;
+                }
+                population[updateIndexes[rule][k]] = (int) value;
+            }
+        }
+        return true;
+    }
+
+    private long samplePoisson(double mean) {
+        return PoissonSampler.sample(rg, mean);
+    }
+
+    @Override
+    public PopulationState currentState() {
+        return current;
+    }
+
+    @Override
+    public double time() {
+        return now;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started;
+    }
+
+    @Override
+    public void restart(RandomGenerator rg) {
+        this.rg = rg;
+        this.current = null;
+        this.terminated = false;
+        this.started = false;
+    }
+
+    @Override
+    public void restart() {
+        restart(this.rg);
+    }
+}
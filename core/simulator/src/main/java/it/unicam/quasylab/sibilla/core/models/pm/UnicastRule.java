@@ -25,13 +25,16 @@
  */
 package it.unicam.quasylab.sibilla.core.models.pm;
 
-import it.unicam.quasylab.sibilla.core.simulator.util.ComposedWeightedStructure;
-import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.function.Function;
 
 /**
+ * A rule where an element of the sender species sends a message that is received by exactly one element of one of
+ * the receiver species. The receiver is selected with a probability proportional to the occupancy of its species
+ * times its receiving weight. The cumulative weights of receivers are computed once when the rule is evaluated and
+ * the receiver is selected with a binary search when the rule fires.
+ *
  * @author loreti
  *
  */
@@ -66,28 +69,26 @@ public class UnicastRule implements PopulationRule {
 	}
 
 	public boolean isEnabled( PopulationState state ) {
-		if (state.getOccupancy(senderIndex)==0) {
-			return false;
-		}
-		for( int i=0 ; i<receivers.length ; i++ ) {
-			if ((state.getOccupancy(receivers[i].receiver)>0)&&(receivers[i].receivingWeight.apply(state)>0)) {
-				return true;
-			}
-		}
-		
-		return false;
+		return (state.getOccupancy(senderIndex)>0)&&(getTotalReceivingWeight(senderIndex, state, receivers)>0);
 	}
 
+	/**
+	 * Returns the transition of this rule in the given state. Receiving weights are evaluated only here: their
+	 * cumulative values are shared with the transition, that selects the receiver with a binary search.
+	 */
 	@Override
 	public PopulationTransition apply(RandomGenerator r, double t, PopulationState state) {
-		if (isEnabled(state)) {
-			double rate = rateFunction.apply(state);
-			if (rate > 0.0) {
-				return new PopulationTransition(
-					this.name, 
-					rate*state.getOccupancy(senderIndex), 
-					(rg -> UnicastRule.getDrift(name,rg,senderIndex,state,step,receivers))
-				);
+		if (state.getOccupancy(senderIndex)>0) {
+			double[] cumulativeWeights = getCumulativeReceivingWeights(senderIndex, state, receivers);
+			if (cumulativeWeights[cumulativeWeights.length-1] > 0.0) {
+				double rate = rateFunction.apply(state);
+				if (rate > 0.0) {
+					return new PopulationTransition(
+						this.name, 
+						rate*state.getOccupancy(senderIndex), 
+						(rg -> UnicastRule.getDrift(name,rg,senderIndex,step,receivers,cumulativeWeights))
+					);
+				}
 			}
 		}
 		return null;
@@ -99,23 +100,92 @@ public class UnicastRule implements PopulationRule {
 			PopulationState state,
 			Function<RandomGenerator,Integer> step, 
 			UnicastReceiver[] receivers
+	) {
+		return getDrift(name, r, sender, step, receivers, getCumulativeReceivingWeights(sender, state, receivers));
+	}
+
+	private static Update getDrift( String name,
+			RandomGenerator r,
+			int sender,
+			Function<RandomGenerator,Integer> step,
+			UnicastReceiver[] receivers,
+			double[] cumulativeWeights
 	) {
 		Update result = new Update(name);
 		result.consume(sender,1);
 		result.produce(step.apply(r), 1);
-		WeightedStructure<UnicastReceiver> receiverSelector = new ComposedWeightedStructure<>();
-		for( int i=0 ; i<receivers.length ; i++ ) {
-			int receiverIndex = receivers[i].receiver;
-			if (state.getOccupancy(receiverIndex)-(receiverIndex==sender?1:0)>0) {
-				receiverSelector = receiverSelector.add(state.getOccupancy(receivers[i].receiver)*receivers[i].receivingWeight.apply(state),receivers[i]);
-			}
-		}
-		UnicastReceiver ur = receiverSelector.select(r.nextDouble()*receiverSelector.getTotalWeight()).getElement();
+		UnicastReceiver ur = receivers[selectReceiver(cumulativeWeights, r.nextDouble()*cumulativeWeights[cumulativeWeights.length-1])];
 		result.consume(ur.receiver, 1);
 		result.produce(ur.step.apply(r),1);
 		return result;
 	}
-	
+
+	/**
+	 * Returns the weight of the given receiver: the occupancy of its species times its receiving weight. The weight
+	 * is 0 when no element different from the sender can receive the message.
+	 */
+	private static double getReceivingWeight(int sender, PopulationState state, UnicastReceiver receiver) {
+		double occupancy = state.getOccupancy(receiver.receiver);
+		if (occupancy-(receiver.receiver==sender?1:0)>0) {
+			double w = occupancy*receiver.receivingWeight.apply(state);
+			if (w > 0) {
+				return w;
+			}
+		}
+		return 0.0;
+	}
+
+	/**
+	 * Returns the sum of the weights of the given receivers.
+	 *
+	 * @param sender index of the sender.
+	 * @param state current state.
+	 * @param receivers message receivers.
+	 * @return the sum of the weights of the given receivers.
+	 */
+	public static double getTotalReceivingWeight(int sender, PopulationState state, UnicastReceiver[] receivers) {
+		double total = 0.0;
+		for( int i=0 ; i<receivers.length ; i++ ) {
+			total += getReceivingWeight(sender, state, receivers[i]);
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the array whose i-th element is the sum of the weights of the first i+1 receivers.
+	 */
+	private static double[] getCumulativeReceivingWeights(int sender, PopulationState state, UnicastReceiver[] receivers) {
+		double[] cumulativeWeights = new double[Math.max(1, receivers.length)];
+		double total = 0.0;
+		for( int i=0 ; i<receivers.length ; i++ ) {
+			total += getReceivingWeight(sender, state, receivers[i]);
+			cumulativeWeights[i] = total;
+		}
+		return cumulativeWeights;
+	}
+
+	/**
+	 * Returns the index of the first cumulative weight greater than the given value. Values that are not smaller
+	 * than the total weight, due to rounding errors, select the last receiver with a positive weight.
+	 */
+	private static int selectReceiver(double[] cumulativeWeights, double value) {
+		int last = cumulativeWeights.length-1;
+		if (value >= cumulativeWeights[last]) {
+			value = Math.nextDown(cumulativeWeights[last]);
+		}
+		int low = 0;
+		int high = last;
+		while (low < high) {
+			int mid = (low+high) >>> 1;
+			if (cumulativeWeights[mid] > value) {
+				high = mid;
+			} else {
+				low = mid+1;
+			}
+		}
+		return low;
+	}
+
 	public static class UnicastReceiver {
 		
 		private final int receiver;
@@ -40,6 +40,7 @@ public class Update implements Serializable {
 	private static final long serialVersionUID = 5759358996259668600L;
 	private final Map<Integer, Integer> update;
 	private final String name;
+	private transient volatile int[][] compiled;
 
 	public Update(String name) {
 		this.update = new HashMap<>();
@@ -58,9 +59,54 @@ public class Update implements Serializable {
 			} else {
 				update.remove(idx);
 			}
+			compiled = null;
 		}
 	}
 
+	/**
+	 * Returns the indexes of the species modified by this update. The returned array is shared and must not be
+	 * modified.
+	 *
+	 * @return the indexes of the species modified by this update.
+	 */
+	public int[] getIndexes() {
+		return getCompiled()[0];
+	}
+
+	/**
+	 * Returns the variations of the species modified by this update. The i-th element of the returned array is the
+	 * variation of the species at index <code>getIndexes()[i]</code>. The returned array is shared and must not be
+	 * modified.
+	 *
+	 * @return the variations of the species modified by this update.
+	 */
+	public int[] getDeltas() {
+		return getCompiled()[1];
+	}
+
+	private int[][] getCompiled() {
+		int[][] result = compiled;
+		if (result == null) {
+			result = compile();
+		}
+		return result;
+	}
+
+	private synchronized int[][] compile() {
+		if (compiled == null) {
+			int[] indexes = new int[update.size()];
+			int[] deltas = new int[update.size()];
+			int counter = 0;
+			for (Entry<Integer, Integer> e : update.entrySet()) {
+				indexes[counter] = e.getKey();
+				deltas[counter] = e.getValue();
+				counter++;
+			}
+			compiled = new int[][] { indexes, deltas };
+		}
+		return compiled;
+	}
+
 	public int get(int i) {
 		return update.getOrDefault(i, 0);
 	}
@@ -32,6 +32,16 @@ public abstract class Activity implements Comparable<Activity> {
 
     private final double scheduledTime;
 
+    /**
+     * Position of this activity in the {@link ActivityCalendar} where it is scheduled, -1 if it is not scheduled.
+     */
+    int calendarIndex = -1;
+
+    /**
+     * Insertion number assigned by the {@link ActivityCalendar}, used to break ties among simultaneous activities.
+     */
+    long calendarSequence;
+
     /**
      * Creates an activity scheduled at the given time.
      *
@@ -41,9 +51,16 @@ public abstract class Activity implements Comparable<Activity> {
         this.scheduledTime = scheduledTime;
     }
 
+    /**
+     * Activities are ordered according to their scheduled time.
+     *
+     * @param o the activity to be compared.
+     * @return a negative integer, zero, or a positive integer as this activity is scheduled before, at the same
+     * time, or after the given one.
+     */
     @Override
     public int compareTo(Activity o) {
-        return 0;
+        return Double.compare(this.scheduledTime, o.scheduledTime);
     }
 
     /**
@@ -57,6 +74,16 @@ public abstract class Activity implements Comparable<Activity> {
 
     public abstract void execute(RandomGenerator rg, SlamState state);
 
+    /**
+     * Returns the identifier of the agent whose step is represented by this activity, or -1 if this activity
+     * is not an agent step. Each agent has at most one step scheduled in an {@link ActivityCalendar}.
+     *
+     * @return the identifier of the agent whose step is represented by this activity, or -1.
+     */
+    public int getStepAgentId() {
+        return -1;
+    }
+
     public static class AgentStepActivity extends Activity {
 
         private final Agent scheduledAgent;
@@ -74,6 +101,11 @@ public abstract class Activity implements Comparable<Activity> {
         public void execute(RandomGenerator rg, SlamState state) {
             state.executeAgentStep(rg, scheduledAgent);
         }
+
+        @Override
+        public int getStepAgentId() {
+            return scheduledAgent.agentId();
+        }
     }
 
     public static class MessageDeliveryActivity extends Activity {
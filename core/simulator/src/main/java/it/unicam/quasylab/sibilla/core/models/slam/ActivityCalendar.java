@@ -0,0 +1,254 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An event calendar collecting the activities scheduled in a {@link SlamState}. The calendar is implemented as an
+ * indexed binary heap: activities are ordered by scheduled time and, when simultaneous, by insertion order. Each
+ * activity records its position in the heap so that it can be removed in <i>O(log n)</i> without scanning. Moreover,
+ * the calendar keeps, for each agent, the step currently scheduled for it. When a new step is scheduled for an agent,
+ * the previous one (if any) is replaced.
+ */
+public final class ActivityCalendar {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Activity[] heap;
+    private int size;
+    private long sequence;
+    private Activity[] agentSteps;
+
+    /**
+     * Creates an empty calendar.
+     */
+    public ActivityCalendar() {
+        this.heap = new Activity[INITIAL_CAPACITY];
+        this.agentSteps = new Activity[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Schedules the given activity. If the activity is the step of an agent, the step previously scheduled for
+     * the same agent is cancelled.
+     *
+     * @param activity the activity to schedule.
+     * @throws IllegalArgumentException if the activity is already scheduled in a calendar.
+     */
+    public void schedule(Activity activity) {
+        siftUp(append(activity));
+    }
+
+    /**
+     * Schedules all the given activities. When the batch is large with respect to the number of activities
+     * already in the calendar, activities are appended and the heap is rebuilt in linear time instead of
+     * inserting them one by one. Activities in the batch are ordered as if they were scheduled one after the other.
+     *
+     * @param activities the activities to schedule.
+     * @throws IllegalArgumentException if an activity is already scheduled in a calendar.
+     */
+    public void scheduleAll(Collection<? extends Activity> activities) {
+        if (activities.size() < size) {
+            activities.forEach(this::schedule);
+            return;
+        }
+        if (size + activities.size() > heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(2 * heap.length, size + activities.size()));
+        }
+        // Cancelling a replaced agent step may move elements around the (partially ordered) heap. This is harmless
+        // since heap indexes are kept consistent and the order is restored below.
+        activities.forEach(this::append);
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private int append(Activity activity) {
+        if (activity.calendarIndex >= 0) {
+            throw new IllegalArgumentException("Activity is already scheduled!");
+        }
+        int agentId = activity.getStepAgentId();
+        if (agentId >= 0) {
+            cancelAgentStep(agentId);
+            ensureAgentCapacity(agentId);
+            agentSteps[agentId] = activity;
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * size);
+        }
+        activity.calendarSequence = sequence++;
+        heap[size] = activity;
+        activity.calendarIndex = size;
+        return size++;
+    }
+
+    /**
+     * Removes and returns the first activity in the calendar, or null if the calendar is empty.
+     *
+     * @return the first activity in the calendar, or null if the calendar is empty.
+     */
+    public Activity poll() {
+        if (size == 0) {
+            return null;
+        }
+        Activity first = heap[0];
+        removeAt(0);
+        return first;
+    }
+
+    /**
+     * Returns the first activity in the calendar without removing it, or null if the calendar is empty.
+     *
+     * @return the first activity in the calendar, or null if the calendar is empty.
+     */
+    public Activity peek() {
+        return (size == 0 ? null : heap[0]);
+    }
+
+    /**
+     * Removes the given activity from the calendar.
+     *
+     * @param activity the activity to remove.
+     * @return true if the activity was scheduled in this calendar.
+     */
+    public boolean remove(Activity activity) {
+        int idx = activity.calendarIndex;
+        if ((idx < 0) || (idx >= size) || (heap[idx] != activity)) {
+            return false;
+        }
+        removeAt(idx);
+        return true;
+    }
+
+    /**
+     * Cancels the step scheduled for the agent with the given identifier.
+     *
+     * @param agentId agent identifier.
+     * @return the cancelled activity, or null if no step was scheduled for the given agent.
+     */
+    public Activity cancelAgentStep(int agentId) {
+        Activity activity = getAgentStep(agentId);
+        if (activity != null) {
+            removeAt(activity.calendarIndex);
+        }
+        return activity;
+    }
+
+    /**
+     * Returns the step scheduled for the agent with the given identifier, or null if no step is scheduled.
+     *
+     * @param agentId agent identifier.
+     * @return the step scheduled for the agent with the given identifier, or null if no step is scheduled.
+     */
+    public Activity getAgentStep(int agentId) {
+        return ((agentId >= 0) && (agentId < agentSteps.length) ? agentSteps[agentId] : null);
+    }
+
+    /**
+     * Returns the number of scheduled activities.
+     *
+     * @return the number of scheduled activities.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if no activity is scheduled.
+     *
+     * @return true if no activity is scheduled.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void removeAt(int idx) {
+        Activity removed = heap[idx];
+        removed.calendarIndex = -1;
+        int agentId = removed.getStepAgentId();
+        if ((agentId >= 0) && (agentSteps[agentId] == removed)) {
+            agentSteps[agentId] = null;
+        }
+        Activity last = heap[--size];
+        heap[size] = null;
+        if (idx < size) {
+            heap[idx] = last;
+            last.calendarIndex = idx;
+            siftDown(idx);
+            if (heap[idx] == last) {
+                siftUp(idx);
+            }
+        }
+    }
+
+    private void siftUp(int idx) {
+        Activity activity = heap[idx];
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            Activity p = heap[parent];
+            if (!precedes(activity, p)) {
+                break;
+            }
+            heap[idx] = p;
+            p.calendarIndex = idx;
+            idx = parent;
+        }
+        heap[idx] = activity;
+        activity.calendarIndex = idx;
+    }
+
+    private void siftDown(int idx) {
+        Activity activity = heap[idx];
+        int half = size >>> 1;
+        while (idx < half) {
+            int child = 2 * idx + 1;
+            int right = child + 1;
+            if ((right < size) && precedes(heap[right], heap[child])) {
+                child = right;
+            }
+            Activity c = heap[child];
+            if (!precedes(c, activity)) {
+                break;
+            }
+            heap[idx] = c;
+            c.calendarIndex = idx;
+            idx = child;
+        }
+        heap[idx] = activity;
+        activity.calendarIndex = idx;
+    }
+
+    private static boolean precedes(Activity a1, Activity a2) {
+        int c = a1.compareTo(a2);
+        return (c < 0) || ((c == 0) && (a1.calendarSequence < a2.calendarSequence));
+    }
+
+    private void ensureAgentCapacity(int agentId) {
+        if (agentId >= agentSteps.length) {
+            agentSteps = Arrays.copyOf(agentSteps, Math.max(agentId + 1, 2 * agentSteps.length));
+        }
+    }
+
+}
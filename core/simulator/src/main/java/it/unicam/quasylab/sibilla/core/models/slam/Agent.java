@@ -49,6 +49,7 @@ public final class Agent {
     private final AgentTimePassingFunction timePassingFunction;
     private final PerceptionFunction perceptionFunction;
     private double schedulingTime;
+    private double synchronizationTime;
 
     public Agent(int agentId, int agetPrototypeId, AgentStore agentMemory, AgentBehaviouralState state, AgentTimePassingFunction timePassingFunction, PerceptionFunction perceptionFunction
     ) {
@@ -149,6 +150,60 @@ public final class Agent {
         agentMemory.recordTime(dt);
     }
 
+    /**
+     * Returns the last time at which the memory of this agent has been synchronised with the passing of time.
+     *
+     * @return the last time at which the memory of this agent has been synchronised with the passing of time.
+     */
+    public double getSynchronizationTime() {
+        return synchronizationTime;
+    }
+
+    /**
+     * Sets the time at which the memory of this agent is synchronised, without applying any time passing function.
+     * This method is used when the agent is added to a system.
+     *
+     * @param time the time at which the memory of this agent is synchronised.
+     */
+    void setSynchronizationTime(double time) {
+        this.synchronizationTime = time;
+    }
+
+    /**
+     * Applies the time passing function of this agent up to the given time. Nothing is done if the agent has
+     * been already synchronised at the given time.
+     *
+     * @param rg random generator used to sample random values.
+     * @param time time at which the agent is synchronised.
+     * @return true if the agent memory has been updated.
+     */
+    boolean advance(RandomGenerator rg, double time) {
+        double dt = time - synchronizationTime;
+        if (dt <= 0) {
+            return false;
+        }
+        synchronizationTime = time;
+        timeStep(rg, dt);
+        return true;
+    }
+
+    /**
+     * Synchronises this agent with the given time: the time passing function and the perception function are
+     * applied if the agent was synchronised at an earlier time.
+     *
+     * @param rg random generator used to sample random values.
+     * @param slamState the system where the agent operates.
+     * @param time time at which the agent is synchronised.
+     * @return true if the agent memory has been updated.
+     */
+    boolean synchronize(RandomGenerator rg, SlamState slamState, double time) {
+        if (advance(rg, time)) {
+            perceive(rg, slamState);
+            return true;
+        }
+        return false;
+    }
+
     /**
      * Returns true if the agent memory of this agent satisfies the given predicate.
      *
@@ -23,6 +23,7 @@
 
 package it.unicam.quasylab.sibilla.core.models.slam;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.Function;
@@ -33,12 +34,14 @@ import java.util.function.Function;
 public class AgentDefinition {
 
     private final Map<String, AgentPrototype> agentPrototypes;
+    private final Map<String, AgentStoreLayout> storeLayouts;
 
     /**
      * Creates an empty agent definition.
      */
     public AgentDefinition() {
         this.agentPrototypes = new TreeMap<>();
+        this.storeLayouts = new HashMap<>();
     }
 
     /**
@@ -98,15 +101,61 @@ public class AgentDefinition {
         return agentPrototypes.get(agentName);
     }
 
+    /**
+     * Declares the variables in the memory of the agent with the given name. The memory layout of the agent
+     * is compiled from the declared variables and can be retrieved via {@link #getStoreLayout(String)}.
+     *
+     * @param agentName agent name.
+     * @param variables variables in agent memory.
+     */
+    public void setAgentVariables(String agentName, AgentVariable ... variables) {
+        if (!agentPrototypes.containsKey(agentName)) {
+            throw new IllegalArgumentException("Unknown agent " + agentName + "!");
+        }
+        storeLayouts.put(agentName, new AgentStoreLayout(variables));
+    }
+
+    /**
+     * Returns the memory layout of the agent with the given name. The layout is empty if no variable has been
+     * declared for the agent.
+     *
+     * @param agentName agent name.
+     * @return the memory layout of the agent with the given name.
+     */
+    public AgentStoreLayout getStoreLayout(String agentName) {
+        return storeLayouts.getOrDefault(agentName, AgentStoreLayout.EMPTY);
+    }
+
+    /**
+     * Sets the function used to build the memory of the agent with the given name. Memories built by the given
+     * function are moved to the layout of the agent, see {@link #getStoreLayout(String)}, so that declared variables
+     * are stored in fixed slots.
+     *
+     * @param agentName agent name.
+     * @param storeFunction function used to build agent memory from agent parameters.
+     */
     public void setStateProvider(String agentName, Function<SlamValue[],AgentStore> storeFunction) {
         AgentPrototype prototype = agentPrototypes.get(agentName);
         if (prototype != null) {
-            prototype.setStoreProvider(storeFunction);
+            prototype.setStoreProvider(getStoreProvider(agentName, storeFunction));
         } else {
             throw new IllegalArgumentException();//TODO: Add message here!
         }
     }
 
+    /**
+     * Returns the function that builds memories with the given function and moves them to the layout of the agent
+     * with the given name. The layout is selected when the memory is built, hence variables can be declared after
+     * the function is set.
+     *
+     * @param agentName agent name.
+     * @param storeFunction function used to build agent memory from agent parameters.
+     * @return the function that builds memories with the layout of the agent with the given name.
+     */
+    Function<SlamValue[],AgentStore> getStoreProvider(String agentName, Function<SlamValue[],AgentStore> storeFunction) {
+        return values -> storeFunction.apply(values).withLayout(getStoreLayout(agentName));
+    }
+
     public void setAgentBehaviour(String agentName, AgentBehaviour agentBehaviour) {
         AgentPrototype prototype = agentPrototypes.get(agentName);
         if (prototype != null) {
@@ -0,0 +1,201 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import java.util.*;
+
+/**
+ * This class is used to partition the agents of a {@link SlamState} so that the receivers of a message can be
+ * selected without scanning all the agents in the system. Agents are always partitioned by prototype. Moreover,
+ * agents can be partitioned according to the values of declared <i>key attributes</i>. Since the memory of an agent
+ * changes over time, the index must be notified, via {@link #update(Agent)} or {@link #updateAll()}, each time the
+ * memory of an agent can be modified.
+ *
+ * Key attributes are compared via {@link SlamValue#equals(Object)}. Real values are compared by their exact value,
+ * hence key attributes are expected to range over a small set of values.
+ */
+public final class AgentIndex {
+
+    private final List<Agent> agents;
+    private final Map<Integer, List<Agent>> prototypes;
+    private final Map<AgentVariable, KeyPartition> keys;
+
+    /**
+     * Creates an empty index.
+     */
+    public AgentIndex() {
+        this.agents = new ArrayList<>();
+        this.prototypes = new HashMap<>();
+        this.keys = new HashMap<>();
+    }
+
+    /**
+     * Adds the given agent to this index.
+     *
+     * @param agent the agent to add.
+     */
+    public void add(Agent agent) {
+        agents.add(agent);
+        prototypes.computeIfAbsent(agent.getAgentPrototype(), p -> new ArrayList<>()).add(agent);
+        keys.values().forEach(k -> k.update(agent));
+    }
+
+    /**
+     * Declares the given variable as a key attribute. Agents already in the index are partitioned according to
+     * their value for the variable.
+     *
+     * @param var the variable to use as a key attribute.
+     */
+    public void addKey(AgentVariable var) {
+        if (!keys.containsKey(var)) {
+            KeyPartition partition = new KeyPartition(var);
+            agents.forEach(partition::update);
+            keys.put(var, partition);
+        }
+    }
+
+    /**
+     * Returns true if the given variable is a key attribute of this index.
+     *
+     * @param var a variable.
+     * @return true if the given variable is a key attribute of this index.
+     */
+    public boolean isKey(AgentVariable var) {
+        return keys.containsKey(var);
+    }
+
+    /**
+     * Returns the number of non-empty partitions induced by the given key attribute, or 0 if the variable is not a
+     * key attribute.
+     *
+     * @param var a variable.
+     * @return the number of non-empty partitions induced by the given key attribute.
+     */
+    int getNumberOfPartitions(AgentVariable var) {
+        KeyPartition partition = keys.get(var);
+        return (partition == null ? 0 : partition.size());
+    }
+
+    /**
+     * Updates the partitions of the given agent after a possible change of its memory.
+     *
+     * @param agent an agent in the index.
+     */
+    public void update(Agent agent) {
+        if (!keys.isEmpty()) {
+            keys.values().forEach(k -> k.update(agent));
+        }
+    }
+
+    /**
+     * Updates the partitions of all the agents in the index.
+     */
+    public void updateAll() {
+        if (!keys.isEmpty()) {
+            keys.values().forEach(k -> agents.forEach(k::update));
+        }
+    }
+
+    /**
+     * Returns all the agents in the index.
+     *
+     * @return all the agents in the index.
+     */
+    public Collection<Agent> getAgents() {
+        return Collections.unmodifiableList(agents);
+    }
+
+    /**
+     * Returns a collection containing all the agents that falls within the scope of the given message. The
+     * returned collection may also contain agents outside the scope, hence {@link AgentMessage#apply} must still be
+     * used to check the actual receivers.
+     *
+     * @param message a message.
+     * @return a collection containing all the agents that falls within the scope of the given message.
+     */
+    public Collection<Agent> getCandidates(AgentMessage message) {
+        return getCandidates(message, true);
+    }
+
+    /**
+     * Returns a collection containing all the agents that falls within the scope of the given message. When
+     * <code>useKeys</code> is false, key partitions are not used to select candidates. This is needed when the
+     * partitions may not reflect the current memory of agents.
+     *
+     * @param message a message.
+     * @param useKeys true if key partitions can be used to select candidates.
+     * @return a collection containing all the agents that falls within the scope of the given message.
+     */
+    public Collection<Agent> getCandidates(AgentMessage message, boolean useKeys) {
+        Collection<Agent> candidates = agents;
+        if (message.getTargetPrototype() >= 0) {
+            candidates = prototypes.getOrDefault(message.getTargetPrototype(), List.of());
+        }
+        KeyPartition partition = (!useKeys || message.getTargetKey() == null ? null : keys.get(message.getTargetKey()));
+        if (partition != null) {
+            Collection<Agent> selected = partition.get(message.getTargetKeyValue());
+            if (selected.size() < candidates.size()) {
+                candidates = selected;
+            }
+        }
+        return Collections.unmodifiableCollection(candidates);
+    }
+
+    private static class KeyPartition {
+
+        private final AgentVariable var;
+        private final Map<SlamValue, Set<Agent>> partitions;
+        private final Map<Integer, SlamValue> values;
+
+        private KeyPartition(AgentVariable var) {
+            this.var = var;
+            this.partitions = new HashMap<>();
+            this.values = new HashMap<>();
+        }
+
+        private void update(Agent agent) {
+            SlamValue value = agent.getAgentMemory().getValue(var);
+            SlamValue old = values.put(agent.agentId(), value);
+            if (!value.equals(old)) {
+                if (old != null) {
+                    Set<Agent> oldPartition = partitions.get(old);
+                    oldPartition.remove(agent);
+                    if (oldPartition.isEmpty()) {
+                        partitions.remove(old);
+                    }
+                }
+                partitions.computeIfAbsent(value, v -> new LinkedHashSet<>()).add(agent);
+            }
+        }
+
+        private Collection<Agent> get(SlamValue value) {
+            return partitions.getOrDefault(value, Set.of());
+        }
+
+        private int size() {
+            return partitions.size();
+        }
+
+    }
+}
@@ -35,6 +35,10 @@ import java.util.function.ToDoubleBiFunction;
 /**
  * The class <code>AgentMessage</code> represents a message exchanged among agents. Each message contains a tag, that
  * is a string, and a sequence of doubles. Each tag is also identified by an integer.
+ *
+ * Besides the target predicate, a message can declare a <i>scope</i> that restricts its receivers to the agents of
+ * a given prototype and/or to the agents having a given value for a key attribute. The scope is used by
+ * {@link SlamState} to select the candidate receivers without testing the predicate on every agent.
  */
 public class AgentMessage {
 
@@ -42,6 +46,9 @@ public class AgentMessage {
     private final SlamValue[] items;
     private final Predicate<Agent> target;
     private final ToDoubleBiFunction<RandomGenerator,Agent> deliveryTime;
+    private final int targetPrototype;
+    private final AgentVariable targetKey;
+    private final SlamValue targetKeyValue;
 
 
     /**
@@ -53,10 +60,82 @@ public class AgentMessage {
      * @param items message items.
      */
     public AgentMessage(MessageTag tag, SlamValue[] items, Predicate<Agent> target, ToDoubleBiFunction<RandomGenerator,Agent> deliveryTime) {
+        this(tag, items, target, deliveryTime, -1, null, null);
+    }
+
+    private AgentMessage(MessageTag tag, SlamValue[] items, Predicate<Agent> target, ToDoubleBiFunction<RandomGenerator,Agent> deliveryTime,
+                         int targetPrototype, AgentVariable targetKey, SlamValue targetKeyValue) {
         this.tag = tag;
         this.items = items;
         this.target = target;
         this.deliveryTime = deliveryTime;
+        this.targetPrototype = targetPrototype;
+        this.targetKey = targetKey;
+        this.targetKeyValue = targetKeyValue;
+    }
+
+    /**
+     * Returns a copy of this message that can be only delivered to agents created from the given prototype.
+     *
+     * @param prototype the identifier of the prototype of receivers.
+     * @return a copy of this message that can be only delivered to agents created from the given prototype.
+     */
+    public AgentMessage toPrototype(int prototype) {
+        return new AgentMessage(tag, items, target, deliveryTime, prototype, targetKey, targetKeyValue);
+    }
+
+    /**
+     * Returns a copy of this message that can be only delivered to agents where the given variable is
+     * associated with the given value.
+     *
+     * @param key a variable in the memory of receivers.
+     * @param value the value of <code>key</code> in the memory of receivers.
+     * @return a copy of this message that can be only delivered to agents where <code>key</code> has value
+     * <code>value</code>.
+     */
+    public AgentMessage toAgentsWith(AgentVariable key, SlamValue value) {
+        return new AgentMessage(tag, items, target, deliveryTime, targetPrototype, key, value);
+    }
+
+    /**
+     * Returns the identifier of the prototype of the agents that can receive this message, or -1 if the message
+     * is not restricted to a prototype.
+     *
+     * @return the identifier of the prototype of the agents that can receive this message, or -1.
+     */
+    public int getTargetPrototype() {
+        return targetPrototype;
+    }
+
+    /**
+     * Returns the variable that receivers must associate with {@link #getTargetKeyValue()}, or null if the
+     * message is not restricted by a key attribute.
+     *
+     * @return the variable that receivers must associate with {@link #getTargetKeyValue()}, or null.
+     */
+    public AgentVariable getTargetKey() {
+        return targetKey;
+    }
+
+    /**
+     * Returns the value that receivers must associate with {@link #getTargetKey()}.
+     *
+     * @return the value that receivers must associate with {@link #getTargetKey()}.
+     */
+    public SlamValue getTargetKeyValue() {
+        return targetKeyValue;
+    }
+
+    /**
+     * Returns true if the given agent falls within the scope of this message, namely if it has the target
+     * prototype and the target key value (when these are specified).
+     *
+     * @param a an agent.
+     * @return true if the given agent falls within the scope of this message.
+     */
+    public boolean isInScope(Agent a) {
+        return ((targetPrototype < 0) || (a.getAgentPrototype() == targetPrototype))
+                && ((targetKey == null) || targetKeyValue.equals(a.getAgentMemory().getValue(targetKey)));
     }
 
     /**
@@ -137,7 +216,7 @@ public class AgentMessage {
      * @return an optional value that contains the message delivered at agent <code>a</code>.
      */
     public Optional<DeliveredMessage> apply(RandomGenerator rg, Agent a) {
-        if (this.target.test(a)) {
+        if (isInScope(a) && this.target.test(a)) {
             return Optional.of(new DeliveredMessage(a, this.tag, this.items, this.deliveryTime.applyAsDouble(rg, a)));
         }
         return Optional.empty();
@@ -27,19 +27,38 @@ import java.util.HashMap;
 import java.util.Map;
 
 /**
- * Represents the memory of an agent.
+ * Represents the memory of an agent. The variables declared in the {@link AgentStoreLayout} of the memory are
+ * stored in fixed slots: real values in a <code>double[]</code>, integer and boolean values in an <code>int[]</code>
+ * and values of other types boxed. Variables that are not declared in the layout are stored in a map.
+ *
+ * The memory of an agent is only accessed by the thread simulating the agent, hence its methods are not
+ * synchronized.
  */
 public final class AgentStore {
 
     private double now;
 
-    private final Map<AgentVariable,SlamValue> content;
+    private final AgentStoreLayout layout;
+    private final double[] reals;
+    private final int[] integers;
+    private final SlamValue[] values;
+    private final boolean[] assigned;
+    private Map<AgentVariable,SlamValue> content;
 
     /**
      * Creates an empty memory at time 0.
      */
     public AgentStore() {
-        this(Map.of());
+        this(AgentStoreLayout.EMPTY);
+    }
+
+    /**
+     * Creates an empty memory at time 0 with the given layout.
+     *
+     * @param layout memory layout.
+     */
+    public AgentStore(AgentStoreLayout layout) {
+        this(0.0, layout, Map.of());
     }
 
     /**
@@ -57,8 +76,33 @@ public final class AgentStore {
      * @param content initial content.
      */
     public AgentStore(double now, Map<AgentVariable, SlamValue> content) {
+        this(now, AgentStoreLayout.EMPTY, content);
+    }
+
+    /**
+     * Creates a new memory at the given time, with the given layout and the given content.
+     *
+     * @param now current time.
+     * @param layout memory layout.
+     * @param content initial content.
+     */
+    public AgentStore(double now, AgentStoreLayout layout, Map<AgentVariable, SlamValue> content) {
         this.now = now;
-        this.content = new HashMap<>(content);
+        this.layout = layout;
+        this.reals = new double[layout.getNumberOfReals()];
+        this.integers = new int[layout.getNumberOfIntegers()];
+        this.values = new SlamValue[layout.getNumberOfValues()];
+        this.assigned = new boolean[layout.size()];
+        content.forEach(this::set);
+    }
+
+    /**
+     * Returns the layout of this memory.
+     *
+     * @return the layout of this memory.
+     */
+    public AgentStoreLayout getLayout() {
+        return layout;
     }
 
     /**
@@ -69,7 +113,80 @@ public final class AgentStore {
      * @return the value of the variable associated with the given index.
      */
     public SlamValue getValue(AgentVariable var) {
-        return content.getOrDefault(var, SlamValue.NONE);
+        int idx = var.getIndex();
+        SlamType.SlamCodeType code = getCode(idx);
+        if (code == null) {
+            return (content == null ? SlamValue.NONE : content.getOrDefault(var, SlamValue.NONE));
+        }
+        if (!assigned[idx]) {
+            return SlamValue.NONE;
+        }
+        int slot = layout.getSlot(idx);
+        switch (code) {
+            case REAL:
+                return SlamValue.REAL_VALUE.apply(reals[slot]);
+            case INTEGER:
+                return SlamValue.INT_VALUE.apply(integers[slot]);
+            case BOOLEAN:
+                return SlamValue.booleanValueOf(integers[slot]);
+            default:
+                return values[slot];
+        }
+    }
+
+    /**
+     * Returns the numeric value associated with the given variable in this memory. Boolean values are
+     * mapped to 1 and 0, while <code>NaN</code> is returned if the variable is not defined or it is not numeric.
+     * Variables declared in the layout are read without boxing.
+     *
+     * @param var variable.
+     * @return the numeric value associated with the given variable in this memory.
+     */
+    public double getReal(AgentVariable var) {
+        int idx = var.getIndex();
+        SlamType.SlamCodeType code = getCode(idx);
+        if ((code == null) || !assigned[idx]) {
+            return getValue(var).toDouble();
+        }
+        switch (code) {
+            case REAL:
+                return reals[layout.getSlot(idx)];
+            case INTEGER:
+            case BOOLEAN:
+                return integers[layout.getSlot(idx)];
+            default:
+                return values[layout.getSlot(idx)].toDouble();
+        }
+    }
+
+    /**
+     * Returns the integer value associated with the given variable in this memory. Boolean values are mapped to
+     * 1 and 0, while real values are truncated. Variables declared in the layout are read without boxing.
+     *
+     * @param var variable.
+     * @return the integer value associated with the given variable in this memory.
+     */
+    public int getInteger(AgentVariable var) {
+        int idx = var.getIndex();
+        SlamType.SlamCodeType code = getCode(idx);
+        if ((code == SlamType.SlamCodeType.INTEGER || code == SlamType.SlamCodeType.BOOLEAN) && assigned[idx]) {
+            return integers[layout.getSlot(idx)];
+        }
+        return (int) getReal(var);
+    }
+
+    /**
+     * Returns true if the given variable is associated with {@link SlamValue#TRUE} in this memory.
+     *
+     * @param var variable.
+     * @return true if the given variable is associated with {@link SlamValue#TRUE} in this memory.
+     */
+    public boolean getBoolean(AgentVariable var) {
+        int idx = var.getIndex();
+        if ((getCode(idx) == SlamType.SlamCodeType.BOOLEAN) && assigned[idx]) {
+            return integers[layout.getSlot(idx)] > 0;
+        }
+        return getValue(var) == SlamValue.TRUE;
     }
 
     /**
@@ -77,26 +194,155 @@ public final class AgentStore {
      *
      * @return the number of cells used in this memory.
      */
-    public synchronized int size() {
-        return content.size();
+    public int size() {
+        int size = (content == null ? 0 : content.size());
+        for (boolean b : assigned) {
+            if (b) {
+                size++;
+            }
+        }
+        return size;
     }
 
     /**
-     * Assigns the given variable with the given value in memory.
+     * Assigns the given variable with the given value in memory. When the variable is declared in the layout,
+     * an {@link IllegalArgumentException} is thrown if the value cannot be stored in the slot of the variable.
+     * Assigning {@link SlamValue#NONE} makes the variable undefined.
+     *
      * @param var variable to assign.
      * @param value  variable value.
      */
-    public synchronized void set(AgentVariable var, SlamValue value) {
-        content.put(var, value);
+    public void set(AgentVariable var, SlamValue value) {
+        int idx = var.getIndex();
+        SlamType.SlamCodeType code = getCode(idx);
+        if (code == null) {
+            if (content == null) {
+                content = new HashMap<>();
+            }
+            content.put(var, value);
+            return;
+        }
+        if (value == SlamValue.NONE) {
+            assigned[idx] = false;
+            return;
+        }
+        SlamType.SlamCodeType valueCode = value.getType() == null ? null : value.getType().code();
+        int slot = layout.getSlot(idx);
+        switch (code) {
+            case REAL:
+            case INTEGER:
+                if ((valueCode != SlamType.SlamCodeType.REAL) && (valueCode != SlamType.SlamCodeType.INTEGER)) {
+                    throw new IllegalArgumentException("Variable " + var.getName() + " cannot be assigned with " + value + "!");
+                }
+                if (code == SlamType.SlamCodeType.REAL) {
+                    reals[slot] = value.toDouble();
+                } else {
+                    integers[slot] = (int) value.toDouble();
+                }
+                break;
+            case BOOLEAN:
+                if (valueCode != SlamType.SlamCodeType.BOOLEAN) {
+                    throw new IllegalArgumentException("Variable " + var.getName() + " cannot be assigned with " + value + "!");
+                }
+                integers[slot] = (value == SlamValue.TRUE ? 1 : 0);
+                break;
+            default:
+                values[slot] = value;
+        }
+        assigned[idx] = true;
+    }
+
+    /**
+     * Assigns the given variable with the given real value. Variables declared in the layout with a numeric type
+     * are assigned without boxing.
+     *
+     * @param var variable to assign.
+     * @param value variable value.
+     */
+    public void setReal(AgentVariable var, double value) {
+        int idx = var.getIndex();
+        SlamType.SlamCodeType code = getCode(idx);
+        if (code == SlamType.SlamCodeType.REAL) {
+            reals[layout.getSlot(idx)] = value;
+            assigned[idx] = true;
+        } else if (code == SlamType.SlamCodeType.INTEGER) {
+            integers[layout.getSlot(idx)] = (int) value;
+            assigned[idx] = true;
+        } else {
+            set(var, SlamValue.REAL_VALUE.apply(value));
+        }
     }
 
-    public synchronized double now() {
+    /**
+     * Assigns the given variable with the given integer value. Variables declared in the layout with a numeric type
+     * are assigned without boxing.
+     *
+     * @param var variable to assign.
+     * @param value variable value.
+     */
+    public void setInteger(AgentVariable var, int value) {
+        int idx = var.getIndex();
+        SlamType.SlamCodeType code = getCode(idx);
+        if (code == SlamType.SlamCodeType.INTEGER) {
+            integers[layout.getSlot(idx)] = value;
+            assigned[idx] = true;
+        } else if (code == SlamType.SlamCodeType.REAL) {
+            reals[layout.getSlot(idx)] = value;
+            assigned[idx] = true;
+        } else {
+            set(var, SlamValue.INT_VALUE.apply(value));
+        }
+    }
+
+    /**
+     * Assigns the given variable with the given boolean value. Variables declared in the layout with boolean type
+     * are assigned without boxing.
+     *
+     * @param var variable to assign.
+     * @param value variable value.
+     */
+    public void setBoolean(AgentVariable var, boolean value) {
+        int idx = var.getIndex();
+        if (getCode(idx) == SlamType.SlamCodeType.BOOLEAN) {
+            integers[layout.getSlot(idx)] = (value ? 1 : 0);
+            assigned[idx] = true;
+        } else {
+            set(var, (value ? SlamValue.TRUE : SlamValue.FALSE));
+        }
+    }
+
+    /**
+     * Returns a memory with the given layout and the same content and time of this one. This memory is returned
+     * when it already has the given layout.
+     *
+     * @param layout memory layout.
+     * @return a memory with the given layout and the same content and time of this one.
+     */
+    public AgentStore withLayout(AgentStoreLayout layout) {
+        if (this.layout == layout) {
+            return this;
+        }
+        AgentStore store = new AgentStore(now, layout, (content == null ? Map.of() : content));
+        for (int i = 0; i < assigned.length; i++) {
+            if (assigned[i]) {
+                AgentVariable var = this.layout.getVariable(i);
+                store.set(var, getValue(var));
+            }
+        }
+        return store;
+    }
+
+    public double now() {
         return now;
     }
 
-    public synchronized void recordTime(double dt) {
+    public void recordTime(double dt) {
         this.now += dt;
 
     }
 
+    private SlamType.SlamCodeType getCode(int idx) {
+        return ((idx >= 0) && (idx < assigned.length) ? layout.getCode(idx) : null);
+    }
+
 }
@@ -0,0 +1,172 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import java.util.Arrays;
+
+/**
+ * The layout of an {@link AgentStore}. A layout assigns to each declared variable a fixed slot: real variables are
+ * stored in a <code>double[]</code>, integer and boolean variables in an <code>int[]</code>, while values of any other
+ * type are stored boxed. Slots are located via the index of variables, so that no hashing is needed to access
+ * agent memory.
+ */
+public final class AgentStoreLayout {
+
+    /**
+     * The layout without any declared variable.
+     */
+    public static final AgentStoreLayout EMPTY = new AgentStoreLayout();
+
+    private final AgentVariable[] variables;
+    private final SlamType.SlamCodeType[] codes;
+    private final int[] slots;
+    private final int numberOfReals;
+    private final int numberOfIntegers;
+    private final int numberOfValues;
+
+    /**
+     * Creates the layout for the given variables. An {@link IllegalArgumentException} is thrown if two variables
+     * have the same index.
+     *
+     * @param variables the variables in the layout.
+     */
+    public AgentStoreLayout(AgentVariable ... variables) {
+        int size = Arrays.stream(variables).mapToInt(AgentVariable::getIndex).max().orElse(-1) + 1;
+        this.variables = new AgentVariable[size];
+        this.codes = new SlamType.SlamCodeType[size];
+        this.slots = new int[size];
+        int reals = 0;
+        int integers = 0;
+        int values = 0;
+        for (AgentVariable var : variables) {
+            int idx = var.getIndex();
+            if (this.variables[idx] != null) {
+                throw new IllegalArgumentException("Duplicated variable index " + idx + "!");
+            }
+            this.variables[idx] = var;
+            this.codes[idx] = var.getType().code();
+            switch (this.codes[idx]) {
+                case REAL:
+                    slots[idx] = reals++;
+                    break;
+                case INTEGER:
+                case BOOLEAN:
+                    slots[idx] = integers++;
+                    break;
+                default:
+                    slots[idx] = values++;
+            }
+        }
+        this.numberOfReals = reals;
+        this.numberOfIntegers = integers;
+        this.numberOfValues = values;
+    }
+
+    /**
+     * Returns true if the given variable has a slot in this layout.
+     *
+     * @param var a variable.
+     * @return true if the given variable has a slot in this layout.
+     */
+    public boolean contains(AgentVariable var) {
+        int idx = var.getIndex();
+        return (idx >= 0) && (idx < variables.length) && (variables[idx] != null);
+    }
+
+    /**
+     * Returns the code of the type of the variable with the given index, or null if no such variable is declared.
+     *
+     * @param idx variable index.
+     * @return the code of the type of the variable with the given index.
+     */
+    SlamType.SlamCodeType getCode(int idx) {
+        return (idx < codes.length ? codes[idx] : null);
+    }
+
+    /**
+     * Returns the variable with the given index, or null if no such variable is declared.
+     *
+     * @param idx variable index.
+     * @return the variable with the given index.
+     */
+    AgentVariable getVariable(int idx) {
+        return (idx < variables.length ? variables[idx] : null);
+    }
+
+    /**
+     * Returns the slot assigned to the variable with the given index.
+     *
+     * @param idx variable index.
+     * @return the slot assigned to the variable with the given index.
+     */
+    int getSlot(int idx) {
+        return slots[idx];
+    }
+
+    /**
+     * Returns the number of variables that can be indexed by this layout.
+     *
+     * @return the number of variables that can be indexed by this layout.
+     */
+    int size() {
+        return variables.length;
+    }
+
+    /**
+     * Returns the number of real slots.
+     *
+     * @return the number of real slots.
+     */
+    public int getNumberOfReals() {
+        return numberOfReals;
+    }
+
+    /**
+     * Returns the number of integer slots, used for both integer and boolean variables.
+     *
+     * @return the number of integer slots.
+     */
+    public int getNumberOfIntegers() {
+        return numberOfIntegers;
+    }
+
+    /**
+     * Returns the number of boxed slots.
+     *
+     * @return the number of boxed slots.
+     */
+    public int getNumberOfValues() {
+        return numberOfValues;
+    }
+
+    /**
+     * Returns a new empty store with this layout.
+     *
+     * @return a new empty store with this layout.
+     */
+    public AgentStore newStore() {
+        return new AgentStore(this);
+    }
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary heap of agent identifiers keyed by a double value. The heap is used to maintain the
+ * minimum (or the maximum) value of an expression over a set of agents when the values change one at a time.
+ */
+final class AgentValueHeap {
+
+    private final boolean max;
+    private int[] heap;
+    private int size;
+    private int[] positions;
+    private double[] keys;
+
+    /**
+     * Creates an empty heap.
+     *
+     * @param max true if the heap gives access to the maximum value, false for the minimum.
+     */
+    AgentValueHeap(boolean max) {
+        this.max = max;
+        this.heap = new int[16];
+        this.positions = new int[16];
+        this.keys = new double[16];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Associates the given agent with the given key. The agent is added to the heap if it is not already present.
+     *
+     * @param agentId agent identifier.
+     * @param key the key associated with the agent.
+     */
+    void set(int agentId, double key) {
+        ensureCapacity(agentId);
+        keys[agentId] = key;
+        int idx = positions[agentId];
+        if (idx < 0) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, 2 * size);
+            }
+            heap[size] = agentId;
+            positions[agentId] = size;
+            siftUp(size++);
+        } else {
+            siftDown(idx);
+            siftUp(positions[agentId]);
+        }
+    }
+
+    /**
+     * Removes the given agent from the heap.
+     *
+     * @param agentId agent identifier.
+     */
+    void remove(int agentId) {
+        int idx = (agentId < positions.length ? positions[agentId] : -1);
+        if (idx < 0) {
+            return;
+        }
+        positions[agentId] = -1;
+        int last = heap[--size];
+        if (idx < size) {
+            heap[idx] = last;
+            positions[last] = idx;
+            siftDown(idx);
+            siftUp(positions[last]);
+        }
+    }
+
+    /**
+     * Returns the key on top of the heap, or <code>NaN</code> if the heap is empty.
+     *
+     * @return the key on top of the heap, or <code>NaN</code> if the heap is empty.
+     */
+    double peek() {
+        return (size == 0 ? Double.NaN : keys[heap[0]]);
+    }
+
+    /**
+     * Returns the number of agents in the heap.
+     *
+     * @return the number of agents in the heap.
+     */
+    int size() {
+        return size;
+    }
+
+    private boolean precedes(int id1, int id2) {
+        int c = Double.compare(keys[id1], keys[id2]);
+        return (max ? c > 0 : c < 0);
+    }
+
+    private void siftUp(int idx) {
+        int id = heap[idx];
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            if (!precedes(id, heap[parent])) {
+                break;
+            }
+            heap[idx] = heap[parent];
+            positions[heap[idx]] = idx;
+            idx = parent;
+        }
+        heap[idx] = id;
+        positions[id] = idx;
+    }
+
+    private void siftDown(int idx) {
+        int id = heap[idx];
+        int half = size >>> 1;
+        while (idx < half) {
+            int child = 2 * idx + 1;
+            if ((child + 1 < size) && precedes(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!precedes(heap[child], id)) {
+                break;
+            }
+            heap[idx] = heap[child];
+            positions[heap[idx]] = idx;
+            idx = child;
+        }
+        heap[idx] = id;
+        positions[id] = idx;
+    }
+
+    private void ensureCapacity(int agentId) {
+        if (agentId >= positions.length) {
+            int length = Math.max(agentId + 1, 2 * positions.length);
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, length);
+            Arrays.fill(positions, oldLength, length, -1);
+            keys = Arrays.copyOf(keys, length);
+        }
+    }
+
+}
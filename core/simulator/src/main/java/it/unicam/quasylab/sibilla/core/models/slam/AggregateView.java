@@ -0,0 +1,187 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An aggregate view maintains the values of an expression over the agents satisfying a filter. The view is
+ * registered in a {@link SlamState} (see {@link SlamState#registerAggregate(ToDoubleFunction, Predicate)}) and it is
+ * updated each time the memory of an agent is changed by the simulation. In this way, counts and sums are available
+ * in constant time while minimum and maximum, that are maintained via two heaps, in logarithmic time.
+ */
+public final class AggregateView {
+
+    private final ToDoubleFunction<AgentStore> expr;
+    private final Predicate<Agent> filter;
+    private final AgentValueHeap minHeap;
+    private final AgentValueHeap maxHeap;
+    private double[] values;
+    private boolean[] included;
+    private boolean[] observed;
+    private int numberOfAgents;
+    private int count;
+    private double sum;
+    private double compensation;
+
+    /**
+     * Creates a view for the given expression on the agents satisfying the given filter. If the expression is
+     * null, the view only counts the agents satisfying the filter. If the filter is null, all the agents are
+     * considered.
+     *
+     * @param expr the expression to aggregate.
+     * @param filter the filter used to select agents.
+     */
+    AggregateView(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
+        this.expr = expr;
+        this.filter = filter;
+        this.minHeap = (expr == null ? null : new AgentValueHeap(false));
+        this.maxHeap = (expr == null ? null : new AgentValueHeap(true));
+        this.values = new double[16];
+        this.included = new boolean[16];
+        this.observed = new boolean[16];
+    }
+
+    /**
+     * Updates this view after a change of the memory of the given agent.
+     *
+     * @param agent an agent.
+     */
+    void update(Agent agent) {
+        int id = agent.agentId();
+        ensureCapacity(id);
+        if (!observed[id]) {
+            observed[id] = true;
+            numberOfAgents++;
+        }
+        boolean in = (filter == null) || filter.test(agent);
+        if (included[id]) {
+            count--;
+            add(-values[id]);
+        }
+        included[id] = in;
+        if (in) {
+            double value = (expr == null ? 0.0 : agent.eval(expr));
+            values[id] = value;
+            count++;
+            add(value);
+            if (expr != null) {
+                minHeap.set(id, value);
+                maxHeap.set(id, value);
+            }
+        } else if (expr != null) {
+            minHeap.remove(id);
+            maxHeap.remove(id);
+        }
+    }
+
+    /**
+     * Returns the number of agents satisfying the filter.
+     *
+     * @return the number of agents satisfying the filter.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the sum of the expression over the agents satisfying the filter.
+     *
+     * @return the sum of the expression over the agents satisfying the filter.
+     */
+    public double getSum() {
+        return sum + compensation;
+    }
+
+    /**
+     * Returns the mean value of the expression over the agents satisfying the filter, or <code>NaN</code> if no
+     * agent satisfies the filter.
+     *
+     * @return the mean value of the expression over the agents satisfying the filter.
+     */
+    public double getMean() {
+        return (count == 0 ? Double.NaN : getSum() / count);
+    }
+
+    /**
+     * Returns the min value of the expression over the agents satisfying the filter, or <code>NaN</code> if no
+     * agent satisfies the filter.
+     *
+     * @return the min value of the expression over the agents satisfying the filter.
+     */
+    public double getMin() {
+        return (minHeap == null ? Double.NaN : minHeap.peek());
+    }
+
+    /**
+     * Returns the max value of the expression over the agents satisfying the filter, or <code>NaN</code> if no
+     * agent satisfies the filter.
+     *
+     * @return the max value of the expression over the agents satisfying the filter.
+     */
+    public double getMax() {
+        return (maxHeap == null ? Double.NaN : maxHeap.peek());
+    }
+
+    /**
+     * Returns true if at least one agent satisfies the filter.
+     *
+     * @return true if at least one agent satisfies the filter.
+     */
+    public boolean exists() {
+        return count > 0;
+    }
+
+    /**
+     * Returns true if all the agents satisfy the filter.
+     *
+     * @return true if all the agents satisfy the filter.
+     */
+    public boolean forAll() {
+        return count == numberOfAgents;
+    }
+
+    private void add(double value) {
+        // Neumaier summation: values are repeatedly added and removed, plain summation would drift.
+        double t = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            compensation += (sum - t) + value;
+        } else {
+            compensation += (value - t) + sum;
+        }
+        sum = t;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id >= values.length) {
+            int length = Math.max(id + 1, 2 * values.length);
+            values = Arrays.copyOf(values, length);
+            included = Arrays.copyOf(included, length);
+            observed = Arrays.copyOf(observed, length);
+        }
+    }
+
+}
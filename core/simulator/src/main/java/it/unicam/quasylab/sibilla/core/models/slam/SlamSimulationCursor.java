@@ -48,6 +48,7 @@ public class SlamSimulationCursor implements SimulatorCursor<SlamState> {
     public boolean step() {
         Activity activity = currentState.nextScheduledActivity();
         if (activity != null) {
+            currentState.timeStep(rg, activity.getScheduledTime());
             activity.execute(rg, currentState);
             return true;
         } else {
@@ -26,24 +26,43 @@ package it.unicam.quasylab.sibilla.core.models.slam;
 import it.unicam.quasylab.sibilla.core.models.State;
 import org.apache.commons.math3.random.RandomGenerator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.function.Predicate;
 import java.util.function.ToDoubleFunction;
 import java.util.stream.Stream;
 
 /**
  * Instances of this class represents an environment where a number of agents are operating.
+ *
+ * By default, when time advances the time passing function and the perception function of all the agents are
+ * applied. When <i>lazy time advancement</i> is enabled, each agent records the last time it has been synchronised
+ * and it is brought up to date only when it is read, scheduled or receives a message. Aggregate queries only
+ * synchronise the agents they touch. In this mode, the memory of an agent that has not been synchronised may
+ * not reflect the partitions of key attributes (see {@link #addKeyAttribute(AgentVariable)}). For this reason,
+ * key partitions are not used to select the receivers of messages, while prototype partitions still are.
+ *
+ * Global expressions that are evaluated repeatedly can be registered as {@link AggregateView}s. Registered views
+ * are incrementally updated when agents change, and the corresponding global queries are answered by the
+ * views instead of scanning all the agents. Views are identified by the identity of expressions and filters.
+ * When lazy time advancement is enabled, a view cannot observe the agents that have not been synchronised yet.
+ * For this reason, in this mode global queries ignore registered views and scan, synchronising them, all the agents
+ * they touch. Views are still kept up to date and are used again when lazy time advancement is disabled.
  */
 public final class SlamState implements State, GlobalStateExpressionEvaluator {
 
     private int agentCounter = 0;
     private final HashMap<Integer,Agent> agents;
+    private final AgentIndex index;
     private double now;
-    private final HashMap<Integer,Activity> agentsActivities;
-    private final PriorityQueue<Activity> scheduledActivities;
+    private final ActivityCalendar scheduledActivities;
+    private boolean lazyTimeAdvancement = false;
+    private RandomGenerator rg;
+    private final Map<ViewKey, AggregateView> views;
 
     public SlamState(AgentFactory ... agents) {
         this(0.0, agents);
@@ -51,80 +70,238 @@ public final class SlamState implements State, GlobalStateExpressionEvaluator {
 
     public SlamState(double now, AgentFactory ... agents) {
         this.agents = new HashMap<>();
+        this.index = new AgentIndex();
         this.now = now;
-        this.scheduledActivities = new PriorityQueue<>();
-        this.agentsActivities = new HashMap<>();
+        this.scheduledActivities = new ActivityCalendar();
+        this.views = new HashMap<>();
         Arrays.stream(agents).forEach(this::addAgent);
     }
 
     public void addAgent(AgentFactory agentFactory) {
         Agent newAgent= agentFactory.getAgent(agentCounter++);
+        newAgent.setSynchronizationTime(now);
         agents.put(newAgent.agentId(), newAgent);
+        index.add(newAgent);
+        views.values().forEach(v -> v.update(newAgent));
+    }
+
+    /**
+     * Enables or disables lazy time advancement. When lazy time advancement is disabled, all the agents are
+     * synchronised with the current time.
+     *
+     * @param lazyTimeAdvancement true if lazy time advancement is enabled.
+     */
+    public void setLazyTimeAdvancement(boolean lazyTimeAdvancement) {
+        this.lazyTimeAdvancement = lazyTimeAdvancement;
+        if (!lazyTimeAdvancement && (rg != null)) {
+            agents.values().forEach(this::synchronize);
+        }
+    }
+
+    /**
+     * Returns true if lazy time advancement is enabled.
+     *
+     * @return true if lazy time advancement is enabled.
+     */
+    public boolean isLazyTimeAdvancement() {
+        return lazyTimeAdvancement;
+    }
+
+    /**
+     * Declares the given variable as a key attribute. Messages targeting agents with a given value for a key
+     * attribute (see {@link AgentMessage#toAgentsWith(AgentVariable, SlamValue)}) are only delivered to the agents
+     * in the corresponding partition.
+     *
+     * @param var the variable to use as a key attribute.
+     */
+    public void addKeyAttribute(AgentVariable var) {
+        index.addKey(var);
+    }
+
+    /**
+     * Registers an aggregate view of the given expression over the agents satisfying the given filter. Once
+     * registered, {@link #getMinOf(ToDoubleFunction, Predicate)}, {@link #getMaxOf(ToDoubleFunction, Predicate)}
+     * and {@link #getMeanOf(ToDoubleFunction, Predicate)} invoked with the same expression and filter are computed
+     * via the view, unless lazy time advancement is enabled. If the filter is null, the view is used by the
+     * corresponding methods without filter.
+     *
+     * @param expr the expression to aggregate.
+     * @param filter the filter used to select agents, or null to consider all the agents.
+     * @return the view of the given expression over the agents satisfying the given filter.
+     */
+    public synchronized AggregateView registerAggregate(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
+        return views.computeIfAbsent(new ViewKey(expr, filter), k -> {
+            AggregateView view = new AggregateView(expr, filter);
+            agents.values().forEach(view::update);
+            return view;
+        });
+    }
+
+    /**
+     * Registers an aggregate view of the given expression over all the agents.
+     *
+     * @param expr the expression to aggregate.
+     * @return the view of the given expression over all the agents.
+     */
+    public AggregateView registerAggregate(ToDoubleFunction<AgentStore> expr) {
+        return registerAggregate(expr, null);
+    }
+
+    /**
+     * Registers a view counting the agents satisfying the given predicate. Once registered, {@link #exists(Predicate)}
+     * and {@link #forAll(Predicate)} invoked with the same predicate are computed via the view.
+     *
+     * @param p a predicate on agents.
+     * @return the view counting the agents satisfying the given predicate.
+     */
+    public AggregateView registerPredicate(Predicate<Agent> p) {
+        return registerAggregate(null, p);
+    }
+
+    private AggregateView getView(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
+        if (lazyTimeAdvancement || views.isEmpty()) {
+            return null;
+        }
+        return views.get(new ViewKey(expr, filter));
     }
 
     @Override
     public synchronized double getMinOf(ToDoubleFunction<AgentStore> expr) {
-        return agents.values().stream().mapToDouble(a -> a.eval(expr)).min().orElse(Double.NaN);
+        AggregateView view = getView(expr, null);
+        if (view != null) {
+            return view.getMin();
+        }
+        return synchronizedStream().mapToDouble(a -> a.eval(expr)).min().orElse(Double.NaN);
     }
 
     @Override
     public synchronized double getMinOf(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
-        return agents.values().stream().filter(filter).mapToDouble(a -> a.eval(expr)).min().orElse(Double.NaN);
+        AggregateView view = getView(expr, filter);
+        if (view != null) {
+            return view.getMin();
+        }
+        return synchronizedStream().filter(filter).mapToDouble(a -> a.eval(expr)).min().orElse(Double.NaN);
     }
 
     @Override
     public synchronized double getMaxOf(ToDoubleFunction<AgentStore> expr) {
-        return agents.values().stream().mapToDouble(a -> a.eval(expr)).max().orElse(Double.NaN);
+        AggregateView view = getView(expr, null);
+        if (view != null) {
+            return view.getMax();
+        }
+        return synchronizedStream().mapToDouble(a -> a.eval(expr)).max().orElse(Double.NaN);
     }
 
     @Override
     public synchronized double getMaxOf(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
-        return agents.values().stream().filter(filter).mapToDouble(a -> a.eval(expr)).max().orElse(Double.NaN);
+        AggregateView view = getView(expr, filter);
+        if (view != null) {
+            return view.getMax();
+        }
+        return synchronizedStream().filter(filter).mapToDouble(a -> a.eval(expr)).max().orElse(Double.NaN);
     }
 
     @Override
     public synchronized double getMeanOf(ToDoubleFunction<AgentStore> expr) {
-        return agents.values().stream().mapToDouble(a -> a.eval(expr)).average().orElse(Double.NaN);
+        AggregateView view = getView(expr, null);
+        if (view != null) {
+            return view.getMean();
+        }
+        return synchronizedStream().mapToDouble(a -> a.eval(expr)).average().orElse(Double.NaN);
     }
 
     @Override
     public synchronized double getMeanOf(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
-        return agents.values().stream().filter(filter).mapToDouble(a -> a.eval(expr)).average().orElse(Double.NaN);
+        AggregateView view = getView(expr, filter);
+        if (view != null) {
+            return view.getMean();
+        }
+        return synchronizedStream().filter(filter).mapToDouble(a -> a.eval(expr)).average().orElse(Double.NaN);
     }
 
     @Override
     public synchronized boolean exists(Predicate<Agent> p) {
-        return agents.values().stream().anyMatch(p);
+        AggregateView view = getView(null, p);
+        if (view != null) {
+            return view.exists();
+        }
+        return synchronizedStream().anyMatch(p);
     }
 
     @Override
     public synchronized boolean forAll(Predicate<Agent> p) {
-        return agents.values().stream().allMatch(p);
+        AggregateView view = getView(null, p);
+        if (view != null) {
+            return view.forAll();
+        }
+        return synchronizedStream().allMatch(p);
     }
 
+    /**
+     * Returns the stream of agents in this state. When lazy time advancement is enabled, agents are synchronised
+     * with the current time as they are consumed.
+     *
+     * @return the stream of agents in this state.
+     */
     public Stream<Agent> stream() {
+        return synchronizedStream();
+    }
+
+    private Stream<Agent> synchronizedStream() {
+        if (lazyTimeAdvancement) {
+            return agents.values().stream().map(a -> {
+                synchronize(a);
+                return a;
+            });
+        }
         return agents.values().stream();
     }
 
+    private void synchronize(Agent agent) {
+        if ((rg != null) && agent.synchronize(rg, this, now)) {
+            agentUpdated(agent);
+        }
+    }
+
+    private void agentUpdated(Agent agent) {
+        index.update(agent);
+        if (!views.isEmpty()) {
+            views.values().forEach(v -> v.update(agent));
+        }
+    }
+
+    /**
+     * Advances the current time to the given value. Unless lazy time advancement is enabled, the time passing
+     * function and the perception function of every agent are applied.
+     *
+     * @param rg random generator used to sample random values.
+     * @param time the new current time.
+     */
     public void timeStep(RandomGenerator rg, double time) {
         double dt = time - now;
         if (dt < 0) {
             throw new IllegalStateException();//TODO: Add Message!
         }
         if (dt > 0) {
-            agents.values().forEach(a -> a.timeStep(rg, dt));
-            agents.values().forEach(a -> a.perceive(rg, this));
+            this.rg = rg;
             now = time;
+            if (!lazyTimeAdvancement) {
+                agents.values().forEach(a -> a.advance(rg, time));
+                agents.values().forEach(a -> a.perceive(rg, this));
+                agents.values().forEach(this::agentUpdated);
+            }
         }
     }
 
     public void executeAgentStep(RandomGenerator rg, Agent agent) {
-        agentsActivities.remove(agent.agentId());
+        scheduledActivities.cancelAgentStep(agent.agentId());
+        synchronize(agent);
         applyActivityResult(rg, agent.execute(rg, this));
     }
 
     private void applyActivityResult(RandomGenerator rg, ActivityResult result) {
         Agent agent = result.getAgent();
+        agentUpdated(agent);
         if (!Double.isNaN(result.getAgent().timeOfNextStep())) {
             assert agent.timeOfNextStep() > now;
             scheduleAgentStep(agent);
@@ -133,38 +310,51 @@ public final class SlamState implements State, GlobalStateExpressionEvaluator {
     }
 
     private void scheduleAgentStep(Agent agent) {
-        Activity activity = new Activity.AgentStepActivity(agent);
-        recordActivity(activity);
-        agentsActivities.put(agent.agentId(), activity);
+        recordActivity(new Activity.AgentStepActivity(agent));
     }
 
+    /**
+     * Sends the given message. Only the agents in the partition selected by the message scope are considered as
+     * possible receivers, and the resulting deliveries are scheduled in a single batch.
+     *
+     * @param rg random generator used to sample random values.
+     * @param sender the agent sending the message.
+     * @param agentMessage the sent message.
+     */
     public void sendMessage(RandomGenerator rg, Agent sender, AgentMessage agentMessage) {
-        this.agents.values()
-                .stream()
-                .filter(a -> a != sender)
-                .map(a -> agentMessage.apply(rg, a))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .forEach(this::scheduleMessage);
+        List<Activity> deliveries = new ArrayList<>();
+        // Synchronising a candidate may move it across partitions, hence candidates are copied.
+        List<Agent> candidates = new ArrayList<>(index.getCandidates(agentMessage, !lazyTimeAdvancement));
+        for (Agent a : candidates) {
+            if (a != sender) {
+                synchronize(a);
+                agentMessage.apply(rg, a).ifPresent(m -> deliveries.add(new Activity.MessageDeliveryActivity(m)));
+            }
+        }
+        scheduledActivities.scheduleAll(deliveries);
     }
 
     public void scheduleMessage(DeliveredMessage m) {
         recordActivity(new Activity.MessageDeliveryActivity(m));
     }
 
+    /**
+     * Schedules the given activity. When the activity is an agent step, it replaces the step previously
+     * scheduled for the same agent.
+     *
+     * @param activity the activity to schedule.
+     */
     public void recordActivity(Activity activity) {
-        this.scheduledActivities.add(activity);
+        this.scheduledActivities.schedule(activity);
     }
 
     public void deliverMessage(RandomGenerator rg, DeliveredMessage message) {
         Agent target = message.getTarget();
+        synchronize(target);
         Optional<ActivityResult> optionalResult = target.receive(rg, this, message);
         if (optionalResult.isPresent()) {
             ActivityResult result = optionalResult.get();
-            Activity activity = agentsActivities.remove(result.getAgent().agentId());
-            if (activity != null) {
-                scheduledActivities.remove(activity);
-            }
+            scheduledActivities.cancelAgentStep(result.getAgent().agentId());
             applyActivityResult(rg, result);
         }
     }
@@ -180,4 +370,28 @@ public final class SlamState implements State, GlobalStateExpressionEvaluator {
     public boolean isTerminal() {
         return scheduledActivities.isEmpty();
     }
+
+    private static final class ViewKey {
+
+        private final ToDoubleFunction<AgentStore> expr;
+        private final Predicate<Agent> filter;
+
+        private ViewKey(ToDoubleFunction<AgentStore> expr, Predicate<Agent> filter) {
+            this.expr = expr;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ViewKey viewKey = (ViewKey) o;
+            return (expr == viewKey.expr) && (filter == viewKey.filter);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(expr) + System.identityHashCode(filter);
+        }
+    }
 }
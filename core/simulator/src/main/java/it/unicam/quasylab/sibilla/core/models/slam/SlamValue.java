@@ -24,6 +24,7 @@
 package it.unicam.quasylab.sibilla.core.models.slam;
 
 import java.util.Arrays;
+import java.util.Objects;
 import java.util.function.*;
 import java.util.stream.IntStream;
 
@@ -503,6 +504,19 @@ public interface SlamValue {
         public SlamValue ifThenElse(Supplier<SlamValue> thenValue, Supplier<SlamValue> elseValue) {
             return (value?thenValue.get():elseValue.get());
         }
+
+        @Override
+        public int hashCode() {
+            return Boolean.hashCode(this.value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            BooleanValue that = (BooleanValue) o;
+            return value == that.value;
+        }
     }
 
     class IntegerValue implements SlamValue {
@@ -899,6 +913,19 @@ public interface SlamValue {
             return this.value;
         }
 
+        @Override
+        public int hashCode() {
+            return Double.hashCode(this.value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            RealValue that = (RealValue) o;
+            return Double.compare(value, that.value) == 0;
+        }
+
     }
 
     class ListValue implements SlamValue {
@@ -978,5 +1005,18 @@ public interface SlamValue {
             }
             return NONE;
         }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(this.elementType) + Arrays.hashCode(this.values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ListValue that = (ListValue) o;
+            return Objects.equals(elementType, that.elementType) && Arrays.equals(values, that.values);
+        }
     }
 }
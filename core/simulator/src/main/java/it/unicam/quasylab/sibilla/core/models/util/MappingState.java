@@ -67,6 +67,15 @@ public class MappingState implements ImmutableState {
     }
 
 
+    /**
+     * Returns the number of variables in this state.
+     *
+     * @return the number of variables in this state.
+     */
+    public int size() {
+        return state.length;
+    }
+
     /**
      * Return the value of variabile with index i as an integer.
      *
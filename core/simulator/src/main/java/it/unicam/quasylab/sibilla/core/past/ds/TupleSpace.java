@@ -22,8 +22,8 @@
  */
 package it.unicam.quasylab.sibilla.core.past.ds;
 
-import it.unicam.quasylab.sibilla.core.simulator.util.ComposedWeightedStructure;
 import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructure;
+import it.unicam.quasylab.sibilla.core.simulator.util.WeightedStructureFactory;
 import it.unicam.quasylab.sibilla.core.simulator.util.Weighter;
 
 import java.util.HashMap;
@@ -37,9 +37,15 @@ public class TupleSpace {
 
 	private Node root;
 	private Weighter<Tuple> weighter;
+	private final WeightedStructureFactory weightedStructureFactory;
 
 	public TupleSpace() {
+		this(WeightedStructureFactory.DEFAULT);
+	}
+
+	public TupleSpace(WeightedStructureFactory weightedStructureFactory) {
 		this.root = new Node();
+		this.weightedStructureFactory = weightedStructureFactory;
 	}
 
 	public class Node {
@@ -88,10 +94,10 @@ public class TupleSpace {
 
 	public WeightedStructure<GetActivity> get(Template t) {
 		LinkedList<Node> lst = collect(t);
-		ComposedWeightedStructure<GetActivity> ws = new ComposedWeightedStructure<GetActivity>();
+		WeightedStructure<GetActivity> ws = weightedStructureFactory.createWeightedStructure();
 		for (Node node : lst) {
 			if (node.occurrences > 0) {
-				ws.add(weight(node), new GetActivity(node));
+				ws = ws.add(weight(node), new GetActivity(node));
 			}
 		}
 		return ws;
@@ -99,10 +105,10 @@ public class TupleSpace {
 
 	public WeightedStructure<Tuple> query(Template t) {
 		LinkedList<Node> lst = collect(t);
-		ComposedWeightedStructure<Tuple> ws = new ComposedWeightedStructure<Tuple>();
+		WeightedStructure<Tuple> ws = weightedStructureFactory.createWeightedStructure();
 		for (Node node : lst) {
 			if (node.occurrences > 0) {
-				ws.add(weight(node), node.t);
+				ws = ws.add(weight(node), node.t);
 			}
 		}
 		return ws;
@@ -24,22 +24,31 @@
 package it.unicam.quasylab.sibilla.core.simulator;
 
 import it.unicam.quasylab.sibilla.core.models.State;
+import org.apache.commons.math3.random.MersenneTwister;
 import org.apache.commons.math3.random.RandomGenerator;
 
 import java.beans.PropertyChangeEvent;
 import java.util.LinkedList;
 import java.util.stream.Collectors;
 
+/**
+ * Base class of simulation managers. Each simulation task is executed with its own random generator,
+ * whose seed is derived from the random generator passed to the manager and from the task index.
+ * The trajectory sampled by a task does not depend on the order in which tasks are executed, so that
+ * experiments can be replicated with any {@link SimulationBackend}.
+ */
 public abstract class AbstractSimulationManager<S extends State> implements SimulationManager<S> {
 
-    private final RandomGenerator random;
+    private final static long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
     private final SimulationMonitor monitor;
     private final LinkedList<Long> executionTime = new LinkedList<>();
     private int counter = 0;
     private boolean running = true;
 
     public AbstractSimulationManager(RandomGenerator random, SimulationMonitor monitor) {
-        this.random = random;
+        this.seed = (random == null ? new DefaultRandomGenerator() : random).nextLong();
         this.monitor = monitor;
         if (this.monitor != null) {
             this.monitor.registerPropertyChangeListener(this::manageSimulationMonitorEvent);
@@ -67,7 +76,26 @@ public abstract class AbstractSimulationManager<S extends State> implements Simu
             throw new IllegalStateException();
         }
         counter++;
-        handleTask(new SimulationTask<>(counter,random,unit));
+        handleTask(new SimulationTask<>(counter,getTaskRandomGenerator(counter),unit));
+    }
+
+    /**
+     * Returns the random generator used by the task with the given index.
+     *
+     * @param index task index.
+     * @return the random generator used by the task with the given index.
+     */
+    protected RandomGenerator getTaskRandomGenerator(int index) {
+        return new MersenneTwister(mix(seed + index * SEED_INCREMENT));
+    }
+
+    /**
+     * SplitMix64 finalizer, used to obtain well distributed seeds from consecutive task indexes.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     protected abstract void handleTask(SimulationTask<S> simulationTask);
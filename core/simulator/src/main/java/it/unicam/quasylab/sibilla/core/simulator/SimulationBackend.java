@@ -0,0 +1,129 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator;
+
+import it.unicam.quasylab.sibilla.core.models.State;
+import org.apache.commons.math3.random.RandomGenerator;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Backends that can be used to execute the replicas of a simulation. Each backend is a
+ * {@link SimulationManagerFactory}: parallel backends create a new executor for each simulation
+ * manager, and the executor is released when the manager is shut down.
+ */
+public enum SimulationBackend implements SimulationManagerFactory {
+
+    /**
+     * Replicas are executed one after the other in the calling thread.
+     */
+    SEQUENTIAL {
+        @Override
+        protected ExecutorService createExecutor() {
+            return null;
+        }
+    },
+
+    /**
+     * Replicas are executed by a pool with a thread for each available processor.
+     */
+    FIXED_POOL {
+        @Override
+        protected ExecutorService createExecutor() {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    },
+
+    /**
+     * Replicas are executed by a work-stealing pool whose parallelism level is the number of
+     * available processors.
+     */
+    WORK_STEALING {
+        @Override
+        protected ExecutorService createExecutor() {
+            return Executors.newWorkStealingPool();
+        }
+    },
+
+    /**
+     * Each replica is executed in a virtual thread. This backend is only available when
+     * the running JVM supports virtual threads.
+     */
+    VIRTUAL_THREADS {
+        @Override
+        protected ExecutorService createExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD).invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException(String.format(UNAVAILABLE_BACKEND_MESSAGE, this));
+            }
+        }
+
+        @Override
+        public boolean isAvailable() {
+            try {
+                Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD);
+                return true;
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+    };
+
+    /**
+     * Default backend used by the runtime.
+     */
+    public final static SimulationBackend DEFAULT = WORK_STEALING;
+
+    private final static String VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+    private final static String UNAVAILABLE_BACKEND_MESSAGE = "Backend %s is not available in this JVM!";
+
+    /**
+     * Returns the executor used to run the replicas of a simulation, or <code>null</code> if replicas
+     * are executed in the calling thread.
+     *
+     * @return the executor used to run the replicas of a simulation.
+     */
+    protected abstract ExecutorService createExecutor();
+
+    /**
+     * Returns true if this backend can be used in the running JVM.
+     *
+     * @return true if this backend can be used in the running JVM.
+     */
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public <S extends State> SimulationManager<S> getSimulationManager(RandomGenerator random, SimulationMonitor monitor) {
+        ExecutorService executor = createExecutor();
+        if (executor == null) {
+            return new SequentialSimulationManager<>(random, monitor);
+        }
+        return new ThreadSimulationManager<>(executor, random, monitor);
+    }
+
+}
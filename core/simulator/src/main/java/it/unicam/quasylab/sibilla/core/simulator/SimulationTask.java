@@ -78,9 +78,10 @@ public class SimulationTask<S extends State> implements Supplier<Long>, Serializ
 		SimulatorCursor<S> cursor = this.unit.getSimulationCursor(this.random);
 		cursor.start();
 		handler.start();
-		handler.sample(cursor.time(), cursor.currentState());
+		boolean retainsStates = handler.retainsStates();
+		handler.sample(cursor.time(), sampledState(cursor, retainsStates));
 		while (!unit.getStoppingPredicate().test(cursor.time(),cursor.currentState())&&(!isCancelled())) {
-			step(handler, cursor);
+			step(handler, cursor, retainsStates);
 		}
 		handler.end(cursor.time());
 		completed(true);
@@ -102,14 +103,22 @@ public class SimulationTask<S extends State> implements Supplier<Long>, Serializ
 		elapsedTime = System.nanoTime() - startTime;
 	}
 
-	private void step(SamplingHandler<S> handler, SimulatorCursor<S> cursor) {
+	private void step(SamplingHandler<S> handler, SimulatorCursor<S> cursor, boolean retainsStates) {
 		if (cursor.step()) {
-			handler.sample(cursor.time(), cursor.currentState());
+			handler.sample(cursor.time(), sampledState(cursor, retainsStates));
 		} else {
 			cancel();
 		}
 	}
 
+	/**
+	 * Returns the state passed to the sampling handler: predicates and measures are evaluated on the
+	 * current state, while a snapshot is only taken when the handler retains the sampled states.
+	 */
+	private S sampledState(SimulatorCursor<S> cursor, boolean retainsStates) {
+		return (retainsStates ? cursor.snapshot() : cursor.currentState());
+	}
+
 	public synchronized void cancel() {
 		if (!this.isCompleted()) {
 			this.status = SimulationStatus.CANCELLED; 			
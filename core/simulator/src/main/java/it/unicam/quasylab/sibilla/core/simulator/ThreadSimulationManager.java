@@ -77,7 +77,7 @@ public class ThreadSimulationManager<S extends State> extends AbstractSimulation
     @Override
     protected synchronized void handleTask(SimulationTask<S> simulationTask) {
         this.pendingTasks++;
-        CompletableFuture.supplyAsync(simulationTask, executor).whenComplete(
+        CompletableFuture.supplyAsync(() -> runTask(simulationTask), executor).whenComplete(
                 (t, e) -> {
                     if (e != null) {
                         LOGGER.warning(e.getLocalizedMessage());
@@ -87,6 +87,18 @@ public class ThreadSimulationManager<S extends State> extends AbstractSimulation
         );
     }
 
+    private Long runTask(SimulationTask<S> simulationTask) {
+        SimulationMonitor monitor = getMonitor();
+        if ((monitor != null) && monitor.isCancelled()) {
+            simulationTask.cancel();
+            return 0L;
+        }
+        notifyMonitorStartIteration(simulationTask.getIndex());
+        Long result = simulationTask.get();
+        notifyMonitorEndIteration(simulationTask.getIndex());
+        return result;
+    }
+
     private synchronized void taskCompleted(SimulationTask<S> simulationTask) {
         this.pendingTasks--;
         notifyAll();
@@ -108,6 +120,9 @@ public class ThreadSimulationManager<S extends State> extends AbstractSimulation
     @Override
     public synchronized void shutdown() throws InterruptedException {
         super.shutdown();
+        while (pendingTasks != 0) {
+            wait();
+        }
         executor.shutdown();
     }
 }
\ No newline at end of file
@@ -47,4 +47,9 @@ public class CompositeSamplingHandler<S> implements SamplingHandler<S> {
     public synchronized void end(double time) {
         handlers.forEach(h -> h.end(time));
     }
+
+    @Override
+    public boolean retainsStates() {
+        return handlers.stream().anyMatch(SamplingHandler::retainsStates);
+    }
 }
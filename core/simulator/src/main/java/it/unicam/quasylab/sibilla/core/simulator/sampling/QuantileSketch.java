@@ -0,0 +1,267 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A KLL sketch (Karnin, Lang and Liberty, <i>Optimal quantile approximation in streams</i>) used to estimate
+ * quantiles of a stream of values in bounded memory. Values are stored in a hierarchy of compactors: items at
+ * level <i>h</i> have weight <i>2<sup>h</sup></i>. When a compactor is full its items are sorted and every other
+ * item is promoted to the next level. The rank of the value returned by {@link #getQuantile(double)} differs from
+ * the requested one by about <code>rankError</code> times the number of values. Sketches can be merged, hence
+ * values collected by different threads, or by different servers, can be combined.
+ * Instances are not thread safe.
+ */
+public class QuantileSketch implements Serializable {
+
+    private static final long serialVersionUID = -2164417722012998457L;
+
+    /**
+     * Default normalized rank error.
+     */
+    public final static double DEFAULT_RANK_ERROR = 0.01;
+
+    private final static double CAPACITY_DECAY = 2.0 / 3.0;
+    private final static int MIN_CAPACITY = 2;
+
+    private final int k;
+    private double[][] levels = new double[0][];
+    private int[] sizes = new int[0];
+    private int storedItems = 0;
+    private int totalCapacity = 0;
+    private long n = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long coin = 0x2545F4914F6CDD1DL;
+
+    /**
+     * Creates an empty sketch with the default rank error.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_RANK_ERROR);
+    }
+
+    /**
+     * Creates an empty sketch with the given normalized rank error.
+     *
+     * @param rankError the normalized rank error, a value in (0,1).
+     */
+    public QuantileSketch(double rankError) {
+        if ((rankError <= 0) || (rankError >= 1)) {
+            throw new IllegalArgumentException("Rank error must be in (0,1)!");
+        }
+        this.k = Math.max(MIN_CAPACITY * 4, (int) Math.ceil(2.0 / rankError));
+        addLevel();
+    }
+
+    private void addLevel() {
+        int h = levels.length;
+        levels = Arrays.copyOf(levels, h + 1);
+        sizes = Arrays.copyOf(sizes, h + 1);
+        levels[h] = new double[k];
+        totalCapacity = 0;
+        for (int i = 0; i <= h; i++) {
+            totalCapacity += capacity(i);
+        }
+    }
+
+    private int capacity(int level) {
+        int depth = levels.length - level - 1;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private void append(int level, double value) {
+        if (level == levels.length) {
+            addLevel();
+        }
+        if (sizes[level] == levels[level].length) {
+            levels[level] = Arrays.copyOf(levels[level], 2 * levels[level].length);
+        }
+        levels[level][sizes[level]++] = value;
+        storedItems++;
+    }
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value a value.
+     */
+    public void add(double value) {
+        n++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        append(0, value);
+        while (storedItems > totalCapacity) {
+            compress();
+        }
+    }
+
+    /**
+     * Adds to this sketch all the values collected by the given one. Both sketches must have the same rank error.
+     *
+     * @param other a sketch.
+     */
+    public void merge(QuantileSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Sketches with different rank error cannot be merged!");
+        }
+        if (other.n == 0) {
+            return;
+        }
+        for (int h = 0; h < other.levels.length; h++) {
+            for (int i = 0; i < other.sizes[h]; i++) {
+                append(h, other.levels[h][i]);
+            }
+        }
+        n += other.n;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        while (storedItems > totalCapacity) {
+            compress();
+        }
+    }
+
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            int size = sizes[h];
+            if (size >= capacity(h)) {
+                double[] items = levels[h];
+                Arrays.sort(items, 0, size);
+                int start = (size % 2 == 1 ? 1 : 0);
+                int offset = start + nextBit();
+                // When the number of items is odd, the smallest one stays at this level.
+                sizes[h] = start;
+                storedItems -= size - start;
+                for (int i = offset; i < size; i += 2) {
+                    append(h + 1, items[i]);
+                }
+                return;
+            }
+        }
+    }
+
+    private int nextBit() {
+        coin ^= coin << 13;
+        coin ^= coin >>> 7;
+        coin ^= coin << 17;
+        return (int) (coin & 1);
+    }
+
+    /**
+     * Returns the number of values added to this sketch.
+     *
+     * @return the number of values added to this sketch.
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * Returns the minimum of the values added to this sketch, or NaN if the sketch is empty.
+     *
+     * @return the minimum of the values added to this sketch.
+     */
+    public double getMin() {
+        return (n == 0 ? Double.NaN : min);
+    }
+
+    /**
+     * Returns the maximum of the values added to this sketch, or NaN if the sketch is empty.
+     *
+     * @return the maximum of the values added to this sketch.
+     */
+    public double getMax() {
+        return (n == 0 ? Double.NaN : max);
+    }
+
+    /**
+     * Returns an estimation of the quantile of the given rank. Rank 0 and rank 1 give the exact minimum and maximum.
+     *
+     * @param rank a value in [0,1].
+     * @return an estimation of the quantile of the given rank, NaN if the sketch is empty.
+     */
+    public double getQuantile(double rank) {
+        return getQuantiles(rank)[0];
+    }
+
+    /**
+     * Returns an estimation of the quantiles of the given ranks. Rank 0 and rank 1 give the exact minimum
+     * and maximum.
+     *
+     * @param ranks values in [0,1].
+     * @return an estimation of the quantiles of the given ranks, NaN values if the sketch is empty.
+     */
+    public double[] getQuantiles(double ... ranks) {
+        double[] result = new double[ranks.length];
+        for (double rank : ranks) {
+            if ((rank < 0) || (rank > 1)) {
+                throw new IllegalArgumentException("Rank must be in [0,1]!");
+            }
+        }
+        if (n == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        double[] values = new double[storedItems];
+        long[] weights = new long[storedItems];
+        int idx = 0;
+        for (int h = 0; h < levels.length; h++) {
+            for (int i = 0; i < sizes[h]; i++) {
+                values[idx] = levels[h][i];
+                weights[idx] = 1L << h;
+                idx++;
+            }
+        }
+        Integer[] order = new Integer[storedItems];
+        for (int i = 0; i < storedItems; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i1, i2) -> Double.compare(values[i1], values[i2]));
+        for (int r = 0; r < ranks.length; r++) {
+            result[r] = quantile(values, weights, order, ranks[r]);
+        }
+        return result;
+    }
+
+    private double quantile(double[] values, long[] weights, Integer[] order, double rank) {
+        if (rank == 0) {
+            return min;
+        }
+        if (rank == 1) {
+            return max;
+        }
+        double target = rank * n;
+        long cumulative = 0;
+        for (int i : order) {
+            cumulative += weights[i];
+            if (cumulative >= target) {
+                return values[i];
+            }
+        }
+        return max;
+    }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import it.unicam.quasylab.sibilla.core.models.MeasureFunction;
+import it.unicam.quasylab.sibilla.core.models.State;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * Sampling function that, for each sampling time, reports the same statistics of {@link DescriptiveStatisticSampling}
+ * (min, first quartile, mean, median, third quartile and max) without storing all the sampled values. Quartiles are
+ * estimated via a {@link QuantileSketch} with a given rank error, while min, mean and max are exact. Like in
+ * {@link SummaryStatisticSampling}, each thread collects its values in its own shard. Shards are merged
+ * when results are requested.
+ */
+public class QuantileSketchSampling<S extends State> extends StatisticSampling<S> {
+
+    private final static double[] RANKS = new double[] { 0.25, 0.5, 0.75 };
+
+    private final int samples;
+    private final double rankError;
+    private final Queue<Shard> shards = new ConcurrentLinkedQueue<>();
+    private transient ThreadLocal<Shard> localShard;
+
+    public static <S extends State> StatisticSampling<S> measure(String name, int samplings, double deadline, double rankError, MeasureFunction<S> m) {
+        return new QuantileSketchSampling<>(samplings, deadline / samplings, new SimpleMeasure<>(name, m), rankError);
+    }
+
+    public QuantileSketchSampling(int samples, double dt, Measure<? super S> measure) {
+        this(samples, dt, measure, QuantileSketch.DEFAULT_RANK_ERROR);
+    }
+
+    public QuantileSketchSampling(int samples, double dt, Measure<? super S> measure, double rankError) {
+        super(measure, dt);
+        this.samples = samples;
+        this.rankError = rankError;
+        init();
+    }
+
+    @Override
+    protected void init() {
+        shards.clear();
+        localShard = ThreadLocal.withInitial(this::createShard);
+    }
+
+    private Shard createShard() {
+        Shard shard = new Shard(samples, rankError);
+        shards.add(shard);
+        return shard;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        localShard = ThreadLocal.withInitial(this::createShard);
+    }
+
+    @Override
+    protected void recordValues(double[] values) {
+        if (values.length != samples) {
+            throw new IllegalArgumentException(
+                    String.format("Expected %d sampled values, but %d were recorded!", samples, values.length));
+        }
+        localShard.get().add(values);
+    }
+
+    /**
+     * Adds to this sampling function all the values collected by the given one. This can be used to combine
+     * data collected in different servers.
+     *
+     * @param other a sampling function with the same number of samples and the same rank error.
+     */
+    public void merge(QuantileSketchSampling<?> other) {
+        if ((other.samples != samples) || (other.rankError != rankError)) {
+            throw new IllegalArgumentException(
+                    "Only sampling functions with the same number of samples and rank error can be merged!");
+        }
+        shards.add(other.collect());
+    }
+
+    private Shard collect() {
+        return shards.parallelStream().collect(() -> new Shard(samples, rankError), Shard::merge, Shard::merge);
+    }
+
+    /**
+     * Returns the rank error of the estimated quartiles.
+     *
+     * @return the rank error of the estimated quartiles.
+     */
+    public double getRankError() {
+        return rankError;
+    }
+
+    @Override
+    public int getSize() {
+        return samples;
+    }
+
+    @Override
+    public double[][] getData() {
+        Shard data = collect();
+        double[][] result = new double[samples][];
+        for (int i = 0; i < samples; i++) {
+            result[i] = getDataRow(data, i);
+        }
+        return result;
+    }
+
+    @Override
+    protected double[] getDataRow(int i) {
+        return getDataRow(collect(), i);
+    }
+
+    private double[] getDataRow(Shard data, int i) {
+        double[] quartiles = data.sketches[i].getQuantiles(RANKS);
+        return new double[] {getTimeOfIndex(i),
+                data.moments.getMin(i),
+                quartiles[0],
+                data.moments.getMean(i),
+                quartiles[1],
+                quartiles[2],
+                data.moments.getMax(i)
+        };
+    }
+
+    @Override
+    public void printTimeSeries(Function<String, String> nameFunction, char separator, double significance) throws FileNotFoundException {
+        String fileName = nameFunction.apply(this.getName());
+        PrintStream out = new PrintStream(fileName);
+        for (double[] row: getData()) {
+            out.printf("%f",row[0]);
+            for (int j = 1; j < row.length; j++) {
+                out.printf("%c%f", separator, row[j]);
+            }
+            out.println();
+        }
+        out.close();
+    }
+
+    /**
+     * Values collected by a single thread.
+     */
+    private static class Shard implements Serializable {
+
+        private static final long serialVersionUID = 6121558707423452413L;
+
+        private final SummaryAccumulator moments;
+        private final QuantileSketch[] sketches;
+
+        private Shard(int samples, double rankError) {
+            this.moments = new SummaryAccumulator(samples);
+            this.sketches = new QuantileSketch[samples];
+            for (int i = 0; i < samples; i++) {
+                sketches[i] = new QuantileSketch(rankError);
+            }
+        }
+
+        private void add(double[] values) {
+            moments.add(values);
+            for (int i = 0; i < values.length; i++) {
+                sketches[i].add(values[i]);
+            }
+        }
+
+        private void merge(Shard other) {
+            moments.merge(other.moments);
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i].merge(other.sketches[i]);
+            }
+        }
+
+    }
+
+}
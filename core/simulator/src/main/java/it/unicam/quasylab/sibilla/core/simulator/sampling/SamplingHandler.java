@@ -53,5 +53,15 @@ public interface SamplingHandler<S> {
      */
     void end(double time);
 
+    /**
+     * Returns true if this handler retains the states passed to {@link SamplingHandler#sample(double, S)}.
+     * Handlers that do not retain states may receive states that are updated in place after the sampling.
+     *
+     * @return true if this handler retains the sampled states.
+     */
+    default boolean retainsStates() {
+        return false;
+    }
+
 
 }
@@ -87,6 +87,10 @@ public abstract class StatisticSampling<S extends State> implements SamplingFunc
 
     protected abstract double[] getDataRow(int i);
 
+    /**
+     * Collects the values sampled along a single trajectory. Each collector is used by a single simulation
+     * task, values are then passed to {@link #recordValues(double[])} when the trajectory ends.
+     */
     protected class StatisticsCollector implements SamplingHandler<S> {
             private final double[] values = new double[getSize()];
             private double last_measure = Double.NaN;
@@ -95,7 +99,7 @@ public abstract class StatisticSampling<S extends State> implements SamplingFunc
             private double new_measure = Double.NaN;
 
         @Override
-            public synchronized void sample(double time, S context) {
+            public void sample(double time, S context) {
                 this.new_measure = measure.measure(context);
                 if ((time >= this.next_time) && (this.current_index < getSize())) {
                     recordMeasure(time);
@@ -120,7 +124,7 @@ public abstract class StatisticSampling<S extends State> implements SamplingFunc
             }
 
             @Override
-            public synchronized void end(double time) {
+            public void end(double time) {
                 while (this.current_index < getSize()) {
                     recordSample();
                 }
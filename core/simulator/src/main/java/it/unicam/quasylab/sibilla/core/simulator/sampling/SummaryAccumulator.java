@@ -0,0 +1,185 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Collects count, mean, second central moment, min and max of a sequence of samples for each
+ * time index. Values are added with Welford's algorithm, while two accumulators are combined with
+ * the parallel algorithm of Chan et al. Instances are not thread safe: each thread is expected to
+ * fill its own accumulator, and accumulators are merged when results are needed.
+ */
+public class SummaryAccumulator implements Serializable {
+
+    private static final long serialVersionUID = 4360386052624617295L;
+
+    private long n;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] min;
+    private final double[] max;
+
+    /**
+     * Creates an empty accumulator for the given number of time indexes.
+     *
+     * @param size number of time indexes.
+     */
+    public SummaryAccumulator(int size) {
+        this.mean = new double[size];
+        this.m2 = new double[size];
+        this.min = new double[size];
+        this.max = new double[size];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Returns the accumulator obtained by merging all the given accumulators.
+     *
+     * @param size number of time indexes.
+     * @param accumulators accumulators to merge.
+     * @return the accumulator obtained by merging all the given accumulators.
+     */
+    public static SummaryAccumulator mergeAll(int size, Collection<SummaryAccumulator> accumulators) {
+        return accumulators.parallelStream().collect(() -> new SummaryAccumulator(size), SummaryAccumulator::merge, SummaryAccumulator::merge);
+    }
+
+    /**
+     * Adds a sample, namely a value for each time index.
+     *
+     * @param values sampled values.
+     */
+    public void add(double[] values) {
+        if (values.length != mean.length) {
+            throw new IllegalArgumentException();
+        }
+        n++;
+        for (int i = 0; i < values.length; i++) {
+            double delta = values[i] - mean[i];
+            mean[i] += delta / n;
+            m2[i] += delta * (values[i] - mean[i]);
+            min[i] = Math.min(min[i], values[i]);
+            max[i] = Math.max(max[i], values[i]);
+        }
+    }
+
+    /**
+     * Adds to this accumulator all the samples collected by the given one.
+     *
+     * @param other an accumulator.
+     */
+    public void merge(SummaryAccumulator other) {
+        if (other.mean.length != mean.length) {
+            throw new IllegalArgumentException();
+        }
+        if (other.n == 0) {
+            return;
+        }
+        long total = n + other.n;
+        for (int i = 0; i < mean.length; i++) {
+            double delta = other.mean[i] - mean[i];
+            mean[i] += delta * other.n / total;
+            m2[i] += other.m2[i] + delta * delta * ((double) n * other.n / total);
+            min[i] = Math.min(min[i], other.min[i]);
+            max[i] = Math.max(max[i], other.max[i]);
+        }
+        n = total;
+    }
+
+    /**
+     * Returns the number of collected samples.
+     *
+     * @return the number of collected samples.
+     */
+    public long getN() {
+        return n;
+    }
+
+    /**
+     * Returns the number of time indexes.
+     *
+     * @return the number of time indexes.
+     */
+    public int size() {
+        return mean.length;
+    }
+
+    /**
+     * Returns the mean of the values at the given time index, or NaN if no sample has been collected.
+     *
+     * @param i time index.
+     * @return the mean of the values at the given time index.
+     */
+    public double getMean(int i) {
+        return (n == 0 ? Double.NaN : mean[i]);
+    }
+
+    /**
+     * Returns the (bias corrected) variance of the values at the given time index. This is 0 when a single sample
+     * has been collected, and NaN if no sample has been collected.
+     *
+     * @param i time index.
+     * @return the variance of the values at the given time index.
+     */
+    public double getVariance(int i) {
+        if (n == 0) {
+            return Double.NaN;
+        }
+        return (n == 1 ? 0.0 : m2[i] / (n - 1));
+    }
+
+    /**
+     * Returns the standard deviation of the values at the given time index.
+     *
+     * @param i time index.
+     * @return the standard deviation of the values at the given time index.
+     */
+    public double getStandardDeviation(int i) {
+        return Math.sqrt(getVariance(i));
+    }
+
+    /**
+     * Returns the minimum of the values at the given time index, or NaN if no sample has been collected.
+     *
+     * @param i time index.
+     * @return the minimum of the values at the given time index.
+     */
+    public double getMin(int i) {
+        return (n == 0 ? Double.NaN : min[i]);
+    }
+
+    /**
+     * Returns the maximum of the values at the given time index, or NaN if no sample has been collected.
+     *
+     * @param i time index.
+     * @return the maximum of the values at the given time index.
+     */
+    public double getMax(int i) {
+        return (n == 0 ? Double.NaN : max[i]);
+    }
+
+}
@@ -26,21 +26,30 @@ package it.unicam.quasylab.sibilla.core.simulator.sampling;
 import it.unicam.quasylab.sibilla.core.models.MeasureFunction;
 import it.unicam.quasylab.sibilla.core.models.State;
 import org.apache.commons.math3.distribution.TDistribution;
-import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
 
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.PrintStream;
-import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.function.Function;
 
 
 /**
+ * Sampling function that, for each sampling time, collects mean and standard deviation of a measure.
+ * Values of each thread are collected in a {@link SummaryAccumulator} that is not shared with other threads,
+ * so that replicas executed in parallel do not contend for a lock. Accumulators are merged only when
+ * results are requested.
+ *
  * @author loreti
  *
  */
 public class SummaryStatisticSampling<S extends State> extends StatisticSampling<S> {
 
-	private final SummaryStatistics[] data;
+	private final int samples;
+	private final Queue<SummaryAccumulator> shards = new ConcurrentLinkedQueue<>();
+	private transient ThreadLocal<SummaryAccumulator> localShard;
 
 	public static <S extends State> StatisticSampling<S> measure(String name, int samplings, double deadline, MeasureFunction<S> m) {
 		return new SummaryStatisticSampling<>(samplings, deadline / samplings,
@@ -64,25 +73,42 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 
 	public SummaryStatisticSampling(int samples, double dt, Measure<? super S> measure) {
 		super(measure, dt);
-		this.data = new SummaryStatistics[samples];
+		this.samples = samples;
 		init();
 	}
 
 	@Override
 	protected void init() {
-		for (int i = 0; i < data.length; i++) {
-			data[i] = new SummaryStatistics();
-		}
+		shards.clear();
+		localShard = ThreadLocal.withInitial(this::createShard);
+	}
+
+	private SummaryAccumulator createShard() {
+		SummaryAccumulator shard = new SummaryAccumulator(samples);
+		shards.add(shard);
+		return shard;
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		localShard = ThreadLocal.withInitial(this::createShard);
 	}
 
 	@Override
-	protected synchronized void recordValues(double[] values) {
-		if (values.length != data.length) {
+	protected void recordValues(double[] values) {
+		if (values.length != samples) {
 			throw new IllegalArgumentException();//TODO: Add Message!
 		}
-		for(int i=0; i<values.length; i++) {
-			data[i].addValue(values[i]);
-		}
+		localShard.get().add(values);
+	}
+
+	/**
+	 * Returns the statistics collected so far by all the threads.
+	 *
+	 * @return the statistics collected so far by all the threads.
+	 */
+	public SummaryAccumulator getStatistics() {
+		return SummaryAccumulator.mergeAll(samples, shards);
 	}
 
 
@@ -91,11 +117,12 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 
 		String fileName = nameFunction.apply(this.getName());
 		PrintStream out = new PrintStream(fileName);
+		SummaryAccumulator data = getStatistics();
 		double time = 0.0;
-		for (int i = 0; i < this.data.length; i++) {
-			double ci = getConfidenceInterval(i,significance);
+		for (int i = 0; i < samples; i++) {
+			double ci = getConfidenceInterval(data, i,significance);
 			out.println(""+time + separator 
-					+ this.data[i].getMean() 
+					+ data.getMean(i)
 					+ separator + ci);
 			time += dt;
 		}
@@ -103,20 +130,34 @@ public class SummaryStatisticSampling<S extends State> extends StatisticSampling
 	}
 	
 	
-	private double getConfidenceInterval(int i, double significance) {
-		TDistribution tDist = new TDistribution(this.data[i].getN());
+	private double getConfidenceInterval(SummaryAccumulator data, int i, double significance) {
+		TDistribution tDist = new TDistribution(data.getN());
 		double a = tDist.inverseCumulativeProbability(1.0 -significance/2);
-		return a*this.data[i].getStandardDeviation() / Math.sqrt(this.data[i].getN());
+		return a*data.getStandardDeviation(i) / Math.sqrt(data.getN());
 	}
 
 	@Override
 	public int getSize() {
-		return data.length;
+		return samples;
+	}
+
+	@Override
+	public double[][] getData() {
+		SummaryAccumulator data = getStatistics();
+		double[][] result = new double[samples][];
+		for (int i = 0; i < samples; i++) {
+			result[i] = getDataRow(data, i);
+		}
+		return result;
 	}
 
 	@Override
 	protected double[] getDataRow(int i) {
-		return new double[] { getTimeOfIndex(i), data[i].getMean(), data[i].getStandardDeviation(), getConfidenceInterval(i, 0.05)};
+		return getDataRow(getStatistics(), i);
+	}
+
+	private double[] getDataRow(SummaryAccumulator data, int i) {
+		return new double[] { getTimeOfIndex(i), data.getMean(i), data.getStandardDeviation(i), getConfidenceInterval(data, i, 0.05)};
 	}
 
 }
\ No newline at end of file
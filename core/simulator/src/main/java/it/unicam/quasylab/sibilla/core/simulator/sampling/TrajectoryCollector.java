@@ -72,6 +72,11 @@ public class TrajectoryCollector<S> implements Supplier<SamplingHandler<S>> {
             public void end(double time) {
                 recordTrajectory(this.trajectory);
             }
+
+            @Override
+            public boolean retainsStates() {
+                return true;
+            }
         };
     }
 }
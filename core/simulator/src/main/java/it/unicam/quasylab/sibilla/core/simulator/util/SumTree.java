@@ -0,0 +1,140 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A complete binary tree of non negative weights stored in a flat array. Each internal node stores the sum of
+ * the weights in its subtree. Both updating a weight and selecting an element with respect to a given cumulative
+ * weight require O(log n) operations. Since each update recomputes the sums along the path from the updated leaf
+ * to the root, rounding errors do not accumulate across updates.
+ */
+public class SumTree implements Serializable {
+
+    private static final long serialVersionUID = -2287165453283520455L;
+
+    private final int size;
+    private final int capacity;
+    private final double[] tree;
+
+    /**
+     * Creates a new tree with the given number of elements. All the weights are initially 0.
+     *
+     * @param size number of elements in the tree.
+     */
+    public SumTree(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.size = size;
+        int c = 1;
+        while (c < size) {
+            c = c << 1;
+        }
+        this.capacity = c;
+        this.tree = new double[2 * c];
+    }
+
+    /**
+     * Returns the number of elements in the tree.
+     *
+     * @return the number of elements in the tree.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the weight of the i-th element.
+     *
+     * @param i element index.
+     * @return the weight of the i-th element.
+     */
+    public double get(int i) {
+        return tree[capacity + i];
+    }
+
+    /**
+     * Sets the weight of the i-th element.
+     *
+     * @param i element index.
+     * @param w new weight.
+     */
+    public void set(int i, double w) {
+        if ((i < 0) || (i >= size)) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        int node = capacity + i;
+        tree[node] = w;
+        node = node >> 1;
+        while (node > 0) {
+            tree[node] = tree[2 * node] + tree[2 * node + 1];
+            node = node >> 1;
+        }
+    }
+
+    /**
+     * Returns the sum of all the weights in the tree.
+     *
+     * @return the sum of all the weights in the tree.
+     */
+    public double getTotalWeight() {
+        return tree[1];
+    }
+
+    /**
+     * Returns the index of the element selected by the given cumulative weight, that is the smallest index
+     * <code>i</code> such that the sum of the weights of elements <code>0,...,i</code> is greater than <code>w</code>.
+     * Elements with weight 0 are never selected. The value -1 is returned if the total weight is 0.
+     *
+     * @param w a value between 0 and the total weight.
+     * @return the index of the element selected by the given cumulative weight.
+     */
+    public int select(double w) {
+        if (tree[1] <= 0) {
+            return -1;
+        }
+        int node = 1;
+        while (node < capacity) {
+            int left = 2 * node;
+            if ((w < tree[left]) || (tree[left + 1] <= 0)) {
+                node = left;
+            } else {
+                w -= tree[left];
+                node = left + 1;
+            }
+        }
+        return node - capacity;
+    }
+
+    /**
+     * Sets all the weights to 0.
+     */
+    public void clear() {
+        Arrays.fill(tree, 0.0);
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An array based {@link WeightedStructure} that implements the alias method of Walker (in the variant proposed
+ * by Vose). The alias table is built, in O(n), the first time an element is selected after the structure has been
+ * modified. After that, each selection requires O(1) operations. This structure is therefore convenient when weights
+ * do not change while several elements are selected.
+ *
+ * Differently from other structures, the element selected by <code>select(w)</code> is not the one whose
+ * cumulative weight covers <code>w</code>. However, when <code>w</code> is uniformly distributed in
+ * <code>[0, getTotalWeight())</code>, each element is selected with a probability proportional to its weight.
+ *
+ * @param <S> type of elements in the structure.
+ */
+public class WeightedAliasTable<S> implements WeightedStructure<S> {
+
+    private final ArrayList<WeightedElement<S>> elements;
+    private double totalWeight = 0.0;
+    private double[] probabilities;
+    private int[] aliases;
+    private boolean built = false;
+
+    /**
+     * Creates an empty structure.
+     */
+    public WeightedAliasTable() {
+        this.elements = new ArrayList<>();
+    }
+
+    /**
+     * Returns the number of elements in this structure.
+     *
+     * @return the number of elements in this structure.
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public WeightedElement<S> select(double w) {
+        int size = elements.size();
+        if ((size == 0) || (totalWeight <= 0.0)) {
+            return null;
+        }
+        build();
+        double u = (w / totalWeight) * size;
+        int i = Math.max(0, Math.min((int) u, size - 1));
+        if (u - i < probabilities[i]) {
+            return elements.get(i);
+        }
+        return elements.get(aliases[i]);
+    }
+
+    private void build() {
+        if (built) {
+            return;
+        }
+        int size = elements.size();
+        probabilities = new double[size];
+        aliases = new int[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCounter = 0;
+        int largeCounter = 0;
+        int lastPositive = -1;
+        for (int i = 0; i < size; i++) {
+            double w = elements.get(i).getWeight();
+            probabilities[i] = (w * size) / totalWeight;
+            aliases[i] = i;
+            if (w > 0) {
+                lastPositive = i;
+            }
+            if (probabilities[i] < 1.0) {
+                small[smallCounter++] = i;
+            } else {
+                large[largeCounter++] = i;
+            }
+        }
+        while ((smallCounter > 0) && (largeCounter > 0)) {
+            int s = small[--smallCounter];
+            int l = large[--largeCounter];
+            aliases[s] = l;
+            probabilities[l] = (probabilities[l] + probabilities[s]) - 1.0;
+            if (probabilities[l] < 1.0) {
+                small[smallCounter++] = l;
+            } else {
+                large[largeCounter++] = l;
+            }
+        }
+        while (largeCounter > 0) {
+            probabilities[large[--largeCounter]] = 1.0;
+        }
+        while (smallCounter > 0) {
+            int s = small[--smallCounter];
+            if (elements.get(s).getWeight() > 0) {
+                probabilities[s] = 1.0;
+            } else {
+                probabilities[s] = 0.0;
+                aliases[s] = lastPositive;
+            }
+        }
+        built = true;
+    }
+
+    @Override
+    public WeightedStructure<S> add(double w, S s) {
+        return add(new WeightedElement<>(w, s));
+    }
+
+    /**
+     * Adds the given element to this structure.
+     *
+     * @param we the element to add.
+     * @return this structure.
+     */
+    public WeightedStructure<S> add(WeightedElement<S> we) {
+        if (we.getWeight() < 0) {
+            throw new IllegalArgumentException();
+        }
+        elements.add(we);
+        totalWeight += we.getWeight();
+        built = false;
+        return this;
+    }
+
+    @Override
+    public WeightedStructure<S> add(WeightedStructure<S> s) {
+        for (WeightedElement<S> we : s.getAll()) {
+            add(we);
+        }
+        return this;
+    }
+
+    @Override
+    public List<WeightedElement<S>> getAll() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    @Override
+    public String toString() {
+        return elements.toString();
+    }
+
+}
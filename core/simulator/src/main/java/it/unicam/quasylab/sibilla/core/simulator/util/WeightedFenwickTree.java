@@ -0,0 +1,201 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An array based {@link WeightedStructure} where weights are organised in a Fenwick tree. The tree is built,
+ * in O(n), the first time an element is selected after some elements have been added. After that, both the update
+ * of a weight (see {@link WeightedFenwickTree#set(int, double)}) and the selection of an element require
+ * O(log n) operations.
+ *
+ * @param <S> type of elements in the structure.
+ */
+public class WeightedFenwickTree<S> implements WeightedStructure<S> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final ArrayList<WeightedElement<S>> elements;
+    private double[] tree;
+    private double totalWeight = 0.0;
+    private boolean built = true;
+
+    /**
+     * Creates an empty structure.
+     */
+    public WeightedFenwickTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty structure with the given initial capacity.
+     *
+     * @param capacity initial capacity.
+     */
+    public WeightedFenwickTree(int capacity) {
+        this.elements = new ArrayList<>(capacity);
+        this.tree = new double[capacity + 1];
+    }
+
+    /**
+     * Returns the number of elements in this structure.
+     *
+     * @return the number of elements in this structure.
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Returns the element at the given index.
+     *
+     * @param i element index.
+     * @return the element at the given index.
+     */
+    public WeightedElement<S> get(int i) {
+        return elements.get(i);
+    }
+
+    /**
+     * Sets the weight of the element at the given index.
+     *
+     * @param i element index.
+     * @param w new weight.
+     */
+    public void set(int i, double w) {
+        if (w < 0) {
+            throw new IllegalArgumentException();
+        }
+        WeightedElement<S> old = elements.get(i);
+        elements.set(i, new WeightedElement<>(w, old.getElement()));
+        double delta = w - old.getWeight();
+        totalWeight += delta;
+        if (built) {
+            for (int j = i + 1; j < tree.length; j += (j & -j)) {
+                tree[j] += delta;
+            }
+        }
+    }
+
+    @Override
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    @Override
+    public WeightedElement<S> select(double w) {
+        int size = elements.size();
+        if ((size == 0) || (totalWeight <= 0.0)) {
+            return null;
+        }
+        build();
+        int pos = 0;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = pos + step;
+            if ((next <= size) && (tree[next] <= w)) {
+                pos = next;
+                w -= tree[next];
+            }
+        }
+        if (pos == size) {
+            pos = lastPositive();
+        }
+        return elements.get(pos);
+    }
+
+    private int lastPositive() {
+        int i = elements.size() - 1;
+        while (elements.get(i).getWeight() <= 0.0) {
+            i--;
+        }
+        return i;
+    }
+
+    private void build() {
+        if (built) {
+            return;
+        }
+        int size = elements.size();
+        if (tree.length <= size) {
+            tree = new double[Math.max(size + 1, 2 * tree.length)];
+        } else {
+            Arrays.fill(tree, 0.0);
+        }
+        totalWeight = 0.0;
+        for (int i = 1; i <= size; i++) {
+            double w = elements.get(i - 1).getWeight();
+            totalWeight += w;
+            tree[i] += w;
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+        built = true;
+    }
+
+    @Override
+    public WeightedStructure<S> add(double w, S s) {
+        return add(new WeightedElement<>(w, s));
+    }
+
+    /**
+     * Adds the given element to this structure.
+     *
+     * @param we the element to add.
+     * @return this structure.
+     */
+    public WeightedStructure<S> add(WeightedElement<S> we) {
+        if (we.getWeight() < 0) {
+            throw new IllegalArgumentException();
+        }
+        elements.add(we);
+        totalWeight += we.getWeight();
+        built = false;
+        return this;
+    }
+
+    @Override
+    public WeightedStructure<S> add(WeightedStructure<S> s) {
+        for (WeightedElement<S> we : s.getAll()) {
+            add(we);
+        }
+        return this;
+    }
+
+    @Override
+    public List<WeightedElement<S>> getAll() {
+        return Collections.unmodifiableList(elements);
+    }
+
+    @Override
+    public String toString() {
+        return elements.toString();
+    }
+
+}
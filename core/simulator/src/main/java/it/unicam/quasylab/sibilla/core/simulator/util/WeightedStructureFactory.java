@@ -0,0 +1,70 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+/**
+ * Identifies the available implementations of {@link WeightedStructure} that can be used to collect
+ * the transitions enabled in a state.
+ */
+public enum WeightedStructureFactory {
+
+    /**
+     * Elements are stored in a {@link WeightedLinkedList}: insertion is O(1) while selection is O(n).
+     */
+    LINKED_LIST,
+
+    /**
+     * Elements are stored in a {@link WeightedFenwickTree}: both updates and selections are O(log n).
+     */
+    FENWICK_TREE,
+
+    /**
+     * Elements are stored in a {@link WeightedAliasTable}: selection is O(1) while each modification
+     * requires the table to be rebuilt.
+     */
+    ALIAS_TABLE;
+
+    /**
+     * The implementation used when none is specified.
+     */
+    public static final WeightedStructureFactory DEFAULT = LINKED_LIST;
+
+    /**
+     * Returns a new empty weighted structure.
+     *
+     * @param <S> type of elements in the structure.
+     * @return a new empty weighted structure.
+     */
+    public <S> WeightedStructure<S> createWeightedStructure() {
+        switch (this) {
+            case FENWICK_TREE:
+                return new WeightedFenwickTree<>();
+            case ALIAS_TABLE:
+                return new WeightedAliasTable<>();
+            default:
+                return new WeightedLinkedList<>();
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.util;
+
+import org.apache.commons.math3.distribution.BinomialDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * Utility methods used to sample binomial and multinomial distributions in time that does not depend on the number
+ * of trials. When the expected number of successes is small, values are sampled by sequential inversion, whose
+ * cost is proportional to the expected value. Otherwise, the inverse of the cumulative distribution function is
+ * computed by bisection, whose cost is logarithmic in the number of trials.
+ */
+public final class BinomialSampler {
+
+	private static final double INVERSION_THRESHOLD = 30.0;
+
+	private BinomialSampler() {
+	}
+
+	/**
+	 * Returns a value sampled from the binomial distribution with the given parameters.
+	 *
+	 * @param rg random generator.
+	 * @param n number of trials.
+	 * @param p probability of success.
+	 * @return the number of successes in <code>n</code> trials.
+	 */
+	public static int sample(RandomGenerator rg, int n, double p) {
+		if ((n <= 0)||(p <= 0.0)) {
+			return 0;
+		}
+		if (p >= 1.0) {
+			return n;
+		}
+		if (p > 0.5) {
+			return n-sample(rg, n, 1.0-p);
+		}
+		if (n*p < INVERSION_THRESHOLD) {
+			return inversion(rg, n, p);
+		}
+		return new BinomialDistribution(rg, n, p).sample();
+	}
+
+	private static int inversion(RandomGenerator rg, int n, double p) {
+		double q = 1.0-p;
+		double s = p/q;
+		double a = (n+1)*s;
+		double r0 = Math.exp(n*Math.log1p(-p));
+		while (true) {
+			double r = r0;
+			double u = rg.nextDouble();
+			int x = 0;
+			while (u > r) {
+				u -= r;
+				x++;
+				if (x > n) {
+					break;
+				}
+				r *= a/x-s;
+			}
+			if (x <= n) {
+				return x;
+			}
+		}
+	}
+
+	/**
+	 * Returns an index sampled with the given probabilities. The last index is returned when the probabilities sum
+	 * up to less than the sampled value.
+	 *
+	 * @param rg random generator.
+	 * @param probabilities probability of each index.
+	 * @return an index sampled with the given probabilities.
+	 */
+	public static int categorical(RandomGenerator rg, double[] probabilities) {
+		double u = rg.nextDouble();
+		double sum = 0.0;
+		for (int i = 0; i < probabilities.length-1; i++) {
+			sum += probabilities[i];
+			if (u < sum) {
+				return i;
+			}
+		}
+		return probabilities.length-1;
+	}
+
+	/**
+	 * Distributes <code>n</code> elements among the elements of the given probability vector by a sequence of
+	 * binomial samples, and adds the resulting counts to <code>counts</code>. The probability mass that is missing
+	 * from the vector, if any, is assigned to the element with index <code>self</code>.
+	 *
+	 * @param rg random generator.
+	 * @param n number of elements to distribute.
+	 * @param probabilities probability of each element.
+	 * @param self index of the element receiving the missing probability mass.
+	 * @param counts array where counts are added.
+	 */
+	public static void multinomial(RandomGenerator rg, int n, double[] probabilities, int self, int[] counts) {
+		int remaining = n;
+		double mass = 1.0;
+		for (int i = 0; (i < probabilities.length)&&(remaining > 0); i++) {
+			double p = probabilities[i];
+			if ((i != self)&&(p > 0.0)) {
+				int k = (p >= mass ? remaining : sample(rg, remaining, p/mass));
+				counts[i] += k;
+				remaining -= k;
+				mass -= p;
+			}
+		}
+		counts[self] += remaining;
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.util;
+
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.special.Gamma;
+
+/**
+ * Utility methods used to sample Poisson distributions without allocating distribution objects. Small means are
+ * sampled by sequential inversion, whose cost is proportional to the mean, while large means are sampled with the
+ * transformed rejection method (PTRS) of Hormann, whose expected cost is constant.
+ */
+public final class PoissonSampler {
+
+	private static final double INVERSION_THRESHOLD = 10.0;
+
+	private PoissonSampler() {
+	}
+
+	/**
+	 * Returns a value sampled from the Poisson distribution with the given mean. An
+	 * {@link IllegalArgumentException} is thrown if the mean is not finite.
+	 *
+	 * @param rg random generator.
+	 * @param mean distribution mean.
+	 * @return a value sampled from the Poisson distribution with the given mean.
+	 */
+	public static long sample(RandomGenerator rg, double mean) {
+		if (!Double.isFinite(mean)) {
+			throw new IllegalArgumentException("Poisson mean must be finite, found " + mean + "!");
+		}
+		if (mean <= 0.0) {
+			return 0;
+		}
+		if (mean < INVERSION_THRESHOLD) {
+			return inversion(rg, mean);
+		}
+		return transformedRejection(rg, mean);
+	}
+
+	private static long inversion(RandomGenerator rg, double mean) {
+		while (true) {
+			double p = Math.exp(-mean);
+			double u = rg.nextDouble();
+			long x = 0;
+			while (u > p) {
+				u -= p;
+				x++;
+				p *= mean/x;
+				if (p == 0.0) {
+					break;
+				}
+			}
+			if (p > 0.0) {
+				return x;
+			}
+		}
+	}
+
+	private static long transformedRejection(RandomGenerator rg, double mean) {
+		double logMean = Math.log(mean);
+		double smu = Math.sqrt(mean);
+		double b = 0.931+2.53*smu;
+		double a = -0.059+0.02483*b;
+		double invAlpha = 1.1239+1.1328/(b-3.4);
+		double vr = 0.9277-3.6224/(b-2);
+		while (true) {
+			double u = rg.nextDouble()-0.5;
+			double v = rg.nextDouble();
+			double us = 0.5-Math.abs(u);
+			long k = (long) Math.floor((2*a/us+b)*u+mean+0.43);
+			if ((us >= 0.07)&&(v <= vr)) {
+				return k;
+			}
+			if ((k < 0)||((us < 0.013)&&(v > us))) {
+				continue;
+			}
+			if (Math.log(v)+Math.log(invAlpha)-Math.log(a/(us*us)+b) <= -mean+k*logMean-Gamma.logGamma(k+1)) {
+				return k;
+			}
+		}
+	}
+
+}
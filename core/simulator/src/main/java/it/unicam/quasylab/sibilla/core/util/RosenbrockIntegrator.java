@@ -0,0 +1,178 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.util;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.ode.FirstOrderDifferentialEquations;
+
+/**
+ * Adaptive integrator for stiff systems of ordinary differential equations based on the two stages, second order,
+ * L-stable Rosenbrock method ROS2 of Verwer et al. The Jacobian is approximated by finite differences at each step,
+ * and the linear systems are solved by LU decomposition: the integrator is hence meant for systems with a small
+ * number of variables. The local error is estimated by comparing the result with the one of the embedded first order
+ * linearly implicit Euler method.
+ */
+public class RosenbrockIntegrator {
+
+	private static final double GAMMA = 1.0+1.0/Math.sqrt(2.0);
+	private static final double SQRT_EPSILON = Math.sqrt(Math.ulp(1.0));
+
+	private final double minStep;
+	private final double absoluteTolerance;
+	private final double relativeTolerance;
+	private double step = Double.NaN;
+	private int evaluations;
+
+	/**
+	 * Creates a new integrator.
+	 *
+	 * @param minStep minimal step size.
+	 * @param absoluteTolerance allowed absolute error.
+	 * @param relativeTolerance allowed relative error.
+	 */
+	public RosenbrockIntegrator(double minStep, double absoluteTolerance, double relativeTolerance) {
+		this.minStep = minStep;
+		this.absoluteTolerance = absoluteTolerance;
+		this.relativeTolerance = relativeTolerance;
+	}
+
+	/**
+	 * Returns the number of evaluations of derivatives performed by the last integration.
+	 *
+	 * @return the number of evaluations of derivatives performed by the last integration.
+	 */
+	public int getEvaluations() {
+		return evaluations;
+	}
+
+	/**
+	 * Integrates the given equations from time <code>t0</code> to time <code>t</code>. The step size reached at the
+	 * end of an integration is used as the initial step size of the next one.
+	 *
+	 * @param equations differential equations to integrate.
+	 * @param t0 initial time.
+	 * @param y0 initial state.
+	 * @param t target time, that must be greater than <code>t0</code>.
+	 * @param y array where the state at time <code>t</code> is stored (can be the same as <code>y0</code>).
+	 * @return the time reached by the integration, namely <code>t</code>.
+	 * @throws IllegalStateException if the step size falls below the minimal one.
+	 */
+	public double integrate(FirstOrderDifferentialEquations equations, double t0, double[] y0, double t, double[] y) {
+		int n = equations.getDimension();
+		double[] current = y0.clone();
+		double[] f0 = new double[n];
+		double[] f1 = new double[n];
+		double[] stage = new double[n];
+		double[] next = new double[n];
+		double now = t0;
+		double h = (Double.isNaN(step) ? (t-t0)/100 : step);
+		evaluations = 0;
+		while (now < t) {
+			equations.computeDerivatives(now, current, f0);
+			evaluations++;
+			double[][] jacobian = jacobian(equations, now, current, f0);
+			boolean accepted = false;
+			while (!accepted) {
+				double stepSize = Math.min(h, t-now);
+				DecompositionSolver solver = new LUDecomposition(iterationMatrix(jacobian, stepSize)).getSolver();
+				if (!solver.isNonSingular()) {
+					h = reduce(now, h/2);
+					continue;
+				}
+				double[] k1 = solver.solve(new ArrayRealVector(f0, false)).toArray();
+				for (int i = 0; i < n; i++) {
+					stage[i] = current[i]+stepSize*k1[i];
+				}
+				equations.computeDerivatives(now+stepSize, stage, f1);
+				evaluations++;
+				for (int i = 0; i < n; i++) {
+					f1[i] -= 2*k1[i];
+				}
+				double[] k2 = solver.solve(new ArrayRealVector(f1, false)).toArray();
+				double error = 0.0;
+				for (int i = 0; i < n; i++) {
+					next[i] = current[i]+stepSize*(1.5*k1[i]+0.5*k2[i]);
+					double scale = absoluteTolerance+relativeTolerance*Math.max(Math.abs(current[i]), Math.abs(next[i]));
+					double e = 0.5*stepSize*(k1[i]+k2[i])/scale;
+					error += e*e;
+				}
+				error = Math.sqrt(error/n);
+				double factor = (error == 0.0 ? 5.0 : Math.min(5.0, Math.max(0.2, 0.9/Math.sqrt(error))));
+				if (error <= 1.0) {
+					accepted = true;
+					now = (stepSize == t-now ? t : now+stepSize);
+					System.arraycopy(next, 0, current, 0, n);
+					if (stepSize == h) {
+						h *= factor;
+					}
+				} else {
+					h = reduce(now, stepSize*factor);
+				}
+			}
+		}
+		step = h;
+		System.arraycopy(current, 0, y, 0, n);
+		return t;
+	}
+
+	private double reduce(double now, double h) {
+		if (h < minStep) {
+			throw new IllegalStateException("Step size too small at time "+now+"!");
+		}
+		return h;
+	}
+
+	private double[][] jacobian(FirstOrderDifferentialEquations equations, double t, double[] y, double[] f) {
+		int n = y.length;
+		double[][] jacobian = new double[n][n];
+		double[] shifted = y.clone();
+		double[] shiftedF = new double[n];
+		for (int j = 0; j < n; j++) {
+			double delta = SQRT_EPSILON*Math.max(1.0, Math.abs(y[j]));
+			shifted[j] = y[j]+delta;
+			equations.computeDerivatives(t, shifted, shiftedF);
+			evaluations++;
+			for (int i = 0; i < n; i++) {
+				jacobian[i][j] = (shiftedF[i]-f[i])/delta;
+			}
+			shifted[j] = y[j];
+		}
+		return jacobian;
+	}
+
+	private static Array2DRowRealMatrix iterationMatrix(double[][] jacobian, double h) {
+		int n = jacobian.length;
+		double[][] m = new double[n][n];
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				m[i][j] = (i == j ? 1.0 : 0.0)-GAMMA*h*jacobian[i][j];
+			}
+		}
+		return new Array2DRowRealMatrix(m, false);
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Measure;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SimpleMeasure;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CTMCAnalysisTest {
+
+	private static final double UP = 1.0;
+	private static final double DOWN = 2.0;
+
+	private CTMCAnalysis<PopulationState> twoStateAnalysis() {
+		CompactMarkovChain chain = CompactMarkovChain.generate(new int[] { 0 }, (s, c) -> {
+			if (s[0] == 0) {
+				c.accept(new int[] { 1 }, UP);
+			} else {
+				c.accept(new int[] { 0 }, DOWN);
+			}
+		});
+		return new CTMCAnalysis<>(chain, PopulationState::new);
+	}
+
+	private Measure<PopulationState> up() {
+		return new SimpleMeasure<>("up", s -> s.getOccupancy(0));
+	}
+
+	@Test
+	public void shouldComputeTransientMeans() {
+		Map<String, double[][]> result = twoStateAnalysis().transientAnalysis(2.0, 0.5, CTMCAnalysis.DEFAULT_EPSILON, List.of(up()));
+		double[][] rows = result.get("up");
+		assertEquals(4, rows.length);
+		for (double[] row : rows) {
+			double expected = UP/(UP+DOWN)*(1-Math.exp(-(UP+DOWN)*row[0]));
+			assertEquals(expected, row[1], 1e-9);
+			assertEquals(Math.sqrt(expected*(1-expected)), row[2], 1e-9);
+			assertEquals(0.0, row[3], 1e-15);
+		}
+	}
+
+	@Test
+	public void shouldComputeBoundedReachability() {
+		Map<String, double[][]> result = twoStateAnalysis().reachability("goal", s -> true, s -> s.getOccupancy(0) == 1, 3.0, 1.0, CTMCAnalysis.DEFAULT_EPSILON);
+		for (double[] row : result.get("goal")) {
+			assertEquals(1-Math.exp(-UP*row[0]), row[1], 1e-9);
+		}
+	}
+
+	@Test
+	public void shouldComputeBoundedReachabilityAtTheDeadline() {
+		double[][] rows = twoStateAnalysis().reachability("goal", s -> true, s -> s.getOccupancy(0) == 1, 2.5, 1.0, CTMCAnalysis.DEFAULT_EPSILON).get("goal");
+		assertEquals(3, rows.length);
+		assertEquals(2.5, rows[2][0]);
+		assertEquals(1-Math.exp(-UP*2.5), rows[2][1], 1e-9);
+		rows = twoStateAnalysis().reachability("goal", s -> true, s -> s.getOccupancy(0) == 1, 3.0, 1.0, CTMCAnalysis.DEFAULT_EPSILON).get("goal");
+		assertEquals(3.0, rows[rows.length-1][0]);
+	}
+
+	@Test
+	public void shouldComputeSteadyStateMeans() {
+		double[][] rows = twoStateAnalysis().steadyState(List.of(up())).get("up");
+		assertEquals(1, rows.length);
+		assertEquals(Double.POSITIVE_INFINITY, rows[0][0]);
+		assertEquals(UP/(UP+DOWN), rows[0][1], 1e-8);
+	}
+
+}
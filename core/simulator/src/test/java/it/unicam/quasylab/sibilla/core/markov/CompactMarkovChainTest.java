@@ -0,0 +1,140 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.pm.*;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactMarkovChainTest {
+
+	private static final int S = 0;
+	private static final int I = 1;
+	private static final int R = 2;
+	private static final int N = 100;
+
+	private PopulationModel sirModel() {
+		List<PopulationRule> rules = List.of(
+				new ReactionRule("infection", new Population[] { new Population(S), new Population(I) },
+						new Population[] { new Population(I), new Population(I) },
+						(t, s) -> s.getOccupancy(S)*s.getOccupancy(I)/N),
+				new ReactionRule("recovery", new Population[] { new Population(I) },
+						new Population[] { new Population(R) },
+						(t, s) -> s.getOccupancy(I))
+		);
+		return new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+	}
+
+	@Test
+	public void shouldGenerateTheSameChainOfTheExplicitOne() {
+		PopulationModel model = sirModel();
+		PopulationState init = new PopulationState(new int[] { N-1, 1, 0 });
+		CompactMarkovChain compact = CompactMarkovChain.generate(model, init);
+		ContinuousTimeMarkovChain<PopulationState> explicit = StateSpaceExplorer.of(model).explore(ContinuousTimeMarkovChain::new, init);
+		assertEquals(explicit.numberOfStates(), compact.numberOfStates());
+		assertEquals(0, compact.indexOf(init.getPopulationVector()));
+		for (PopulationState s : explicit.getStates()) {
+			int id = compact.indexOf(s.getPopulationVector());
+			assertTrue(id >= 0);
+			assertEquals(explicit.sumOfRow(s), compact.sumOfRow(id), 1e-12);
+			for (PopulationState t : explicit.next(s)) {
+				int target = compact.indexOf(t.getPopulationVector());
+				assertEquals(explicit.rate(s, t), compact.rate(id, target), 1e-12);
+				assertEquals(explicit.rate(s, t), compact.getBackwardMatrix().getEntry(target, id), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void shouldMergeTransitionsToTheSameState() {
+		CompactMarkovChain chain = CompactMarkovChain.generate(new int[] { 0 }, (s, c) -> {
+			if (s[0] < 3) {
+				c.accept(new int[] { s[0]+1 }, 1.0);
+				c.accept(new int[] { s[0]+1 }, 2.0);
+				c.accept(new int[] { 0 }, 0.5);
+			}
+		});
+		assertEquals(4, chain.numberOfStates());
+		assertEquals(6, chain.numberOfTransitions());
+		assertEquals(3.0, chain.rate(1, 2));
+		assertEquals(3.5, chain.sumOfRow(0));
+		SparseMatrix generator = chain.getGeneratorMatrix();
+		assertEquals(-3.0, generator.getEntry(0, 0));
+		assertEquals(-3.5, generator.getEntry(1, 1));
+		assertEquals(0.0, generator.getEntry(3, 3));
+		SparseMatrix uniformised = chain.getUniformisedMatrix();
+		for (int i = 0; i < chain.numberOfStates(); i++) {
+			double[] e = new double[chain.numberOfStates()];
+			e[i] = 1.0;
+			assertEquals(1.0, Arrays.stream(uniformised.preMultiply(e)).sum(), 1e-12);
+		}
+		assertEquals(1.0, uniformised.getEntry(3, 3));
+	}
+
+	@Test
+	public void shouldAssignTheSameIdentifiersWhenGeneratedInParallel() {
+		CompactMarkovChain.TransitionFunction sir = (s, c) -> {
+			if (s[I] > 0) {
+				c.accept(new int[] { s[S]-1, s[I]+1, s[R] }, s[S]*s[I]/(double) N);
+				c.accept(new int[] { s[S], s[I]-1, s[R]+1 }, s[I]);
+			}
+		};
+		int[] init = new int[] { N-1, 1, 0 };
+		CompactMarkovChain serial = CompactMarkovChain.generate(init, sir, Integer.MAX_VALUE);
+		CompactMarkovChain parallel = CompactMarkovChain.generate(init, sir, Integer.MAX_VALUE, ForkJoinPool.commonPool());
+		assertEquals(serial.numberOfStates(), parallel.numberOfStates());
+		assertEquals(serial.numberOfTransitions(), parallel.numberOfTransitions());
+		for (int i = 0; i < serial.numberOfStates(); i++) {
+			assertArrayEquals(serial.getState(i), parallel.getState(i));
+			assertEquals(serial.sumOfRow(i), parallel.sumOfRow(i), 1e-12);
+		}
+		PopulationModel model = sirModel();
+		CompactMarkovChain generated = CompactMarkovChain.generate(model, new PopulationState(init), Integer.MAX_VALUE);
+		assertEquals(serial.numberOfStates(), generated.numberOfStates());
+		for (int i = 0; i < serial.numberOfStates(); i++) {
+			assertEquals(serial.sumOfRow(i), generated.sumOfRow(generated.indexOf(serial.getState(i))), 1e-12);
+		}
+	}
+
+	@Test
+	public void shouldStopWhenTheStateLimitIsExceeded() {
+		PopulationModel model = sirModel();
+		PopulationState init = new PopulationState(new int[] { N-1, 1, 0 });
+		assertThrows(StateSpaceLimitException.class, () -> CompactMarkovChain.generate(model, init, 100));
+		assertThrows(StateSpaceLimitException.class, () -> CompactMarkovChain.generate(new int[] { 0 }, (s, c) -> c.accept(new int[] { s[0]+1 }, 1.0), 10));
+		assertEquals(10, CompactMarkovChain.generate(new int[] { 0 }, (s, c) -> {
+			if (s[0] < 9) {
+				c.accept(new int[] { s[0]+1 }, 1.0);
+			}
+		}, 10).numberOfStates());
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IterativeSolverTest {
+
+	private final SparseMatrix matrix = new SparseMatrix(3, 3,
+			new int[] { 0, 2, 5, 7 },
+			new int[] { 0, 1, 0, 1, 2, 1, 2 },
+			new double[] { 4.0, -1.0, -1.0, 4.0, -1.0, -1.0, 3.0 });
+
+	@Test
+	public void shouldSolveLinearSystem() {
+		double[] x = new double[] { 1.0, 2.0, 3.0 };
+		double[] b = matrix.operate(x);
+		for (IterativeMethod method : IterativeMethod.values()) {
+			assertArrayEquals(x, new IterativeSolver(method).solve(matrix, b), 1e-8, method.name());
+		}
+	}
+
+	@Test
+	public void shouldComputeStationaryDistribution() {
+		ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+		chain.add(0, Map.of(1, 2.0));
+		chain.add(1, Map.of(0, 1.0, 2, 1.0));
+		chain.add(2, Map.of(1, 4.0));
+		SparseMatrix generator = chain.generateSparseGeneratorMatrix(Map.of(0, 0, 1, 1, 2, 2));
+		for (IterativeMethod method : IterativeMethod.values()) {
+			double[] pi = new IterativeSolver(method).solveStationary(generator);
+			assertArrayEquals(new double[] { 2.0/7, 4.0/7, 1.0/7 }, pi, 1e-8, method.name());
+			assertEquals(1.0, pi[0]+pi[1]+pi[2], 1e-8, method.name());
+		}
+	}
+
+	@Test
+	public void shouldFailWhenIterationsAreNotEnough() {
+		IterativeSolver solver = new IterativeSolver(IterativeMethod.JACOBI, 1e-15, 1);
+		assertThrows(IterativeSolverException.class, () -> solver.solve(matrix, new double[] { 1.0, 0.0, 2.0 }));
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SparseMatrixOperatorTest {
+
+	private static final int SIZE = 20000;
+
+	private SparseMatrix randomMatrix(Random r) {
+		int[] pointers = new int[SIZE+1];
+		int[] columns = new int[SIZE*3];
+		double[] values = new double[SIZE*3];
+		int size = 0;
+		for (int i = 0; i < SIZE; i++) {
+			int entries = (i%7 == 0 ? 0 : 3);
+			for (int k = 0; k < entries; k++) {
+				columns[size] = (i+k*(k+1)*97)%SIZE;
+				values[size++] = r.nextDouble();
+			}
+			Arrays.sort(columns, pointers[i], size);
+			pointers[i+1] = size;
+		}
+		return new SparseMatrix(SIZE, SIZE, pointers, Arrays.copyOf(columns, size), Arrays.copyOf(values, size));
+	}
+
+	@Test
+	public void shouldComputeTheSameProductInParallel() {
+		Random r = new Random(42);
+		SparseMatrix m = randomMatrix(r);
+		double[] x = new double[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			x[i] = r.nextDouble();
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			SparseMatrixOperator operator = new SparseMatrixOperator(m, 0, pool);
+			assertTrue(operator.isParallel());
+			assertTrue(operator.getNumberOfBlocks() > 1);
+			assertArrayEquals(m.operate(x), operator.operate(x));
+			assertArrayEquals(m.preMultiply(x), new SparseMatrixOperator(m.transpose(), 0, pool).operate(x), 1e-12);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldBeSequentialBelowTheThreshold() {
+		SparseMatrix m = randomMatrix(new Random(1));
+		SparseMatrixOperator operator = new SparseMatrixOperator(m, SIZE+1);
+		assertFalse(operator.isParallel());
+		assertEquals(1, operator.getNumberOfBlocks());
+		double[] x = new double[SIZE];
+		Arrays.fill(x, 1.0);
+		assertArrayEquals(m.operate(x), operator.operate(x));
+	}
+
+	@Test
+	public void shouldRejectAliasedVectors() {
+		SparseMatrix m = randomMatrix(new Random(2));
+		double[] x = new double[SIZE];
+		assertThrows(IllegalArgumentException.class, () -> new SparseMatrixOperator(m).operate(x, x));
+	}
+
+}
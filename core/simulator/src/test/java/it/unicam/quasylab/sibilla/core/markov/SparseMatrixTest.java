@@ -0,0 +1,85 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SparseMatrixTest {
+
+	private final double[][] dense = new double[][] {
+			{ 0.0, 0.5, 0.5 },
+			{ 0.2, 0.0, 0.0 },
+			{ 0.0, 0.0, 1.0 }
+	};
+
+	private SparseMatrix build() {
+		Map<Integer,Integer> index = Map.of(0, 0, 1, 1, 2, 2);
+		return SparseMatrix.generate(r -> {
+			List<Map.Entry<Integer,Double>> entries = new ArrayList<>();
+			for (int c = 0; c < dense[r].length; c++) {
+				if (dense[r][c] != 0.0) {
+					entries.add(Map.entry(c, dense[r][c]));
+				}
+			}
+			return entries.stream();
+		}, index);
+	}
+
+	@Test
+	public void shouldStoreOnlyNonZeroEntries() {
+		SparseMatrix m = build();
+		assertEquals(4, m.getNonZeros());
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 3; j++) {
+				assertEquals(dense[i][j], m.getEntry(i, j));
+			}
+		}
+	}
+
+	@Test
+	public void shouldSumDuplicatedEntries() {
+		SparseMatrix m = SparseMatrix.generate(s -> List.of(Map.entry("a", 0.25), Map.entry("a", 0.25), Map.entry("b", 0.5)).stream(),
+				Map.of("a", 0, "b", 1));
+		assertEquals(0.5, m.getEntry(0, 0));
+		assertEquals(0.5, m.getEntry(1, 1));
+		assertEquals(4, m.getNonZeros());
+	}
+
+	@Test
+	public void shouldMultiplyAsDenseMatrix() {
+		SparseMatrix m = build();
+		double[] x = new double[] { 1.0, 2.0, 3.0 };
+		assertArrayEquals(new double[] { 2.5, 0.2, 3.0 }, m.operate(x), 1e-12);
+		assertArrayEquals(new double[] { 0.4, 0.5, 3.5 }, m.preMultiply(x), 1e-12);
+		assertArrayEquals(m.preMultiply(x), m.transpose().operate(x), 1e-12);
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateArenaTest {
+
+	@Test
+	public void shouldAssignConsecutiveIdentifiers() {
+		StateArena arena = new StateArena(2, 0);
+		assertEquals(0, arena.intern(new int[] { 1, 2 }));
+		assertEquals(1, arena.intern(new int[] { 2, 1 }));
+		assertEquals(0, arena.intern(new int[] { 1, 2 }));
+		assertEquals(2, arena.size());
+		assertArrayEquals(new int[] { 2, 1 }, arena.get(1));
+		assertEquals(-1, arena.indexOf(new int[] { 0, 0 }));
+	}
+
+	@Test
+	public void shouldKeepIdentifiersWhenGrowing() {
+		StateArena arena = new StateArena(3, 4);
+		int n = 100;
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				assertEquals(i*n+j, arena.intern(new int[] { i, j, i+j }));
+			}
+		}
+		arena.trim();
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < n; j++) {
+				assertEquals(i*n+j, arena.indexOf(new int[] { i, j, i+j }));
+				assertEquals(j, arena.get(i*n+j, 1));
+			}
+		}
+		assertEquals(n*n, arena.intern(new int[] { n, n, n }));
+	}
+
+	@Test
+	public void shouldRejectVectorsOfWrongSize() {
+		StateArena arena = new StateArena(3);
+		assertThrows(IllegalArgumentException.class, () -> arena.intern(new int[] { 1, 2 }));
+		assertThrows(IndexOutOfBoundsException.class, () -> arena.get(0));
+	}
+
+}
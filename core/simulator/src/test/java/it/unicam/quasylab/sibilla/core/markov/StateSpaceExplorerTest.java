@@ -0,0 +1,95 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import it.unicam.quasylab.sibilla.core.models.pm.*;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateSpaceExplorerTest {
+
+	private static final int S = 0;
+	private static final int I = 1;
+	private static final int R = 2;
+	private static final int N = 100;
+
+	private PopulationModel sirModel() {
+		List<PopulationRule> rules = List.of(
+				new ReactionRule("infection", new Population[] { new Population(S), new Population(I) },
+						new Population[] { new Population(I), new Population(I) },
+						(t, s) -> s.getOccupancy(S)*s.getOccupancy(I)/N),
+				new ReactionRule("recovery", new Population[] { new Population(I) },
+						new Population[] { new Population(R) },
+						(t, s) -> s.getOccupancy(I))
+		);
+		return new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+	}
+
+	private Map<Integer, Double> randomWalk(int s) {
+		Map<Integer, Double> row = new HashMap<>();
+		if (s < 1000) {
+			row.put(s+1, 1.0);
+		}
+		if (s > 0) {
+			row.put(s-1, 2.0);
+		}
+		return row;
+	}
+
+	@Test
+	public void shouldGenerateAllReachablePopulations() {
+		List<StateSpaceExplorer.Progress> progress = new ArrayList<>();
+		StateSpaceExplorer<PopulationState> explorer = StateSpaceExplorer.of(sirModel());
+		explorer.setMonitor(progress::add);
+		PopulationState init = new PopulationState(new int[] { N-1, 1, 0 });
+		ContinuousTimeMarkovChain<PopulationState> chain = explorer.explore(ContinuousTimeMarkovChain::new, init);
+		assertEquals(N*(N+1)/2+N, chain.numberOfStates());
+		assertEquals((N-1.0)/N+1.0, chain.sumOfRow(init), 1e-12);
+		assertTrue(progress.size() > 1);
+		assertEquals(chain.numberOfStates(), progress.get(progress.size()-1).getStates());
+		assertEquals(0, progress.get(progress.size()-1).getFrontier());
+	}
+
+	@Test
+	public void shouldGenerateTheSameChainOfSequentialExploration() {
+		ContinuousTimeMarkovChain<Integer> expected = MarkovChain.generateMarkovChain(ContinuousTimeMarkovChain::new, 0, this::randomWalk);
+		ContinuousTimeMarkovChain<Integer> actual = new StateSpaceExplorer<Integer>(this::randomWalk, s -> s, new ForkJoinPool(4))
+				.explore(ContinuousTimeMarkovChain::new, 0);
+		assertEquals(expected.getStates(), actual.getStates());
+		for (Integer s : expected.getStates()) {
+			assertEquals(expected.sumOfRow(s), actual.sumOfRow(s));
+			assertEquals(expected.next(s), actual.next(s));
+		}
+	}
+
+}
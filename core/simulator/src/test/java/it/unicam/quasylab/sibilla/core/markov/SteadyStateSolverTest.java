@@ -0,0 +1,91 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SteadyStateSolverTest {
+
+	private ContinuousTimeMarkovChain<Integer> branchingChain() {
+		ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+		chain.add(0, Map.of(1, 1.0, 3, 3.0));
+		chain.add(1, Map.of(2, 1.0));
+		chain.add(2, Map.of(1, 2.0));
+		chain.add(3, Map.of());
+		return chain;
+	}
+
+	@Test
+	public void shouldFindBottomComponents() {
+		List<Set<Integer>> bscc = new SteadyStateSolver<>(branchingChain(), 0).computeBSCC();
+		assertEquals(2, bscc.size());
+		assertTrue(bscc.contains(Set.of(1, 2)));
+		assertTrue(bscc.contains(Set.of(3)));
+	}
+
+	@Test
+	public void shouldWeightComponentsByReachability() {
+		Map<Integer, Double> pi = new SteadyStateSolver<>(branchingChain(), 0).compute();
+		assertEquals(0.25*2.0/3, pi.get(1), 1e-8);
+		assertEquals(0.25*1.0/3, pi.get(2), 1e-8);
+		assertEquals(0.75, pi.get(3), 1e-8);
+		assertEquals(0.0, pi.getOrDefault(0, 0.0), 1e-8);
+	}
+
+	@Test
+	public void shouldHandleLongChainsWithoutRecursion() {
+		int size = 100000;
+		ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+		for (int i = 0; i < size; i++) {
+			Map<Integer, Double> row = new HashMap<>();
+			if (i < size-1) {
+				row.put(i+1, 1.0);
+			}
+			if (i > 0) {
+				row.put(i-1, 2.0);
+			}
+			chain.add(i, row);
+		}
+		List<Set<Integer>> bscc = new SteadyStateSolver<>(chain, 0).computeBSCC();
+		assertEquals(1, bscc.size());
+		assertEquals(size, bscc.get(0).size());
+	}
+
+	@Test
+	public void shouldComputeUnboundedReachability() {
+		for (IterativeMethod method : IterativeMethod.values()) {
+			Map<Integer, Double> p = new UnboundedReachabilitySolver<>(branchingChain(), s -> s == 3, new IterativeSolver(method)).compute();
+			assertEquals(0.75, p.get(0), 1e-8, method.name());
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.markov;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UniformisationSolverTest {
+
+	private static final double A = 2.0;
+	private static final double B = 3.0;
+
+	private CompactMarkovChain twoStates() {
+		return CompactMarkovChain.generate(new int[] { 0 }, (s, c) -> c.accept(new int[] { 1-s[0] }, (s[0] == 0 ? A : B)));
+	}
+
+	private double expected(double t) {
+		return A/(A+B)*(1-Math.exp(-(A+B)*t));
+	}
+
+	@Test
+	public void shouldComputeAllTimePointsInOnePass() {
+		UniformisationSolver solver = new UniformisationSolver(twoStates(), 1e-10);
+		double[] times = new double[] { 0.0, 0.1, 0.5, 1.0, 2.0, 10.0 };
+		double[][] result = solver.compute(UniformisationSolver.pointDistribution(2, 0), times);
+		for (int k = 0; k < times.length; k++) {
+			assertEquals(expected(times[k]), result[k][1], 1e-8);
+			assertEquals(1.0, result[k][0]+result[k][1], 1e-8);
+		}
+		int iterations = solver.getIterations();
+		solver.compute(UniformisationSolver.pointDistribution(2, 0), 10.0);
+		assertEquals(iterations, solver.getIterations());
+	}
+
+	@Test
+	public void shouldComputeTheSameProbabilitiesInParallel() {
+		UniformisationSolver solver = new UniformisationSolver(twoStates(), 1e-10);
+		double[] times = new double[] { 0.5, 1.0, 2.0 };
+		double[][] sequential = solver.compute(UniformisationSolver.pointDistribution(2, 0), times);
+		solver.setParallelThreshold(0);
+		double[][] parallel = solver.compute(UniformisationSolver.pointDistribution(2, 0), times);
+		for (int k = 0; k < times.length; k++) {
+			assertArrayEquals(sequential[k], parallel[k], 1e-12);
+		}
+	}
+
+	@Test
+	public void shouldStopAtSteadyState() {
+		UniformisationSolver solver = new UniformisationSolver(twoStates(), 1e-10);
+		solver.compute(UniformisationSolver.pointDistribution(2, 0), 100.0);
+		int iterations = solver.getIterations();
+		solver.setSteadyStateTolerance(1e-12);
+		double[][] result = solver.compute(UniformisationSolver.pointDistribution(2, 0), 100.0);
+		assertTrue(solver.getIterations() < iterations);
+		assertEquals(A/(A+B), result[0][1], 1e-8);
+	}
+
+	@Test
+	public void shouldComputeMultipleTimePointsOfExplicitChain() {
+		ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+		chain.add(0, Map.of(1, A));
+		chain.add(1, Map.of(0, B));
+		TransientProbabilityContinuousSolver<Integer> solver = new TransientProbabilityContinuousSolver<>(chain, 1e-10, 0);
+		List<Map<Integer, Double>> result = solver.compute(0.5, 1.0);
+		assertEquals(expected(0.5), result.get(0).get(1), 1e-8);
+		assertEquals(expected(1.0), result.get(1).get(1), 1e-8);
+		assertEquals(expected(1.0), solver.compute(1.0).get(1), 1e-8);
+	}
+
+	@Test
+	public void shouldUseTheParallelThresholdOfTheTransientSolver() {
+		ContinuousTimeMarkovChain<Integer> chain = new ContinuousTimeMarkovChain<>();
+		chain.add(0, Map.of(1, A));
+		chain.add(1, Map.of(0, B));
+		TransientProbabilityContinuousSolver<Integer> solver = new TransientProbabilityContinuousSolver<>(chain, 1e-10, 0);
+		solver.setParallelThreshold(0);
+		solver.setSteadyStateTolerance(1e-12);
+		Map<Integer, Double> result = solver.compute(1.0);
+		assertEquals(0, solver.getSolver().getParallelThreshold());
+		assertEquals(1e-12, solver.getSolver().getSteadyStateTolerance());
+		assertEquals(expected(1.0), result.get(1), 1e-8);
+		solver.setParallelThreshold(SparseMatrixOperator.DEFAULT_PARALLEL_THRESHOLD);
+		assertEquals(SparseMatrixOperator.DEFAULT_PARALLEL_THRESHOLD, solver.getSolver().getParallelThreshold());
+		assertEquals(expected(1.0), solver.compute(1.0).get(1), 1e-8);
+	}
+
+}
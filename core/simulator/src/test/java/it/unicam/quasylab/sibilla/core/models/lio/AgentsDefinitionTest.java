@@ -87,4 +87,29 @@ class AgentsDefinitionTest {
         assertEquals(0.75, prob.probabilityOf(act2));
     }
 
+    @Test
+    void bufferedMatrixShouldSkipEmptyRows() {
+        AgentsDefinition def = new AgentsDefinition();
+        Agent agentA = def.addAgent("A");
+        Agent agentB = def.addAgent("B");
+        Agent agentC = def.addAgent("C");
+        AgentAction act1 = def.addAction("act1", s -> s.fractionOf(agentA)/2);
+        AgentAction act2 = def.addAction("act2", s -> 0.25);
+        agentA.addAction(act1, agentB);
+        agentA.addAction(act2, agentC);
+        agentB.addAction(act2, agentA);
+        LIOState state = new LIOCountingState(new int[] { 3, 0, 1 });
+        double[][] expected = def.getAgentProbabilityMatrix(state);
+        double[][] matrix = def.computeAgentProbabilityMatrix(state);
+        assertArrayEquals(expected[0], matrix[0]);
+        assertArrayEquals(new double[] { 0.0, 0.375, 0.25 }, matrix[0]);
+        assertArrayEquals(new double[] { 0.25, 0.0, 0.0 }, expected[1]);
+        assertArrayEquals(new double[3], matrix[1]);
+        assertSame(matrix, def.computeAgentProbabilityMatrix(new LIOCountingState(new int[] { 0, 1, 0 })));
+        assertArrayEquals(new double[3], matrix[0]);
+        assertArrayEquals(new double[] { 0.25, 0.0, 0.0 }, matrix[1]);
+        agentB.addAction(act2, agentC);
+        assertArrayEquals(new double[] { 0.25, 0.0, 0.25 }, def.computeAgentProbabilityMatrix(new LIOCountingState(new int[] { 0, 1, 0 }))[1]);
+    }
+
 }
\ No newline at end of file
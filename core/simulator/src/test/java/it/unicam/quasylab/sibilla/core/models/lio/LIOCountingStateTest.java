@@ -0,0 +1,67 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.lio;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LIOCountingStateTest {
+
+    private static final double[][] MATRIX = new double[][] {
+            { 0.5, 0.3, 0.1 },
+            { 0.0, 0.0, 0.0 },
+            { 0.25, 0.25, 0.5 }
+    };
+
+    @Test
+    void stepShouldPreserveTheNumberOfAgents() {
+        RandomGenerator rg = new MersenneTwister(1);
+        LIOState state = new LIOCountingState(new int[] { 1000, 500, 0 });
+        for (int i = 0; i < 100; i++) {
+            state = state.step(rg, MATRIX);
+            assertEquals(1500, state.size());
+        }
+    }
+
+    @Test
+    void missingProbabilityMassShouldRemainInTheSameState() {
+        LIOState state = new LIOCountingState(new int[] { 0, 1000, 0 }).step(new MersenneTwister(2), MATRIX);
+        assertEquals(1000, state.numberOf(1));
+    }
+
+    @Test
+    void stepShouldFollowTheTransitionProbabilities() {
+        RandomGenerator rg = new MersenneTwister(3);
+        int n = 100_000_000;
+        LIOState state = new LIOCountingState(new int[] { n, 0, 0 }).step(rg, MATRIX);
+        double sd = Math.sqrt(n*0.25);
+        assertEquals(n*0.6, state.numberOf(0), 5*sd);
+        assertEquals(n*0.3, state.numberOf(1), 5*sd);
+        assertEquals(n*0.1, state.numberOf(2), 5*sd);
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.lio;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LIOMeanFieldStateTest {
+
+    private AgentsDefinition redBlue() {
+        AgentsDefinition definition = new AgentsDefinition();
+        Agent agentR = definition.addAgent("R");
+        Agent agentB = definition.addAgent("B");
+        AgentAction redAction = definition.addAction("red", s -> s.fractionOf(agentR) * 0.5);
+        AgentAction blueAction = definition.addAction("blue", s -> s.fractionOf(agentB) * 0.5);
+        agentR.addAction(blueAction, agentB);
+        agentB.addAction(redAction, agentR);
+        return definition;
+    }
+
+    @Test
+    void stepShouldApplyTheProbabilityMatrix() {
+        LIOMeanFieldState state = new LIOMeanFieldState(new int[] { 30, 70 });
+        double[][] matrix = new double[][] { { 0.0, 0.5 }, { 0.2, 0.8 } };
+        LIOState next = state.step(null, matrix);
+        assertEquals(0.3*0.5+0.7*0.2, next.fractionOf(0), 1e-12);
+        assertEquals(0.3*0.5+0.7*0.8, next.fractionOf(1), 1e-12);
+        assertEquals(100*next.fractionOf(1), next.numberOf(1), 1e-9);
+        assertEquals(100, next.size());
+    }
+
+    @Test
+    void meanFieldShouldApproximateLargePopulations() {
+        AgentsDefinition definition = redBlue();
+        LIOModel<LIOState> model = new LIOModel<>(definition);
+        RandomGenerator rg = new MersenneTwister(1);
+        int n = 10_000_000;
+        LIOState counting = new LIOCountingState(new int[] { n/4, n-n/4 });
+        LIOState meanField = new LIOMeanFieldState(new int[] { n/4, n-n/4 });
+        for (int i = 0; i < 10; i++) {
+            counting = model.sampleNextState(rg, i, counting);
+            meanField = model.sampleNextState(rg, i, meanField);
+            assertEquals(meanField.fractionOf(0), counting.fractionOf(0), 1e-3);
+            assertEquals(1.0, meanField.fractionOf(0)+meanField.fractionOf(1), 1e-12);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.BroadcastRule.BroadcastReceiver;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BroadcastRuleTest {
+
+    private static final int SENDER = 0;
+    private static final int RECEIVER = 1;
+    private static final int FIRST = 2;
+    private static final int SECOND = 3;
+
+    @Test
+    void receiversShouldBeSampledInBulk() {
+        int n = 50_000_000;
+        PopulationState state = new PopulationState(new int[] { 1, n, 0, 0 });
+        BroadcastRule rule = new BroadcastRule("broadcast", s -> 1.0, SENDER, rg -> SENDER,
+                new BroadcastReceiver(RECEIVER, s -> 0.4, new int[] { FIRST, SECOND }, new double[] { 1.0, 3.0 }));
+        RandomGenerator rg = new MersenneTwister(1);
+        PopulationTransition transition = rule.apply(rg, 0.0, state);
+        assertEquals(1.0, transition.getRate());
+        PopulationState next = state.apply(transition.apply(rg));
+        double sd = Math.sqrt(n*0.25);
+        assertEquals(n+1, next.population());
+        assertEquals(n*0.6, next.getOccupancy(RECEIVER), 5*sd);
+        assertEquals(n*0.1, next.getOccupancy(FIRST), 5*sd);
+        assertEquals(n*0.3, next.getOccupancy(SECOND), 5*sd);
+    }
+
+    @Test
+    void senderShouldNotReceiveItsOwnMessage() {
+        PopulationState state = new PopulationState(new int[] { 1, 0, 0, 0 });
+        BroadcastRule rule = new BroadcastRule("broadcast", s -> 1.0, SENDER, rg -> FIRST,
+                new BroadcastReceiver(SENDER, s -> 1.0, SECOND));
+        RandomGenerator rg = new MersenneTwister(1);
+        PopulationState next = state.apply(rule.apply(rg, 0.0, state).apply(rg));
+        assertArrayEquals(new int[] { 0, 0, 1, 0 }, next.getPopulationVector());
+    }
+
+    @Test
+    void stepFunctionsShouldBeAppliedToEachReceiver() {
+        PopulationState state = new PopulationState(new int[] { 1, 10, 0, 0 });
+        BroadcastRule rule = new BroadcastRule("broadcast", s -> 1.0, SENDER, rg -> SENDER,
+                new BroadcastReceiver(RECEIVER, s -> 1.0, rg -> FIRST));
+        RandomGenerator rg = new MersenneTwister(1);
+        PopulationState next = state.apply(rule.apply(rg, 0.0, state).apply(rg));
+        assertArrayEquals(new int[] { 1, 0, 10, 0 }, next.getPopulationVector());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Sample;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SimpleMeasure;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.StatisticSampling;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.SummaryStatisticSampling;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FluidApproximationTest {
+
+    private static final int N = 1000;
+
+    private PopulationRule reaction(String name, int from, int to, RatePopulationFunction rate) {
+        return new ReactionRule(name, new Population[] { new Population(from) }, new Population[] { new Population(to) }, rate);
+    }
+
+    private PopulationModel chainModel(double fast) {
+        List<PopulationRule> rules = List.of(
+                reaction("fast", 0, 1, (t, s) -> fast*s.getOccupancy(0)),
+                reaction("slow", 1, 2, (t, s) -> s.getOccupancy(1))
+        );
+        return new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+    }
+
+    private double expectedB(double fast, double t) {
+        return N*fast/(fast-1)*(Math.exp(-t)-Math.exp(-fast*t));
+    }
+
+    @Test
+    public void shouldIntegrateNonStiffModels() {
+        FluidApproximation fluid = new FluidApproximation(chainModel(2.0));
+        Trajectory<PopulationState> trajectory = fluid.integrate(new PopulationState(new int[] { N, 0, 0 }), 5.0, 0.5);
+        assertFalse(fluid.isStiff());
+        assertEquals(11, trajectory.size());
+        for (Sample<PopulationState> sample : trajectory.getData()) {
+            PopulationState state = sample.getValue();
+            assertEquals(N*Math.exp(-2.0*sample.getTime()), state.getOccupancy(0), 1e-4);
+            assertEquals(expectedB(2.0, sample.getTime()), state.getOccupancy(1), 1e-4);
+            assertEquals(N, state.population(), 1e-6);
+        }
+    }
+
+    @Test
+    public void shouldSwitchToTheStiffIntegrator() {
+        double fast = 1.0E6;
+        List<PopulationRule> rules = List.of(
+                reaction("forward", 0, 1, (t, s) -> fast*s.getOccupancy(0)),
+                reaction("backward", 1, 0, (t, s) -> fast*s.getOccupancy(1)),
+                reaction("slow", 1, 2, (t, s) -> s.getOccupancy(1))
+        );
+        FluidApproximation fluid = new FluidApproximation(3, rules);
+        fluid.setMaxEvaluations(2000);
+        Trajectory<PopulationState> trajectory = fluid.integrate(new PopulationState(new int[] { N, 0, 0 }), 5.0, 1.0);
+        assertTrue(fluid.isStiff());
+        for (Sample<PopulationState> sample : trajectory.getData()) {
+            double expected = N*(1-Math.exp(-sample.getTime()/2));
+            assertEquals(expected, sample.getValue().getOccupancy(2), 1e-2);
+        }
+    }
+
+    @Test
+    public void shouldSampleThroughSamplingFunctions() {
+        FluidApproximation fluid = new FluidApproximation(chainModel(2.0));
+        StatisticSampling<PopulationState> sampling = new SummaryStatisticSampling<>(10, 0.5, new SimpleMeasure<>("A", s -> s.getOccupancy(0)));
+        fluid.sample(sampling, new PopulationState(new int[] { N, 0, 0 }), 5.0, 0.5);
+        double[][] data = sampling.getData();
+        for (int i = 0; i < data.length; i++) {
+            assertEquals(i*0.5, data[i][0], 1e-12);
+            assertEquals(N*Math.exp(-2.0*i*0.5), data[i][1], 1e-4);
+        }
+    }
+
+    @Test
+    public void shouldEvaluateRatesOnRealOccupancies() {
+        ContinuousPopulationState state = new ContinuousPopulationState(new double[] { 0.5, 1.25 });
+        assertEquals(0.5, state.getOccupancy(0));
+        assertEquals(1.75, state.population());
+        assertEquals(0.5/1.75, state.getFraction(0), 1e-12);
+        assertEquals(2.25, state.apply(reaction("r", 0, 1, (t, s) -> 1.0).getUpdate()).getOccupancy(1), 1e-12);
+        assertEquals(0.5, reaction("r", 0, 1, (t, s) -> s.getOccupancy(0)).getFluidRate(0.0, state), 1e-12);
+    }
+
+}
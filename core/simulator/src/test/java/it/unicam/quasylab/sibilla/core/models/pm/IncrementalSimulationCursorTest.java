@@ -0,0 +1,142 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.SimulatorCursor;
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+import it.unicam.quasylab.sibilla.core.simulator.SimulationEnvironment;
+import it.unicam.quasylab.sibilla.core.simulator.Trajectory;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.Sample;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalSimulationCursorTest {
+
+    private static final int S = 0;
+    private static final int I = 1;
+    private static final int R = 2;
+
+    private static PopulationModel model(PopulationModel.SimulationMode mode) {
+        List<PopulationRule> rules = List.of(
+                new ReactionRule("infection", null,
+                        new Population[] { new Population(S), new Population(I) }, new Population[] { new Population(I, 2) },
+                        (t, s) -> s.getOccupancy(S) * s.getOccupancy(I) / s.population(), new int[] { S, I }, true),
+                new ReactionRule("recovery", null,
+                        new Population[] { new Population(I) }, new Population[] { new Population(R) },
+                        (t, s) -> 0.5 * s.getOccupancy(I), new int[] { I }, false),
+                new ReactionRule("immunity loss", null,
+                        new Population[] { new Population(R) }, new Population[] { new Population(S) },
+                        (t, s) -> 0.1 * s.getOccupancy(R), new int[] { R }, false),
+                new ReactionRule("birth", null,
+                        new Population[0], new Population[] { new Population(S) },
+                        (t, s) -> 2.0, new int[0], false),
+                new ReactionRule("crowding", null,
+                        new Population[] { new Population(R) }, new Population[0],
+                        (t, s) -> s.getOccupancy(R) * s.population() / 1000.0, new int[] { R }, true),
+                new ReactionRule("import",
+                        new Population[0], new Population[] { new Population(I) },
+                        (t, s) -> (s.getOccupancy(I) == 0 ? 1.0 : 0.0))
+        );
+        PopulationModel model = new PopulationModel(PopulationRegistry.createRegistry(3), rules, new HashMap<>(), new HashMap<>());
+        model.setSimulationMode(mode);
+        return model;
+    }
+
+    private static SimulatorCursor<PopulationState> cursor(PopulationModel.SimulationMode mode, long seed) {
+        return model(mode).createSimulationCursor(new MersenneTwister(seed), rg -> new PopulationState(new int[] { 90, 10, 0 }));
+    }
+
+    @Test
+    void shouldFollowTheTrajectoriesOfTheExactAlgorithm() {
+        for (long seed = 1; seed <= 5; seed++) {
+            SimulatorCursor<PopulationState> exact = cursor(PopulationModel.SimulationMode.EXACT, seed);
+            SimulatorCursor<PopulationState> incremental = cursor(PopulationModel.SimulationMode.INCREMENTAL, seed);
+            exact.start();
+            incremental.start();
+            for (int i = 0; i < 2000; i++) {
+                assertTrue(exact.step());
+                assertTrue(incremental.step());
+                assertArrayEquals(exact.currentState().getPopulationVector(), incremental.currentState().getPopulationVector());
+                assertEquals(exact.currentState().population(), incremental.currentState().population());
+                assertEquals(exact.time(), incremental.time(), 1e-9 * exact.time());
+            }
+        }
+    }
+
+    @Test
+    void shouldUpdateCurrentStateInPlace() {
+        SimulatorCursor<PopulationState> cursor = cursor(PopulationModel.SimulationMode.INCREMENTAL, 1);
+        cursor.start();
+        PopulationState current = cursor.currentState();
+        PopulationState snapshot = cursor.snapshot();
+        assertFalse(snapshot instanceof MutablePopulationState);
+        assertArrayEquals(current.getPopulationVector(), snapshot.getPopulationVector());
+        int[] before = snapshot.getPopulationVector().clone();
+        assertTrue(cursor.step());
+        assertSame(current, cursor.currentState());
+        assertArrayEquals(before, snapshot.getPopulationVector());
+        assertNotSame(snapshot, cursor.snapshot());
+    }
+
+    @Test
+    void shouldRetainSnapshotsInTrajectories() {
+        Trajectory<PopulationState> trajectory = new SimulationEnvironment().sampleTrajectory(new MersenneTwister(1),
+                model(PopulationModel.SimulationMode.INCREMENTAL), new PopulationState(new int[] { 90, 10, 0 }), 10.0);
+        assertTrue(trajectory.size() > 1);
+        PopulationState previous = null;
+        for (Sample<PopulationState> sample : trajectory.getData()) {
+            PopulationState state = sample.getValue();
+            assertFalse(state instanceof MutablePopulationState);
+            assertEquals(Arrays.stream(state.getPopulationVector()).sum(), state.population());
+            if (previous != null) {
+                assertFalse(Arrays.equals(previous.getPopulationVector(), state.getPopulationVector()));
+            }
+            previous = state;
+        }
+    }
+
+    @Test
+    void shouldTerminateWhenNoRuleIsEnabled() {
+        PopulationRule decay = new ReactionRule("decay", null,
+                new Population[] { new Population(S) }, new Population[0],
+                (t, s) -> s.getOccupancy(S), new int[] { S }, false);
+        IncrementalSimulationCursor cursor = new IncrementalSimulationCursor(List.of(decay),
+                new PopulationRuleDependencyGraph(1, List.of(decay)), new MersenneTwister(1),
+                rg -> new PopulationState(new int[] { 5 }));
+        cursor.start();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cursor.step());
+        }
+        assertEquals(0.0, cursor.currentState().getOccupancy(S));
+        assertFalse(cursor.step());
+        assertTrue(cursor.isTerminated());
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutablePopulationStateTest {
+
+    private Update getUpdate(int consumed, int produced) {
+        Update update = new Update("test");
+        update.consume(consumed, 1);
+        update.produce(produced, 1);
+        return update;
+    }
+
+    @Test
+    void shouldUpdateInPlace() {
+        PopulationState initial = new PopulationState(new int[] { 2, 0 });
+        MutablePopulationState state = new MutablePopulationState(initial);
+        int[] vector = state.getPopulationVector();
+        state.update(getUpdate(0, 1));
+        assertSame(vector, state.getPopulationVector());
+        assertEquals(1, state.getOccupancy(0));
+        assertEquals(1, state.getOccupancy(1));
+        assertEquals(2, state.population());
+        assertEquals(2, initial.getOccupancy(0));
+    }
+
+    @Test
+    void shouldNotChangeStateOnIllegalUpdate() {
+        MutablePopulationState state = new MutablePopulationState(new PopulationState(new int[] { 0, 1 }));
+        assertThrows(IllegalArgumentException.class, () -> state.update(getUpdate(0, 1)));
+        assertArrayEquals(new int[] { 0, 1 }, state.getPopulationVector());
+        assertEquals(1, state.population());
+    }
+
+    @Test
+    void shouldTakeImmutableSnapshots() {
+        MutablePopulationState state = new MutablePopulationState(new PopulationState(new int[] { 2, 0 }));
+        PopulationState snapshot = state.snapshot();
+        state.update(getUpdate(0, 1));
+        assertFalse(snapshot instanceof MutablePopulationState);
+        assertArrayEquals(new int[] { 2, 0 }, snapshot.getPopulationVector());
+        assertEquals(2, snapshot.population());
+        assertArrayEquals(new int[] { 1, 1 }, state.snapshot().getPopulationVector());
+    }
+
+    @Test
+    void shouldTrackPopulationSize() {
+        MutablePopulationState state = new MutablePopulationState(new PopulationState(new int[] { 2, 0 }));
+        Update birth = new Update("birth");
+        birth.produce(1, 3);
+        state.update(birth);
+        assertEquals(5, state.population());
+        assertEquals(0.6, state.getFraction(1), 1e-12);
+        assertEquals(8, state.apply(birth).population());
+    }
+
+    @Test
+    void shouldCompileUpdates() {
+        Update update = getUpdate(0, 1);
+        assertArrayEquals(new int[] { -1, 1 }, update.getDeltas());
+        update.produce(0, 1);
+        assertArrayEquals(new int[] { 1 }, update.getIndexes());
+        assertArrayEquals(new int[] { 1 }, update.getDeltas());
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopulationRuleDependencyGraphTest {
+
+    private static final int S = 0;
+    private static final int I = 1;
+    private static final int R = 2;
+
+    private static final PopulationRule INFECTION = new ReactionRule("infection", null,
+            new Population[] { new Population(S), new Population(I) }, new Population[] { new Population(I, 2) },
+            (t, s) -> s.getOccupancy(S) * s.getOccupancy(I) / s.population(), new int[] { S, I }, true);
+    private static final PopulationRule RECOVERY = new ReactionRule("recovery", null,
+            new Population[] { new Population(I) }, new Population[] { new Population(R) },
+            (t, s) -> s.getOccupancy(I), new int[] { I }, false);
+    private static final PopulationRule BIRTH = new ReactionRule("birth", null,
+            new Population[0], new Population[] { new Population(S) },
+            (t, s) -> 1.0, new int[0], false);
+    private static final PopulationRule UNDECLARED = new ReactionRule("undeclared",
+            new Population[] { new Population(R) }, new Population[] { new Population(S) },
+            (t, s) -> s.getOccupancy(R));
+
+    private static int[] affected(PopulationRuleDependencyGraph graph, Update update) {
+        int[] affected = new int[graph.numberOfRules()];
+        int counter = graph.collectAffectedRules(update, new int[graph.numberOfRules()], 1, affected);
+        int[] result = Arrays.copyOf(affected, counter);
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Test
+    void shouldRecordTheRulesDependingOnEachSpecies() {
+        PopulationRuleDependencyGraph graph = new PopulationRuleDependencyGraph(3, List.of(INFECTION, RECOVERY, BIRTH, UNDECLARED));
+        assertEquals(4, graph.numberOfRules());
+        assertArrayEquals(new int[] { 0 }, graph.getDependentRules(S));
+        assertArrayEquals(new int[] { 0, 1 }, graph.getDependentRules(I));
+        assertArrayEquals(new int[0], graph.getDependentRules(R));
+        assertArrayEquals(new int[] { 0 }, graph.getPopulationSizeDependentRules());
+        assertArrayEquals(new int[] { 3 }, graph.getAlwaysAffectedRules());
+    }
+
+    @Test
+    void shouldCollectTheRulesAffectedByAnUpdate() {
+        PopulationRuleDependencyGraph graph = new PopulationRuleDependencyGraph(3, List.of(INFECTION, RECOVERY, BIRTH, UNDECLARED));
+        assertArrayEquals(new int[] { 0, 1, 3 }, affected(graph, INFECTION.getUpdate()));
+        assertArrayEquals(new int[] { 0, 1, 3 }, affected(graph, RECOVERY.getUpdate()));
+        assertArrayEquals(new int[] { 0, 3 }, affected(graph, BIRTH.getUpdate()));
+    }
+
+    @Test
+    void shouldCollectPopulationSizeDependentRulesWhenThePopulationChanges() {
+        PopulationRule crowding = new ReactionRule("crowding", null,
+                new Population[] { new Population(R) }, new Population[0],
+                (t, s) -> s.getOccupancy(R) * s.population(), new int[] { R }, true);
+        PopulationRule arrival = new ReactionRule("arrival", null,
+                new Population[0], new Population[] { new Population(I) },
+                (t, s) -> 1.0, new int[0], false);
+        PopulationRuleDependencyGraph graph = new PopulationRuleDependencyGraph(3, List.of(RECOVERY, crowding, arrival));
+        assertArrayEquals(new int[] { 0, 1 }, affected(graph, arrival.getUpdate()));
+        assertArrayEquals(new int[] { 1 }, affected(graph, crowding.getUpdate()));
+        assertArrayEquals(new int[] { 0, 1 }, affected(graph, RECOVERY.getUpdate()));
+        Update move = new Update("move");
+        move.add(S, 1, 0);
+        move.add(I, 0, 1);
+        assertArrayEquals(new int[] { 0 }, affected(graph, move));
+    }
+
+    @Test
+    void shouldMarkEachRuleOnce() {
+        PopulationRuleDependencyGraph graph = new PopulationRuleDependencyGraph(3, List.of(INFECTION, RECOVERY, BIRTH, UNDECLARED));
+        int[] marks = new int[4];
+        int[] affected = new int[4];
+        assertEquals(3, graph.collectAffectedRules(INFECTION.getUpdate(), marks, 1, affected));
+        assertEquals(3, graph.collectAffectedRules(INFECTION.getUpdate(), marks, 2, affected));
+        assertEquals(0, graph.collectAffectedRules(INFECTION.getUpdate(), marks, 2, affected));
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TauLeapingSimulationCursorTest {
+
+    private static final int MAX_STEPS = 100000;
+
+    private static int runUntil(TauLeapingSimulationCursor cursor, double deadline) {
+        cursor.start();
+        int steps = 0;
+        while (cursor.time() < deadline) {
+            assertTrue(cursor.step());
+            assertTrue(++steps < MAX_STEPS);
+        }
+        return steps;
+    }
+
+    @Test
+    void constantProductionShouldTerminate() {
+        PopulationRule birth = new ReactionRule("birth", null, new Population[0], new Population[] { new Population(0) },
+                (t, s) -> 100.0, new int[0], false);
+        TauLeapingSimulationCursor cursor = new TauLeapingSimulationCursor(List.of(birth), new MersenneTwister(1),
+                rg -> new PopulationState(new int[] { 0 }));
+        int steps = runUntil(cursor, 100.0);
+        assertTrue(steps < 10000);
+        assertEquals(100.0, cursor.currentState().getOccupancy(0) / cursor.time(), 5.0);
+    }
+
+    @Test
+    void autocatalyticGrowthShouldLeapAndFollowTheMean() {
+        double rate = 0.1;
+        int initial = 10000;
+        PopulationRule growth = new ReactionRule("growth", new Population[] { new Population(0) },
+                new Population[] { new Population(0, 2) }, (t, s) -> rate * s.getOccupancy(0));
+        TauLeapingSimulationCursor cursor = new TauLeapingSimulationCursor(List.of(growth), new MersenneTwister(1),
+                rg -> new PopulationState(new int[] { initial }));
+        double ratio = 0.0;
+        int replicas = 20;
+        for (int i = 0; i < replicas; i++) {
+            int steps = runUntil(cursor, 2.0);
+            double events = cursor.currentState().getOccupancy(0) - initial;
+            assertTrue(steps < events / 10);
+            ratio += cursor.currentState().getOccupancy(0) / (initial * Math.exp(rate * cursor.time()));
+        }
+        assertEquals(1.0, ratio / replicas, 0.01);
+    }
+
+    @Test
+    void largeRateLeapsShouldNotOverflowThePopulation() {
+        PopulationRule catalysis = new ReactionRule("catalysis", null, new Population[] { new Population(0) },
+                new Population[] { new Population(0), new Population(1) }, (t, s) -> 1.0E9 * s.getOccupancy(0),
+                new int[] { 0 }, false);
+        PopulationRule growth = new ReactionRule("growth", new Population[] { new Population(2) },
+                new Population[] { new Population(2, 2) }, (t, s) -> 1.0E-9 * s.getOccupancy(2));
+        TauLeapingSimulationCursor cursor = new TauLeapingSimulationCursor(List.of(catalysis, growth),
+                new MersenneTwister(1), rg -> new PopulationState(new int[] { 1, 0, 1000 }));
+        cursor.start();
+        assertTrue(cursor.step());
+        assertTrue(cursor.time() > 0.0);
+        assertTrue(cursor.currentState().getOccupancy(1) > 0);
+        assertTrue(cursor.currentState().getOccupancy(1) <= Integer.MAX_VALUE);
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.UnicastRule.UnicastReceiver;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnicastRuleTest {
+
+    private static final int SENDER = 0;
+    private static final int FIRST = 1;
+    private static final int SECOND = 2;
+    private static final int TARGET = 3;
+
+    private UnicastRule rule() {
+        return new UnicastRule("unicast", s -> 1.0, SENDER, rg -> SENDER,
+                new UnicastReceiver(SENDER, s -> 1.0, rg -> TARGET),
+                new UnicastReceiver(FIRST, s -> 1.0, rg -> TARGET),
+                new UnicastReceiver(SECOND, s -> 3.0, rg -> TARGET));
+    }
+
+    @Test
+    void receiversShouldBeSelectedProportionallyToTheirWeight() {
+        PopulationState state = new PopulationState(new int[] { 1, 10, 10, 0 });
+        RandomGenerator rg = new MersenneTwister(1);
+        PopulationTransition transition = rule().apply(rg, 0.0, state);
+        int samples = 40000;
+        int first = 0;
+        for (int i = 0; i < samples; i++) {
+            PopulationState next = state.apply(transition.apply(rg));
+            assertEquals(1, next.getOccupancy(TARGET));
+            assertNotEquals(0.0, next.getOccupancy(SENDER));
+            if (next.getOccupancy(FIRST) == 9) {
+                first++;
+            }
+        }
+        assertEquals(0.25, ((double) first)/samples, 0.01);
+    }
+
+    @Test
+    void driftShouldNeverSelectReceiversWithoutWeight() {
+        PopulationState state = new PopulationState(new int[] { 1, 0, 10, 0 });
+        UnicastReceiver[] receivers = new UnicastReceiver[] {
+                new UnicastReceiver(SENDER, s -> 1.0, rg -> TARGET),
+                new UnicastReceiver(FIRST, s -> 1.0, rg -> TARGET),
+                new UnicastReceiver(SECOND, s -> 3.0, rg -> TARGET) };
+        assertEquals(30.0, UnicastRule.getTotalReceivingWeight(SENDER, state, receivers));
+        RandomGenerator rg = new MersenneTwister(1);
+        for (int i = 0; i < 1000; i++) {
+            PopulationState next = state.apply(UnicastRule.getDrift("unicast", rg, SENDER, state, r -> SENDER, receivers));
+            assertEquals(9, next.getOccupancy(SECOND));
+        }
+    }
+
+    @Test
+    void ruleShouldBeDisabledWithoutReceivers() {
+        PopulationState state = new PopulationState(new int[] { 1, 0, 0, 0 });
+        assertFalse(rule().isEnabled(state));
+        assertNull(rule().apply(new MersenneTwister(1), 0.0, state));
+    }
+
+    @Test
+    void receivingWeightsShouldOnlyBeEvaluatedWithTheRule() {
+        AtomicInteger evaluations = new AtomicInteger();
+        UnicastRule rule = new UnicastRule("unicast", s -> 1.0, SENDER, rg -> SENDER,
+                new UnicastReceiver(FIRST, s -> { evaluations.incrementAndGet(); return 1.0; }, rg -> TARGET),
+                new UnicastReceiver(SECOND, s -> { evaluations.incrementAndGet(); return 1.0; }, rg -> TARGET));
+        PopulationState state = new PopulationState(new int[] { 1, 10, 10, 0 });
+        RandomGenerator rg = new MersenneTwister(1);
+        PopulationTransition transition = rule.apply(rg, 0.0, state);
+        assertEquals(2, evaluations.get());
+        for (int i = 0; i < 100; i++) {
+            transition.apply(rg);
+        }
+        assertEquals(2, evaluations.get());
+    }
+
+}
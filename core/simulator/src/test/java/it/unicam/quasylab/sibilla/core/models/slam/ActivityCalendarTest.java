@@ -0,0 +1,166 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivityCalendarTest {
+
+    private static class TestActivity extends Activity {
+
+        private final int agentId;
+
+        TestActivity(double scheduledTime) {
+            this(scheduledTime, -1);
+        }
+
+        TestActivity(double scheduledTime, int agentId) {
+            super(scheduledTime);
+            this.agentId = agentId;
+        }
+
+        @Override
+        public void execute(RandomGenerator rg, SlamState state) {
+        }
+
+        @Override
+        public int getStepAgentId() {
+            return agentId;
+        }
+    }
+
+    @Test
+    void activitiesShouldBePolledInTimeOrder() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        RandomGenerator rg = new MersenneTwister(1);
+        for (int i = 0; i < 1000; i++) {
+            calendar.schedule(new TestActivity(rg.nextDouble()));
+        }
+        double last = Double.NEGATIVE_INFINITY;
+        while (!calendar.isEmpty()) {
+            double time = calendar.poll().getScheduledTime();
+            assertTrue(time >= last);
+            last = time;
+        }
+        assertNull(calendar.poll());
+    }
+
+    @Test
+    void simultaneousActivitiesShouldBePolledInInsertionOrder() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Activity activity = new TestActivity(1.0);
+            activities.add(activity);
+            calendar.schedule(activity);
+        }
+        for (Activity activity : activities) {
+            assertSame(activity, calendar.poll());
+        }
+    }
+
+    @Test
+    void removedActivitiesShouldNotBePolled() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Activity activity = new TestActivity((i * 37) % 100);
+            activities.add(activity);
+            calendar.schedule(activity);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertTrue(calendar.remove(activities.get(i)));
+            assertFalse(calendar.remove(activities.get(i)));
+        }
+        assertEquals(50, calendar.size());
+        double last = Double.NEGATIVE_INFINITY;
+        while (!calendar.isEmpty()) {
+            Activity activity = calendar.poll();
+            assertEquals(1, activities.indexOf(activity) % 2);
+            assertTrue(activity.getScheduledTime() >= last);
+            last = activity.getScheduledTime();
+        }
+    }
+
+    @Test
+    void schedulingAnAgentStepShouldReplaceThePreviousOne() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        Activity first = new TestActivity(1.0, 3);
+        Activity second = new TestActivity(2.0, 3);
+        Activity other = new TestActivity(1.5);
+        calendar.schedule(first);
+        calendar.schedule(other);
+        calendar.schedule(second);
+        assertEquals(2, calendar.size());
+        assertSame(second, calendar.getAgentStep(3));
+        assertSame(other, calendar.poll());
+        assertSame(second, calendar.poll());
+        assertNull(calendar.getAgentStep(3));
+    }
+
+    @Test
+    void cancelledAgentStepsShouldBeRemoved() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        Activity step = new TestActivity(1.0, 40);
+        calendar.schedule(step);
+        calendar.schedule(new TestActivity(2.0));
+        assertSame(step, calendar.cancelAgentStep(40));
+        assertNull(calendar.cancelAgentStep(40));
+        assertNull(calendar.cancelAgentStep(7));
+        assertEquals(2.0, calendar.poll().getScheduledTime());
+        assertTrue(calendar.isEmpty());
+    }
+
+    @Test
+    void batchesShouldBeScheduledInTimeAndInsertionOrder() {
+        ActivityCalendar calendar = new ActivityCalendar();
+        calendar.schedule(new TestActivity(0.5));
+        calendar.schedule(new TestActivity(2.0, 1));
+        List<Activity> batch = new ArrayList<>();
+        RandomGenerator rg = new MersenneTwister(1);
+        for (int i = 0; i < 100; i++) {
+            batch.add(new TestActivity(Math.floor(10 * rg.nextDouble())));
+        }
+        Activity step = new TestActivity(1.0, 1);
+        batch.add(step);
+        calendar.scheduleAll(batch);
+        assertEquals(102, calendar.size());
+        assertSame(step, calendar.getAgentStep(1));
+        Activity last = calendar.poll();
+        while (!calendar.isEmpty()) {
+            Activity next = calendar.poll();
+            assertTrue(last.getScheduledTime() < next.getScheduledTime()
+                    || (last.getScheduledTime() == next.getScheduledTime() && batch.indexOf(last) < batch.indexOf(next)));
+            last = next;
+        }
+    }
+
+}
@@ -0,0 +1,153 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentIndexTest {
+
+    private final static AgentVariable GROUP = new AgentVariable("group", 0, SlamType.INTEGER_TYPE);
+    private final static AgentVariable LEVEL = new AgentVariable("level", 1, SlamType.REAL_TYPE);
+    private final static AgentVariable ACTIVE = new AgentVariable("active", 2, SlamType.BOOLEAN_TYPE);
+    private final static MessageTag PING = new MessageTag(0, "ping", new SlamType[0]);
+
+    private static AgentFactory agent(int prototype, int group) {
+        AgentBehaviouralState state = new AgentBehaviouralState(0, "idle");
+        return id -> new Agent(id, prototype, new AgentStore(Map.of(GROUP, SlamValue.INT_VALUE.apply(group))), state,
+                (rg, dt, m) -> {}, (rg, s, m) -> {});
+    }
+
+    private static AgentMessage ping() {
+        return new AgentMessage(PING, new SlamValue[0], a -> true, (rg, a) -> 1.0);
+    }
+
+    private static SlamState state() {
+        return new SlamState(agent(0, 0), agent(0, 1), agent(1, 0), agent(1, 1), agent(1, 1));
+    }
+
+    private static Set<Integer> receivers(SlamState state, AgentMessage message) {
+        Agent sender = state.stream().filter(a -> a.agentId() == 0).findFirst().get();
+        state.sendMessage(new MersenneTwister(1), sender, message);
+        Set<Integer> receivers = new HashSet<>();
+        Activity activity;
+        while ((activity = state.nextScheduledActivity()) != null) {
+            receivers.add(((Activity.MessageDeliveryActivity) activity).getMessage().getTarget().agentId());
+        }
+        return receivers;
+    }
+
+    @Test
+    void unscopedMessagesShouldReachAllTheOtherAgents() {
+        assertEquals(Set.of(1, 2, 3, 4), receivers(state(), ping()));
+    }
+
+    @Test
+    void messagesShouldBeDeliveredToTheTargetPrototype() {
+        assertEquals(Set.of(2, 3, 4), receivers(state(), ping().toPrototype(1)));
+    }
+
+    @Test
+    void messagesShouldBeDeliveredToTheTargetPartition() {
+        SlamState state = state();
+        state.addKeyAttribute(GROUP);
+        assertEquals(Set.of(1, 3, 4), receivers(state, ping().toAgentsWith(GROUP, SlamValue.INT_VALUE.apply(1))));
+        assertEquals(Set.of(3, 4), receivers(state, ping().toPrototype(1).toAgentsWith(GROUP, SlamValue.INT_VALUE.apply(1))));
+    }
+
+    @Test
+    void scopeShouldBeCheckedAlsoWithoutKeyAttributes() {
+        assertEquals(Set.of(3, 4), receivers(state(), ping().toPrototype(1).toAgentsWith(GROUP, SlamValue.INT_VALUE.apply(1))));
+    }
+
+    @Test
+    void partitionsShouldFollowMemoryUpdates() {
+        AgentIndex index = new AgentIndex();
+        index.addKey(GROUP);
+        Agent agent = agent(0, 0).getAgent(0);
+        index.add(agent);
+        AgentMessage message = ping().toAgentsWith(GROUP, SlamValue.INT_VALUE.apply(1));
+        assertTrue(index.getCandidates(message).isEmpty());
+        agent.getAgentMemory().set(GROUP, SlamValue.INT_VALUE.apply(1));
+        index.update(agent);
+        assertEquals(Set.of(agent), new HashSet<>(index.getCandidates(message)));
+        assertTrue(index.getCandidates(ping().toAgentsWith(GROUP, SlamValue.INT_VALUE.apply(0))).isEmpty());
+    }
+
+    @Test
+    void keyTargetsShouldBeDeliveredInLazyMode() {
+        AgentBehaviouralState state = new AgentBehaviouralState(0, "idle");
+        SlamValue zero = SlamValue.INT_VALUE.apply(0);
+        SlamValue one = SlamValue.INT_VALUE.apply(1);
+        for (boolean lazy : new boolean[] { false, true }) {
+            SlamState slamState = new SlamState();
+            for (int i = 0; i < 5; i++) {
+                slamState.addAgent(id -> new Agent(id, 0, new AgentStore(Map.of(GROUP, zero)), state,
+                        (rg, dt, m) -> m.set(GROUP, one), (rg, s, m) -> {}));
+            }
+            slamState.addKeyAttribute(GROUP);
+            slamState.setLazyTimeAdvancement(lazy);
+            slamState.timeStep(new MersenneTwister(1), 1.0);
+            assertEquals(Set.of(), receivers(slamState, ping().toAgentsWith(GROUP, zero)));
+            assertEquals(Set.of(1, 2, 3, 4), receivers(slamState, ping().toAgentsWith(GROUP, one)));
+        }
+    }
+
+    @Test
+    void realKeysShouldBeComparedByValue() {
+        AgentIndex index = new AgentIndex();
+        index.addKey(LEVEL);
+        Agent agent = new Agent(0, 0, new AgentStore(Map.of(LEVEL, SlamValue.REAL_VALUE.apply(0.5))),
+                new AgentBehaviouralState(0, "idle"), (rg, dt, m) -> {}, (rg, s, m) -> {});
+        index.add(agent);
+        for (int i = 0; i < 100; i++) {
+            agent.getAgentMemory().set(LEVEL, SlamValue.REAL_VALUE.apply(0.5 * (i % 2)));
+            index.update(agent);
+            assertEquals(1, index.getNumberOfPartitions(LEVEL));
+        }
+        AgentMessage message = ping().toAgentsWith(LEVEL, SlamValue.REAL_VALUE.apply(0.5));
+        assertEquals(Set.of(agent), new HashSet<>(index.getCandidates(message)));
+        assertTrue(message.isInScope(agent));
+        assertTrue(index.getCandidates(ping().toAgentsWith(LEVEL, SlamValue.REAL_VALUE.apply(0.0))).isEmpty());
+    }
+
+    @Test
+    void booleanKeysShouldSelectTheTargetPartition() {
+        SlamState state = new SlamState();
+        for (int i = 0; i < 4; i++) {
+            boolean active = (i % 2 == 1);
+            state.addAgent(id -> new Agent(id, 0, new AgentStore(Map.of(ACTIVE, (active ? SlamValue.TRUE : SlamValue.FALSE))),
+                    new AgentBehaviouralState(0, "idle"), (rg, dt, m) -> {}, (rg, s, m) -> {}));
+        }
+        state.addKeyAttribute(ACTIVE);
+        assertEquals(Set.of(1, 3), receivers(state, ping().toAgentsWith(ACTIVE, new SlamValue.BooleanValue(true))));
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgentStoreTest {
+
+    private final static AgentVariable X = new AgentVariable("x", 0, SlamType.REAL_TYPE);
+    private final static AgentVariable N = new AgentVariable("n", 1, SlamType.INTEGER_TYPE);
+    private final static AgentVariable FLAG = new AgentVariable("flag", 2, SlamType.BOOLEAN_TYPE);
+    private final static AgentVariable L = new AgentVariable("l", 3, SlamType.LIST_TYPE.apply(SlamType.INTEGER_TYPE));
+    private final static AgentVariable OTHER = new AgentVariable("other", 7, SlamType.REAL_TYPE);
+
+    private final static AgentStoreLayout LAYOUT = new AgentStoreLayout(X, N, FLAG, L);
+
+    @Test
+    void layoutShouldAssignSlotsByType() {
+        assertEquals(1, LAYOUT.getNumberOfReals());
+        assertEquals(2, LAYOUT.getNumberOfIntegers());
+        assertEquals(1, LAYOUT.getNumberOfValues());
+        assertTrue(LAYOUT.contains(FLAG));
+        assertFalse(LAYOUT.contains(OTHER));
+        assertThrows(IllegalArgumentException.class, () -> new AgentStoreLayout(X, new AgentVariable("y", 0, SlamType.REAL_TYPE)));
+    }
+
+    @Test
+    void undefinedVariablesShouldBeNone() {
+        AgentStore store = LAYOUT.newStore();
+        assertEquals(SlamValue.NONE, store.getValue(X));
+        assertEquals(SlamValue.NONE, store.getValue(OTHER));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void slotsShouldStorePrimitiveValues() {
+        AgentStore store = LAYOUT.newStore();
+        store.setReal(X, 2.5);
+        store.setInteger(N, 3);
+        store.setBoolean(FLAG, true);
+        assertEquals(2.5, store.getReal(X));
+        assertEquals(3, store.getInteger(N));
+        assertTrue(store.getBoolean(FLAG));
+        assertEquals(SlamValue.INT_VALUE.apply(3), store.getValue(N));
+        assertEquals(SlamValue.TRUE, store.getValue(FLAG));
+        assertEquals(2.5, store.getValue(X).toDouble());
+        assertEquals(3, store.size());
+    }
+
+    @Test
+    void valuesShouldBeStoredInSlots() {
+        SlamValue list = SlamValue.LIST_VALUE.apply(SlamType.INTEGER_TYPE, new SlamValue[] { SlamValue.INT_VALUE.apply(1) });
+        AgentStore store = new AgentStore(0.0, LAYOUT, Map.of(X, SlamValue.REAL_VALUE.apply(1.0), L, list, OTHER, SlamValue.REAL_VALUE.apply(4.0)));
+        assertEquals(1.0, store.getReal(X));
+        assertSame(list, store.getValue(L));
+        assertEquals(4.0, store.getReal(OTHER));
+        store.set(N, SlamValue.INT_VALUE.apply(5));
+        assertEquals(5.0, store.getReal(N));
+        store.set(N, SlamValue.NONE);
+        assertEquals(SlamValue.NONE, store.getValue(N));
+        assertThrows(IllegalArgumentException.class, () -> store.set(FLAG, SlamValue.INT_VALUE.apply(1)));
+    }
+
+    @Test
+    void storesWithoutLayoutShouldStillWork() {
+        AgentStore store = new AgentStore(Map.of(X, SlamValue.REAL_VALUE.apply(1.0)));
+        store.setBoolean(FLAG, false);
+        assertEquals(1.0, store.getReal(X));
+        assertEquals(SlamValue.FALSE, store.getValue(FLAG));
+        assertEquals(2, store.size());
+    }
+
+
+    @Test
+    void withLayoutShouldMoveContentToSlots() {
+        AgentStore store = new AgentStore(2.0, Map.of(X, SlamValue.REAL_VALUE.apply(1.5), OTHER, SlamValue.REAL_VALUE.apply(4.0)));
+        AgentStore moved = store.withLayout(LAYOUT);
+        assertSame(LAYOUT, moved.getLayout());
+        assertEquals(2.0, moved.now());
+        assertEquals(1.5, moved.getReal(X));
+        assertEquals(4.0, moved.getReal(OTHER));
+        assertEquals(SlamValue.NONE, moved.getValue(N));
+        assertEquals(2, moved.size());
+        assertSame(moved, moved.withLayout(LAYOUT));
+        assertEquals(1.5, moved.withLayout(AgentStoreLayout.EMPTY).getReal(X));
+    }
+
+    @Test
+    void storesProvidedToAgentsShouldUseTheDeclaredLayout() {
+        AgentDefinition definition = new AgentDefinition();
+        definition.addAgent("A", new SlamType[0]);
+        definition.addAgent("B", new SlamType[0]);
+        definition.setAgentVariables("A", X, N, FLAG, L);
+        AgentStore store = definition.getStoreProvider("A", values -> new AgentStore(Map.of(N, SlamValue.INT_VALUE.apply(3)))).apply(new SlamValue[0]);
+        assertSame(definition.getStoreLayout("A"), store.getLayout());
+        assertEquals(3, store.getInteger(N));
+        AgentStore other = definition.getStoreProvider("B", values -> new AgentStore()).apply(new SlamValue[0]);
+        assertSame(AgentStoreLayout.EMPTY, other.getLayout());
+    }
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.models.slam;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlamStateTest {
+
+    private final static AgentVariable ELAPSED = new AgentVariable("elapsed", 0, SlamType.REAL_TYPE);
+    private final static AgentVariable PERCEPTIONS = new AgentVariable("perceptions", 1, SlamType.INTEGER_TYPE);
+    private final static AgentStoreLayout LAYOUT = new AgentStoreLayout(ELAPSED, PERCEPTIONS);
+    private final static Map<AgentVariable, SlamValue> INITIAL_VALUES = Map.of(ELAPSED, SlamValue.REAL_VALUE.apply(0.0),
+            PERCEPTIONS, SlamValue.INT_VALUE.apply(0));
+
+    private static SlamState state(int size) {
+        return state(size, new int[1]);
+    }
+
+    private static SlamState state(int size, int[] counter) {
+        AgentBehaviouralState idle = new AgentBehaviouralState(0, "idle");
+        SlamState state = new SlamState();
+        for (int i = 0; i < size; i++) {
+            state.addAgent(id -> new Agent(id, 0, new AgentStore(0.0, LAYOUT, INITIAL_VALUES), idle,
+                    (rg, dt, m) -> m.setReal(ELAPSED, m.getReal(ELAPSED) + dt),
+                    (rg, s, m) -> {
+                        counter[0]++;
+                        m.setInteger(PERCEPTIONS, m.getInteger(PERCEPTIONS) + 1);
+                    }));
+        }
+        return state;
+    }
+
+    private static SlamState state(int size, AgentTimePassingFunction timePassingFunction) {
+        AgentBehaviouralState idle = new AgentBehaviouralState(0, "idle");
+        SlamState state = new SlamState();
+        for (int i = 0; i < size; i++) {
+            state.addAgent(id -> new Agent(id, 0, new AgentStore(0.0, LAYOUT, INITIAL_VALUES), idle,
+                    timePassingFunction, (rg, s, m) -> {}));
+        }
+        return state;
+    }
+
+    private static int perceptions(SlamState state) {
+        return state.stream().mapToInt(a -> a.getAgentMemory().getInteger(PERCEPTIONS)).sum();
+    }
+
+    @Test
+    void eagerTimeStepShouldUpdateAllAgents() {
+        SlamState state = state(10);
+        RandomGenerator rg = new MersenneTwister(1);
+        state.timeStep(rg, 1.0);
+        state.timeStep(rg, 2.5);
+        assertEquals(2.5, state.now());
+        assertEquals(20, perceptions(state));
+        assertEquals(2.5, state.getMinOf(m -> m.getReal(ELAPSED)));
+    }
+
+    @Test
+    void lazyTimeStepShouldOnlyUpdateTouchedAgents() {
+        int[] counter = new int[1];
+        SlamState state = state(10, counter);
+        state.setLazyTimeAdvancement(true);
+        RandomGenerator rg = new MersenneTwister(1);
+        state.timeStep(rg, 1.0);
+        state.timeStep(rg, 2.5);
+        assertEquals(0, counter[0]);
+        assertTrue(state.exists(a -> a.agentId() >= 0));
+        assertEquals(1, counter[0]);
+        assertEquals(2.5, state.getMeanOf(m -> m.getReal(ELAPSED)));
+        assertEquals(10, counter[0]);
+        assertEquals(10, perceptions(state));
+    }
+
+    @Test
+    void disablingLazyTimeAdvancementShouldSynchronizeAllAgents() {
+        SlamState state = state(5);
+        state.setLazyTimeAdvancement(true);
+        RandomGenerator rg = new MersenneTwister(1);
+        state.timeStep(rg, 3.0);
+        state.setLazyTimeAdvancement(false);
+        assertEquals(5, perceptions(state));
+        assertEquals(3.0, state.getMaxOf(m -> m.getReal(ELAPSED)));
+        assertEquals(3.0, state.getMinOf(m -> m.getReal(ELAPSED)));
+    }
+
+    @Test
+    void lazyQueriesShouldSynchronizeAgentsEvenWithRegisteredViews() {
+        int[] counter = new int[1];
+        SlamState state = state(10, counter);
+        state.setLazyTimeAdvancement(true);
+        ToDoubleFunction<AgentStore> expr = m -> m.getReal(ELAPSED);
+        state.registerAggregate(expr);
+        RandomGenerator rg = new MersenneTwister(1);
+        state.timeStep(rg, 2.5);
+        assertEquals(0, counter[0]);
+        assertEquals(2.5, state.getMeanOf(expr));
+        assertEquals(10, counter[0]);
+        assertEquals(2.5, state.getMinOf(expr));
+        assertEquals(10, counter[0]);
+    }
+
+    @Test
+    void eagerAndLazyRunsShouldAgreeWithRegisteredViews() {
+        ToDoubleFunction<AgentStore> expr = m -> m.getReal(ELAPSED);
+        Predicate<Agent> positive = a -> a.getAgentMemory().getReal(ELAPSED) > 0;
+        SlamState eager = new SlamState();
+        SlamState lazy = new SlamState();
+        lazy.setLazyTimeAdvancement(true);
+        for (SlamState state : new SlamState[] { eager, lazy }) {
+            for (int i = 0; i < 10; i++) {
+                Map<AgentVariable, SlamValue> values = Map.of(ELAPSED, SlamValue.REAL_VALUE.apply(-5.0 - i),
+                        PERCEPTIONS, SlamValue.INT_VALUE.apply(0));
+                state.addAgent(id -> new Agent(id, 0, new AgentStore(0.0, LAYOUT, values),
+                        new AgentBehaviouralState(0, "idle"),
+                        (rg, dt, m) -> m.setReal(ELAPSED, m.getReal(ELAPSED) + dt), (rg, s, m) -> {}));
+            }
+            state.registerAggregate(expr);
+            state.registerPredicate(positive);
+        }
+        RandomGenerator eagerRg = new MersenneTwister(1);
+        RandomGenerator lazyRg = new MersenneTwister(1);
+        for (int t = 1; t <= 20; t++) {
+            eager.timeStep(eagerRg, t);
+            lazy.timeStep(lazyRg, t);
+            assertEquals(eager.getMinOf(expr), lazy.getMinOf(expr));
+            assertEquals(eager.getMaxOf(expr), lazy.getMaxOf(expr));
+            assertEquals(eager.exists(positive), lazy.exists(positive));
+            assertEquals(eager.forAll(positive), lazy.forAll(positive));
+        }
+        assertTrue(eager.forAll(positive));
+    }
+
+    @Test
+    void aggregateViewsShouldAgreeWithFullScans() {
+        AgentTimePassingFunction randomWalk = (rg, dt, m) -> m.setReal(ELAPSED, m.getReal(ELAPSED) + rg.nextGaussian() * dt);
+        ToDoubleFunction<AgentStore> expr = m -> m.getReal(ELAPSED);
+        Predicate<Agent> even = a -> a.agentId() % 2 == 0;
+        Predicate<Agent> positive = a -> a.getAgentMemory().getReal(ELAPSED) > 0;
+        for (boolean lazy : new boolean[] { false, true }) {
+            SlamState state = state(50, randomWalk);
+            state.setLazyTimeAdvancement(lazy);
+            SlamState reference = state(50, randomWalk);
+            reference.setLazyTimeAdvancement(lazy);
+            AggregateView all = state.registerAggregate(expr);
+            AggregateView evens = state.registerAggregate(expr, even);
+            state.registerPredicate(positive);
+            assertSame(all, state.registerAggregate(expr));
+            RandomGenerator rg = new MersenneTwister(1);
+            RandomGenerator referenceRg = new MersenneTwister(1);
+            for (int i = 1; i <= 20; i++) {
+                state.timeStep(rg, i);
+                reference.timeStep(referenceRg, i);
+                reference.stream().forEach(a -> {});
+                if (lazy) {
+                    state.stream().forEach(a -> {});
+                }
+                assertEquals(reference.getMinOf(expr), state.getMinOf(expr));
+                assertEquals(reference.getMaxOf(expr), state.getMaxOf(expr));
+                assertEquals(reference.getMeanOf(expr), state.getMeanOf(expr), 1e-12);
+                assertEquals(reference.getMinOf(expr, even), state.getMinOf(expr, even));
+                assertEquals(reference.getMaxOf(expr, even), state.getMaxOf(expr, even));
+                assertEquals(reference.getMeanOf(expr, even), state.getMeanOf(expr, even), 1e-12);
+                assertEquals(reference.exists(positive), state.exists(positive));
+                assertEquals(reference.forAll(positive), state.forAll(positive));
+                assertEquals(25, evens.getCount());
+                assertEquals(50, all.getCount());
+            }
+        }
+    }
+
+    @Test
+    void predicateViewsShouldCountAgents() {
+        SlamState state = state(4, (rg, dt, m) -> {});
+        Predicate<Agent> first = a -> a.agentId() == 0;
+        AggregateView view = state.registerPredicate(first);
+        assertTrue(state.exists(first));
+        assertFalse(state.forAll(first));
+        assertEquals(1, view.getCount());
+        assertTrue(Double.isNaN(view.getMin()));
+        state.addAgent(id -> new Agent(id, 0, new AgentStore(), new AgentBehaviouralState(0, "idle"), (rg, dt, m) -> {}, (rg, s, m) -> {}));
+        assertEquals(1, view.getCount());
+        assertFalse(state.forAll(first));
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    private static final int SAMPLES = 100000;
+    private static final double RANK_ERROR = 0.01;
+    private static final double[] RANKS = new double[] { 0.05, 0.25, 0.5, 0.75, 0.95 };
+
+    private double[] values() {
+        RandomGenerator rg = new MersenneTwister(1);
+        double[] values = new double[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            values[i] = rg.nextGaussian() * 10 + rg.nextInt(3) * 20;
+        }
+        return values;
+    }
+
+    private void assertRankWithinError(double[] sorted, double rank, double estimate) {
+        int lower = lowerBound(sorted, estimate);
+        int upper = lowerBound(sorted, Math.nextUp(estimate));
+        double target = rank * sorted.length;
+        double distance = (target < lower ? lower - target : (target > upper ? target - upper : 0));
+        assertTrue(distance / sorted.length <= 2 * RANK_ERROR, "Rank " + rank + " estimated with error " + distance / sorted.length);
+    }
+
+    private int lowerBound(double[] sorted, double value) {
+        int idx = Arrays.binarySearch(sorted, value);
+        if (idx < 0) {
+            return -idx - 1;
+        }
+        while ((idx > 0) && (sorted[idx - 1] == value)) {
+            idx--;
+        }
+        return idx;
+    }
+
+    @Test
+    void shouldEstimateQuantilesWithinRankError() {
+        double[] values = values();
+        QuantileSketch sketch = new QuantileSketch(RANK_ERROR);
+        Arrays.stream(values).forEach(sketch::add);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(SAMPLES, sketch.getN());
+        assertEquals(sorted[0], sketch.getMin());
+        assertEquals(sorted[SAMPLES - 1], sketch.getMax());
+        double[] estimates = sketch.getQuantiles(RANKS);
+        for (int i = 0; i < RANKS.length; i++) {
+            assertRankWithinError(sorted, RANKS[i], estimates[i]);
+        }
+    }
+
+    @Test
+    void shouldMergeSketches() {
+        double[] values = values();
+        QuantileSketch[] sketches = new QuantileSketch[8];
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = new QuantileSketch(RANK_ERROR);
+        }
+        for (int i = 0; i < values.length; i++) {
+            sketches[i % sketches.length].add(values[i]);
+        }
+        QuantileSketch merged = new QuantileSketch(RANK_ERROR);
+        Arrays.stream(sketches).forEach(merged::merge);
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        assertEquals(SAMPLES, merged.getN());
+        for (double rank : RANKS) {
+            assertRankWithinError(sorted, rank, merged.getQuantile(rank));
+        }
+    }
+
+    @Test
+    void shouldRejectSketchesWithDifferentRankError() {
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        sketch.add(1.0);
+        QuantileSketch other = new QuantileSketch(0.05);
+        other.add(1.0);
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(other));
+    }
+
+    @Test
+    void shouldReturnNaNWhenEmpty() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.sampling;
+
+import it.unicam.quasylab.sibilla.core.models.pm.PopulationState;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.stat.descriptive.SummaryStatistics;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SummaryAccumulatorTest {
+
+    private static final int SIZE = 5;
+    private static final int SAMPLES = 1000;
+
+    private double[][] samples() {
+        RandomGenerator rg = new MersenneTwister(1);
+        double[][] values = new double[SAMPLES][SIZE];
+        for (int j = 0; j < SAMPLES; j++) {
+            for (int i = 0; i < SIZE; i++) {
+                values[j][i] = 100 + i * rg.nextGaussian();
+            }
+        }
+        return values;
+    }
+
+    private void assertSameStatistics(SummaryStatistics[] expected, SummaryAccumulator actual) {
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected[i].getN(), actual.getN());
+            assertEquals(expected[i].getMean(), actual.getMean(i), 1E-10);
+            assertEquals(expected[i].getStandardDeviation(), actual.getStandardDeviation(i), 1E-10);
+            assertEquals(expected[i].getMin(), actual.getMin(i));
+            assertEquals(expected[i].getMax(), actual.getMax(i));
+        }
+    }
+
+    private SummaryStatistics[] expected(double[][] values) {
+        SummaryStatistics[] expected = new SummaryStatistics[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            expected[i] = new SummaryStatistics();
+        }
+        for (double[] row : values) {
+            for (int i = 0; i < SIZE; i++) {
+                expected[i].addValue(row[i]);
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    void shouldComputeSameStatisticsOfSummaryStatistics() {
+        double[][] values = samples();
+        SummaryAccumulator accumulator = new SummaryAccumulator(SIZE);
+        for (double[] row : values) {
+            accumulator.add(row);
+        }
+        assertSameStatistics(expected(values), accumulator);
+    }
+
+    @Test
+    void shouldMergeShards() {
+        double[][] values = samples();
+        List<SummaryAccumulator> shards = new ArrayList<>();
+        for (int k = 0; k < 7; k++) {
+            shards.add(new SummaryAccumulator(SIZE));
+        }
+        for (int j = 0; j < values.length; j++) {
+            shards.get((j * j) % shards.size()).add(values[j]);
+        }
+        assertSameStatistics(expected(values), SummaryAccumulator.mergeAll(SIZE, shards));
+    }
+
+    @Test
+    void shouldReturnNaNWhenEmpty() {
+        SummaryAccumulator accumulator = SummaryAccumulator.mergeAll(SIZE, List.of(new SummaryAccumulator(SIZE)));
+        assertEquals(0, accumulator.getN());
+        assertTrue(Double.isNaN(accumulator.getMean(0)));
+        assertTrue(Double.isNaN(accumulator.getStandardDeviation(0)));
+    }
+
+    @Test
+    void shouldCollectValuesRecordedByDifferentThreads() throws InterruptedException {
+        SummaryStatisticSampling<PopulationState> sampling = new SummaryStatisticSampling<>(SIZE, 1.0, new SimpleMeasure<>("m", s -> 0.0));
+        double[][] values = samples();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (double[] row : values) {
+            executor.execute(() -> sampling.recordValues(row));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        assertSameStatistics(expected(values), sampling.getStatistics());
+    }
+
+}
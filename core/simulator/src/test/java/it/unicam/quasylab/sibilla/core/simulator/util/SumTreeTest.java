@@ -0,0 +1,115 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SumTreeTest {
+
+    @Test
+    void shouldMaintainTheTotalWeightAfterUpdates() {
+        SumTree tree = new SumTree(5);
+        assertEquals(0.0, tree.getTotalWeight());
+        tree.set(0, 1.0);
+        tree.set(2, 3.0);
+        tree.set(4, 4.0);
+        assertEquals(8.0, tree.getTotalWeight());
+        tree.set(2, 0.5);
+        assertEquals(5.5, tree.getTotalWeight());
+        assertEquals(0.5, tree.get(2));
+        tree.clear();
+        assertEquals(0.0, tree.getTotalWeight());
+        assertEquals(0.0, tree.get(4));
+    }
+
+    @Test
+    void shouldSelectByCumulativeWeight() {
+        SumTree tree = new SumTree(5);
+        tree.set(0, 1.0);
+        tree.set(2, 3.0);
+        tree.set(3, 4.0);
+        assertEquals(0, tree.select(0.0));
+        assertEquals(0, tree.select(0.99));
+        assertEquals(2, tree.select(1.0));
+        assertEquals(2, tree.select(3.99));
+        assertEquals(3, tree.select(4.0));
+        assertEquals(3, tree.select(7.99));
+        assertEquals(3, tree.select(8.0));
+    }
+
+    @Test
+    void shouldNeverSelectElementsWithZeroWeight() {
+        SumTree tree = new SumTree(7);
+        assertEquals(-1, tree.select(0.0));
+        tree.set(1, 2.0);
+        tree.set(5, 0.0);
+        for (double w = 0.0; w <= 2.0; w += 0.25) {
+            assertEquals(1, tree.select(w));
+        }
+        tree.set(1, 0.0);
+        assertEquals(-1, tree.select(1.0));
+    }
+
+    @Test
+    void shouldAgreeWithLinearSelection() {
+        RandomGenerator rg = new MersenneTwister(1);
+        int size = 37;
+        SumTree tree = new SumTree(size);
+        double[] weights = new double[size];
+        for (int k = 0; k < 1000; k++) {
+            int i = rg.nextInt(size);
+            weights[i] = (rg.nextBoolean() ? 0.0 : rg.nextDouble());
+            tree.set(i, weights[i]);
+            double total = 0.0;
+            for (double w : weights) {
+                total += w;
+            }
+            assertEquals(total, tree.getTotalWeight(), 1e-12);
+            if (total > 0) {
+                double w = rg.nextDouble() * tree.getTotalWeight();
+                int selected = tree.select(w);
+                double before = 0.0;
+                for (int j = 0; j < selected; j++) {
+                    before += weights[j];
+                }
+                assertTrue(weights[selected] > 0);
+                assertTrue(before <= w + 1e-12);
+                assertTrue(w < before + weights[selected] + 1e-12);
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectIndexesOutOfBounds() {
+        SumTree tree = new SumTree(3);
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.set(3, 1.0));
+        assertThrows(IndexOutOfBoundsException.class, () -> tree.set(-1, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new SumTree(-1));
+    }
+
+}
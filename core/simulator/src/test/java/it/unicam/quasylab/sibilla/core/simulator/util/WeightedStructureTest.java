@@ -0,0 +1,103 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.simulator.util;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedStructureTest {
+
+    private static final int SAMPLES = 100000;
+
+    private double[] frequencies(WeightedStructure<Integer> structure, int size) {
+        RandomGenerator rg = new MersenneTwister(1);
+        double[] counts = new double[size];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[structure.select(rg.nextDouble() * structure.getTotalWeight()).getElement()]++;
+        }
+        for (int i = 0; i < size; i++) {
+            counts[i] /= SAMPLES;
+        }
+        return counts;
+    }
+
+    private WeightedStructure<Integer> fill(WeightedStructureFactory factory, double... weights) {
+        WeightedStructure<Integer> structure = factory.createWeightedStructure();
+        for (int i = 0; i < weights.length; i++) {
+            structure = structure.add(weights[i], i);
+        }
+        return structure;
+    }
+
+    @Test
+    void shouldSelectProportionallyToWeights() {
+        for (WeightedStructureFactory factory : WeightedStructureFactory.values()) {
+            WeightedStructure<Integer> structure = fill(factory, 1.0, 0.0, 3.0, 4.0, 0.0);
+            assertEquals(8.0, structure.getTotalWeight(), 1E-10);
+            assertEquals(5, structure.getAll().size());
+            assertArrayEquals(new double[] { 0.125, 0.0, 0.375, 0.5, 0.0 }, frequencies(structure, 5), 0.01, factory.name());
+        }
+    }
+
+    @Test
+    void shouldReturnNullWhenEmpty() {
+        for (WeightedStructureFactory factory : new WeightedStructureFactory[] {
+                WeightedStructureFactory.FENWICK_TREE, WeightedStructureFactory.ALIAS_TABLE }) {
+            assertNull(factory.createWeightedStructure().select(0.0));
+            assertNull(fill(factory, 0.0, 0.0).select(0.0));
+        }
+    }
+
+    @Test
+    void shouldSelectInFenwickTree() {
+        WeightedFenwickTree<Integer> tree = new WeightedFenwickTree<>(2);
+        for (int i = 0; i < 10; i++) {
+            tree.add(1.0, i);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(Integer.valueOf(i), tree.select(i + 0.5).getElement());
+        }
+        assertEquals(Integer.valueOf(9), tree.select(10.0).getElement());
+    }
+
+    @Test
+    void shouldUpdateWeightsInFenwickTree() {
+        WeightedFenwickTree<Integer> tree = new WeightedFenwickTree<>();
+        for (int i = 0; i < 4; i++) {
+            tree.add(1.0, i);
+        }
+        tree.select(0.0);
+        tree.set(0, 0.0);
+        tree.set(2, 5.0);
+        assertEquals(7.0, tree.getTotalWeight(), 1E-10);
+        assertEquals(Integer.valueOf(1), tree.select(0.0).getElement());
+        assertEquals(Integer.valueOf(2), tree.select(1.0).getElement());
+        assertEquals(Integer.valueOf(3), tree.select(6.5).getElement());
+        assertArrayEquals(new double[] { 0.0, 1.0 / 7, 5.0 / 7, 1.0 / 7 }, frequencies(tree, 4), 0.01);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.util;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinomialSamplerTest {
+
+	private static final int SAMPLES = 20000;
+
+	private void checkMoments(RandomGenerator rg, int n, double p) {
+		double sum = 0.0;
+		double squares = 0.0;
+		for (int i = 0; i < SAMPLES; i++) {
+			int x = BinomialSampler.sample(rg, n, p);
+			assertTrue((x >= 0)&&(x <= n));
+			sum += x;
+			squares += (double) x*x;
+		}
+		double mean = sum/SAMPLES;
+		double variance = squares/SAMPLES-mean*mean;
+		double expectedVariance = n*p*(1-p);
+		assertEquals(n*p, mean, 5*Math.sqrt(expectedVariance/SAMPLES));
+		assertEquals(expectedVariance, variance, 0.1*expectedVariance);
+	}
+
+	@Test
+	public void shouldSampleWithTheExpectedMoments() {
+		RandomGenerator rg = new MersenneTwister(7);
+		checkMoments(rg, 10, 0.3);
+		checkMoments(rg, 1000, 0.01);
+		checkMoments(rg, 1000, 0.9);
+		checkMoments(rg, 1_000_000, 0.4);
+	}
+
+	@Test
+	public void shouldHandleDegenerateParameters() {
+		RandomGenerator rg = new MersenneTwister(7);
+		assertEquals(0, BinomialSampler.sample(rg, 10, 0.0));
+		assertEquals(10, BinomialSampler.sample(rg, 10, 1.0));
+		assertEquals(0, BinomialSampler.sample(rg, 0, 0.5));
+	}
+
+	@Test
+	public void multinomialShouldDistributeAllTheElements() {
+		RandomGenerator rg = new MersenneTwister(7);
+		int[] counts = new int[3];
+		BinomialSampler.multinomial(rg, 1000, new double[] { 0.2, 0.0, 0.3 }, 1, counts);
+		assertEquals(1000, counts[0]+counts[1]+counts[2]);
+	}
+
+}
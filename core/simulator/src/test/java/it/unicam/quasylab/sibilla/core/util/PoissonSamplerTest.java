@@ -0,0 +1,68 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.core.util;
+
+import org.apache.commons.math3.random.MersenneTwister;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoissonSamplerTest {
+
+	private static final int SAMPLES = 20000;
+
+	private void checkMoments(RandomGenerator rg, double mean) {
+		double sum = 0.0;
+		double squares = 0.0;
+		for (int i = 0; i < SAMPLES; i++) {
+			long x = PoissonSampler.sample(rg, mean);
+			assertTrue(x >= 0);
+			sum += x;
+			squares += (double) x*x;
+		}
+		double sampleMean = sum/SAMPLES;
+		double variance = squares/SAMPLES-sampleMean*sampleMean;
+		assertEquals(mean, sampleMean, 5*Math.sqrt(mean/SAMPLES));
+		assertEquals(mean, variance, 0.1*mean);
+	}
+
+	@Test
+	public void shouldSampleWithTheExpectedMoments() {
+		RandomGenerator rg = new MersenneTwister(7);
+		checkMoments(rg, 0.5);
+		checkMoments(rg, 9.5);
+		checkMoments(rg, 10.0);
+		checkMoments(rg, 250.0);
+		checkMoments(rg, 1.0E7);
+	}
+
+	@Test
+	public void shouldRejectInfiniteMeans() {
+		RandomGenerator rg = new MersenneTwister(7);
+		assertEquals(0, PoissonSampler.sample(rg, 0.0));
+		assertThrows(IllegalArgumentException.class, () -> PoissonSampler.sample(rg, Double.POSITIVE_INFINITY));
+	}
+
+}
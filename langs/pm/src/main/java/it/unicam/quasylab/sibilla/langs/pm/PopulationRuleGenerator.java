@@ -70,7 +70,13 @@ public class PopulationRuleGenerator extends PopulationModelBaseVisitor<List<Pop
     }
 
     public PopulationRule getRule(String name, Function<String,Double> evaluator, Map<String,Double> map, PopulationModelParser.Rule_bodyContext body) {
-        RateExpressionEvaluator expressionEvaluator =  new RateExpressionEvaluator(PopulationModelGenerator.combine(evaluator,map), registry);
+        Function<String,Double> resolver = PopulationModelGenerator.combine(evaluator,map);
+        RateExpressionEvaluator expressionEvaluator =  new RateExpressionEvaluator(resolver, registry);
+        SpeciesDependencyCollector dependencyCollector = new SpeciesDependencyCollector(resolver, registry);
+        body.rate.accept(dependencyCollector);
+        if (body.guard != null) {
+            body.guard.accept(dependencyCollector);
+        }
         BiPredicate<Double,PopulationState> biPredicate = (body.guard==null?null:body.guard.accept(expressionEvaluator.getPopulationPredicateEvaluator()));
         Predicate<PopulationState> predicate = null;
         if (biPredicate != null) {
@@ -81,7 +87,9 @@ public class PopulationRuleGenerator extends PopulationModelBaseVisitor<List<Pop
                 predicate,
                 PopulationModelGenerator.getPopulationArray(registry, evaluator, map, body.pre.species_pattern_element()),
                 PopulationModelGenerator.getPopulationArray(registry, evaluator, map, body.post.species_pattern_element()),
-                body.rate.accept(expressionEvaluator)
+                body.rate.accept(expressionEvaluator),
+                dependencyCollector.getDependencies(),
+                dependencyCollector.isPopulationSizeDependent()
         );
     }
 
@@ -0,0 +1,84 @@
+/*
+ * Sibilla:  a Java framework designed to support analysis of Collective
+ * Adaptive Systems.
+ *
+ *             Copyright (C) 2020.
+ *
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *            http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ *  or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package it.unicam.quasylab.sibilla.langs.pm;
+
+import it.unicam.quasylab.sibilla.core.models.pm.util.PopulationRegistry;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * This visitor collects the indexes of the species occurring in an expression. Visited expressions are
+ * the rate and the guard of a rule, and the collected indexes are used to compute rule dependencies.
+ */
+public class SpeciesDependencyCollector extends PopulationModelBaseVisitor<Boolean> {
+
+    private final Function<String, Double> resolver;
+    private final PopulationRegistry registry;
+    private final Set<Integer> dependencies = new TreeSet<>();
+    private boolean populationSizeDependent = false;
+
+    public SpeciesDependencyCollector(Function<String, Double> resolver, PopulationRegistry registry) {
+        this.resolver = resolver;
+        this.registry = registry;
+    }
+
+    @Override
+    protected Boolean defaultResult() {
+        return true;
+    }
+
+    @Override
+    public Boolean visitPopulationFractionExpression(PopulationModelParser.PopulationFractionExpressionContext ctx) {
+        populationSizeDependent = true;
+        IntStream.of(PopulationModelGenerator.getIndexes(resolver, registry, ctx.agent)).forEach(dependencies::add);
+        return true;
+    }
+
+    @Override
+    public Boolean visitPopulationSizeExpression(PopulationModelParser.PopulationSizeExpressionContext ctx) {
+        IntStream.of(PopulationModelGenerator.getIndexes(resolver, registry, ctx.agent)).forEach(dependencies::add);
+        return true;
+    }
+
+    /**
+     * Returns the indexes of the species occurring in the visited expressions.
+     *
+     * @return the indexes of the species occurring in the visited expressions.
+     */
+    public int[] getDependencies() {
+        return dependencies.stream().mapToInt(i -> i).toArray();
+    }
+
+    /**
+     * Returns true if a fraction of species occurs in the visited expressions.
+     *
+     * @return true if a fraction of species occurs in the visited expressions.
+     */
+    public boolean isPopulationSizeDependent() {
+        return populationSizeDependent;
+    }
+}
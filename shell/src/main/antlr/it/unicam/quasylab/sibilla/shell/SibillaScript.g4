@@ -39,15 +39,38 @@ command : module_command
         | add_all_measures_command
         | remove_all_measures_command
         | descriptive_statistics
+        | sketch_statistics
         | summary_statistics
         | show_statistics
         | predicates_command
         | first_passage_time
         | reachability_command
+        | mode_command
+        | modes_command
+        | backend_command
+        | backends_command
+        | solve_transient_command
+        | solve_reachability_command
+        | solve_steady_state_command
+        | states_count_command
+        | exact_error_command
+        | exact_states_command
         ;
 
 reachability_command: 'probreach' goal=STRING ('while' condition=STRING)? 'with' 'alpha' '='  alpha=REAL 'and' 'delta' '=' delta=REAL;
 
+solve_transient_command: 'solve' 'transient' (label=ID)?;
+
+solve_reachability_command: 'solve' 'reach' goal=STRING ('while' condition=STRING)? (label=ID)?;
+
+solve_steady_state_command: 'solve' 'steady' 'state' (label=ID)?;
+
+states_count_command: 'count' 'states';
+
+exact_error_command: 'exact' 'error' (value=REAL)?;
+
+exact_states_command: 'exact' 'states' (value=INTEGER)?;
+
 first_passage_time: 'fpt' name=STRING;
 
 show_statistics: 'show' 'statistics';
@@ -56,6 +79,8 @@ summary_statistics: 'summary' 'statistics';
 
 descriptive_statistics: 'descriptive' 'statistics';
 
+sketch_statistics: 'sketch' 'statistics' (error=REAL)?;
+
 quit_command: 'quit';
 
 
@@ -83,6 +108,18 @@ reset_command : 'reset' (name=STRING)?
 modules_command : 'modules'
         ;
 
+mode_command : 'mode' (name=STRING)?
+        ;
+
+modes_command : 'modes'
+        ;
+
+backend_command : 'backend' (name=STRING)?
+        ;
+
+backends_command : 'backends'
+        ;
+
 state_command : 'init' name=STRING ('(' values += REAL (',' values += REAL)* ')')?
         ;
 
@@ -26,6 +26,7 @@ package it.unicam.quasylab.sibilla.shell;
 import it.unicam.quasylab.sibilla.core.runtime.CommandExecutionException;
 import it.unicam.quasylab.sibilla.core.runtime.SibillaRuntime;
 import it.unicam.quasylab.sibilla.core.simulator.sampling.FirstPassageTimeResults;
+import it.unicam.quasylab.sibilla.core.simulator.sampling.QuantileSketch;
 import it.unicam.quasylab.sibilla.langs.util.ParseError;
 import it.unicam.quasylab.sibilla.langs.util.SibillaParseErrorListener;
 import org.antlr.v4.runtime.CharStream;
@@ -40,6 +41,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 public class SibillaShellInterpreter extends SibillaScriptBaseVisitor<Boolean> {
     public static final String MODULE_MESSAGE = "Module %s has been successfully loaded\n";
@@ -231,6 +233,53 @@ public class SibillaShellInterpreter extends SibillaScriptBaseVisitor<Boolean> {
         return printInfo("List of available modules:", modules);
     }
 
+    @Override
+    public Boolean visitMode_command(SibillaScriptParser.Mode_commandContext ctx) {
+        try {
+            if (ctx.name == null) {
+                showMessage(String.format("Current mode=%s", runtime.getMode()));
+                return true;
+            }
+            runtime.setMode(getStringContent(ctx.name.getText()));
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean visitModes_command(SibillaScriptParser.Modes_commandContext ctx) {
+        try {
+            return printInfo("List of available modes:", runtime.getModes());
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean visitBackend_command(SibillaScriptParser.Backend_commandContext ctx) {
+        try {
+            if (ctx.name == null) {
+                showMessage(String.format("Current backend=%s", runtime.getBackend()));
+                return true;
+            }
+            runtime.setBackend(getStringContent(ctx.name.getText()));
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+        }
+        return false;
+    }
+
+    @Override
+    public Boolean visitBackends_command(SibillaScriptParser.Backends_commandContext ctx) {
+        return printInfo("List of available backends:", runtime.getBackends());
+    }
+
     private Boolean printInfo(String head, String[] modules) {
         output.println(head);
         Arrays.stream(modules).forEach(output::println);
@@ -506,6 +555,18 @@ public class SibillaShellInterpreter extends SibillaScriptBaseVisitor<Boolean> {
         return true;
     }
 
+    @Override
+    public Boolean visitSketch_statistics(SibillaScriptParser.Sketch_statisticsContext ctx) {
+        try {
+            this.runtime.useSketchStatistics(ctx.error == null ? QuantileSketch.DEFAULT_RANK_ERROR : Double.parseDouble(ctx.error.getText()));
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+        }
+        return false;
+    }
+
     @Override
     public Boolean visitReachability_command(SibillaScriptParser.Reachability_commandContext ctx) {
         ShellSimulationMonitor monitor = null;
@@ -529,4 +590,91 @@ public class SibillaShellInterpreter extends SibillaScriptBaseVisitor<Boolean> {
             return false;
         }
     }
+
+    @Override
+    public Boolean visitSolve_transient_command(SibillaScriptParser.Solve_transient_commandContext ctx) {
+        try {
+            runtime.solveTransient(ctx.label == null ? null : ctx.label.getText());
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    @Override
+    public Boolean visitSolve_reachability_command(SibillaScriptParser.Solve_reachability_commandContext ctx) {
+        String goal = getStringContent(ctx.goal.getText());
+        String condition = (ctx.condition == null ? null : getStringContent(ctx.condition.getText()));
+        try {
+            double[][] data = runtime.solveReachability(condition, goal, ctx.label == null ? null : ctx.label.getText()).get(goal);
+            if (data.length > 0) {
+                showMessage("\nProbability: "+data[data.length-1][1]);
+            }
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    @Override
+    public Boolean visitSolve_steady_state_command(SibillaScriptParser.Solve_steady_state_commandContext ctx) {
+        try {
+            Map<String, double[][]> result = runtime.solveSteadyState(ctx.label == null ? null : ctx.label.getText());
+            output.println("Steady state:");
+            result.forEach((name, data) -> output.println(name+" = "+data[0][1]));
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    @Override
+    public Boolean visitStates_count_command(SibillaScriptParser.States_count_commandContext ctx) {
+        try {
+            showMessage("States: "+runtime.getStateSpaceSize());
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    @Override
+    public Boolean visitExact_error_command(SibillaScriptParser.Exact_error_commandContext ctx) {
+        if (ctx.value == null) {
+            showMessage("Exact analysis error: "+runtime.getExactAnalysisError());
+            return true;
+        }
+        try {
+            runtime.setExactAnalysisError(Double.parseDouble(ctx.value.getText()));
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
+
+    @Override
+    public Boolean visitExact_states_command(SibillaScriptParser.Exact_states_commandContext ctx) {
+        if (ctx.value == null) {
+            showMessage("Exact analysis state limit: "+runtime.getExactAnalysisStateLimit());
+            return true;
+        }
+        try {
+            runtime.setExactAnalysisStateLimit(Integer.parseInt(ctx.value.getText()));
+            showMessage(OK_MESSAGE);
+            return true;
+        } catch (NumberFormatException e) {
+            printErrorMessages(List.of("State limit must be a positive integer!"));
+            return false;
+        } catch (CommandExecutionException e) {
+            printErrorMessages(e.getErrorMessages());
+            return false;
+        }
+    }
 }